@@ -0,0 +1,482 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates the soft constraints of many schedules at once.
+ * The soft constraints are compiled into primitive arrays when the evaluator is created, and
+ * schedules are encoded as slot indices (one int per class, -1 if unassigned), so a population is
+ * a flat int[population size * number of classes] array that is scored in a few tight loops.
+ * The result is the same Eval value as {@link SoftConstraint#eval(List)}.
+ */
+public class BatchEvaluator {
+    // Encoding of a class without a slot, and of a slot that is not in the course or lab slots
+    public static final int UNASSIGNED = -1;
+    public static final int UNKNOWN = -2;
+
+    private final int numCourses;
+    private final int numClasses;
+    private final int wMinFilled;
+    private final int wPref;
+    private final int wPair;
+    private final int wSecDiff;
+    private final int wPerturb;
+
+    // Minimal fill of each course/lab slot, -1 if the slot has no minimum
+    private final int[] courseSlotMin;
+    private final int[] labSlotMin;
+    private final int penCourseMin;
+    private final int penLabMin;
+
+    // Day and time of each course/lab slot, numbered across course and lab slots
+    private final int[] courseSlotTime;
+    private final int[] labSlotTime;
+    private final int numTimes;
+
+    // Preferences: class, preferred day and time, and penalty
+    private final int[] prefClass;
+    private final int[] prefTime;
+    private final int[] prefValue;
+    // Set if a preference value could not be parsed, as SoftConstraint then reports Integer.MAX_VALUE
+    private final boolean prefInvalid;
+
+    // Pair statements between two classes
+    private final int[] pairFirst;
+    private final int[] pairSecond;
+    private final int penNotPaired;
+
+    // Course (e.g. CPSC 433) of each lecture section, for the section difference penalty
+    private final int[] courseGroup;
+    private final int numGroups;
+    private final int penSection;
+
+    // Distance to the reference schedule, null if there is no minimal-perturbation penalty
+    private final Perturbation perturbation;
+
+    // Scratch buffers of each thread, reused by every evaluation
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Per-thread buffers for the evaluation loops.
+     */
+    private final class Scratch {
+        // Encoding of a single schedule
+        private final int[] row = new int[BatchEvaluator.this.numClasses];
+        private final int[] courseCount = new int[BatchEvaluator.this.courseSlotMin.length];
+        private final int[] labCount = new int[BatchEvaluator.this.labSlotMin.length];
+        private final int[] sectionCount = new int[BatchEvaluator.this.numGroups * BatchEvaluator.this.numTimes];
+        private final int[] touched = new int[BatchEvaluator.this.numCourses];
+    }
+
+    /**
+     * Constructor for the batch evaluator of the current problem instance.
+     * @param weights - wMinFilled, wPref, wPair, wSecDiff and wPerturb.
+     * @param penalties - penCourseMin, penLabMin, penNotPaired and penSection.
+     * @param perturbation - The distance to the reference schedule, or null if there is none.
+     */
+    public BatchEvaluator(int[] weights, int[] penalties, Perturbation perturbation) {
+        List<List<String>> courses = Scheduler.getCourses();
+        List<List<String>> labs = Scheduler.getLabs();
+        List<List<String>> courseSlots = Scheduler.getCourseSlots();
+        List<List<String>> labSlots = Scheduler.getLabSlots();
+        this.numCourses = courses.size();
+        this.numClasses = this.numCourses + labs.size();
+        this.wMinFilled = weights[0];
+        this.wPref = weights[1];
+        this.wPair = weights[2];
+        this.wSecDiff = weights[3];
+        this.wPerturb = weights[4];
+        this.penCourseMin = penalties[0];
+        this.penLabMin = penalties[1];
+        this.penNotPaired = penalties[2];
+        this.penSection = penalties[3];
+        this.perturbation = perturbation;
+
+        // Number the days and times of the slots, e.g. [MO, 8:00] -> 0
+        Map<List<String>, Integer> times = new HashMap<>();
+        this.courseSlotTime = BatchEvaluator.slotTimes(courseSlots, times);
+        this.labSlotTime = BatchEvaluator.slotTimes(labSlots, times);
+        this.numTimes = times.size();
+        this.courseSlotMin = BatchEvaluator.slotMinimums(courseSlots);
+        this.labSlotMin = BatchEvaluator.slotMinimums(labSlots);
+
+        // Preferences for slots that exist and classes that are known
+        List<int[]> prefs = new ArrayList<>();
+        boolean invalid = false;
+        for (ArrayList<List<String>> preference : Scheduler.getPreferences()) {
+            List<String> preferredSlot = Arrays.asList(preference.get(0).get(0), preference.get(1).get(0));
+            List<String> classIdentifier = preference.get(2);
+            int value;
+            try {
+                value = Integer.parseInt(preference.get(3).get(0));
+            } catch (NumberFormatException e) {
+                invalid = true;
+                break;
+            }
+            boolean isLab = BatchEvaluator.isLabOrTutorial(classIdentifier);
+            Integer time = times.get(preferredSlot);
+            int classIndex = this.classIndex(classIdentifier);
+            if (time == null || classIndex < 0 || !BatchEvaluator.hasTime(isLab ? this.labSlotTime
+                : this.courseSlotTime, time)) {
+                continue;
+            }
+            prefs.add(new int[] {classIndex, time, value});
+        }
+        this.prefInvalid = invalid;
+        this.prefClass = prefs.stream().mapToInt(p -> p[0]).toArray();
+        this.prefTime = prefs.stream().mapToInt(p -> p[1]).toArray();
+        this.prefValue = prefs.stream().mapToInt(p -> p[2]).toArray();
+
+        // Pairs of known classes
+        List<int[]> pairList = new ArrayList<>();
+        for (ArrayList<List<String>> pair : Scheduler.getPairs()) {
+            int first = this.classIndex(pair.get(0));
+            int second = this.classIndex(pair.get(1));
+            if (first >= 0 && second >= 0) {
+                pairList.add(new int[] {first, second});
+            }
+        }
+        this.pairFirst = pairList.stream().mapToInt(p -> p[0]).toArray();
+        this.pairSecond = pairList.stream().mapToInt(p -> p[1]).toArray();
+
+        // Group the lecture sections by course, e.g. [CPSC, 433]
+        Map<List<String>, Integer> groups = new HashMap<>();
+        this.courseGroup = new int[this.numCourses];
+        for (int i = 0; i < this.numCourses; i++) {
+            this.courseGroup[i] = groups.computeIfAbsent(courses.get(i).subList(0, 2), k -> groups.size());
+        }
+        this.numGroups = groups.size();
+    }
+
+    /**
+     * Encodes a schedule as slot indices.
+     * @param pr - The schedule.
+     * @param out - The array to write the encoding to.
+     * @param offset - The position of the schedule's first class in out.
+     */
+    public void encode(List<List<String>> pr, int[] out, int offset) {
+        HardConstraint constr = Scheduler.getConstr();
+        for (int i = 0; i < this.numClasses; i++) {
+            List<String> slot = pr.get(i);
+            if (slot.equals(Scheduler.UNASSIGNED_SLOT)) {
+                out[offset + i] = BatchEvaluator.UNASSIGNED;
+            } else {
+                int slotIndex = constr.slotIndex(i, slot);
+                out[offset + i] = slotIndex < 0 ? BatchEvaluator.UNKNOWN : slotIndex;
+            }
+        }
+    }
+
+    /**
+     * Encodes a population as a flat array, one row of slot indices per schedule.
+     * @param population - The schedules.
+     * @return The encoded population.
+     */
+    public int[] encode(List<List<List<String>>> population) {
+        int[] encoded = new int[population.size() * this.numClasses];
+        for (int i = 0; i < population.size(); i++) {
+            this.encode(population.get(i), encoded, i * this.numClasses);
+        }
+        return encoded;
+    }
+
+    /**
+     * Evaluates a single schedule.
+     * @param pr - The schedule.
+     * @return The Eval value.
+     */
+    public int eval(List<List<String>> pr) {
+        Scratch buffers = this.scratch.get();
+        this.encode(pr, buffers.row, 0);
+        return this.evalRow(buffers.row, 0, true, buffers);
+    }
+
+    /**
+     * Evaluates an encoded population.
+     * @param population - The encoded schedules, numClasses slot indices each.
+     * @param count - The number of schedules.
+     * @return The Eval value of each schedule.
+     */
+    public int[] eval(int[] population, int count) {
+        int[] result = new int[count];
+        Scratch buffers = this.scratch.get();
+        for (int row = 0; row < count; row++) {
+            result[row] = this.evalRow(population, row * this.numClasses, true, buffers);
+        }
+        return result;
+    }
+
+    /**
+     * Estimates the soft penalty of a partial schedule, leaving out the minimum-fill penalty
+     * like {@link SoftConstraint#estimate(List)}.
+     * @param pr - The partial schedule.
+     * @return The estimated Eval value of the assigned part.
+     */
+    public int estimate(List<List<String>> pr) {
+        Scratch buffers = this.scratch.get();
+        this.encode(pr, buffers.row, 0);
+        return this.evalRow(buffers.row, 0, false, buffers);
+    }
+
+    /**
+     * Returns how much the Eval value changes when an unassigned class is assigned to each of its slots,
+     * given the classes assigned so far. Preferences of the class, pairs with partners already placed
+     * and sections of the same course at the same day and time add to it, as does leaving the reference
+     * slot of the class; bringing a slot up to its minimum fill takes the minimum-fill penalty off.
+     * @param pr - The partial schedule.
+     * @param classIndex - The index of the unassigned class.
+     * @return The marginal penalty of each course slot for a course, or of each lab slot for a lab.
+     */
+    public int[] marginalPenalties(List<List<String>> pr, int classIndex) {
+        Scratch buffers = this.scratch.get();
+        int[] row = buffers.row;
+        this.encode(pr, row, 0);
+        boolean isLab = classIndex >= this.numCourses;
+        int[] slotTime = isLab ? this.labSlotTime : this.courseSlotTime;
+        int[] slotMin = isLab ? this.labSlotMin : this.courseSlotMin;
+        int[] penalties = new int[slotTime.length];
+        // Minimum fill: count the classes of the same kind per slot
+        int[] count = isLab ? buffers.labCount : buffers.courseCount;
+        Arrays.fill(count, 0);
+        for (int i = isLab ? this.numCourses : 0; i < (isLab ? this.numClasses : this.numCourses); i++) {
+            if (row[i] >= 0) {
+                count[row[i]]++;
+            }
+        }
+        int penMin = isLab ? this.penLabMin : this.penCourseMin;
+        for (int s = 0; s < slotTime.length; s++) {
+            if (count[s] < slotMin[s] && count[s] + 1 >= slotMin[s]) {
+                penalties[s] -= this.wMinFilled * penMin;
+            }
+        }
+        // Distance to the reference schedule
+        if (this.perturbation != null) {
+            for (int s = 0; s < slotTime.length; s++) {
+                penalties[s] += this.wPerturb * this.perturbation.cost(classIndex, s);
+            }
+        }
+        // Preferences of the class
+        if (!this.prefInvalid) {
+            for (int p = 0; p < this.prefClass.length; p++) {
+                if (this.prefClass[p] != classIndex) {
+                    continue;
+                }
+                for (int s = 0; s < slotTime.length; s++) {
+                    if (slotTime[s] != this.prefTime[p]) {
+                        penalties[s] += this.wPref * this.prefValue[p];
+                    }
+                }
+            }
+        }
+        // Pairs with a partner that is already placed
+        for (int p = 0; p < this.pairFirst.length; p++) {
+            int partner = this.pairFirst[p] == classIndex ? this.pairSecond[p]
+                : this.pairSecond[p] == classIndex ? this.pairFirst[p] : -1;
+            int partnerTime = partner < 0 ? -1 : this.time(row, 0, partner);
+            if (partnerTime < 0) {
+                continue;
+            }
+            for (int s = 0; s < slotTime.length; s++) {
+                if (slotTime[s] != partnerTime) {
+                    penalties[s] += this.wPair * this.penNotPaired;
+                }
+            }
+        }
+        // Section difference: other sections of the course already at the same day and time
+        if (!isLab) {
+            int[] sectionCount = buffers.sectionCount;
+            int group = this.courseGroup[classIndex];
+            for (int i = 0; i < this.numCourses; i++) {
+                if (i != classIndex && row[i] >= 0 && this.courseGroup[i] == group) {
+                    sectionCount[group * this.numTimes + this.courseSlotTime[row[i]]]++;
+                }
+            }
+            for (int s = 0; s < slotTime.length; s++) {
+                if (sectionCount[group * this.numTimes + slotTime[s]] > 0) {
+                    penalties[s] += this.wSecDiff * this.penSection;
+                }
+            }
+            Arrays.fill(sectionCount, group * this.numTimes, (group + 1) * this.numTimes, 0);
+        }
+        return penalties;
+    }
+
+    /**
+     * Evaluates one encoded schedule.
+     * @param population - The encoded schedules.
+     * @param offset - The position of the schedule's first class.
+     * @param minFill - Whether to count the minimum-fill penalty.
+     * @param buffers - The scratch buffers of the calling thread.
+     * @return The Eval value, at most Integer.MAX_VALUE, which is also returned if a slot is unknown.
+     */
+    private int evalRow(int[] population, int offset, boolean minFill, Scratch buffers) {
+        int[] courseCount = buffers.courseCount;
+        int[] labCount = buffers.labCount;
+        int[] sectionCount = buffers.sectionCount;
+        int[] touched = buffers.touched;
+        // Minimum fill: count the classes per slot, and sum up the distance to the reference schedule
+        Arrays.fill(courseCount, 0);
+        Arrays.fill(labCount, 0);
+        int perturb = 0;
+        for (int i = 0; i < this.numClasses; i++) {
+            int slot = population[offset + i];
+            if (slot >= 0) {
+                if (this.perturbation != null) {
+                    perturb += this.perturbation.cost(i, slot);
+                }
+                if (i < this.numCourses) {
+                    courseCount[slot]++;
+                } else {
+                    labCount[slot]++;
+                }
+            } else if (slot == BatchEvaluator.UNKNOWN) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        int minFilled = 0;
+        if (minFill) {
+            for (int s = 0; s < courseCount.length; s++) {
+                if (courseCount[s] < this.courseSlotMin[s]) {
+                    minFilled += this.penCourseMin;
+                }
+            }
+            for (int s = 0; s < labCount.length; s++) {
+                if (labCount[s] < this.labSlotMin[s]) {
+                    minFilled += this.penLabMin;
+                }
+            }
+        }
+        // Preferences: penalty for every assigned class outside its preferred day and time
+        int pref = 0;
+        if (this.prefInvalid) {
+            pref = Integer.MAX_VALUE;
+        } else {
+            for (int p = 0; p < this.prefClass.length; p++) {
+                int time = this.time(population, offset, this.prefClass[p]);
+                if (time >= 0 && time != this.prefTime[p]) {
+                    pref += this.prefValue[p];
+                }
+            }
+        }
+        // Pairs: penalty for every pair of assigned classes at different days or times
+        int pair = 0;
+        for (int p = 0; p < this.pairFirst.length; p++) {
+            int first = this.time(population, offset, this.pairFirst[p]);
+            int second = this.time(population, offset, this.pairSecond[p]);
+            if (first >= 0 && second >= 0 && first != second) {
+                pair += this.penNotPaired;
+            }
+        }
+        // Section difference: penalty for every further section of a course at the same day and time
+        int secDiff = 0;
+        int numTouched = 0;
+        for (int i = 0; i < this.numCourses; i++) {
+            int slot = population[offset + i];
+            if (slot < 0) {
+                continue;
+            }
+            int cell = this.courseGroup[i] * this.numTimes + this.courseSlotTime[slot];
+            if (sectionCount[cell]++ == 0) {
+                touched[numTouched++] = cell;
+            } else {
+                secDiff += this.penSection;
+            }
+        }
+        for (int t = 0; t < numTouched; t++) {
+            sectionCount[touched[t]] = 0;
+        }
+        // Sum in long, as an unparsable preference value counts as Integer.MAX_VALUE
+        long total = (long) this.wMinFilled * minFilled + (long) this.wPref * pref + (long) this.wPair * pair
+            + (long) this.wSecDiff * secDiff + (long) this.wPerturb * perturb;
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the day and time of a class in an encoded schedule.
+     * @param population - The encoded schedules.
+     * @param offset - The position of the schedule's first class.
+     * @param classIndex - The index of the class.
+     * @return The day and time number, or -1 if the class is unassigned.
+     */
+    private int time(int[] population, int offset, int classIndex) {
+        int slot = population[offset + classIndex];
+        if (slot < 0) {
+            return -1;
+        }
+        return classIndex < this.numCourses ? this.courseSlotTime[slot] : this.labSlotTime[slot];
+    }
+
+    /**
+     * Returns the PR index of a course or lab identifier.
+     * @param classIdentifier - e.g. [CPSC, 433, LEC, 01, TUT, 01]
+     * @return The index in the PR list, or -1 if the class is unknown.
+     */
+    private int classIndex(List<String> classIdentifier) {
+        if (BatchEvaluator.isLabOrTutorial(classIdentifier)) {
+            int labIndex = Scheduler.getLabs().indexOf(classIdentifier);
+            return labIndex < 0 ? -1 : this.numCourses + labIndex;
+        }
+        return Scheduler.getCourses().indexOf(classIdentifier);
+    }
+
+    /**
+     * Determines if the provided class identifier corresponds to a lab or tutorial.
+     * @param classIdentifier - The class identifier.
+     * @return true if the identifier represents a lab or tutorial.
+     */
+    private static boolean isLabOrTutorial(List<String> classIdentifier) {
+        return classIdentifier.contains("TUT") || classIdentifier.contains("LAB");
+    }
+
+    /**
+     * Numbers the day and time of each slot.
+     * @param slots - The course or lab slots.
+     * @param times - The numbers given so far, extended with new days and times.
+     * @return The number of each slot's day and time.
+     */
+    private static int[] slotTimes(List<List<String>> slots, Map<List<String>, Integer> times) {
+        int[] slotTime = new int[slots.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            List<String> key = Arrays.asList(slots.get(i).get(0), slots.get(i).get(1));
+            slotTime[i] = times.computeIfAbsent(key, k -> times.size());
+        }
+        return slotTime;
+    }
+
+    /**
+     * Returns whether any slot has the given day and time.
+     * @param slotTime - The day and time number of each slot.
+     * @param time - The day and time number.
+     * @return true if a slot has the day and time.
+     */
+    private static boolean hasTime(int[] slotTime, int time) {
+        for (int t : slotTime) {
+            if (t == time) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the minimal fill of each slot, e.g. 2 for [MO, 8:00, 3, 2].
+     * @param slots - The course or lab slots.
+     * @return The minimal fill of each slot, -1 if the slot has none.
+     */
+    private static int[] slotMinimums(List<List<String>> slots) {
+        int[] minimums = new int[slots.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            minimums[i] = -1;
+            if (slots.get(i).size() > 3) {
+                try {
+                    minimums[i] = Integer.parseInt(slots.get(i).get(3));
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid minValue format at BatchEvaluator.java");
+                }
+            }
+        }
+        return minimums;
+    }
+}
@@ -0,0 +1,214 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The blocks of the block variable mode: a lecture together with the labs and tutorials of its own
+ * section, e.g. CPSC 433 LEC 01 with CPSC 433 LEC 01 TUT 01, assigned or moved as one compound
+ * decision. For every course slot of a lecture, the slots of each of its labs that do not overlap
+ * with it (and that the presolve pass allows) are precomputed, so the labs are only ever tried in
+ * slots compatible with their lecture, those with the most room left first. Labs open to all
+ * sections of a course, e.g. CPSC 567 TUT 01, belong to no block and stay variables of their own.
+ * As a block fills several lab slots at once, a completed block is also checked with the
+ * capacity and 500-level matchings, so it does not take the slots other labs still need.
+ */
+public class Blocks {
+    // Constraint checks spent on completing a block, per compatible lab slot, before giving up on the lecture's slot
+    private static final int CHECKS_PER_SLOT = 2;
+
+    private final HardConstraint constr;
+    private final Propagator propagator;
+    private final List<List<String>> labSlots;
+    // The capacity (labmax) of each lab slot
+    private final int[] labCapacity;
+    // The labs of each course's block, as PR indices
+    private final int[][] labsOf;
+    // For each course, course slot and lab of the block: the compatible lab slot indices
+    private final int[][][][] compatible;
+    private int numBlocks;
+
+    /**
+     * Constructor for the blocks of the current problem instance.
+     * @param constr - The hard constraints, with the classes and the lecture/lab overlap rule.
+     * @param presolve - The presolve pass with the slots each class may take.
+     * @param propagator - The matchings a completed block must still satisfy.
+     */
+    public Blocks(HardConstraint constr, Presolve presolve, Propagator propagator) {
+        this.constr = constr;
+        this.propagator = propagator;
+        this.labSlots = Scheduler.getLabSlots();
+        Classes[] classesArr = constr.getClassesArr();
+        List<List<String>> courseSlots = Scheduler.getCourseSlots();
+        this.labCapacity = new int[this.labSlots.size()];
+        for (int s = 0; s < this.labSlots.size(); s++) {
+            this.labCapacity[s] = constr.getSlotsArr()[courseSlots.size() + s].getMax();
+        }
+        int numCourses = Scheduler.getCourses().size();
+        this.labsOf = new int[numCourses][];
+        this.compatible = new int[numCourses][][][];
+        for (int i = 0; i < numCourses; i++) {
+            List<Integer> labs = new ArrayList<>();
+            for (List<String> lab : classesArr[i].getLabList()) {
+                // Only the labs of this section, not those open to every section of the course
+                int labIndex = constr.classIndex(lab);
+                if (labIndex >= 0 && lab.contains("LEC")) {
+                    labs.add(labIndex);
+                }
+            }
+            this.labsOf[i] = labs.stream().mapToInt(Integer::intValue).toArray();
+            if (this.labsOf[i].length == 0) {
+                continue;
+            }
+            this.numBlocks++;
+            this.compatible[i] = new int[courseSlots.size()][][];
+            for (int c = 0; c < courseSlots.size(); c++) {
+                this.compatible[i][c] = new int[this.labsOf[i].length][];
+                for (int l = 0; l < this.labsOf[i].length; l++) {
+                    int labIndex = this.labsOf[i][l];
+                    List<Integer> slots = new ArrayList<>();
+                    for (int s = 0; s < this.labSlots.size(); s++) {
+                        if (presolve.allows(labIndex, s)
+                            && constr.lectureLabCompatible(courseSlots.get(c), this.labSlots.get(s))) {
+                            slots.add(s);
+                        }
+                    }
+                    this.compatible[i][c][l] = slots.stream().mapToInt(Integer::intValue).toArray();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a class is the lecture of a block.
+     * @param classIndex - The index of the class in the PR list.
+     * @return true if the class is a course with labs of its own.
+     */
+    public boolean isBlock(int classIndex) {
+        return classIndex < this.labsOf.length && this.labsOf[classIndex].length > 0;
+    }
+
+    /**
+     * Returns the labs of a lecture's block.
+     * @param courseIndex - The index of the course in the PR list.
+     * @return The PR indices of its labs.
+     */
+    public int[] getLabs(int courseIndex) {
+        return this.labsOf[courseIndex];
+    }
+
+    /**
+     * Returns the number of lectures with labs of their own.
+     * @return The number of blocks.
+     */
+    public int getNumBlocks() {
+        return this.numBlocks;
+    }
+
+    /**
+     * Assigns the unassigned labs of a block whose lecture is assigned, trying each lab only in the
+     * slots compatible with the lecture's slot and backtracking over the labs if needed.
+     * @param pr - The partial assignment, satisfying constrStar; the labs are assigned in place.
+     * @param courseIndex - The index of the lecture.
+     * @param rand - A random number generator to break ties between slots, or null for slot order.
+     * @return true if every lab of the block is assigned; otherwise pr is left unchanged.
+     */
+    public boolean complete(List<List<String>> pr, int courseIndex, Random rand) {
+        int courseSlot = this.constr.slotIndex(courseIndex, pr.get(courseIndex));
+        if (!this.isBlock(courseIndex) || courseSlot < 0) {
+            return false;
+        }
+        int[][] options = this.compatible[courseIndex][courseSlot];
+        // The unassigned labs, those with the fewest compatible slots first
+        Integer[] order = new Integer[options.length];
+        int count = 0;
+        int budget = 0;
+        for (int l = 0; l < options.length; l++) {
+            if (pr.get(this.labsOf[courseIndex][l]).equals(Scheduler.UNASSIGNED_SLOT)) {
+                order[count++] = l;
+                budget += Blocks.CHECKS_PER_SLOT * options[l].length;
+            }
+        }
+        Arrays.sort(order, 0, count, (a, b) -> Integer.compare(options[a].length, options[b].length));
+        // The room left in each lab slot
+        int[] room = this.labCapacity.clone();
+        for (int i = Scheduler.getCourses().size(); i < pr.size(); i++) {
+            int slotIndex = this.constr.slotIndex(i, pr.get(i));
+            if (slotIndex >= 0) {
+                room[slotIndex]--;
+            }
+        }
+        return this.assign(pr, courseIndex, options, order, count, 0, room, rand, new int[] {budget});
+    }
+
+    /**
+     * Copies a lecture's labs from a parent, e.g. when the crossover inherits the lecture from it.
+     * @param pr - The partial assignment, with the lecture already assigned; the labs are assigned in place.
+     * @param courseIndex - The index of the lecture.
+     * @param parent - The parent schedule.
+     * @return true if the labs were copied and the assignment still satisfies constrStar;
+     *         otherwise pr is left unchanged.
+     */
+    public boolean inherit(List<List<String>> pr, int courseIndex, List<List<String>> parent) {
+        if (!this.isBlock(courseIndex)) {
+            return false;
+        }
+        List<Integer> copied = new ArrayList<>();
+        for (int labIndex : this.labsOf[courseIndex]) {
+            if (pr.get(labIndex).equals(Scheduler.UNASSIGNED_SLOT)) {
+                pr.set(labIndex, parent.get(labIndex));
+                copied.add(labIndex);
+            }
+        }
+        if (copied.isEmpty() || this.constr.constrStar(pr)) {
+            return !copied.isEmpty();
+        }
+        for (int labIndex : copied) {
+            pr.set(labIndex, Scheduler.UNASSIGNED_SLOT);
+        }
+        return false;
+    }
+
+    /**
+     * Assigns the labs of a block from the given position on, depth first.
+     * @param pr - The partial assignment.
+     * @param courseIndex - The index of the lecture.
+     * @param options - The compatible slots of each lab for the lecture's slot.
+     * @param order - The positions of the unassigned labs in the block, in assignment order.
+     * @param count - The number of unassigned labs.
+     * @param position - The position in the order to assign next.
+     * @param room - The room left in each lab slot, kept up to date.
+     * @param rand - A random number generator, or null for slot order.
+     * @param budget - The constraint checks left, shared by the whole search.
+     * @return true if the labs from the position on were assigned and the block leaves room for the rest.
+     */
+    private boolean assign(List<List<String>> pr, int courseIndex, int[][] options, Integer[] order, int count,
+            int position, int[] room, Random rand, int[] budget) {
+        if (position == count) {
+            return this.propagator.propagate(pr);
+        }
+        int labIndex = this.labsOf[courseIndex][order[position]];
+        int[] compatibleSlots = options[order[position]];
+        // The slots with the most room left first, so the block does not fill the slots others need
+        Integer[] slots = new Integer[compatibleSlots.length];
+        int start = rand == null || slots.length == 0 ? 0 : rand.nextInt(slots.length);
+        for (int k = 0; k < slots.length; k++) {
+            slots[k] = compatibleSlots[(start + k) % slots.length];
+        }
+        Arrays.sort(slots, Comparator.comparingInt(slot -> -room[slot]));
+        for (int k = 0; k < slots.length && budget[0] > 0 && room[slots[k]] > 0; k++) {
+            pr.set(labIndex, this.labSlots.get(slots[k]));
+            room[slots[k]]--;
+            budget[0]--;
+            boolean assigned = this.constr.constrStar(pr)
+                && this.assign(pr, courseIndex, options, order, count, position + 1, room, rand, budget);
+            room[slots[k]]++;
+            if (assigned) {
+                return true;
+            }
+        }
+        pr.set(labIndex, Scheduler.UNASSIGNED_SLOT);
+        return false;
+    }
+}
@@ -5,12 +5,6 @@ import java.util.List;
  * Data structure for classes
  */
 public class Classes {
-    // Static variables to store the courses, labs, notCompatible, and unwantedTimes lists.
-    private static final List<List<String>> courses = Scheduler.getCourses();
-    private static final List<List<String>> labs = Scheduler.getLabs();
-    private static final List<ArrayList<List<String>>> notCompatible = Scheduler.getNotCompatible();
-    private static final List<ArrayList<List<String>>> unwantedTimes = Scheduler.getUnwanted();
-
     // Static variables to store the priority score for evening classes.
     private static final int EVENING = 50;
 
@@ -47,10 +41,10 @@ public class Classes {
         try {
             this.index = type.equals("course")
                 ? index
-                : index + Classes.courses.size();
+                : index + Scheduler.getCourses().size();
             this.name = type.equals("course")
-                ? Classes.courses.get(index)
-                : Classes.labs.get(index);
+                ? Scheduler.getCourses().get(index)
+                : Scheduler.getLabs().get(index);
         } catch (IndexOutOfBoundsException e) {
             throw new IndexOutOfBoundsException("Invalid index for class " + index + " at Classes.java");
         }
@@ -59,7 +53,7 @@ public class Classes {
         this.isEvening = this.name.size() > 3 && this.name.get(3).startsWith("9");
         // Populate incompatible classes based on the notCompatible list.
         // e.g. [[CPSC, 433, LEC, 01, TUT, 01], [CPSC, 433, LEC, 02, LAB, 02]]
-        for (List<List<String>> pair : Classes.notCompatible) {
+        for (List<List<String>> pair : Scheduler.getNotCompatible()) {
             // e.g. [CPSC, 433, LEC, 01] is incompatible with [CPSC, 433, LEC, 02]
             if (pair.get(0).equals(this.name)) {
                 this.incompatible.add(pair.get(1));
@@ -69,14 +63,14 @@ public class Classes {
         }
         // Populate unwanted times for this class.
         // e.g. [[CPSC, 433, LEC, 01], [MO], [8:00]]
-        for (ArrayList<List<String>> unwantedTime : Classes.unwantedTimes) {
+        for (ArrayList<List<String>> unwantedTime : Scheduler.getUnwanted()) {
             // e.g. [CPSC, 433, LEC, 01] is unwanted at [MO] [8:00]
             if (unwantedTime.get(0).equals(this.name)) {
                 this.unwanted.add(unwantedTime);
             }
         }
         // Populate the list of associated labs if this is a course.
-        for (List<String> labName : Classes.labs) {
+        for (List<String> labName : Scheduler.getLabs()) {
             // e.g. [CPSC, 433, LEC, 01, TUT, 01] contains [CPSC, 433, LEC, 01]
             if (labName.containsAll(this.name)) {
                 this.labList.add(labName);
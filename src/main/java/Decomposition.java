@@ -0,0 +1,290 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the classes into groups that are only coupled through the slot capacities and solves
+ * the groups independently and in parallel.
+ * Two classes are linked if they are a course and one of its labs, a not-compatible or pair statement,
+ * two sections of the same course or two 500-level courses (or labs). A class fixed by a partial
+ * assignment only restricts the slots of its neighbours, so it does not link them.
+ * The solutions of the groups are merged and over-full slots are repaired afterwards.
+ */
+public class Decomposition {
+    // Components smaller than this are solved together, as a search of their own is not worth it
+    private static final int MIN_TASK_SIZE = 8;
+    // Number of attempts to repair over-full slots after merging, and the search steps allowed per class
+    private static final int REPAIR_ATTEMPTS = 4;
+    private static final int REPAIR_STEPS_PER_CLASS = 50;
+    // Stack size of the worker threads, as the or-tree search recurses deeply (like -Xss1g)
+    private static final long STACK_SIZE = 1L << 30;
+
+    // The classes of each task, in most-tightly-bound order
+    private final List<ArrayList<Integer>> tasks = new ArrayList<>();
+    private final int numComponents;
+    private final int largestComponent;
+    // Number of worker threads of each solve
+    private final int threads;
+
+    /**
+     * Constructor for the decomposition of the current problem instance.
+     * @param initialPR - The starting point of the search, with the partial assignments.
+     */
+    public Decomposition(List<List<String>> initialPR) {
+        HardConstraint constr = Scheduler.getConstr();
+        Classes[] classesArr = constr.getClassesArr();
+        int numClasses = classesArr.length;
+        int numCourses = Scheduler.getCourses().size();
+        boolean[] free = new boolean[numClasses];
+        for (int i = 0; i < numClasses; i++) {
+            free[i] = initialPR.get(i).equals(Scheduler.UNASSIGNED_SLOT);
+        }
+        int[] parent = new int[numClasses];
+        for (int i = 0; i < numClasses; i++) {
+            parent[i] = i;
+        }
+        // Courses and their labs
+        for (int i = 0; i < numCourses; i++) {
+            for (List<String> lab : classesArr[i].getLabList()) {
+                Decomposition.union(parent, free, i, constr.classIndex(lab));
+            }
+        }
+        // Not-compatible and pair statements
+        List<ArrayList<List<String>>> statements = new ArrayList<>(Scheduler.getNotCompatible());
+        statements.addAll(Scheduler.getPairs());
+        for (List<List<String>> statement : statements) {
+            Decomposition.union(parent, free, constr.classIndex(statement.get(0)),
+                constr.classIndex(statement.get(1)));
+        }
+        // Sections of the same course, and 500-level courses and labs
+        Map<List<String>, Integer> sections = new HashMap<>();
+        int firstLevel500Course = -1;
+        int firstLevel500Lab = -1;
+        for (int i = 0; i < numClasses; i++) {
+            if (!free[i]) {
+                continue;
+            }
+            List<String> name = classesArr[i].getName();
+            if (i < numCourses) {
+                int section = i;
+                Decomposition.union(parent, free, i, sections.computeIfAbsent(name.subList(0, 2), k -> section));
+            }
+            if (name.get(1).startsWith("5")) {
+                if (i < numCourses) {
+                    firstLevel500Course = firstLevel500Course < 0 ? i : firstLevel500Course;
+                    Decomposition.union(parent, free, i, firstLevel500Course);
+                } else {
+                    firstLevel500Lab = firstLevel500Lab < 0 ? i : firstLevel500Lab;
+                    Decomposition.union(parent, free, i, firstLevel500Lab);
+                }
+            }
+        }
+        // Collect the free classes of each component in most-tightly-bound order
+        Map<Integer, ArrayList<Integer>> components = new HashMap<>();
+        for (int index : constr.getMostTightlyBoundIndices()) {
+            if (free[index]) {
+                components.computeIfAbsent(Decomposition.find(parent, index), k -> new ArrayList<>()).add(index);
+            }
+        }
+        this.numComponents = components.size();
+        int largest = 0;
+        ArrayList<Integer> small = new ArrayList<>();
+        for (ArrayList<Integer> component : components.values()) {
+            largest = Math.max(largest, component.size());
+            if (component.size() >= Decomposition.MIN_TASK_SIZE) {
+                this.tasks.add(component);
+                continue;
+            }
+            // Pack small components together
+            small.addAll(component);
+            if (small.size() >= Decomposition.MIN_TASK_SIZE) {
+                this.tasks.add(small);
+                small = new ArrayList<>();
+            }
+        }
+        if (!small.isEmpty()) {
+            this.tasks.add(small);
+        }
+        this.largestComponent = largest;
+        this.threads = Math.max(1, Math.min(this.tasks.size(), Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Returns the number of independently solved groups of classes.
+     * @return The number of tasks.
+     */
+    public int getNumTasks() {
+        return this.tasks.size();
+    }
+
+    /**
+     * Returns a summary of the decomposition, e.g. "12 components in 4 tasks, largest component 9 classes".
+     * @return The summary.
+     */
+    public String getSummary() {
+        return this.numComponents + " components in " + this.tasks.size() + " tasks, largest component "
+            + this.largestComponent + " classes";
+    }
+
+    /**
+     * Solves the tasks in parallel, merges their solutions and repairs over-full slots.
+     * The worker threads only live for the call, so nothing is left running after it.
+     * @param initialPR - The starting point of the search, with the partial assignments.
+     * @param rand - A random number generator.
+     * @return A complete schedule satisfying the hard constraints, or null if none was found.
+     */
+    public List<List<String>> solve(List<List<String>> initialPR, Random rand) {
+        ExecutorService executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(null, runnable, "decomposition", Decomposition.STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<List<List<String>>>> parts = new ArrayList<>();
+        for (ArrayList<Integer> task : this.tasks) {
+            // Each task gets its own generator, so the parallel searches do not contend for one
+            Random taskRand = new Random(rand.nextLong());
+            parts.add(executor.submit(() -> new OrTree(initialPR).searchScope(task, taskRand)));
+        }
+        List<List<String>> merged = new ArrayList<>(initialPR);
+        try {
+            for (int t = 0; t < this.tasks.size(); t++) {
+                List<List<String>> part = parts.get(t).get();
+                if (part == null) {
+                    if (Scheduler.isPrintData()) {
+                        System.out.println("No solution for decomposition task " + (t + 1));
+                    }
+                    return null;
+                }
+                for (int index : this.tasks.get(t)) {
+                    merged.set(index, part.get(index));
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            System.out.println("Error: Decomposition task failed.");
+            System.out.println(e.getMessage());
+            return null;
+        } finally {
+            // Tasks still running after another one failed are no longer needed
+            executor.shutdownNow();
+        }
+        if (Scheduler.getConstr().constr(merged)) {
+            return merged;
+        }
+        return this.repair(merged, initialPR, rand);
+    }
+
+    /**
+     * Repairs the slots that the merged tasks over-fill. The free classes in over-full slots are
+     * unassigned and searched again, together with a growing number of random free classes
+     * to make room if the attempt before failed.
+     * @param merged - The merged schedule.
+     * @param initialPR - The starting point of the search; classes assigned there are never moved.
+     * @param rand - A random number generator.
+     * @return The repaired schedule, or null if no attempt succeeded within its step budget.
+     */
+    private List<List<String>> repair(List<List<String>> merged, List<List<String>> initialPR, Random rand) {
+        List<Integer> free = new ArrayList<>();
+        for (int i = 0; i < merged.size(); i++) {
+            if (initialPR.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                free.add(i);
+            }
+        }
+        Set<Integer> overfull = this.overfull(merged, initialPR);
+        for (int attempt = 0; attempt < Decomposition.REPAIR_ATTEMPTS; attempt++) {
+            Set<Integer> destroyed = new HashSet<>(overfull);
+            int target = Math.min(free.size(), overfull.size() * (1 + attempt));
+            while (destroyed.size() < target) {
+                destroyed.add(free.get(rand.nextInt(free.size())));
+            }
+            if (Scheduler.isPrintData()) {
+                System.out.println("Repairing over-full slots by re-assigning " + destroyed.size() + " classes");
+            }
+            List<List<String>> partial = new ArrayList<>(merged);
+            ArrayList<Integer> order = new ArrayList<>(destroyed.size());
+            for (int index : Scheduler.getConstr().getMostTightlyBoundIndices()) {
+                if (destroyed.contains(index)) {
+                    partial.set(index, Scheduler.UNASSIGNED_SLOT);
+                    order.add(index);
+                }
+            }
+            OrTree tree = new OrTree(partial);
+            tree.setStepBudget(Decomposition.REPAIR_STEPS_PER_CLASS * order.size());
+            List<List<String>> repaired = tree.search(order, rand);
+            if (repaired != null) {
+                return repaired;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the free classes assigned to slots holding more classes than their maximum.
+     * @param schedule - The merged schedule.
+     * @param initialPR - The starting point of the search; classes assigned there are fixed.
+     * @return The indices of the free classes in over-full slots.
+     */
+    private Set<Integer> overfull(List<List<String>> schedule, List<List<String>> initialPR) {
+        HardConstraint constr = Scheduler.getConstr();
+        int numCourses = Scheduler.getCourses().size();
+        int numCourseSlots = Scheduler.getCourseSlots().size();
+        Slots[] slotsArr = constr.getSlotsArr();
+        // The classes of each course slot, then each lab slot
+        int[] count = new int[slotsArr.length];
+        int[] slotOf = new int[schedule.size()];
+        for (int i = 0; i < schedule.size(); i++) {
+            int slotIndex = constr.slotIndex(i, schedule.get(i));
+            slotOf[i] = slotIndex < 0 ? -1 : (i < numCourses ? slotIndex : numCourseSlots + slotIndex);
+            if (slotOf[i] >= 0) {
+                count[slotOf[i]]++;
+            }
+        }
+        Set<Integer> overfull = new HashSet<>();
+        for (int i = 0; i < schedule.size(); i++) {
+            if (slotOf[i] >= 0 && count[slotOf[i]] > slotsArr[slotOf[i]].getMax()
+                && initialPR.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                overfull.add(i);
+            }
+        }
+        return overfull;
+    }
+
+    /**
+     * Links two classes unless one of them is unknown or fixed.
+     * @param parent - The union-find forest.
+     * @param free - Whether each class is free.
+     * @param a - The index of the first class.
+     * @param b - The index of the second class.
+     */
+    private static void union(int[] parent, boolean[] free, int a, int b) {
+        if (a < 0 || b < 0 || !free[a] || !free[b]) {
+            return;
+        }
+        int rootA = Decomposition.find(parent, a);
+        int rootB = Decomposition.find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    /**
+     * Finds the representative of a class's component, halving the path on the way.
+     * @param parent - The union-find forest.
+     * @param index - The index of the class.
+     * @return The index of the representative.
+     */
+    private static int find(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+}
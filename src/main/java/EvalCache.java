@@ -0,0 +1,152 @@
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of Eval values shared by all threads.
+ * Entries are keyed by the Zobrist hash of the schedule and verified with a second, independent
+ * 32-bit hash (List.hashCode), so the cache never holds on to the schedules themselves.
+ * The cache is split into stripes with their own lock; each stripe evicts with the CLOCK algorithm.
+ */
+public class EvalCache {
+    // Number of independently locked stripes, a power of two
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[EvalCache.STRIPES];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * One part of the cache with its own lock and CLOCK hand.
+     */
+    private static final class Stripe {
+        private final long[] keys;
+        private final int[] checks;
+        private final int[] values;
+        // Set when an entry is used, cleared when the CLOCK hand passes it
+        private final boolean[] referenced;
+        // The entry of each key
+        private final Map<Long, Integer> entries = new HashMap<>();
+        private int size = 0;
+        private int hand = 0;
+
+        private Stripe(int capacity) {
+            this.keys = new long[capacity];
+            this.checks = new int[capacity];
+            this.values = new int[capacity];
+            this.referenced = new boolean[capacity];
+        }
+    }
+
+    /**
+     * Constructor for the eval cache.
+     * @param capacity - The maximum number of cached Eval values.
+     */
+    public EvalCache(int capacity) {
+        int perStripe = Math.max(1, capacity / EvalCache.STRIPES);
+        for (int i = 0; i < EvalCache.STRIPES; i++) {
+            this.stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Looks up the Eval value of a schedule.
+     * @param hash - The Zobrist hash of the schedule.
+     * @param check - The second hash of the schedule.
+     * @return The cached Eval value, or null if it is not cached.
+     */
+    public Integer get(long hash, int check) {
+        Stripe stripe = this.stripe(hash);
+        synchronized (stripe) {
+            Integer entry = stripe.entries.get(hash);
+            if (entry != null && stripe.checks[entry] == check) {
+                stripe.referenced[entry] = true;
+                this.hits.increment();
+                return stripe.values[entry];
+            }
+        }
+        this.misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores the Eval value of a schedule, evicting an entry that has not been used recently if full.
+     * @param hash - The Zobrist hash of the schedule.
+     * @param check - The second hash of the schedule.
+     * @param value - The Eval value.
+     */
+    public void put(long hash, int check, int value) {
+        Stripe stripe = this.stripe(hash);
+        synchronized (stripe) {
+            Integer entry = stripe.entries.get(hash);
+            if (entry == null) {
+                if (stripe.size < stripe.keys.length) {
+                    entry = stripe.size++;
+                } else {
+                    // Advance the hand past recently used entries, giving each a second chance
+                    while (stripe.referenced[stripe.hand]) {
+                        stripe.referenced[stripe.hand] = false;
+                        stripe.hand = (stripe.hand + 1) % stripe.keys.length;
+                    }
+                    entry = stripe.hand;
+                    stripe.entries.remove(stripe.keys[entry]);
+                    stripe.hand = (stripe.hand + 1) % stripe.keys.length;
+                }
+                stripe.keys[entry] = hash;
+                stripe.entries.put(hash, entry);
+            }
+            stripe.checks[entry] = check;
+            stripe.values[entry] = value;
+            stripe.referenced[entry] = false;
+        }
+    }
+
+    /**
+     * Stores an Eval value that was computed without looking it up first, e.g. in a batch.
+     * It counts as a miss, like the value of a lookup that had to be computed.
+     * @param hash - The Zobrist hash of the schedule.
+     * @param check - The second hash of the schedule.
+     * @param value - The Eval value.
+     */
+    public void putComputed(long hash, int check, int value) {
+        this.misses.increment();
+        this.put(hash, check, value);
+    }
+
+    /**
+     * Returns the number of lookups that found a cached Eval value.
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of Eval values that were not found in the cache and had to be computed.
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns a summary of the cache's hit rate, e.g. "1200/4800 lookups hit (25.0%)".
+     * @return The summary.
+     */
+    public String getHitRate() {
+        long hits = this.getHits();
+        long lookups = hits + this.getMisses();
+        double rate = lookups == 0 ? 0 : 100.0 * hits / lookups;
+        return hits + "/" + lookups + " lookups hit (" + String.format(Locale.ROOT, "%.1f", rate) + "%)";
+    }
+
+    /**
+     * Returns the stripe of a hash.
+     * @param hash - The Zobrist hash of a schedule.
+     * @return The stripe.
+     */
+    private Stripe stripe(long hash) {
+        return this.stripes[(int) (hash ^ (hash >>> 32)) & (EvalCache.STRIPES - 1)];
+    }
+}
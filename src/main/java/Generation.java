@@ -1,15 +1,23 @@
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.Set;
 
 /**
  * Set-based search for an optimal solution to the problem instance.
  * THIS IS WHERE THE CODE RESIDES FOR SET BASED SEARCH
  */
 public class Generation {
-    private List<List<List<String>>> generation = new ArrayList<>();
+    /**
+     * The methods for selecting the parents of a crossover.
+     */
+    public enum SelectionMethod {
+        ROULETTE, TOURNAMENT
+    }
+
+    // The solution candidates with their eval values and Zobrist hashes, cached when they are added
+    private Population generation;
     private int maxPop = 0;
     private List<OrTree> orTrees;
     private int classSize;
@@ -22,14 +30,73 @@ public class Generation {
         this.maxPop = Scheduler.getMaxPop(); // getting the max population
         this.eval = Scheduler.getEval(); // getting the eval value
         this.classSize = Scheduler.getClasses().size(); // getting the size of all the classes
+        // Reduce runs once the population exceeds maxPop, so it rarely holds more than maxPop + 1 candidates
+        this.generation = Scheduler.isOffHeapPopulation()
+            ? new OffHeapPopulation(Math.max(Scheduler.getInitialPop(), this.maxPop) + 1)
+            : new HeapPopulation();
     }
 
     /**
-     * Add a solution candidate to the generation.
+     * Add a solution candidate to the generation, in the canonical order of its interchangeable
+     * sections so that permutations of the same schedule are recognised as duplicates.
      * @param candidate - the solution candidate
      */
     public void add(List<List<String>> candidate) {
-        this.generation.add(candidate);
+        candidate = Scheduler.getConstr().canonical(candidate);
+        this.add(candidate, Scheduler.getZobrist().hash(candidate));
+    }
+
+    /**
+     * Add a solution candidate whose Zobrist hash is already known to the generation.
+     * @param candidate - the solution candidate
+     * @param hash - the Zobrist hash of the candidate
+     */
+    public void add(List<List<String>> candidate, long hash) {
+        this.generation.add(candidate, this.eval.eval(candidate, hash), hash);
+    }
+
+    /**
+     * Add several solution candidates to the generation, evaluating them in one batch.
+     * Like add, the candidates are put in the canonical order of their interchangeable sections.
+     * @param candidates - the solution candidates with their Zobrist hashes
+     */
+    public void addAll(List<ScheduleKey> candidates) {
+        HardConstraint constr = Scheduler.getConstr();
+        List<ScheduleKey> keys = new ArrayList<>(candidates.size());
+        for (ScheduleKey candidate : candidates) {
+            List<List<String>> schedule = constr.canonical(candidate.getSchedule());
+            // The hash is only recomputed if the sections had to be reordered
+            keys.add(schedule == candidate.getSchedule() ? candidate : ScheduleKey.of(schedule));
+        }
+        candidates = keys;
+        BatchEvaluator batch = this.eval.getBatchEvaluator();
+        if (batch == null) {
+            candidates.forEach(candidate -> this.add(candidate.getSchedule(), candidate.getHash()));
+            return;
+        }
+        List<List<List<String>>> schedules = new ArrayList<>(candidates.size());
+        candidates.forEach(candidate -> schedules.add(candidate.getSchedule()));
+        int[] evals = batch.eval(batch.encode(schedules), schedules.size());
+        EvalCache cache = Scheduler.getEvalCache();
+        for (int i = 0; i < candidates.size(); i++) {
+            ScheduleKey candidate = candidates.get(i);
+            this.generation.add(candidate.getSchedule(), evals[i], candidate.getHash());
+            if (cache != null) {
+                cache.putComputed(candidate.getHash(), candidate.getSchedule().hashCode(), evals[i]);
+            }
+        }
+    }
+
+    /**
+     * Checks whether two solution candidates are the same schedule.
+     * Their schedules are only compared in full when their hashes are equal.
+     * @param first - the index of the first candidate
+     * @param second - the index of the second candidate
+     * @return true if both candidates assign every class to the same slot
+     */
+    private boolean isSameSchedule(int first, int second) {
+        return this.generation.getHash(first) == this.generation.getHash(second)
+            && this.generation.get(first).equals(this.generation.get(second));
     }
 
     /**
@@ -51,29 +118,84 @@ public class Generation {
         // THE GOAL OF REDUCTION IS TO PRUNE the current set of potential solutions, and therefore
         // REMOVE some individual fact f from F (whatever is the WORST)
         try {
-            // Create a priority queue to find the worst individuals
-            PriorityQueue<List<List<String>>> worstIndividuals = new PriorityQueue<>(
-                Scheduler.getNumRemove(),
-                Comparator.comparingInt(sol -> this.eval.eval(sol))
-            );
-            // Add individuals to the priority queue; it will keep the worst ones at the TOP
-            for (List<List<String>> individual : this.generation) {
-                worstIndividuals.offer(individual);
-                // Ensure the queue never grows beyond the number of individuals to remove
-                if (worstIndividuals.size() > Scheduler.getNumRemove()) {
-                    worstIndividuals.poll();
+            int size = this.generation.size();
+            // Never remove the elites, i.e. the individuals with the lowest eval values
+            int toRemove = Math.min(Scheduler.getNumRemove(), size - Math.min(Scheduler.getEliteCount(), size));
+            if (toRemove <= 0) {
+                return;
+            }
+            boolean[] removed = new boolean[size];
+            int removedCount = 0;
+            // Optionally remove duplicate individuals first, keeping the first copy of each schedule
+            if (Scheduler.isDiversity()) {
+                Set<ScheduleKey> seen = new HashSet<>();
+                for (int i = 0; i < size && removedCount < toRemove; i++) {
+                    if (!seen.add(new ScheduleKey(this.generation.get(i), this.generation.getHash(i)))) {
+                        removed[i] = true;
+                        removedCount++;
+                    }
                 }
             }
-            // Remove the worst INDIVIDUALS from the generation (individual f's)
-            // Remember we need to remove individuals until max pop is no longer exceeded
-            for (List<List<String>> worstIndividual : worstIndividuals) {
-                this.generation.remove(worstIndividual);
+            // Partition the remaining individuals so the worst ones come first
+            int[] candidates = new int[size - removedCount];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (!removed[i]) {
+                    candidates[count++] = i;
+                }
+            }
+            int worst = toRemove - removedCount;
+            if (worst > 0) {
+                Generation.selectWorst(this.generation, candidates, worst);
+                for (int i = 0; i < worst; i++) {
+                    removed[candidates[i]] = true;
+                }
             }
+            // Remove the worst INDIVIDUALS from the generation (individual f's) in a single pass
+            this.generation.retain(removed);
         } catch (Exception e) {
             System.out.println("Exception: " + e);
         }
     }
 
+    /**
+     * Reorders the indices so the k individuals with the highest eval values come first (quickselect).
+     * @param population - the individuals
+     * @param indices - the indices of the individuals to choose from
+     * @param k - the number of worst individuals to move to the front
+     */
+    static void selectWorst(Population population, int[] indices, int k) {
+        int low = 0;
+        int high = indices.length - 1;
+        while (low < high) {
+            // Partition around the middle element, worse individuals to the left
+            int pivot = population.getFitness(indices[(low + high) >>> 1]);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (population.getFitness(indices[i]) > pivot) {
+                    i++;
+                }
+                while (population.getFitness(indices[j]) < pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = indices[i];
+                    indices[i++] = indices[j];
+                    indices[j--] = swap;
+                }
+            }
+            // Continue in the part that contains the k-th position
+            if (k - 1 <= j) {
+                high = j;
+            } else if (k - 1 >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
     /**
      * Perform crossover on the generation.
      * @param genNum - the generation number
@@ -93,27 +215,33 @@ public class Generation {
         try {
             // Select two facts from the generation:
             Random rand = new Random();
-            RouletteSelector selector = new RouletteSelector(this.generation, rand);
+            // Two different parents are needed
+            if (this.generation.size() < 2) {
+                return;
+            }
+            Selector selector = this.createSelector(rand);
             // Select the first parent
             int f1Index = selector.select(-1);
             List<List<String>> f1 = selector.getSelection();
             // Select the second parent
-            selector.select(f1Index);
+            int f2Index = selector.select(f1Index);
             List<List<String>> f2 = selector.getSelection();
             // Ensure f1 and f2 are not null and not the same
             // If they are, select again
             // This is to prevent the same parent from being selected twice
-            // This is also to prevent null parents from being selected
-            while (f1 == null || f2 == null || f1.equals(f2)) {
-                if (f1Index == -1) {
+            // This is also to prevent null parents from being selected.
+            // A generation of copies of one schedule has no two different parents, so the draws are bounded
+            int attempts = 0;
+            while (f1 == null || f2 == null || this.isSameSchedule(f1Index, f2Index)) {
+                if (f1Index == -1 || ++attempts > 4 * this.generation.size() || Scheduler.isStopped()) {
                     return;
                 }
                 if (f1 == null) {
                     f1Index = selector.select(-1);
                     f1 = selector.getSelection();
                 }
-                if (f2 == null || f2.equals(f1)) {
-                    selector.select(f1Index);
+                if (f2 == null || this.isSameSchedule(f1Index, f2Index)) {
+                    f2Index = selector.select(f1Index);
                     f2 = selector.getSelection();
                 }
             }
@@ -134,13 +262,30 @@ public class Generation {
                 return;
             } else {
                 // Add the new solution to the generation:
-                this.generation.add(sol);
+                this.add(sol);
             }
         } catch (Exception e) {
             System.out.println("Exception at crossover: " + e);
         }
     }
 
+    /**
+     * Creates the configured parent selector over the cached eval values of the generation.
+     * @param rand - the random number generator
+     * @return the selector
+     */
+    private Selector createSelector(Random rand) {
+        int[] evals = new int[this.generation.size()];
+        for (int i = 0; i < evals.length; i++) {
+            evals[i] = this.generation.getFitness(i);
+        }
+        List<List<List<String>>> candidates = this.generation.asList();
+        if (Scheduler.getSelectionMethod() == SelectionMethod.TOURNAMENT) {
+            return new TournamentSelector(candidates, evals, Scheduler.getTournamentSize(), rand);
+        }
+        return new RouletteSelector(candidates, evals, rand);
+    }
+
     /**
      * Search control for the generation.
      * @param genNum - the generation number
@@ -164,7 +309,7 @@ public class Generation {
      * @return generation
      */
     public List<List<List<String>>> getGeneration() {
-        return this.generation;
+        return this.generation.asList();
     }
 
     /**
@@ -186,7 +331,7 @@ public class Generation {
     public String getAvg() { // Eval value AVERAGE calculated here
         float avg = 0;
         for (int i = 0; i < this.generation.size(); i++) {
-            avg += this.eval.eval(this.generation.get(i));
+            avg += this.generation.getFitness(i);
         }
         avg = avg / this.generation.size();
         return String.valueOf(avg);
@@ -197,10 +342,10 @@ public class Generation {
      * @return min
      */
     public String getMin() {
-        int min = this.eval.eval(this.generation.get(0));
+        int min = this.generation.getFitness(0);
         for (int i = 1; i < this.generation.size(); i++) {
-            if (min > this.eval.eval(this.generation.get(i))) {
-                min = this.eval.eval(this.generation.get(i));
+            if (min > this.generation.getFitness(i)) {
+                min = this.generation.getFitness(i);
             }
         }
         return String.valueOf(min);
@@ -211,10 +356,10 @@ public class Generation {
      * @return max
      */
     public String getMax() { // MAXIMUM eval value calculated here
-        int max = this.eval.eval(this.generation.get(0));
+        int max = this.generation.getFitness(0);
         for (int i = 1; i < this.generation.size(); i++) {
-            if (max < this.eval.eval(this.generation.get(i))) {
-                max = this.eval.eval(this.generation.get(i));
+            if (max < this.generation.getFitness(i)) {
+                max = this.generation.getFitness(i);
             }
         }
         return String.valueOf(max);
@@ -225,7 +370,7 @@ public class Generation {
      */
     public void print() {
         System.out.println("\nFinal Generation:");
-        for (List<List<String>> sol : this.generation) {
+        for (List<List<String>> sol : this.generation.asList()) {
             // Print each solution, which is a List<List<String>>.
             System.out.println(sol.toString());
         }
@@ -0,0 +1,428 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A greedy constructor for initial schedules in the manner of DSatur graph colouring.
+ * It repeatedly picks the unassigned class with the fewest feasible slots left (ties broken by the
+ * number of classes it shares a constraint with) and places it in its feasible slot with the lowest
+ * marginal soft penalty. Placing a class only narrows the slots of the classes it shares a constraint
+ * with, and fills one slot, so the feasible slots are kept up to date incrementally instead of being
+ * re-checked against the whole schedule. A slot that would leave a neighbour without any feasible
+ * slot is avoided if possible, but the constructor does not backtrack: if a class has no feasible
+ * slot left, it starts over with new noise and after a few attempts leaves the candidate to the
+ * or-tree search.
+ */
+public class GreedyConstructor {
+    /**
+     * The ways the initial population can be built.
+     */
+    public enum SeedMode {
+        OR_TREE, // the randomized or-tree search
+        GREEDY // this constructor, falling back to the or-tree search when it gets stuck
+    }
+
+    // Noise added to the slot penalties, as a fraction of their spread, so candidates differ
+    private static final double NOISE = 0.25;
+    // Attempts with new noise before a candidate is left to the or-tree search
+    private static final int ATTEMPTS = 3;
+
+    private final HardConstraint constr;
+    private final List<List<String>> initialPR;
+    private final List<List<String>> courseSlots;
+    private final List<List<String>> labSlots;
+    private final int numCourses;
+    private final int numCourseSlots;
+    // The capacity of each course slot, then each lab slot
+    private final int[] capacity;
+    // The classes each class shares a constraint with
+    private final int[][] neighbours;
+    // The feasible slots of each class given the initial PR, copied by every construction
+    private final boolean[][] initialFeasible;
+    private int built;
+    private int stuck;
+
+    /**
+     * Constructor for the greedy constructor of the current problem instance.
+     * @param initialPR - The starting point of every schedule, with the partial assignments.
+     */
+    public GreedyConstructor(List<List<String>> initialPR) {
+        this.constr = Scheduler.getConstr();
+        this.initialPR = initialPR;
+        this.courseSlots = Scheduler.getCourseSlots();
+        this.labSlots = Scheduler.getLabSlots();
+        this.numCourses = Scheduler.getCourses().size();
+        this.numCourseSlots = this.courseSlots.size();
+        Slots[] slotsArr = this.constr.getSlotsArr();
+        this.capacity = new int[slotsArr.length];
+        for (int s = 0; s < slotsArr.length; s++) {
+            this.capacity[s] = slotsArr[s].getMax();
+        }
+        this.neighbours = this.findNeighbours();
+        // Start from the presolved domains, narrowed by the classes the initial PR already assigns
+        Presolve presolve = Scheduler.getPresolve();
+        int[] room = this.room(initialPR);
+        this.initialFeasible = new boolean[initialPR.size()][];
+        for (int i = 0; i < initialPR.size(); i++) {
+            this.initialFeasible[i] = new boolean[this.slots(i).size()];
+            if (!initialPR.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                continue;
+            }
+            for (int s = 0; s < this.initialFeasible[i].length; s++) {
+                this.initialFeasible[i][s] = presolve.allows(i, s) && room[this.offset(i) + s] > 0
+                    && this.fitsNeighbours(initialPR, i, this.slots(i).get(s));
+            }
+        }
+    }
+
+    /**
+     * Builds a complete schedule greedily, starting over with new noise if the constructor gets stuck.
+     * @param rand - A random number generator for the noise and ties, or null for the noise-free schedule.
+     * @return A complete schedule satisfying the hard constraints, or null if every attempt got stuck.
+     */
+    public List<List<String>> construct(Random rand) {
+        int attempts = rand == null ? 1 : GreedyConstructor.ATTEMPTS;
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            List<List<String>> schedule = this.attempt(rand);
+            if (schedule != null) {
+                this.built++;
+                return schedule;
+            }
+        }
+        this.stuck++;
+        return null;
+    }
+
+    /**
+     * Returns a summary of the constructions, e.g. "5 schedules built, 1 stuck".
+     * @return The summary.
+     */
+    public String getSummary() {
+        return this.built + " schedules built, " + this.stuck + " stuck";
+    }
+
+    /**
+     * Makes one attempt at building a complete schedule greedily.
+     * @param rand - A random number generator for the noise and ties, or null for none.
+     * @return A complete schedule satisfying the hard constraints, or null if the constructor got stuck.
+     */
+    private List<List<String>> attempt(Random rand) {
+        List<List<String>> pr = new ArrayList<>(this.initialPR);
+        int[] room = this.room(pr);
+        boolean[][] feasible = new boolean[pr.size()][];
+        int[] saturation = new int[pr.size()];
+        int unassigned = 0;
+        for (int i = 0; i < pr.size(); i++) {
+            feasible[i] = this.initialFeasible[i].clone();
+            for (boolean slot : feasible[i]) {
+                saturation[i] += slot ? 1 : 0;
+            }
+            unassigned += pr.get(i).equals(Scheduler.UNASSIGNED_SLOT) ? 1 : 0;
+        }
+        BatchEvaluator batch = Scheduler.getEval().getBatchEvaluator();
+        for (; unassigned > 0; unassigned--) {
+            int classIndex = this.select(pr, saturation, rand);
+            List<List<String>> placed = this.place(pr, classIndex, feasible, saturation, room, batch, rand);
+            if (placed == null) {
+                if (Scheduler.isPrintData()) {
+                    System.out.println("Greedy constructor got stuck at "
+                        + this.constr.getClassesArr()[classIndex].getName());
+                }
+                return null;
+            }
+            // Update the room and the feasible slots for every class that moved, which is more than
+            // the placed class if interchangeable sections were put back in order
+            for (int i = 0; i < pr.size(); i++) {
+                if (pr.get(i).equals(placed.get(i))) {
+                    continue;
+                }
+                int oldSlot = this.constr.slotIndex(i, pr.get(i));
+                if (oldSlot >= 0) {
+                    room[this.offset(i) + oldSlot]++;
+                }
+                int newSlot = this.constr.slotIndex(i, placed.get(i));
+                if (--room[this.offset(i) + newSlot] <= 0) {
+                    this.closeSlot(placed, i, newSlot, feasible, saturation);
+                }
+                for (int neighbour : this.neighbours[i]) {
+                    this.narrow(placed, neighbour, i, feasible, saturation);
+                }
+            }
+            pr = placed;
+        }
+        return pr;
+    }
+
+    /**
+     * Selects the unassigned class with the fewest feasible slots left, then the most neighbours.
+     * @param pr - The partial assignment.
+     * @param saturation - The number of feasible slots left of each class.
+     * @param rand - A random number generator for ties, or null to take the first.
+     * @return The index of the selected class.
+     */
+    private int select(List<List<String>> pr, int[] saturation, Random rand) {
+        int best = -1;
+        int ties = 0;
+        for (int i = 0; i < pr.size(); i++) {
+            if (!pr.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                continue;
+            }
+            int order = best < 0 ? -1 : saturation[i] != saturation[best]
+                ? Integer.compare(saturation[i], saturation[best])
+                : Integer.compare(this.neighbours[best].length, this.neighbours[i].length);
+            if (order < 0) {
+                best = i;
+                ties = 1;
+            } else if (order == 0 && rand != null && rand.nextInt(++ties) == 0) {
+                // Reservoir sampling among equally constrained classes
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Places a class in its cheapest feasible slot, checking the choice against the hard constraints.
+     * @param pr - The partial assignment.
+     * @param classIndex - The class to place.
+     * @param feasible - The feasible slots of each class; slots rejected by the check are removed.
+     * @param saturation - The number of feasible slots left of each class.
+     * @param room - The room left in each slot.
+     * @param batch - The evaluator of the marginal soft penalties, or null to go by slot order.
+     * @param rand - A random number generator for the noise, or null for none.
+     * @return The new partial assignment, or null if no slot of the class is feasible.
+     */
+    private List<List<String>> place(List<List<String>> pr, int classIndex, boolean[][] feasible, int[] saturation,
+            int[] room, BatchEvaluator batch, Random rand) {
+        int[] penalties = batch == null ? new int[feasible[classIndex].length]
+            : batch.marginalPenalties(pr, classIndex);
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int s = 0; s < penalties.length; s++) {
+            if (feasible[classIndex][s]) {
+                min = Math.min(min, penalties[s]);
+                max = Math.max(max, penalties[s]);
+            }
+        }
+        double spread = GreedyConstructor.NOISE * (max - min + 1);
+        Integer[] order = new Integer[penalties.length];
+        double[] cost = new double[penalties.length];
+        for (int s = 0; s < penalties.length; s++) {
+            order[s] = s;
+            cost[s] = penalties[s] + (rand == null ? 0 : rand.nextDouble() * spread);
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(cost[a], cost[b]));
+        // Slots that leave another class without a feasible slot are only taken if nothing else fits
+        for (int pass = 0; pass < 2; pass++) {
+            boolean lastResort = pass == 1;
+            for (int s : order) {
+                if (!feasible[classIndex][s]
+                    || this.wipesOut(pr, classIndex, s, feasible, saturation, room) != lastResort) {
+                    continue;
+                }
+                List<List<String>> candidate = this.constr.canonical(this.withSlot(pr, classIndex, s), classIndex);
+                if (this.constr.constrStar(candidate)) {
+                    return candidate;
+                }
+                // A constraint the incremental update does not follow, e.g. the order of interchangeable sections
+                feasible[classIndex][s] = false;
+                saturation[classIndex]--;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks one step ahead: checks whether placing a class would leave an unassigned class
+     * it shares a constraint with, or one that needs the last room of the slot, without a feasible slot.
+     * @param pr - The partial assignment.
+     * @param classIndex - The class to place.
+     * @param slotIndex - The index of its slot.
+     * @param feasible - The feasible slots of each class.
+     * @param saturation - The number of feasible slots left of each class.
+     * @param room - The room left in each slot.
+     * @return true if some unassigned class would have no feasible slot left.
+     */
+    private boolean wipesOut(List<List<String>> pr, int classIndex, int slotIndex, boolean[][] feasible,
+            int[] saturation, int[] room) {
+        List<String> slot = this.slots(classIndex).get(slotIndex);
+        boolean fills = room[this.offset(classIndex) + slotIndex] <= 1;
+        for (int neighbour : this.neighbours[classIndex]) {
+            if (!pr.get(neighbour).equals(Scheduler.UNASSIGNED_SLOT)) {
+                continue;
+            }
+            boolean sameKind = (neighbour < this.numCourses) == (classIndex < this.numCourses);
+            List<List<String>> slots = this.slots(neighbour);
+            boolean left = false;
+            for (int t = 0; t < feasible[neighbour].length && !left; t++) {
+                left = feasible[neighbour][t] && !(fills && sameKind && t == slotIndex)
+                    && this.constr.compatible(neighbour, slots.get(t), classIndex, slot);
+            }
+            if (!left) {
+                return true;
+            }
+        }
+        if (fills) {
+            int from = classIndex < this.numCourses ? 0 : this.numCourses;
+            int to = classIndex < this.numCourses ? this.numCourses : pr.size();
+            for (int i = from; i < to; i++) {
+                if (i != classIndex && saturation[i] == 1 && feasible[i][slotIndex]
+                    && pr.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a copy of a partial assignment with one class placed.
+     * @param pr - The partial assignment.
+     * @param classIndex - The class to place.
+     * @param slotIndex - The index of its slot.
+     * @return The copy.
+     */
+    private List<List<String>> withSlot(List<List<String>> pr, int classIndex, int slotIndex) {
+        List<List<String>> copy = new ArrayList<>(pr);
+        copy.set(classIndex, this.slots(classIndex).get(slotIndex));
+        return copy;
+    }
+
+    /**
+     * Removes a full slot from the feasible slots of the unassigned classes of the same kind.
+     * @param pr - The partial assignment.
+     * @param classIndex - A class of the kind of the slot.
+     * @param slotIndex - The index of the full slot.
+     * @param feasible - The feasible slots of each class.
+     * @param saturation - The number of feasible slots left of each class.
+     */
+    private void closeSlot(List<List<String>> pr, int classIndex, int slotIndex, boolean[][] feasible,
+            int[] saturation) {
+        boolean isCourse = classIndex < this.numCourses;
+        int from = isCourse ? 0 : this.numCourses;
+        int to = isCourse ? this.numCourses : pr.size();
+        for (int i = from; i < to; i++) {
+            if (feasible[i][slotIndex] && pr.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                feasible[i][slotIndex] = false;
+                saturation[i]--;
+            }
+        }
+    }
+
+    /**
+     * Removes the slots of an unassigned class that clash with a neighbour that was just placed.
+     * @param pr - The partial assignment.
+     * @param classIndex - The class whose slots to narrow.
+     * @param placed - The neighbour that was placed.
+     * @param feasible - The feasible slots of each class.
+     * @param saturation - The number of feasible slots left of each class.
+     */
+    private void narrow(List<List<String>> pr, int classIndex, int placed, boolean[][] feasible, int[] saturation) {
+        if (!pr.get(classIndex).equals(Scheduler.UNASSIGNED_SLOT)) {
+            return;
+        }
+        List<List<String>> slots = this.slots(classIndex);
+        for (int s = 0; s < feasible[classIndex].length; s++) {
+            if (feasible[classIndex][s] && !this.constr.compatible(classIndex, slots.get(s), placed, pr.get(placed))) {
+                feasible[classIndex][s] = false;
+                saturation[classIndex]--;
+            }
+        }
+    }
+
+    /**
+     * Checks a slot of a class against its placed neighbours.
+     * @param pr - The partial assignment.
+     * @param classIndex - The class.
+     * @param slot - The slot.
+     * @return true if no placed neighbour clashes with the class in the slot.
+     */
+    private boolean fitsNeighbours(List<List<String>> pr, int classIndex, List<String> slot) {
+        for (int neighbour : this.neighbours[classIndex]) {
+            List<String> neighbourSlot = pr.get(neighbour);
+            if (!neighbourSlot.equals(Scheduler.UNASSIGNED_SLOT)
+                && !this.constr.compatible(classIndex, slot, neighbour, neighbourSlot)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the classes each class shares a constraint with: a course and its labs, not-compatible
+     * partners and the other 500-level courses (or labs).
+     * @return The neighbours of each class.
+     */
+    private int[][] findNeighbours() {
+        Classes[] classesArr = this.constr.getClassesArr();
+        List<Set<Integer>> sets = new ArrayList<>();
+        for (int i = 0; i < classesArr.length; i++) {
+            sets.add(new LinkedHashSet<>());
+        }
+        List<Integer> level500 = new ArrayList<>();
+        for (int i = 0; i < classesArr.length; i++) {
+            List<List<String>> related = new ArrayList<>(classesArr[i].getIncompatible());
+            if (i < this.numCourses) {
+                related.addAll(classesArr[i].getLabList());
+            }
+            for (List<String> name : related) {
+                int other = this.constr.classIndex(name);
+                if (other >= 0 && other != i) {
+                    sets.get(i).add(other);
+                    sets.get(other).add(i);
+                }
+            }
+            if (classesArr[i].getName().get(1).startsWith("5")) {
+                for (int other : level500) {
+                    if ((other < this.numCourses) == (i < this.numCourses)) {
+                        sets.get(i).add(other);
+                        sets.get(other).add(i);
+                    }
+                }
+                level500.add(i);
+            }
+        }
+        int[][] result = new int[classesArr.length][];
+        for (int i = 0; i < classesArr.length; i++) {
+            result[i] = sets.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
+    /**
+     * Counts the room left in each slot of a partial assignment.
+     * @param pr - The partial assignment.
+     * @return The room of each course slot, then each lab slot.
+     */
+    private int[] room(List<List<String>> pr) {
+        int[] room = this.capacity.clone();
+        for (int i = 0; i < pr.size(); i++) {
+            int slotIndex = this.constr.slotIndex(i, pr.get(i));
+            if (slotIndex >= 0) {
+                room[this.offset(i) + slotIndex]--;
+            }
+        }
+        return room;
+    }
+
+    /**
+     * Returns the slots a class can take.
+     * @param classIndex - The index of the class.
+     * @return The course slots for a course, the lab slots for a lab.
+     */
+    private List<List<String>> slots(int classIndex) {
+        return classIndex < this.numCourses ? this.courseSlots : this.labSlots;
+    }
+
+    /**
+     * Returns the index of the first slot of a class's kind in the room and capacity arrays.
+     * @param classIndex - The index of the class.
+     * @return 0 for a course, the number of course slots for a lab.
+     */
+    private int offset(int classIndex) {
+        return classIndex < this.numCourses ? 0 : this.numCourseSlots;
+    }
+}
@@ -1,22 +1,37 @@
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
 import java.util.stream.IntStream;
 
 /**
  * Evaluates the hard constraints for a given schedule.
  */
 public class HardConstraint {
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("H:mm");
+    // One call in SAMPLE_MASK + 1 of each check is timed
+    private static final int SAMPLE_MASK = 15;
+    // The checks are reordered after every REORDER_MASK + 1 partial checks of a thread
+    private static final int REORDER_MASK = 4095;
 
     private Classes[] classesArr;
     private Slots[] slotsArr;
 
+    // Index of each course/lab slot for quick lookup
+    private final Map<List<String>, Integer> courseSlotIndexMap = new HashMap<>();
+    private final Map<List<String>, Integer> labSlotIndexMap = new HashMap<>();
+
     private final List<List<String>> courses;
     private final List<List<String>> labs;
     private final List<List<String>> classes;
@@ -30,9 +45,162 @@ public class HardConstraint {
     private final int numClasses;
     private final int numSlots;
 
+    // Constraint data resolved to indices once, so the checks do not search lists or build maps
+    // The lab indices of each course's labs
+    private int[][] courseLabIndices;
+    // The PR indices of the not-compatible partners of each class
+    private int[][] incompatibleIndices;
+    // Not-compatible pairs: the index of each side within the courses or labs, and whether it is a lab
+    private int[] notCompatibleLeft;
+    private int[] notCompatibleRight;
+    private boolean[] notCompatibleLeftLab;
+    private boolean[] notCompatibleRightLab;
+    // The day and time of each class's partial assignment, null if it has none
+    private String[] partialDay;
+    private String[] partialTime;
+    // Whether each class is on the 500-level
+    private boolean[] level500;
+    // Groups of interchangeable sections, in index order, and the group of each class (null if none)
+    private int[][] symmetryGroups = new int[0][];
+    private int[][] symmetryGroupOf;
+
+    // Scratch buffers of each thread, reused by every check
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    // The checks of constrStar in the order they are run, cheapest and most selective first
+    private volatile Check[] checkOrder;
+
     // Set to true to print the data for debugging
     private final boolean printData = false;
 
+    /**
+     * A read-only window onto a range of a schedule, reused instead of copying the range.
+     */
+    private static final class Window extends AbstractList<List<String>> {
+        private List<List<String>> backing;
+        private int from;
+        private int size;
+
+        private Window reset(List<List<String>> backing, int from, int to) {
+            this.backing = backing;
+            this.from = from;
+            this.size = to - from;
+            return this;
+        }
+
+        @Override
+        public List<String> get(int index) {
+            if (index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + this.size);
+            }
+            return this.backing.get(this.from + index);
+        }
+
+        @Override
+        public int size() {
+            return this.size;
+        }
+    }
+
+    /**
+     * A hard constraint check with counters of how often it runs, how often it rejects and how long it takes.
+     */
+    private static final class Check {
+        private final String name;
+        private final BiPredicate<List<List<String>>, List<List<String>>> test;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rejections = new LongAdder();
+        private final LongAdder timedCalls = new LongAdder();
+        private final LongAdder timedNanos = new LongAdder();
+
+        private Check(String name, BiPredicate<List<List<String>>, List<List<String>>> test) {
+            this.name = name;
+            this.test = test;
+        }
+
+        /**
+         * Runs the check and updates its counters.
+         * @param courses - The course assignments.
+         * @param labs - The lab assignments.
+         * @param timed - Whether to measure the time of this call.
+         * @return true if the check passes.
+         */
+        private boolean run(List<List<String>> courses, List<List<String>> labs, boolean timed) {
+            boolean passed;
+            if (timed) {
+                long start = System.nanoTime();
+                passed = this.test.test(courses, labs);
+                this.timedNanos.add(System.nanoTime() - start);
+                this.timedCalls.increment();
+            } else {
+                passed = this.test.test(courses, labs);
+            }
+            this.calls.increment();
+            if (!passed) {
+                this.rejections.increment();
+            }
+            return passed;
+        }
+
+        /**
+         * Returns the average time of a call in nanoseconds.
+         * @return The average time, 0 if no call has been timed.
+         */
+        private double averageNanos() {
+            long timed = this.timedCalls.sum();
+            return timed == 0 ? 0 : (double) this.timedNanos.sum() / timed;
+        }
+
+        /**
+         * Returns the fraction of calls that were rejected.
+         * @return The rejection rate, 0 if the check has not run.
+         */
+        private double rejectionRate() {
+            long total = this.calls.sum();
+            return total == 0 ? 0 : (double) this.rejections.sum() / total;
+        }
+
+        /**
+         * Returns the expected time spent per rejection, the order key of the check.
+         * Checks that have not run yet come first, so that their cost gets measured.
+         * @return The expected time per rejection.
+         */
+        private double costPerRejection() {
+            if (this.timedCalls.sum() == 0) {
+                return 0;
+            }
+            double rate = this.rejectionRate();
+            return rate == 0 ? Double.MAX_VALUE : this.averageNanos() / rate;
+        }
+    }
+
+    /**
+     * Per-thread buffers for the checks.
+     */
+    private final class Scratch {
+        private final Window courses = new Window();
+        private final Window labs = new Window();
+        // Number of classes assigned to each course slot, then each lab slot
+        private final int[] slotCounts = new int[HardConstraint.this.numSlots];
+        // Slots taken by a 500-level class, marked with the current stamp
+        private final int[] slotMarks = new int[HardConstraint.this.numSlots];
+        private int stamp = 0;
+        // Number of partial checks run by the thread, to sample timings and schedule reordering
+        private int checks = 0;
+
+        /**
+         * Starts a new round of slot marks.
+         * @return the stamp of the round
+         */
+        private int nextStamp() {
+            if (++this.stamp == Integer.MAX_VALUE) {
+                Arrays.fill(this.slotMarks, 0);
+                this.stamp = 1;
+            }
+            return this.stamp;
+        }
+    }
+
     /**
      * Constructor for hard constraints
      */
@@ -53,6 +221,398 @@ public class HardConstraint {
         this.numSlots = this.slots.size();
 
         populateClassesAndSlots();
+        for (int i = 0; i < this.numCourseSlots; i++) {
+            this.courseSlotIndexMap.putIfAbsent(this.courseSlots.get(i), i);
+        }
+        for (int i = 0; i < this.labSlots.size(); i++) {
+            this.labSlotIndexMap.putIfAbsent(this.labSlots.get(i), i);
+        }
+        resolveConstraintIndices();
+        this.symmetryGroupOf = new int[this.numClasses][];
+        if (Scheduler.getSymmetryBreaking()) {
+            resolveSymmetryGroups();
+        }
+        List<Check> checks = new ArrayList<>(List.of(
+            new Check("max", this::checkMax),
+            new Check("courseLabUnequal", this::checkCourseLabAssignmentUnequal),
+            new Check("notCompatible", this::checkNotCompatible),
+            new Check("partialAssignment", this::checkPartialAssignment),
+            new Check("unwanted", this::checkUnwanted),
+            new Check("evening", this::checkEveningCourses),
+            new Check("level500", this::checkLevel500Courses)));
+        if (this.symmetryGroups.length > 0) {
+            checks.add(new Check("symmetry", this::checkSymmetry));
+        }
+        this.checkOrder = checks.toArray(new Check[0]);
+    }
+
+    /**
+     * Runs the partial checks in the current order, stopping at the first one that fails.
+     * @param courses - The course assignments.
+     * @param labs - The lab assignments.
+     * @param buffers - The scratch buffers of the calling thread.
+     * @return true if all checks pass.
+     */
+    private boolean runChecks(List<List<String>> courses, List<List<String>> labs, Scratch buffers) {
+        int count = buffers.checks++;
+        boolean timed = (count & HardConstraint.SAMPLE_MASK) == 0;
+        if (Scheduler.getAdaptiveCheckOrder() && count > 0 && (count & HardConstraint.REORDER_MASK) == 0) {
+            this.reorderChecks();
+        }
+        for (Check check : this.checkOrder) {
+            if (!check.run(courses, labs, timed)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the checks by their expected time per rejection, so cheap and selective checks run first.
+     */
+    private void reorderChecks() {
+        Check[] order = this.checkOrder.clone();
+        double[] keys = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            keys[i] = order[i].costPerRejection();
+        }
+        // Insertion sort, stable so that checks with equal keys keep their order
+        for (int i = 1; i < order.length; i++) {
+            Check check = order[i];
+            double key = keys[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                order[j + 1] = order[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            order[j + 1] = check;
+            keys[j + 1] = key;
+        }
+        this.checkOrder = order;
+    }
+
+    /**
+     * Returns a summary of the partial checks in their current order, e.g.
+     * "notCompatible: 1200 calls, 35.0% rejected, 850 ns/call".
+     * @return The summary, one line per check.
+     */
+    public String getCheckStatistics() {
+        StringBuilder summary = new StringBuilder();
+        for (Check check : this.checkOrder) {
+            summary.append(check.name).append(": ").append(check.calls.sum()).append(" calls, ")
+                .append(String.format(Locale.ROOT, "%.1f", 100 * check.rejectionRate())).append("% rejected, ")
+                .append(String.format(Locale.ROOT, "%.0f", check.averageNanos())).append(" ns/call\n");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Resolves the class identifiers of the constraints to indices.
+     */
+    private void resolveConstraintIndices() {
+        this.courseLabIndices = new int[this.numCourses][];
+        for (int i = 0; i < this.numCourses; i++) {
+            ArrayList<List<String>> labList = this.classesArr[i].getLabList();
+            this.courseLabIndices[i] = new int[labList.size()];
+            for (int j = 0; j < labList.size(); j++) {
+                this.courseLabIndices[i][j] = this.labs.indexOf(labList.get(j));
+            }
+        }
+        List<ArrayList<List<String>>> notCompatible = Scheduler.getNotCompatible();
+        this.notCompatibleLeft = new int[notCompatible.size()];
+        this.notCompatibleRight = new int[notCompatible.size()];
+        this.notCompatibleLeftLab = new boolean[notCompatible.size()];
+        this.notCompatibleRightLab = new boolean[notCompatible.size()];
+        for (int i = 0; i < notCompatible.size(); i++) {
+            List<String> left = notCompatible.get(i).get(0);
+            List<String> right = notCompatible.get(i).get(1);
+            this.notCompatibleLeftLab[i] = isLabOrTutorial(left);
+            this.notCompatibleRightLab[i] = isLabOrTutorial(right);
+            this.notCompatibleLeft[i] = this.notCompatibleLeftLab[i]
+                ? this.labs.indexOf(left)
+                : this.courses.indexOf(left);
+            this.notCompatibleRight[i] = this.notCompatibleRightLab[i]
+                ? this.labs.indexOf(right)
+                : this.courses.indexOf(right);
+        }
+        List<Set<Integer>> partners = new ArrayList<>();
+        for (int i = 0; i < this.numClasses; i++) {
+            partners.add(new LinkedHashSet<>());
+        }
+        for (int i = 0; i < notCompatible.size(); i++) {
+            int left = classIndex(notCompatible.get(i).get(0));
+            int right = classIndex(notCompatible.get(i).get(1));
+            if (left >= 0 && right >= 0) {
+                partners.get(left).add(right);
+                partners.get(right).add(left);
+            }
+        }
+        this.incompatibleIndices = new int[this.numClasses][];
+        for (int i = 0; i < this.numClasses; i++) {
+            this.incompatibleIndices[i] = partners.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        // Later partial assignments of the same class replace earlier ones
+        Map<List<String>, String[]> partialAssignmentsMap = new HashMap<>();
+        for (List<List<String>> assignment : Scheduler.getPartialAssignments()) {
+            partialAssignmentsMap.put(assignment.get(0),
+                new String[] { assignment.get(1).get(0), assignment.get(2).get(0) });
+        }
+        this.partialDay = new String[this.numClasses];
+        this.partialTime = new String[this.numClasses];
+        this.level500 = new boolean[this.numClasses];
+        for (int i = 0; i < this.numClasses; i++) {
+            String[] dayTime = partialAssignmentsMap.get(i < this.numCourses
+                ? this.courses.get(i)
+                : this.labs.get(i - this.numCourses));
+            if (dayTime != null) {
+                this.partialDay[i] = dayTime[0];
+                this.partialTime[i] = dayTime[1];
+            }
+            this.level500[i] = this.classesArr[i].getName().get(1).startsWith("5");
+        }
+    }
+
+    /**
+     * Groups the sections that can swap slots without changing any constraint or soft penalty:
+     * courses (or labs) of the same course with the same evening status, no partial assignment,
+     * the same unwanted slots and preferences, the same not-compatible and pair partners apart
+     * from each other, and the same labs (or, for labs, the same lectures).
+     * For example, CPSC 231 LEC 01 and LEC 02 sharing a course-wide tutorial are interchangeable.
+     */
+    private void resolveSymmetryGroups() {
+        List<Set<List<String>>> unwantedSlots = new ArrayList<>(this.numClasses);
+        List<Map<List<String>, Integer>> preferences = new ArrayList<>(this.numClasses);
+        List<Map<Integer, Integer>> incompatible = new ArrayList<>(this.numClasses);
+        List<Map<Integer, Integer>> pairs = new ArrayList<>(this.numClasses);
+        List<Set<Integer>> linked = new ArrayList<>(this.numClasses);
+        for (int i = 0; i < this.numClasses; i++) {
+            Set<List<String>> unwanted = new HashSet<>();
+            for (List<List<String>> time : this.classesArr[i].getUnwanted()) {
+                unwanted.add(List.of(time.get(1).get(0), time.get(2).get(0)));
+            }
+            unwantedSlots.add(unwanted);
+            preferences.add(new HashMap<>());
+            incompatible.add(new HashMap<>());
+            pairs.add(new HashMap<>());
+            linked.add(new HashSet<>());
+        }
+        try {
+            for (List<List<String>> preference : Scheduler.getPreferences()) {
+                int index = classIndex(preference.get(2));
+                if (index >= 0) {
+                    preferences.get(index).merge(List.of(preference.get(0).get(0), preference.get(1).get(0)),
+                        Integer.parseInt(preference.get(3).get(0)), Integer::sum);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Invalid preference values make the sections incomparable, so nothing is grouped
+            return;
+        }
+        HardConstraint.countPartners(Scheduler.getNotCompatible(), incompatible, this);
+        HardConstraint.countPartners(Scheduler.getPairs(), pairs, this);
+        for (int i = 0; i < this.numCourses; i++) {
+            for (int lab : this.courseLabIndices[i]) {
+                if (lab >= 0) {
+                    linked.get(i).add(this.numCourses + lab);
+                    linked.get(this.numCourses + lab).add(i);
+                }
+            }
+        }
+        // Only sections of the same course and kind can be interchangeable
+        Map<List<Object>, List<List<Integer>>> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < this.numClasses; i++) {
+            if (this.partialDay[i] != null) {
+                continue;
+            }
+            List<String> name = this.classesArr[i].getName();
+            List<Object> key = List.of(i < this.numCourses, name.get(0), name.get(1),
+                this.classesArr[i].isEvening());
+            List<List<Integer>> groups = buckets.computeIfAbsent(key, k -> new ArrayList<>());
+            List<Integer> match = null;
+            for (List<Integer> group : groups) {
+                boolean interchangeable = true;
+                for (int other : group) {
+                    interchangeable = interchangeable
+                        && unwantedSlots.get(i).equals(unwantedSlots.get(other))
+                        && preferences.get(i).equals(preferences.get(other))
+                        && linked.get(i).equals(linked.get(other))
+                        && HardConstraint.samePartners(incompatible, i, other)
+                        && HardConstraint.samePartners(pairs, i, other);
+                }
+                if (interchangeable) {
+                    match = group;
+                    break;
+                }
+            }
+            if (match == null) {
+                match = new ArrayList<>();
+                groups.add(match);
+            }
+            match.add(i);
+        }
+        List<int[]> symmetric = new ArrayList<>();
+        for (List<List<Integer>> groups : buckets.values()) {
+            for (List<Integer> group : groups) {
+                if (group.size() > 1) {
+                    int[] members = group.stream().mapToInt(Integer::intValue).toArray();
+                    symmetric.add(members);
+                    for (int member : members) {
+                        this.symmetryGroupOf[member] = members;
+                    }
+                }
+            }
+        }
+        this.symmetryGroups = symmetric.toArray(new int[0][]);
+    }
+
+    /**
+     * Splits the groups of interchangeable sections by their slot in the reference schedule. Sections
+     * that the reference puts in different slots are no longer interchangeable once moves are counted,
+     * and sorting them into section order would reject the reference or move seeds away from it.
+     * @param reference - The reference schedule, or null if there is none.
+     */
+    public void separateByReference(WarmStart reference) {
+        if (reference == null || this.symmetryGroups.length == 0) {
+            return;
+        }
+        List<int[]> symmetric = new ArrayList<>();
+        for (int[] group : this.symmetryGroups) {
+            Map<List<String>, List<Integer>> bySlot = new LinkedHashMap<>();
+            for (int member : group) {
+                bySlot.computeIfAbsent(reference.slotOf(member), k -> new ArrayList<>()).add(member);
+                this.symmetryGroupOf[member] = null;
+            }
+            for (List<Integer> part : bySlot.values()) {
+                if (part.size() > 1) {
+                    int[] members = part.stream().mapToInt(Integer::intValue).toArray();
+                    symmetric.add(members);
+                    for (int member : members) {
+                        this.symmetryGroupOf[member] = members;
+                    }
+                }
+            }
+        }
+        this.symmetryGroups = symmetric.toArray(new int[0][]);
+    }
+
+    /**
+     * Counts how often each class is named together with each other class in a list of statements.
+     * @param statements - The not-compatible or pair statements.
+     * @param partners - The partner counts of each class, filled in.
+     * @param constr - The hard constraints, to resolve class identifiers.
+     */
+    private static void countPartners(List<ArrayList<List<String>>> statements, List<Map<Integer, Integer>> partners,
+            HardConstraint constr) {
+        for (List<List<String>> statement : statements) {
+            int first = constr.classIndex(statement.get(0));
+            int second = constr.classIndex(statement.get(1));
+            if (first >= 0 && second >= 0) {
+                partners.get(first).merge(second, 1, Integer::sum);
+                partners.get(second).merge(first, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Checks whether two classes have the same partners once each one stands in for the other.
+     * @param partners - The partner counts of each class.
+     * @param a - The index of the first class.
+     * @param b - The index of the second class.
+     * @return true if swapping the two classes leaves the statements unchanged.
+     */
+    private static boolean samePartners(List<Map<Integer, Integer>> partners, int a, int b) {
+        Map<Integer, Integer> ofA = new HashMap<>(partners.get(a));
+        Map<Integer, Integer> ofB = new HashMap<>(partners.get(b));
+        // A statement between the two classes is mapped onto itself by the swap
+        return Objects.equals(ofA.remove(b), ofB.remove(a)) && ofA.equals(ofB);
+    }
+
+    /**
+     * Returns the number of groups of interchangeable sections found for symmetry breaking.
+     * @return The number of groups.
+     */
+    public int getNumSymmetryGroups() {
+        return this.symmetryGroups.length;
+    }
+
+    /**
+     * Returns the schedule with the slots of each group of interchangeable sections sorted into
+     * section order, the representative that symmetry breaking keeps of all equivalent schedules.
+     * @param pr - The schedule.
+     * @return The canonical schedule; pr itself if it is already canonical.
+     */
+    public List<List<String>> canonical(List<List<String>> pr) {
+        List<List<String>> result = pr;
+        for (int[] group : this.symmetryGroups) {
+            result = canonical(pr, result, group);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the schedule with the slots of the interchangeable sections of one class sorted into
+     * section order, for a schedule that was canonical before the class was assigned.
+     * @param pr - The schedule.
+     * @param classIndex - The index of the class that was just assigned.
+     * @return The canonical schedule; pr itself if it is already canonical.
+     */
+    public List<List<String>> canonical(List<List<String>> pr, int classIndex) {
+        int[] group = this.symmetryGroupOf[classIndex];
+        return group == null ? pr : canonical(pr, pr, group);
+    }
+
+    /**
+     * Sorts the slots of one group of interchangeable sections into section order.
+     * @param pr - The schedule to read the group from.
+     * @param result - The schedule to write to; copied from pr first if it is pr.
+     * @param group - The indices of the interchangeable sections.
+     * @return result, or a copy of pr if the group had to be reordered.
+     */
+    private List<List<String>> canonical(List<List<String>> pr, List<List<String>> result, int[] group) {
+        List<Integer> assigned = new ArrayList<>(group.length);
+        List<List<String>> groupSlots = new ArrayList<>(group.length);
+        boolean sorted = true;
+        int previous = -1;
+        for (int member : group) {
+            int slotIndex = slotIndex(member, pr.get(member));
+            if (slotIndex >= 0) {
+                sorted = sorted && slotIndex >= previous;
+                previous = slotIndex;
+                assigned.add(member);
+                groupSlots.add(pr.get(member));
+            }
+        }
+        if (sorted) {
+            return result;
+        }
+        if (result == pr) {
+            result = new ArrayList<>(pr);
+        }
+        groupSlots.sort(Comparator.comparingInt(slot -> slotIndex(group[0], slot)));
+        for (int i = 0; i < assigned.size(); i++) {
+            result.set(assigned.get(i), groupSlots.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Converts a time such as 8:00 or 17:30 to minutes after midnight without allocating.
+     *
+     * @param time time in H:mm format
+     * @return minutes after midnight
+     */
+    private static int minutes(String time) {
+        int separator = time.indexOf(':');
+        if (separator < 1 || separator != time.length() - 3) {
+            throw new IllegalArgumentException("Invalid time " + time);
+        }
+        int hours = 0;
+        for (int i = 0; i < separator; i++) {
+            hours = hours * 10 + Character.digit(time.charAt(i), 10);
+        }
+        return hours * 60 + Character.digit(time.charAt(separator + 1), 10) * 10
+            + Character.digit(time.charAt(separator + 2), 10);
     }
 
     /**
@@ -121,25 +681,25 @@ public class HardConstraint {
             // Check if the lecture and lab are on the same day
             // Check if the lecture and lab are on the same time
             // Check if the lecture and lab timings overlap
-            LocalTime lecStartTime = LocalTime.parse(lecTime, HardConstraint.TIME_FORMATTER);
-            LocalTime lecEndTime = lecStartTime.plusMinutes(durationTuesLec);
-            LocalTime tutStartTime = LocalTime.parse(tutTime, HardConstraint.TIME_FORMATTER);
-            LocalTime tutEndTime = tutStartTime.plusMinutes(durationTuesLab);
-            if (lecStartTime.isAfter(tutStartTime) && lecStartTime.isBefore(tutEndTime)) {
+            int lecStartTime = minutes(lecTime);
+            int lecEndTime = lecStartTime + durationTuesLec;
+            int tutStartTime = minutes(tutTime);
+            int tutEndTime = tutStartTime + durationTuesLab;
+            if (lecStartTime > tutStartTime && lecStartTime < tutEndTime) {
                 return false;
-            } else if (tutStartTime.isAfter(lecStartTime) && tutStartTime.isBefore(lecEndTime)) {
+            } else if (tutStartTime > lecStartTime && tutStartTime < lecEndTime) {
                 return false;
             }
         } else if (lecDay.equals("MO") && tutDay.equals("FR")) {
             // Check if the lecture and lab are on the same time
             // Check if the lecture and lab timings overlap
-            LocalTime lecStartTime = LocalTime.parse(lecTime, HardConstraint.TIME_FORMATTER);
-            LocalTime lecEndTime = lecStartTime.plusMinutes(durationMonWedFriLecLab);
-            LocalTime tutStartTime = LocalTime.parse(tutTime, HardConstraint.TIME_FORMATTER);
-            LocalTime tutEndTime = tutStartTime.plusMinutes(durationFriLab);
-            if (lecStartTime.isAfter(tutStartTime) && lecStartTime.isBefore(tutEndTime)) {
+            int lecStartTime = minutes(lecTime);
+            int lecEndTime = lecStartTime + durationMonWedFriLecLab;
+            int tutStartTime = minutes(tutTime);
+            int tutEndTime = tutStartTime + durationFriLab;
+            if (lecStartTime > tutStartTime && lecStartTime < tutEndTime) {
                 return false;
-            } else if (tutStartTime.isAfter(lecStartTime) && tutStartTime.isBefore(lecEndTime)) {
+            } else if (tutStartTime > lecStartTime && tutStartTime < lecEndTime) {
                 return false;
             }
         }
@@ -152,16 +712,17 @@ public class HardConstraint {
      *
      * @return true if slots have not exceeded, false otherwise
      */
-    private boolean checkMax(List<List<String>> coursesList, List<List<String>> labsList) {
+    boolean checkMax(List<List<String>> coursesList, List<List<String>> labsList) {
         try {
             // Combine course and lab slots into one array to track the assignment count.
-            int[] slotAssignmentCount = new int[this.numSlots];
+            int[] slotAssignmentCount = this.scratch.get().slotCounts;
+            Arrays.fill(slotAssignmentCount, 0);
             // Increment the count for each assigned slot.
             for (int i = 0; i < coursesList.size(); i++) {
                 List<String> assignedSlot = coursesList.get(i);
                 // Skip unassigned slots
                 if (!assignedSlot.equals(Scheduler.UNASSIGNED_SLOT)) {
-                    int assignedSlotIndex = this.courseSlots.indexOf(assignedSlot);
+                    int assignedSlotIndex = this.courseSlotIndexMap.getOrDefault(assignedSlot, -1);
                     slotAssignmentCount[assignedSlotIndex]++;
                 }
             }
@@ -170,7 +731,7 @@ public class HardConstraint {
                 List<String> assignedSlot = labsList.get(i);
                 // Skip unassigned slots
                 if (!assignedSlot.equals(Scheduler.UNASSIGNED_SLOT)) {
-                    int assignedSlotIndex = this.labSlots.indexOf(assignedSlot);
+                    int assignedSlotIndex = this.labSlotIndexMap.getOrDefault(assignedSlot, -1);
                     slotAssignmentCount[assignedSlotIndex + this.numCourseSlots]++;
                 }
             }
@@ -201,7 +762,7 @@ public class HardConstraint {
      *
      * @return true if slots have no conflicts, false otherwise
      */
-    private boolean checkCourseLabAssignmentUnequal(List<List<String>> courseList, List<List<String>> labList) {
+    boolean checkCourseLabAssignmentUnequal(List<List<String>> courseList, List<List<String>> labList) {
         try {
             for (int i = 0; i < this.numCourses; i++) {
                 // Skip unassigned courses
@@ -209,11 +770,11 @@ public class HardConstraint {
                     continue;
                 }
                 // Check if the course is assigned to a lab slot
-                ArrayList<List<String>> listLabs = this.classesArr[i].getLabList();
+                int[] listLabs = this.courseLabIndices[i];
                 // Check if assignment is unequal to all labs
-                for (int j = 0; j < listLabs.size(); j++) {
+                for (int j = 0; j < listLabs.length; j++) {
                     // Skip unassigned labs
-                    int labIndex = this.labs.indexOf(listLabs.get(j));
+                    int labIndex = listLabs[j];
                     List<String> labSlot = labList.get(labIndex);
                     if (labSlot.equals(Scheduler.UNASSIGNED_SLOT)) {
                         continue;
@@ -246,49 +807,42 @@ public class HardConstraint {
      *
      * @return true if slots compatible, false otherwise
      */
-    private boolean checkNotCompatible(List<List<String>> courseList, List<List<String>> labList) {
+    boolean checkNotCompatible(List<List<String>> courseList, List<List<String>> labList) {
         try {
             // Iterate through not compatible pairs and check assignments.
             // e.g. [[CPSC, 433, LEC, 01, TUT, 01], [CPSC, 433, LEC, 02, LAB, 02]]
-            for (int i = 0; i < Scheduler.getNotCompatible().size(); i++) {
-                // Get the not compatible pair
-                ArrayList<List<String>> notCompatiblePair = Scheduler.getNotCompatible().get(i);
-                // Get the class identifier for the left class
-                List<String> leftClassIdentifier = notCompatiblePair.get(0);
+            for (int i = 0; i < this.notCompatibleLeft.length; i++) {
                 // Get the index of the left class
-                int leftIndex = isLabOrTutorial(leftClassIdentifier)
-                    ? this.labs.indexOf(leftClassIdentifier)
-                    : this.courses.indexOf(leftClassIdentifier);
+                int leftIndex = this.notCompatibleLeft[i];
                 // Skip if the left class is not in the schedule
                 if (leftIndex == -1) {
                     continue;
                 }
-                List<String> leftAssignedSlot = isLabOrTutorial(leftClassIdentifier)
-                    ? labList.get(leftIndex)
-                    : courseList.get(leftIndex);
+                boolean leftIsLab = this.notCompatibleLeftLab[i];
+                List<String> leftAssignedSlot = leftIsLab ? labList.get(leftIndex) : courseList.get(leftIndex);
                 // Skip unassigned slots
                 if (leftAssignedSlot.equals(Scheduler.UNASSIGNED_SLOT)) {
                     continue;
                 }
-                // Get the class identifier for the right class
-                List<String> rightClassIdentifier = notCompatiblePair.get(1);
-                int rightIndex = isLabOrTutorial(rightClassIdentifier)
-                    ? this.labs.indexOf(rightClassIdentifier)
-                    : this.courses.indexOf(rightClassIdentifier);
+                int rightIndex = this.notCompatibleRight[i];
                 // Skip if the right class is not in the schedule
                 if (rightIndex == -1) {
                     continue;
                 }
+                boolean rightIsLab = this.notCompatibleRightLab[i];
                 // Retrieve the assigned slot for the right class
-                List<String> rightAssignedSlot = isLabOrTutorial(rightClassIdentifier)
-                    ? labList.get(rightIndex)
-                    : courseList.get(rightIndex);
+                List<String> rightAssignedSlot = rightIsLab ? labList.get(rightIndex) : courseList.get(rightIndex);
                 // Skip unassigned slots
                 if (rightAssignedSlot.equals(Scheduler.UNASSIGNED_SLOT)) {
                     continue;
                 }
+                // Only needed for debugging output
+                List<String> leftClassIdentifier = leftIsLab ? this.labs.get(leftIndex) : this.courses.get(leftIndex);
+                List<String> rightClassIdentifier = rightIsLab
+                    ? this.labs.get(rightIndex)
+                    : this.courses.get(rightIndex);
                 // Check if the left and right slots are the same
-                if (!isLabOrTutorial(leftClassIdentifier) && !isLabOrTutorial(rightClassIdentifier)) {
+                if (!leftIsLab && !rightIsLab) {
                     // Both are lectures
                     // Check if the left and right slots are the same
                     boolean result = leftAssignedSlot.get(0).equals(rightAssignedSlot.get(0))
@@ -301,7 +855,7 @@ public class HardConstraint {
                         }
                         return false;
                     }
-                } else if (isLabOrTutorial(leftClassIdentifier) && isLabOrTutorial(rightClassIdentifier)) {
+                } else if (leftIsLab && rightIsLab) {
                     // Both are labs
                     // Check if the left and right slots are the same
                     boolean result = leftAssignedSlot.get(0).equals(rightAssignedSlot.get(0))
@@ -315,7 +869,7 @@ public class HardConstraint {
                         return false;
                     }
                 } else {
-                    if (isLabOrTutorial(leftClassIdentifier)) {
+                    if (leftIsLab) {
                         // left is a lab and right is a lecture
                         // Check if the lecture and lab slots are the same
                         // Check if the lecture and lab timings overlap
@@ -368,18 +922,8 @@ public class HardConstraint {
      *
      * @return true if partial assignment is included in schedule, false otherwise
      */
-    private boolean checkPartialAssignment(List<List<String>> courseList, List<List<String>> labList) {
+    boolean checkPartialAssignment(List<List<String>> courseList, List<List<String>> labList) {
         try {
-            // Map to hold the partial assignments for efficient lookup
-            Map<List<String>, String[]> partialAssignmentsMap = new HashMap<>();
-            // Populate the map with the partial assignments
-            // e.g. [[SENG, 311, LEC, 01], [MO], [8:00]]
-            List<ArrayList<List<String>>> partialAssignments = Scheduler.getPartialAssignments();
-            for (List<List<String>> assignment : partialAssignments) {
-                // Convert day and time to a String array for easy comparison later
-                String[] dayTime = { assignment.get(1).get(0), assignment.get(2).get(0) };
-                partialAssignmentsMap.put(assignment.get(0), dayTime);
-            }
             // Check if the partial assignments are included in the schedule
             for (int i = 0; i < courseList.size(); i++) {
                 List<String> assignedSlot = courseList.get(i);
@@ -390,17 +934,18 @@ public class HardConstraint {
                 // Get the class identifier for the current class
                 List<String> classIdentifier = this.courses.get(i);
                 // If there's a partial assignment for the current class
-                if (partialAssignmentsMap.containsKey(classIdentifier)) {
-                    String[] partialDayTime = partialAssignmentsMap.get(classIdentifier);
+                String partialDay = this.partialDay[i];
+                if (partialDay != null) {
+                    String partialTime = this.partialTime[i];
                     String assignedDay = assignedSlot.get(0);
                     String assignedTime = assignedSlot.get(1);
                     // Check if the assigned day and time match the partial assignment
-                    if (!partialDayTime[0].equals(assignedDay) || !partialDayTime[1].equals(assignedTime)) {
+                    if (!partialDay.equals(assignedDay) || !partialTime.equals(assignedTime)) {
                         if (this.printData) {
                             System.out.println(
                                 "checkPartialAssignment() failed for class " + classIdentifier + " at slot "
-                                    + assignedSlot + " with partial assignment " + partialDayTime[0] + " "
-                                    + partialDayTime[1]);
+                                    + assignedSlot + " with partial assignment " + partialDay + " "
+                                    + partialTime);
                         }
                         return false; // The current assignment does not match the partial assignment
                     }
@@ -416,17 +961,18 @@ public class HardConstraint {
                 // Get the class identifier for the current class
                 List<String> classIdentifier = this.labs.get(i);
                 // If there's a partial assignment for the current class
-                if (partialAssignmentsMap.containsKey(classIdentifier)) {
-                    String[] partialDayTime = partialAssignmentsMap.get(classIdentifier);
+                String partialDay = this.partialDay[i + this.numCourses];
+                if (partialDay != null) {
+                    String partialTime = this.partialTime[i + this.numCourses];
                     String assignedDay = assignedSlot.get(0);
                     String assignedTime = assignedSlot.get(1);
                     // Check if the assigned day and time match the partial assignment
-                    if (!partialDayTime[0].equals(assignedDay) || !partialDayTime[1].equals(assignedTime)) {
+                    if (!partialDay.equals(assignedDay) || !partialTime.equals(assignedTime)) {
                         if (this.printData) {
                             System.out.println(
                                 "checkPartialAssignment() failed for class " + classIdentifier + " at slot "
-                                    + assignedSlot + " with partial assignment " + partialDayTime[0] + " "
-                                    + partialDayTime[1]);
+                                    + assignedSlot + " with partial assignment " + partialDay + " "
+                                    + partialTime);
                         }
                         return false; // The current assignment does not match the partial assignment
                     }
@@ -448,7 +994,7 @@ public class HardConstraint {
      *
      * @return true if no class is assigned to an unwanted slot, false otherwise.
      */
-    private boolean checkUnwanted(List<List<String>> courseList, List<List<String>> labList) {
+    boolean checkUnwanted(List<List<String>> courseList, List<List<String>> labList) {
         try {
             for (int i = 0; i < courseList.size(); i++) {
                 List<String> assignedSlot = courseList.get(i);
@@ -523,7 +1069,8 @@ public class HardConstraint {
                 // Check if the course is an evening course.
                 if (this.classesArr[i].isEvening()) {
                     // Check if the slot is an evening slot.
-                    if (this.slotsArr[this.courseSlots.indexOf(courseList.get(i))].isEvening() == false) {
+                    int slot = this.courseSlotIndexMap.getOrDefault(courseList.get(i), -1);
+                    if (this.slotsArr[slot].isEvening() == false) {
                         if (this.printData) {
                             System.out.println("checkEveningCourses() failed for course " + this.courses.get(i)
                                 + " at slot " + courseList.get(i));
@@ -541,7 +1088,7 @@ public class HardConstraint {
                 // Check if the course is an evening course.
                 if (this.classesArr[i + this.numCourses].isEvening()) {
                     // Check if the slot is an evening slot.
-                    if (this.slotsArr[this.labSlots.indexOf(labList.get(i))
+                    if (this.slotsArr[this.labSlotIndexMap.getOrDefault(labList.get(i), -1)
                         + this.numCourseSlots].isEvening() == false) {
                         if (this.printData) {
                             System.out.println("checkEveningCourses() failed for lab " + this.labs.get(i)
@@ -568,44 +1115,50 @@ public class HardConstraint {
      */
     private boolean checkLevel500Courses(List<List<String>> courseList, List<List<String>> labList) {
         try {
-            Set<List<String>> uniqueAssignedSlotsCourses = new HashSet<>();
-            Set<List<String>> uniqueAssignedSlotsLabs = new HashSet<>();
+            // Slots already taken by a 500-level class are marked with this round's stamp
+            Scratch buffers = this.scratch.get();
+            int[] slotMarks = buffers.slotMarks;
+            int stamp = buffers.nextStamp();
             // Check if the course is a 500-level course.
             for (int i = 0; i < this.numCourses; i++) {
                 // Check if the course is a 500-level course.
-                if (classesArr[i].getName().get(1).startsWith("5")) {
+                if (this.level500[i]) {
                     List<String> assignedSlot = courseList.get(i);
                     // If the slot is unassigned, we skip it.
                     if (assignedSlot.equals(Scheduler.UNASSIGNED_SLOT)) {
                         continue;
                     }
                     // If the slot is already in the set, there's an overlap.
-                    if (!uniqueAssignedSlotsCourses.add(assignedSlot)) {
+                    int slot = this.courseSlotIndexMap.get(assignedSlot);
+                    if (slotMarks[slot] == stamp) {
                         if (this.printData) {
                             System.out.println("checkLevel500Courses() failed for course " + this.courses.get(i)
                                 + " at slot " + courseList.get(i));
                         }
                         return false;
                     }
+                    slotMarks[slot] = stamp;
                 }
             }
             // Check if the lab is a 500-level course.
             for (int i = 0; i < this.numLabs; i++) {
                 // Check if the course is a 500-level course.
-                if (classesArr[i + this.numCourses].getName().get(1).startsWith("5")) {
+                if (this.level500[i + this.numCourses]) {
                     List<String> assignedSlot = labList.get(i);
                     // If the slot is unassigned, we skip it.
                     if (assignedSlot.equals(Scheduler.UNASSIGNED_SLOT)) {
                         continue;
                     }
                     // If the slot is already in the set, there's an overlap.
-                    if (!uniqueAssignedSlotsLabs.add(assignedSlot)) {
+                    int slot = this.labSlotIndexMap.get(assignedSlot) + this.numCourseSlots;
+                    if (slotMarks[slot] == stamp) {
                         if (this.printData) {
                             System.out.println("checkLevel500Courses() failed for lab " + this.labs.get(i)
                                 + " at slot " + labList.get(i));
                         }
                         return false;
                     }
+                    slotMarks[slot] = stamp;
                 }
             }
             // If we get here, all 500-level courses have unique slots.
@@ -671,6 +1224,287 @@ public class HardConstraint {
                 .toArray();
     }
 
+    /**
+     * Returns the classes (courses followed by labs) with their constraint data.
+     * @return the classes indexed in the same order as the PR list
+     */
+    public Classes[] getClassesArr() {
+        return this.classesArr;
+    }
+
+    /**
+     * Returns the slots (course slots followed by lab slots) with their capacities.
+     * @return the slots indexed by course slot index, then numCourseSlots + lab slot index
+     */
+    public Slots[] getSlotsArr() {
+        return this.slotsArr;
+    }
+
+    /**
+     * Checks if a lecture slot and a lab slot do not overlap, so a lecture and one of its labs can take them.
+     * @param lecTimeSlot the lecture's slot, e.g. [MO, 8:00, 3, 2]
+     * @param labTimeSlot the lab's slot, e.g. [TU, 10:00, 2, 1]
+     * @return true if there is no time overlap, false otherwise.
+     */
+    public boolean lectureLabCompatible(List<String> lecTimeSlot, List<String> labTimeSlot) {
+        return checkLecLab(lecTimeSlot, labTimeSlot);
+    }
+
+    /**
+     * Checks if two classes can take the given slots together as far as the constraints between
+     * two classes go: a lecture and its lab must not overlap, not-compatible classes must not meet
+     * and two 500-level courses (or labs) must not share a slot. Slot capacities are not checked.
+     * @param a the index of the first class
+     * @param slotA the slot of the first class
+     * @param b the index of the second class
+     * @param slotB the slot of the second class
+     * @return true if no constraint between the two classes is violated, false otherwise.
+     */
+    public boolean compatible(int a, List<String> slotA, int b, List<String> slotB) {
+        boolean aIsCourse = a < this.numCourses;
+        boolean bIsCourse = b < this.numCourses;
+        // Lectures and their labs must not overlap
+        if (aIsCourse && !bIsCourse && contains(this.courseLabIndices[a], b - this.numCourses)
+            && !checkLecLab(slotA, slotB)) {
+            return false;
+        }
+        if (bIsCourse && !aIsCourse && contains(this.courseLabIndices[b], a - this.numCourses)
+            && !checkLecLab(slotB, slotA)) {
+            return false;
+        }
+        // Not-compatible partners
+        if (contains(this.incompatibleIndices[a], b)) {
+            boolean conflict;
+            if (aIsCourse == bIsCourse) {
+                conflict = slotA.get(0).equals(slotB.get(0)) && slotA.get(1).equals(slotB.get(1));
+            } else {
+                conflict = aIsCourse ? !checkLecLab(slotA, slotB) : !checkLecLab(slotB, slotA);
+            }
+            if (conflict) {
+                return false;
+            }
+        }
+        // 500-level sections must be in different slots
+        return aIsCourse != bIsCourse || !this.level500[a] || !this.level500[b] || !slotA.equals(slotB);
+    }
+
+    /**
+     * Checks if an array contains a value.
+     * @param values the array
+     * @param value the value to look for
+     * @return true if the value is in the array, false otherwise.
+     */
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of a slot in the course slots (for courses) or lab slots (for labs).
+     * @param classIndex the index of the class in the PR list
+     * @param slot the assigned slot, e.g. [MO, 8:00, 3, 2]
+     * @return the slot index, or -1 if the slot is unassigned or unknown
+     */
+    public int slotIndex(int classIndex, List<String> slot) {
+        Integer index = classIndex < this.numCourses
+            ? this.courseSlotIndexMap.get(slot)
+            : this.labSlotIndexMap.get(slot);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Returns the PR index of a course or lab identifier.
+     * @param classIdentifier class identifier, e.g. [CPSC, 433, LEC, 01, TUT, 01]
+     * @return the index in the PR list, or -1 if the class is unknown
+     */
+    public int classIndex(List<String> classIdentifier) {
+        if (isLabOrTutorial(classIdentifier)) {
+            int labIndex = this.labs.indexOf(classIdentifier);
+            return labIndex == -1 ? -1 : this.numCourses + labIndex;
+        }
+        return this.courses.indexOf(classIdentifier);
+    }
+
+    /**
+     * Explains why assigning a class broke the hard constraints of a partial assignment.
+     * The culprits are the other assigned classes that, together with the class in its slot,
+     * violate a constraint: a full slot, an overlapping lecture/lab, a not-compatible partner,
+     * another 500-level section in the same slot or an interchangeable section out of order.
+     *
+     * @param pr the partial assignment that failed constrStar
+     * @param classIndex the index of the class that was just assigned
+     * @return the indices of the culprits; empty if the slot is forbidden for the class on its own
+     *         (partial assignment, unwanted or evening constraint); null if the failure is not
+     *         caused by this class or the culprits do not violate a constraint without the other
+     *         assignments, in which case nothing may be learned from it
+     */
+    public int[] explainConflict(List<List<String>> pr, int classIndex) {
+        List<String> slot = pr.get(classIndex);
+        if (slot.equals(Scheduler.UNASSIGNED_SLOT)) {
+            return null;
+        }
+        if (violatesUnary(classIndex, slot)) {
+            return new int[0];
+        }
+        boolean isCourse = classIndex < this.numCourses;
+        int from = isCourse ? 0 : this.numCourses;
+        int to = isCourse ? this.numCourses : this.numClasses;
+        Set<Integer> culprits = new LinkedHashSet<>();
+        // Slot capacity: every other class in the same slot shares the blame
+        List<Integer> sameSlot = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (i != classIndex && pr.get(i).equals(slot)) {
+                sameSlot.add(i);
+            }
+        }
+        int slotIndex = slotIndex(classIndex, slot);
+        if (slotIndex >= 0) {
+            Slots slotInfo = this.slotsArr[isCourse ? slotIndex : slotIndex + this.numCourseSlots];
+            if (sameSlot.size() + 1 > slotInfo.getMax()) {
+                culprits.addAll(sameSlot);
+            }
+        }
+        // Lectures and their labs must not overlap
+        if (isCourse) {
+            for (List<String> lab : this.classesArr[classIndex].getLabList()) {
+                int labIndex = classIndex(lab);
+                if (labIndex >= 0 && !pr.get(labIndex).equals(Scheduler.UNASSIGNED_SLOT)
+                    && !checkLecLab(slot, pr.get(labIndex))) {
+                    culprits.add(labIndex);
+                }
+            }
+        } else {
+            List<String> labName = this.classesArr[classIndex].getName();
+            for (int i = 0; i < this.numCourses; i++) {
+                if (!pr.get(i).equals(Scheduler.UNASSIGNED_SLOT)
+                    && this.classesArr[i].getLabList().contains(labName)
+                    && !checkLecLab(pr.get(i), slot)) {
+                    culprits.add(i);
+                }
+            }
+        }
+        // Not-compatible partners
+        for (List<String> partner : this.classesArr[classIndex].getIncompatible()) {
+            int partnerIndex = classIndex(partner);
+            if (partnerIndex < 0 || pr.get(partnerIndex).equals(Scheduler.UNASSIGNED_SLOT)) {
+                continue;
+            }
+            List<String> partnerSlot = pr.get(partnerIndex);
+            boolean partnerIsCourse = partnerIndex < this.numCourses;
+            boolean conflict;
+            if (isCourse == partnerIsCourse) {
+                conflict = slot.get(0).equals(partnerSlot.get(0)) && slot.get(1).equals(partnerSlot.get(1));
+            } else {
+                conflict = isCourse ? !checkLecLab(slot, partnerSlot) : !checkLecLab(partnerSlot, slot);
+            }
+            if (conflict) {
+                culprits.add(partnerIndex);
+            }
+        }
+        // 500-level sections must be in different slots
+        if (this.classesArr[classIndex].getName().get(1).startsWith("5")) {
+            for (int i : sameSlot) {
+                if (this.classesArr[i].getName().get(1).startsWith("5")) {
+                    culprits.add(i);
+                }
+            }
+        }
+        // Interchangeable sections out of section order
+        if (this.symmetryGroupOf[classIndex] != null && slotIndex >= 0) {
+            for (int member : this.symmetryGroupOf[classIndex]) {
+                int memberSlot = slotIndex(member, pr.get(member));
+                if (memberSlot >= 0 && (member < classIndex ? memberSlot > slotIndex : memberSlot < slotIndex)) {
+                    culprits.add(member);
+                }
+            }
+        }
+        if (culprits.isEmpty()) {
+            return null;
+        }
+        int[] explanation = culprits.stream().mapToInt(Integer::intValue).toArray();
+        // A learned nogood must hold in every schedule, so the culprits have to break a constraint on their own
+        return violatedBy(pr, classIndex, explanation) ? explanation : null;
+    }
+
+    /**
+     * Checks that a class in its slot and the culprits alone, with every other class unassigned,
+     * break a hard constraint.
+     *
+     * @param pr the partial assignment that failed constrStar
+     * @param classIndex the index of the class that was just assigned
+     * @param culprits the indices of the culprits
+     * @return true if the class and the culprits violate a hard constraint
+     */
+    private boolean violatedBy(List<List<String>> pr, int classIndex, int[] culprits) {
+        List<List<String>> witness = new ArrayList<>(Collections.nCopies(pr.size(), Scheduler.UNASSIGNED_SLOT));
+        witness.set(classIndex, pr.get(classIndex));
+        for (int culprit : culprits) {
+            witness.set(culprit, pr.get(culprit));
+        }
+        return !constrStar(witness);
+    }
+
+    /**
+     * Checks that the assigned sections of each group of interchangeable sections are in slots
+     * of non-decreasing slot index, so only one of the equivalent permutations is searched.
+     *
+     * @param courses list of course assignments
+     * @param labs list of lab assignments
+     * @return true if every group is in order, false otherwise.
+     */
+    private boolean checkSymmetry(List<List<String>> courses, List<List<String>> labs) {
+        for (int[] group : this.symmetryGroups) {
+            int previous = -1;
+            for (int member : group) {
+                List<String> slot = member < this.numCourses
+                    ? courses.get(member)
+                    : labs.get(member - this.numCourses);
+                int slotIndex = slotIndex(member, slot);
+                if (slotIndex < 0) {
+                    continue;
+                }
+                if (slotIndex < previous) {
+                    return false;
+                }
+                previous = slotIndex;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the constraints that forbid a slot for a class regardless of the other assignments:
+     * partial assignments, unwanted slots and evening sections.
+     * @param classIndex the index of the class in the PR list
+     * @param slot the assigned slot
+     * @return true if the class cannot be assigned to the slot
+     */
+    private boolean violatesUnary(int classIndex, List<String> slot) {
+        List<String> name = this.classesArr[classIndex].getName();
+        for (List<List<String>> assignment : Scheduler.getPartialAssignments()) {
+            if (assignment.get(0).equals(name)
+                && (!assignment.get(1).get(0).equals(slot.get(0))
+                || !assignment.get(2).get(0).equals(slot.get(1)))) {
+                return true;
+            }
+        }
+        for (List<List<String>> unwanted : this.classesArr[classIndex].getUnwanted()) {
+            if (unwanted.get(1).get(0).equals(slot.get(0)) && unwanted.get(2).get(0).equals(slot.get(1))) {
+                return true;
+            }
+        }
+        if (this.classesArr[classIndex].isEvening()) {
+            int slotIndex = slotIndex(classIndex, slot);
+            int offset = classIndex < this.numCourses ? 0 : this.numCourseSlots;
+            return slotIndex < 0 || !this.slotsArr[slotIndex + offset].isEvening();
+        }
+        return false;
+    }
+
     /**
      * Checks hard constraint for fully assigned schedule
      * @param pr the current assignment
@@ -681,17 +1515,12 @@ public class HardConstraint {
             return false;
         }
         try {
-            // Create sublists for courses and labs from the schedule list 'pr'
-            List<List<String>> courses = new ArrayList<>(pr.subList(0, this.numCourses));
-            List<List<String>> labs = new ArrayList<>(pr.subList(this.numCourses, pr.size()));
+            // Views of the courses and labs of the schedule list 'pr', reused between calls
+            Scratch buffers = this.scratch.get();
+            List<List<String>> courses = buffers.courses.reset(pr, 0, this.numCourses);
+            List<List<String>> labs = buffers.labs.reset(pr, this.numCourses, pr.size());
             // Check if the schedule is valid
-            return checkMax(courses, labs)
-                && checkCourseLabAssignmentUnequal(courses, labs)
-                && checkNotCompatible(courses, labs)
-                && checkPartialAssignment(courses, labs)
-                && checkUnwanted(courses, labs)
-                && checkEveningCourses(courses, labs)
-                && checkLevel500Courses(courses, labs)
+            return runChecks(courses, labs, buffers)
                 && checkClassFullyAssigned(courses, labs);
         } catch (Exception e) {
             System.out.println("constr() failed");
@@ -710,17 +1539,12 @@ public class HardConstraint {
             return false;
         }
         try {
-            // Create sublists for courses and labs from the schedule list 'pr'
-            List<List<String>> courses = new ArrayList<>(pr.subList(0, this.numCourses));
-            List<List<String>> labs = new ArrayList<>(pr.subList(this.numCourses, pr.size()));
+            // Views of the courses and labs of the schedule list 'pr', reused between calls
+            Scratch buffers = this.scratch.get();
+            List<List<String>> courses = buffers.courses.reset(pr, 0, this.numCourses);
+            List<List<String>> labs = buffers.labs.reset(pr, this.numCourses, pr.size());
             // Check if the partial schedule is valid
-            return checkMax(courses, labs)
-                && checkCourseLabAssignmentUnequal(courses, labs)
-                && checkNotCompatible(courses, labs)
-                && checkPartialAssignment(courses, labs)
-                && checkUnwanted(courses, labs)
-                && checkEveningCourses(courses, labs)
-                && checkLevel500Courses(courses, labs);
+            return runChecks(courses, labs, buffers);
         } catch (Exception e) {
             System.out.println("constrStar() failed");
             System.out.println(e);
@@ -0,0 +1,61 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Population stored as ordinary lists of schedules on the heap.
+ */
+public class HeapPopulation implements Population {
+    private final List<List<List<String>>> schedules = new ArrayList<>();
+    private final List<Integer> fitness = new ArrayList<>();
+    private final List<Long> hashes = new ArrayList<>();
+
+    @Override
+    public int size() {
+        return this.schedules.size();
+    }
+
+    @Override
+    public List<List<String>> get(int index) {
+        return this.schedules.get(index);
+    }
+
+    @Override
+    public int getFitness(int index) {
+        return this.fitness.get(index);
+    }
+
+    @Override
+    public long getHash(int index) {
+        return this.hashes.get(index);
+    }
+
+    @Override
+    public void add(List<List<String>> schedule, int fitness, long hash) {
+        this.schedules.add(schedule);
+        this.fitness.add(fitness);
+        this.hashes.add(hash);
+    }
+
+    @Override
+    public void retain(boolean[] removed) {
+        int size = this.schedules.size();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (!removed[i]) {
+                this.schedules.set(kept, this.schedules.get(i));
+                this.fitness.set(kept, this.fitness.get(i));
+                this.hashes.set(kept, this.hashes.get(i));
+                kept++;
+            }
+        }
+        this.schedules.subList(kept, size).clear();
+        this.fitness.subList(kept, size).clear();
+        this.hashes.subList(kept, size).clear();
+    }
+
+    @Override
+    public List<List<List<String>>> asList() {
+        return Collections.unmodifiableList(this.schedules);
+    }
+}
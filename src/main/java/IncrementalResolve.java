@@ -0,0 +1,243 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Re-solves an edited input starting from the schedule of the previous input.
+ * The previous and the current input file are compared statement by statement: the classes that
+ * are new, that appear in an added or removed not-compatible, unwanted, preference, pair or partial
+ * assignment statement, or that the previous schedule placed in a slot that was added, removed or
+ * changed its limits are the changed classes. The previous schedule is kept for every other class
+ * (as long as it still satisfies the hard constraints), and only the changed classes and the
+ * classes they share a constraint with are assigned again.
+ */
+public class IncrementalResolve {
+    // Iterations of the large neighbourhood search that re-optimizes the result if lnsIterations is not set
+    public static final int LNS_ITERATIONS = 200;
+
+    private final Parser previousInput;
+    private final Parser currentInput;
+    private final WarmStart previousSchedule;
+    private int changed;
+    private int reassigned;
+
+    /**
+     * Constructor that reads the previous input and schedule and the current input.
+     * @param previousInputFile - The input file the previous schedule was made for.
+     * @param previousOutputFile - The output file of the previous run.
+     * @param currentInputFile - The current input file.
+     * @throws Exception if one of the files cannot be read or parsed.
+     */
+    public IncrementalResolve(String previousInputFile, String previousOutputFile, String currentInputFile)
+            throws Exception {
+        // Both inputs are parsed afresh, as the presolve pass adds to the current one
+        this.previousInput = new Parser(previousInputFile);
+        this.previousInput.parse();
+        this.currentInput = new Parser(currentInputFile);
+        this.currentInput.parse();
+        this.previousSchedule = new WarmStart(previousOutputFile);
+    }
+
+    /**
+     * Returns the schedule of the previous input.
+     * @return The previous schedule.
+     */
+    public WarmStart getPreviousSchedule() {
+        return this.previousSchedule;
+    }
+
+    /**
+     * Returns a summary of the re-solve, e.g. "3 classes changed, 12 re-assigned".
+     * @return The summary.
+     */
+    public String getSummary() {
+        return this.changed + " classes changed, " + this.reassigned + " re-assigned";
+    }
+
+    /**
+     * Builds a schedule for the current input from the previous schedule, re-assigning the changed
+     * classes, their neighbours and the classes whose previous slot breaks a hard constraint now.
+     * @param initialPR - The starting point of the search, with the partial assignments.
+     * @param rand - A random number generator.
+     * @return A complete schedule satisfying the hard constraints, or null if none was found.
+     */
+    public List<List<String>> resolve(List<List<String>> initialPR, Random rand) {
+        Set<Integer> changedClasses = this.changedClasses();
+        Set<Integer> freed = new HashSet<>(changedClasses);
+        for (int index : changedClasses) {
+            freed.addAll(this.neighbours(index));
+        }
+        this.changed = changedClasses.size();
+        List<List<String>> pr = this.previousSchedule.load(initialPR);
+        for (int index : freed) {
+            if (initialPR.get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+                pr.set(index, Scheduler.UNASSIGNED_SLOT);
+            }
+        }
+        this.reassigned = 0;
+        for (int i = 0; i < pr.size(); i++) {
+            if (pr.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                this.reassigned++;
+            }
+        }
+        return WarmStart.complete(pr, initialPR, rand);
+    }
+
+    /**
+     * Finds the classes of the current input that differ from the previous input.
+     * @return The PR indices of the changed classes.
+     */
+    private Set<Integer> changedClasses() {
+        Set<List<String>> names = new HashSet<>();
+        // New sections
+        Set<List<String>> previousClasses = new HashSet<>(this.previousInput.getCourses());
+        previousClasses.addAll(this.previousInput.getLabs());
+        List<List<String>> currentClasses = new ArrayList<>(this.currentInput.getCourses());
+        currentClasses.addAll(this.currentInput.getLabs());
+        for (List<String> name : currentClasses) {
+            if (!previousClasses.contains(name)) {
+                names.add(name);
+            }
+        }
+        // Added or removed statements
+        Parser previous = this.previousInput;
+        Parser current = this.currentInput;
+        IncrementalResolve.addChanged(names, previous.getNotCompatible(), current.getNotCompatible());
+        IncrementalResolve.addChanged(names, previous.getUnwanted(), current.getUnwanted());
+        IncrementalResolve.addChanged(names, previous.getPreferences(), current.getPreferences());
+        IncrementalResolve.addChanged(names, previous.getPairs(), current.getPairs());
+        IncrementalResolve.addChanged(names, previous.getPartAssign(), current.getPartAssign());
+        // Classes in slots that were added, removed or changed
+        Set<List<String>> changedCourseSlots = IncrementalResolve.changedSlots(
+            previous.getCourseSlots(), current.getCourseSlots());
+        Set<List<String>> changedLabSlots = IncrementalResolve.changedSlots(
+            previous.getLabSlots(), current.getLabSlots());
+        int numCourses = Scheduler.getCourses().size();
+        for (int i = 0; i < Scheduler.getClasses().size(); i++) {
+            List<String> name = Scheduler.getClasses().get(i);
+            List<String> dayTime = this.previousSchedule.getDayTime(name);
+            if (dayTime != null && (i < numCourses ? changedCourseSlots : changedLabSlots).contains(dayTime)) {
+                names.add(name);
+            }
+        }
+        Set<Integer> indices = new HashSet<>();
+        for (List<String> name : names) {
+            int index = Scheduler.getConstr().classIndex(name);
+            if (index >= 0) {
+                indices.add(index);
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Finds the classes a class shares a constraint with: its course or labs, its not-compatible
+     * partners, its pair partners and, on the 500-level, the other 500-level courses (or labs).
+     * @param classIndex - The index of the class.
+     * @return The PR indices of its neighbours.
+     */
+    private Set<Integer> neighbours(int classIndex) {
+        HardConstraint constr = Scheduler.getConstr();
+        Classes[] classesArr = constr.getClassesArr();
+        List<String> name = classesArr[classIndex].getName();
+        Set<Integer> neighbours = new HashSet<>();
+        List<List<String>> related = new ArrayList<>(classesArr[classIndex].getIncompatible());
+        related.addAll(classesArr[classIndex].getLabList());
+        for (List<List<String>> pair : Scheduler.getPairs()) {
+            if (pair.get(0).equals(name)) {
+                related.add(pair.get(1));
+            } else if (pair.get(1).equals(name)) {
+                related.add(pair.get(0));
+            }
+        }
+        for (List<String> other : related) {
+            neighbours.add(constr.classIndex(other));
+        }
+        int numCourses = Scheduler.getCourses().size();
+        boolean isCourse = classIndex < numCourses;
+        boolean level500 = name.get(1).startsWith("5");
+        for (int i = 0; i < classesArr.length; i++) {
+            // The courses a lab belongs to
+            if (i < numCourses && classesArr[i].getLabList().contains(name)) {
+                neighbours.add(i);
+            }
+            // The other 500-level courses (or labs), as they all need different slots
+            if (level500 && (i < numCourses) == isCourse && classesArr[i].getName().get(1).startsWith("5")) {
+                neighbours.add(i);
+            }
+        }
+        neighbours.remove(-1);
+        neighbours.remove(classIndex);
+        return neighbours;
+    }
+
+    /**
+     * Adds the classes named in the statements only one of two inputs has.
+     * @param names - The set of class identifiers to add to.
+     * @param previous - The statements of the previous input.
+     * @param current - The statements of the current input.
+     */
+    private static void addChanged(Set<List<String>> names, List<ArrayList<List<String>>> previous,
+            List<ArrayList<List<String>>> current) {
+        Set<ArrayList<List<String>>> previousSet = new HashSet<>(previous);
+        Set<ArrayList<List<String>>> currentSet = new HashSet<>(current);
+        List<ArrayList<List<String>>> differences = new ArrayList<>();
+        for (ArrayList<List<String>> statement : current) {
+            if (!previousSet.contains(statement)) {
+                differences.add(statement);
+            }
+        }
+        for (ArrayList<List<String>> statement : previous) {
+            if (!currentSet.contains(statement)) {
+                differences.add(statement);
+            }
+        }
+        for (List<List<String>> statement : differences) {
+            for (List<String> part : statement) {
+                // Class identifiers, e.g. [CPSC, 433, LEC, 01], unlike days, times and preference values
+                if (part.size() > 2) {
+                    names.add(part);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the slots that only one of two inputs has, or that changed their limits.
+     * @param previous - The slots of the previous input, e.g. [MO, 8:00, 3, 2].
+     * @param current - The slots of the current input.
+     * @return The day and time of each changed slot, e.g. [MO, 8:00].
+     */
+    private static Set<List<String>> changedSlots(List<List<String>> previous, List<List<String>> current) {
+        Map<List<String>, List<String>> previousSlots = new HashMap<>();
+        for (List<String> slot : previous) {
+            previousSlots.put(IncrementalResolve.dayTime(slot), slot);
+        }
+        Set<List<String>> changedSlots = new HashSet<>();
+        for (List<String> slot : current) {
+            List<String> dayTime = IncrementalResolve.dayTime(slot);
+            List<String> previousSlot = previousSlots.remove(dayTime);
+            // The limits of the slot follow its day and time
+            if (previousSlot == null || !slot.subList(2, slot.size()).equals(
+                    previousSlot.subList(2, previousSlot.size()))) {
+                changedSlots.add(dayTime);
+            }
+        }
+        changedSlots.addAll(previousSlots.keySet());
+        return changedSlots;
+    }
+
+    /**
+     * Returns the day and time of a slot in the form the schedule file is read in.
+     * @param slot - The slot, e.g. [MO, 08:00, 3, 2].
+     * @return The day and time, e.g. [MO, 8:00].
+     */
+    private static List<String> dayTime(List<String> slot) {
+        return Arrays.asList(slot.get(0), WarmStart.normalizeTime(slot.get(1)));
+    }
+}
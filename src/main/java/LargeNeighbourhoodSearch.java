@@ -0,0 +1,199 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Large Neighbourhood Search (LNS) on top of the or-tree search.
+ * Each iteration unassigns a small part of the incumbent schedule (destroy) and re-completes
+ * it with the or-tree search restricted to the unassigned indices (repair).
+ * The repaired schedule replaces the incumbent if its Eval value is not worse.
+ */
+public class LargeNeighbourhoodSearch {
+    // The ways a part of the schedule can be chosen for destruction
+    private enum Neighbourhood {
+        RANDOM, TIME_BAND, COURSE_WITH_LABS, CONSTRAINT_GROUP
+    }
+
+    private final List<List<String>> courses;
+    private final List<List<String>> labs;
+    private final List<List<String>> initialPR;
+    private final Classes[] classesArr;
+    private final SoftConstraint eval;
+    private final Random rand;
+    private final int numCourses;
+    private final int destroySize;
+
+    /**
+     * Constructor for the large neighbourhood search.
+     * @param destroySize - The number of classes unassigned by the random neighbourhood.
+     * @param rand - The random number generator.
+     */
+    public LargeNeighbourhoodSearch(int destroySize, Random rand) {
+        this.courses = Scheduler.getCourses();
+        this.labs = Scheduler.getLabs();
+        this.initialPR = Scheduler.getInitialPR();
+        this.classesArr = Scheduler.getConstr().getClassesArr();
+        this.eval = Scheduler.getEval();
+        this.numCourses = this.courses.size();
+        this.destroySize = Math.max(1, destroySize);
+        this.rand = rand;
+    }
+
+    /**
+     * Improves a complete schedule by repeatedly destroying and repairing parts of it.
+     * @param incumbent - A complete schedule satisfying the hard constraints.
+     * @param iterations - The number of destroy/repair iterations.
+     * @return The best schedule found.
+     */
+    public List<List<String>> improve(List<List<String>> incumbent, int iterations) {
+        if (incumbent == null) {
+            return null;
+        }
+        List<List<String>> best = incumbent;
+        int bestEval = this.eval.eval(best);
+        for (int i = 0; i < iterations && bestEval > 0 && !Scheduler.isStopped(); i++) {
+            Neighbourhood neighbourhood = Neighbourhood.values()[this.rand.nextInt(Neighbourhood.values().length)];
+            List<List<String>> candidate = this.repair(best, this.destroy(best, neighbourhood));
+            if (candidate == null) {
+                continue;
+            }
+            int candidateEval = this.eval.eval(candidate);
+            // Accept sideways moves as well, so the search can drift across plateaus
+            if (candidateEval <= bestEval) {
+                if (Scheduler.isPrintData() && candidateEval < bestEval) {
+                    System.out.println("LNS iteration " + (i + 1) + " (" + neighbourhood + "): "
+                        + bestEval + " -> " + candidateEval);
+                }
+                best = candidate;
+                bestEval = candidateEval;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Moves a random part of a schedule with one destroy/repair step, whatever the Eval value
+     * of the result, e.g. to derive variants of a schedule.
+     * @param schedule - A complete schedule satisfying the hard constraints.
+     * @return The perturbed schedule, or null if the repair failed.
+     */
+    public List<List<String>> perturb(List<List<String>> schedule) {
+        Neighbourhood neighbourhood = Neighbourhood.values()[this.rand.nextInt(Neighbourhood.values().length)];
+        return this.repair(schedule, this.destroy(schedule, neighbourhood));
+    }
+
+    /**
+     * Re-completes the schedule after the given indices have been unassigned.
+     * @param schedule - The schedule to repair.
+     * @param indices - The indices of the classes to unassign and re-assign.
+     * @return The repaired schedule, or null if no repair was found.
+     */
+    public List<List<String>> repair(List<List<String>> schedule, Set<Integer> indices) {
+        if (indices.isEmpty()) {
+            return null;
+        }
+        List<List<String>> partial = new ArrayList<>(schedule);
+        for (int index : indices) {
+            partial.set(index, Scheduler.UNASSIGNED_SLOT);
+        }
+        // Expand the unassigned classes in the usual most-tightly-bound order
+        ArrayList<Integer> order = new ArrayList<>(indices.size());
+        for (int index : Scheduler.getConstr().getMostTightlyBoundIndices()) {
+            if (indices.contains(index)) {
+                order.add(index);
+            }
+        }
+        OrTree tree = new OrTree(partial);
+        return tree.search(order, this.rand);
+    }
+
+    /**
+     * Chooses the indices of the classes to unassign.
+     * Classes fixed by partial assignments are never unassigned.
+     * @param schedule - The incumbent schedule.
+     * @param neighbourhood - The neighbourhood to draw the classes from.
+     * @return The indices of the classes to unassign.
+     */
+    private Set<Integer> destroy(List<List<String>> schedule, Neighbourhood neighbourhood) {
+        Set<Integer> indices = new HashSet<>();
+        switch (neighbourhood) {
+        case TIME_BAND:
+            // Every class sharing the day and time of a random class, e.g. all classes on MO 8:00
+            List<String> band = schedule.get(this.rand.nextInt(schedule.size()));
+            for (int i = 0; i < schedule.size(); i++) {
+                List<String> slot = schedule.get(i);
+                if (slot.size() > 1 && band.size() > 1
+                    && slot.get(0).equals(band.get(0)) && slot.get(1).equals(band.get(1))) {
+                    this.addIfFree(indices, i);
+                }
+            }
+            break;
+        case COURSE_WITH_LABS:
+            // A random course together with its labs/tutorials
+            if (this.numCourses > 0) {
+                int courseIndex = this.rand.nextInt(this.numCourses);
+                this.addIfFree(indices, courseIndex);
+                for (List<String> lab : this.classesArr[courseIndex].getLabList()) {
+                    this.addIfFree(indices, this.classIndex(lab));
+                }
+            }
+            break;
+        case CONSTRAINT_GROUP:
+            // The members of a random not-compatible or pair statement
+            List<ArrayList<List<String>>> groups = new ArrayList<>(Scheduler.getNotCompatible());
+            groups.addAll(Scheduler.getPairs());
+            if (!groups.isEmpty()) {
+                for (List<String> member : groups.get(this.rand.nextInt(groups.size()))) {
+                    this.addIfFree(indices, this.classIndex(member));
+                }
+            }
+            break;
+        default:
+            break;
+        }
+        // Top up small neighbourhoods (and the random one) with random classes
+        int target = Math.min(this.destroySize, schedule.size());
+        for (int attempts = 0; indices.size() < target && attempts < 4 * schedule.size(); attempts++) {
+            this.addIfFree(indices, this.rand.nextInt(schedule.size()));
+        }
+        // In block mode a lecture is moved together with its labs
+        Blocks blocks = Scheduler.getBlocks();
+        if (blocks != null) {
+            for (int index : new ArrayList<>(indices)) {
+                if (blocks.isBlock(index)) {
+                    for (int labIndex : blocks.getLabs(index)) {
+                        this.addIfFree(indices, labIndex);
+                    }
+                }
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Adds the index unless it is unknown or fixed by a partial assignment.
+     * @param indices - The set of indices to add to.
+     * @param index - The index of the class.
+     */
+    private void addIfFree(Set<Integer> indices, int index) {
+        if (index >= 0 && this.initialPR.get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+            indices.add(index);
+        }
+    }
+
+    /**
+     * Returns the PR index of a course or lab identifier.
+     * @param classIdentifier - e.g. [CPSC, 433, LEC, 01, TUT, 01]
+     * @return The index in the PR list, or -1 if the class is unknown.
+     */
+    private int classIndex(List<String> classIdentifier) {
+        int index = this.courses.indexOf(classIdentifier);
+        if (index >= 0) {
+            return index;
+        }
+        index = this.labs.indexOf(classIdentifier);
+        return index >= 0 ? this.numCourses + index : -1;
+    }
+}
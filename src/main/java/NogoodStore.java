@@ -0,0 +1,166 @@
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Stores nogoods learned by the or-tree search.
+ * A nogood is a set of (class, slot) assignments that cannot all hold in a schedule
+ * satisfying the hard constraints, e.g. "CPSC 433 LEC 01 in MO 8:00 and CPSC 433 LEC 01 TUT 01
+ * in MO 8:00". Each assignment is packed into a long (class index in the high half, slot index in
+ * the low half) and nogoods are indexed by each of their assignments for quick lookup.
+ */
+public class NogoodStore {
+    // Larger nogoods are rarely matched again and are not stored
+    private static final int MAX_NOGOOD_SIZE = 6;
+    // Upper bound on the number of nogoods kept
+    private static final int MAX_NOGOODS = 200000;
+
+    // Nogoods indexed by each of their literals
+    private final Map<Long, List<long[]>> byLiteral = new ConcurrentHashMap<>();
+    // The stored nogoods, to avoid storing the same nogood twice
+    private final Set<Nogood> nogoods = new HashSet<>();
+    private final HardConstraint constr;
+
+    /**
+     * A nogood with value-based equality for deduplication.
+     */
+    private static final class Nogood {
+        private final long[] literals;
+
+        private Nogood(long[] literals) {
+            this.literals = literals;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Nogood && Arrays.equals(this.literals, ((Nogood) other).literals);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.literals);
+        }
+    }
+
+    /**
+     * Constructor for the nogood store.
+     * @param constr - The hard constraint evaluator used to look up slot indices.
+     */
+    public NogoodStore(HardConstraint constr) {
+        this.constr = constr;
+    }
+
+    /**
+     * Packs an assignment into a literal.
+     * @param classIndex - The index of the class in the PR list.
+     * @param slotIndex - The index of the slot in the course or lab slots.
+     * @return The literal.
+     */
+    public static long literal(int classIndex, int slotIndex) {
+        return ((long) classIndex << 32) | (slotIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Learns a nogood.
+     * @param literals - The assignments that cannot hold together.
+     * @return true if the nogood was new and has been stored.
+     */
+    public synchronized boolean add(long[] literals) {
+        if (literals.length == 0 || literals.length > NogoodStore.MAX_NOGOOD_SIZE
+            || this.nogoods.size() >= NogoodStore.MAX_NOGOODS) {
+            return false;
+        }
+        long[] sorted = literals.clone();
+        Arrays.sort(sorted);
+        if (!this.nogoods.add(new Nogood(sorted))) {
+            return false;
+        }
+        for (long literal : sorted) {
+            this.byLiteral.computeIfAbsent(literal, k -> new CopyOnWriteArrayList<>()).add(sorted);
+        }
+        return true;
+    }
+
+    /**
+     * Finds a stored nogood that would be violated by assigning a class to a slot.
+     * @param pr - The current partial assignment.
+     * @param classIndex - The index of the class to assign.
+     * @param slotIndex - The index of the slot.
+     * @return The violated nogood, or null if the assignment is not ruled out.
+     */
+    public long[] blocking(List<List<String>> pr, int classIndex, int slotIndex) {
+        List<long[]> candidates = this.byLiteral.get(NogoodStore.literal(classIndex, slotIndex));
+        if (candidates == null) {
+            return null;
+        }
+        long self = NogoodStore.literal(classIndex, slotIndex);
+        for (long[] nogood : candidates) {
+            if (this.holds(pr, nogood, self)) {
+                return nogood;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a partial assignment violates any stored nogood.
+     * @param pr - The partial assignment.
+     * @return true if all assignments of some nogood hold in pr.
+     */
+    public boolean violates(List<List<String>> pr) {
+        if (this.byLiteral.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < pr.size(); i++) {
+            int slotIndex = this.constr.slotIndex(i, pr.get(i));
+            if (slotIndex < 0) {
+                continue;
+            }
+            long literal = NogoodStore.literal(i, slotIndex);
+            List<long[]> candidates = this.byLiteral.get(literal);
+            if (candidates == null) {
+                continue;
+            }
+            for (long[] nogood : candidates) {
+                // Each nogood only needs to be checked from its first literal
+                if (nogood[0] == literal && this.holds(pr, nogood, literal)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of stored nogoods.
+     * @return The number of stored nogoods.
+     */
+    public synchronized int size() {
+        return this.nogoods.size();
+    }
+
+    /**
+     * Checks whether every literal of a nogood, other than the given one, holds in pr.
+     * @param pr - The partial assignment.
+     * @param nogood - The nogood.
+     * @param skip - The literal assumed to hold.
+     * @return true if the nogood holds.
+     */
+    private boolean holds(List<List<String>> pr, long[] nogood, long skip) {
+        for (long literal : nogood) {
+            if (literal == skip) {
+                continue;
+            }
+            int classIndex = (int) (literal >>> 32);
+            int slotIndex = (int) literal;
+            if (this.constr.slotIndex(classIndex, pr.get(classIndex)) != slotIndex) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,137 @@
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Population stored outside the Java heap in a direct ByteBuffer.
+ * Each solution candidate is a fixed-size record of its Zobrist hash, its Eval value and one
+ * short slot index per class, so a population costs a predictable amount of memory and adds almost
+ * no work for the garbage collector. Schedules are decoded on access into lists that share the
+ * course and lab slot lists of the problem instance.
+ */
+public class OffHeapPopulation implements Population {
+    // Record layout: hash (8 bytes), Eval value (4 bytes), then one short per class
+    private static final int HASH_OFFSET = 0;
+    private static final int FITNESS_OFFSET = 8;
+    private static final int SLOTS_OFFSET = 12;
+
+    private final int numCourses;
+    private final int numClasses;
+    private final int recordSize;
+    private final List<List<String>> courseSlots;
+    private final List<List<String>> labSlots;
+    private ByteBuffer buffer;
+    private int size = 0;
+
+    /**
+     * Constructor for an off-heap population.
+     * @param initialCapacity - the number of candidates to reserve memory for; the buffer grows if needed
+     */
+    public OffHeapPopulation(int initialCapacity) {
+        this.numCourses = Scheduler.getCourses().size();
+        this.numClasses = this.numCourses + Scheduler.getLabs().size();
+        this.courseSlots = Scheduler.getCourseSlots();
+        this.labSlots = Scheduler.getLabSlots();
+        if (Math.max(this.courseSlots.size(), this.labSlots.size()) > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many slots to store the population off-heap.");
+        }
+        this.recordSize = OffHeapPopulation.SLOTS_OFFSET + 2 * this.numClasses;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(1, initialCapacity) * this.recordSize);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public List<List<String>> get(int index) {
+        this.checkIndex(index);
+        int base = index * this.recordSize + OffHeapPopulation.SLOTS_OFFSET;
+        List<List<String>> schedule = new ArrayList<>(this.numClasses);
+        for (int i = 0; i < this.numClasses; i++) {
+            int slot = this.buffer.getShort(base + 2 * i);
+            if (slot < 0) {
+                schedule.add(Scheduler.UNASSIGNED_SLOT);
+            } else {
+                schedule.add(i < this.numCourses ? this.courseSlots.get(slot) : this.labSlots.get(slot));
+            }
+        }
+        return schedule;
+    }
+
+    @Override
+    public int getFitness(int index) {
+        this.checkIndex(index);
+        return this.buffer.getInt(index * this.recordSize + OffHeapPopulation.FITNESS_OFFSET);
+    }
+
+    @Override
+    public long getHash(int index) {
+        this.checkIndex(index);
+        return this.buffer.getLong(index * this.recordSize + OffHeapPopulation.HASH_OFFSET);
+    }
+
+    @Override
+    public void add(List<List<String>> schedule, int fitness, long hash) {
+        if ((this.size + 1) * this.recordSize > this.buffer.capacity()) {
+            // Double the buffer, copying the records over
+            ByteBuffer larger = ByteBuffer.allocateDirect(2 * this.buffer.capacity());
+            larger.put(0, this.buffer, 0, this.size * this.recordSize);
+            this.buffer = larger;
+        }
+        HardConstraint constr = Scheduler.getConstr();
+        int base = this.size * this.recordSize;
+        this.buffer.putLong(base + OffHeapPopulation.HASH_OFFSET, hash);
+        this.buffer.putInt(base + OffHeapPopulation.FITNESS_OFFSET, fitness);
+        for (int i = 0; i < this.numClasses; i++) {
+            List<String> slot = schedule.get(i);
+            int slotIndex = slot.equals(Scheduler.UNASSIGNED_SLOT) ? -1 : constr.slotIndex(i, slot);
+            if (slotIndex < 0 && !slot.equals(Scheduler.UNASSIGNED_SLOT)) {
+                throw new IllegalArgumentException("Unknown slot " + slot + " cannot be stored off-heap.");
+            }
+            this.buffer.putShort(base + OffHeapPopulation.SLOTS_OFFSET + 2 * i, (short) slotIndex);
+        }
+        this.size++;
+    }
+
+    @Override
+    public void retain(boolean[] removed) {
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            if (!removed[i]) {
+                if (kept != i) {
+                    this.buffer.put(kept * this.recordSize, this.buffer, i * this.recordSize, this.recordSize);
+                }
+                kept++;
+            }
+        }
+        this.size = kept;
+    }
+
+    @Override
+    public List<List<List<String>>> asList() {
+        return new AbstractList<>() {
+            @Override
+            public List<List<String>> get(int index) {
+                return OffHeapPopulation.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return OffHeapPopulation.this.size;
+            }
+        };
+    }
+
+    /**
+     * Checks that an index refers to a stored candidate.
+     * @param index - the index of the candidate
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + this.size);
+        }
+    }
+}
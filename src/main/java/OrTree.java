@@ -1,17 +1,47 @@
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 // import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 // import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * The OrTree is used to perform an or-tree based search of the solution space.
  */
 public class OrTree {
     private static final int MAX_OR_TREE_SIZE = 28000;
+    // The share of the frontier kept when leaves are evicted
+    private static final double EVICTION_KEEP_RATIO = 0.75;
+    /**
+     * The strategy used to pick the next leaf to expand.
+     */
+    public enum SearchMode {
+        RANDOM, // pick a random leaf from the frontier
+        BEST_FIRST, // pick the leaf with the lowest score from a priority queue
+        BEAM // keep only the best beamWidth partial schedules at each depth
+    }
+    /**
+     * What happens to the frontier once it holds more than MAX_OR_TREE_SIZE leaves.
+     */
+    public enum FrontierEviction {
+        CLEAR, // drop every leaf and restart from the starting point
+        WORST, // drop the leaves with the most unassigned classes
+        OLDEST // drop the leaves that were created first
+    }
+    /**
+     * How the slot of an expanded class is picked among the feasible ones.
+     */
+    public enum ValueOrdering {
+        RANDOM, // every feasible slot is equally likely
+        SOFT_PENALTY // slots with a lower marginal soft penalty are more likely
+    }
     // Enum to represent the solvability of a given node
     private enum Solvability {
         YES, NO, UNKNOWN // the sol value can only be one of these 3 options.
@@ -24,6 +54,179 @@ public class OrTree {
     private Solvability solvable = Solvability.UNKNOWN;
     // The score of the node
     private int score = -1;
+    // The state shared by all nodes of the search
+    private SearchContext context;
+    // The Zobrist hash of the node's data
+    private long hash;
+    // The creation number of the node, used to evict the oldest leaves
+    private long sequence;
+    // The node this node was expanded from, and the class index it assigned
+    private OrTree parent;
+    private int assignedIndex = -1;
+    // The classes whose assignments left the last expanded class without a slot, if known
+    private Set<Integer> conflict;
+    // Whether a backjump already returned to this node; later dead ends below it jump randomly
+    private boolean backjumped;
+    // The lazily generated children of the node, null until it is expanded lazily
+    private Successors successors;
+    // The priority of the node in a best-first search, lower is expanded first
+    private long priority;
+    // Random value to break ties between nodes of equal priority
+    private int tieBreak;
+
+    /**
+     * Generates the feasible children of a node one at a time. The slots of the expanded class are
+     * tried in random order and a child is only built once its slot passes the hard constraints,
+     * so siblings are only created if the search comes back to the node.
+     */
+    private final class Successors {
+        // The class assigned in the children, and its position in the expansion order
+        private final int classIndex;
+        private final int position;
+        private final List<List<String>> slots;
+        // Slot indices, the ones before next have been tried
+        private final int[] order;
+        private int next = 0;
+        // Sampling weight of each slot, null if all slots are equally likely
+        private final double[] weights;
+        // Slot tried first, i.e. the class's slot in the reference schedule, or -1
+        private final int preferred;
+        private final Random rand;
+        // Whether children equal to an earlier generated node are skipped
+        private final boolean skipVisited;
+        // The node's data with the class set to the slot being tried, reused for every slot
+        private final List<List<String>> candidate;
+        private boolean feasibleFound = false;
+        // The culprits of the rejected slots when nogood learning is enabled
+        private final Set<Integer> culprits;
+        private boolean explained = true;
+
+        /**
+         * Constructor for the successors of the enclosing node.
+         * @param classIndex - The index of the class to assign.
+         * @param position - The position of the class in the expansion order.
+         * @param skipVisited - Whether to skip children equal to an earlier generated node.
+         * @param rand - A random number generator.
+         */
+        private Successors(int classIndex, int position, boolean skipVisited, Random rand) {
+            this.classIndex = classIndex;
+            this.position = position;
+            this.slots = classIndex < Scheduler.getCourses().size()
+                ? Scheduler.getCourseSlots()
+                : Scheduler.getLabSlots();
+            this.order = IntStream.range(0, this.slots.size()).toArray();
+            this.weights = OrTree.this.slotWeights(classIndex);
+            Perturbation perturbation = Scheduler.getEval().getPerturbation();
+            this.preferred = perturbation == null ? -1 : perturbation.getReferenceSlot(classIndex);
+            this.skipVisited = skipVisited;
+            this.rand = rand;
+            this.candidate = new ArrayList<>(OrTree.this.data);
+            this.culprits = Scheduler.getNogoods() == null ? null : new HashSet<>();
+        }
+
+        /**
+         * Returns whether every slot has been tried.
+         * @return true if no further children can be generated.
+         */
+        private boolean exhausted() {
+            return this.next >= this.order.length;
+        }
+
+        /**
+         * Draws an untried slot with probability proportional to its weight.
+         * @return The position of the slot in order.
+         */
+        private int drawWeighted() {
+            double total = 0;
+            for (int k = this.next; k < this.order.length; k++) {
+                total += this.weights[this.order[k]];
+            }
+            double target = this.rand.nextDouble() * total;
+            for (int k = this.next; k < this.order.length - 1; k++) {
+                target -= this.weights[this.order[k]];
+                if (target < 0) {
+                    return k;
+                }
+            }
+            return this.order.length - 1;
+        }
+
+        /**
+         * Builds the next feasible child.
+         * @return The child, or null once every slot has been tried.
+         */
+        private OrTree next() {
+            NogoodStore nogoods = Scheduler.getNogoods();
+            Presolve presolve = Scheduler.getPresolve();
+            Propagator propagator = Scheduler.getPropagator();
+            Blocks blocks = Scheduler.getBlocks();
+            while (this.next < this.order.length) {
+                // Draw a random untried slot (a lazy Fisher-Yates shuffle), starting from the reference slot
+                int swap = this.next == 0 && this.preferred >= 0 ? this.preferred
+                    : this.weights == null
+                    ? this.next + this.rand.nextInt(this.order.length - this.next)
+                    : this.drawWeighted();
+                int slotIndex = this.order[swap];
+                this.order[swap] = this.order[this.next];
+                this.order[this.next++] = slotIndex;
+                // Skip slots outside the class's presolved domain, which needs no culprit as the domains are unary
+                if (presolve != null && !presolve.allows(this.classIndex, slotIndex)) {
+                    continue;
+                }
+                // Skip slots ruled out by a learned nogood
+                if (nogoods != null) {
+                    long[] nogood = nogoods.blocking(OrTree.this.data, this.classIndex, slotIndex);
+                    if (nogood != null) {
+                        for (long literal : nogood) {
+                            this.culprits.add((int) (literal >>> 32));
+                        }
+                        continue;
+                    }
+                }
+                this.candidate.set(this.classIndex, this.slots.get(slotIndex));
+                List<List<String>> assigned = Scheduler.getConstr().canonical(this.candidate, this.classIndex);
+                if (!Scheduler.getConstr().constrStar(assigned)) {
+                    if (nogoods != null && this.explained) {
+                        // A reordered child no longer holds the slot, so its failure cannot be learned
+                        this.explained = assigned == this.candidate
+                            && OrTree.this.learn(nogoods, this.candidate, this.classIndex, slotIndex, this.culprits);
+                    }
+                    continue;
+                }
+                // In block mode the lecture's labs are assigned with it, in slots compatible with its slot
+                if (blocks != null && blocks.isBlock(this.classIndex)) {
+                    assigned = new ArrayList<>(assigned);
+                    if (!blocks.complete(assigned, this.classIndex, this.rand)) {
+                        this.explained = false;
+                        continue;
+                    }
+                    assigned = Scheduler.getConstr().canonical(assigned);
+                }
+                // Prune the slot if the remaining classes can no longer fit, which has no single culprit
+                if (propagator != null && !propagator.propagate(assigned)) {
+                    this.explained = false;
+                    continue;
+                }
+                this.feasibleFound = true;
+                // The class was unassigned, so its key is simply added to the hash
+                OrTree child = OrTree.this.addChild(assigned, assigned == this.candidate
+                    ? OrTree.this.hash ^ Scheduler.getZobrist().key(this.classIndex, slotIndex)
+                    : Scheduler.getZobrist().hash(assigned));
+                if (this.skipVisited && !OrTree.this.context.firstVisit(child.hash)) {
+                    OrTree.this.children.remove(child);
+                    continue;
+                }
+                child.parent = OrTree.this;
+                child.assignedIndex = this.classIndex;
+                return child;
+            }
+            OrTree.this.conflict = null;
+            if (!this.feasibleFound && this.explained && this.culprits != null) {
+                OrTree.this.recordConflict(this.classIndex, this.culprits);
+            }
+            return null;
+        }
+    }
 
     /**
      * Constructor for beginning with a partial solution.
@@ -32,11 +235,25 @@ public class OrTree {
      *           assignment.
      */
     public OrTree(List<List<String>> pr) {
+        this(pr, Scheduler.getZobrist().hash(pr), null);
+    }
+
+    /**
+     * Constructor for a node of a search, beginning with a partial solution whose Zobrist hash is known.
+     *
+     * @param pr - A list representing a partial course/lab section
+     *           assignment.
+     * @param hash - The Zobrist hash of pr.
+     * @param context - The state of the search the node belongs to, or null to start a new search from pr.
+     */
+    private OrTree(List<List<String>> pr, long hash, SearchContext context) {
         // Create a deep copy of the List of Lists
         this.data = new ArrayList<>(pr.size());
         for (List<String> list : pr) {
             this.data.add(new ArrayList<>(list)); // Copy each nested list
         }
+        this.hash = hash;
+        this.context = context == null ? new SearchContext(pr) : context;
         // Initialize the children list
         this.children = new LinkedList<>();
     }
@@ -49,6 +266,7 @@ public class OrTree {
     public OrTree(int length) { // if starting with a EMPTY pr
         // Initialize the data list
         this.data = new ArrayList<>(Collections.nCopies(length, Scheduler.UNASSIGNED_SLOT));
+        this.context = new SearchContext(this.data);
         this.children = new LinkedList<>();
     }
 
@@ -59,8 +277,20 @@ public class OrTree {
      * @return childNode
      */
     public OrTree addChild(List<List<String>> child) {
-        // Create a new child node
-        OrTree childNode = new OrTree(child);
+        return this.addChild(child, Scheduler.getZobrist().hash(child));
+    }
+
+    /**
+     * Add a child whose Zobrist hash is known to the node.
+     *
+     * @param child - An list representing a course/lab section assignment.
+     * @param hash - The Zobrist hash of child.
+     * @return childNode
+     */
+    private OrTree addChild(List<List<String>> child, long hash) {
+        // Create a new child node, belonging to the same search as its parent
+        OrTree childNode = new OrTree(child, hash, this.context);
+        childNode.sequence = this.context.nextSequence();
         // Add the child node to the children list
         this.children.add(childNode);
         // Return the child node
@@ -76,6 +306,15 @@ public class OrTree {
         return this.data;
     }
 
+    /**
+     * Get the Zobrist hash of the node's data.
+     *
+     * @return hash
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
     /**
      * Generates all possible slots for a given class or lab section and creates
      * child nodes for each valid assignment.
@@ -90,8 +329,30 @@ public class OrTree {
         if (Scheduler.isPrintData()) {
             System.out.println("Altern for class index: " + classIndex);
         }
+        NogoodStore nogoods = Scheduler.getNogoods();
+        Presolve presolve = Scheduler.getPresolve();
+        Propagator propagator = Scheduler.getPropagator();
+        Blocks blocks = Scheduler.getBlocks();
+        // Collect the culprits of every rejected slot when nogood learning is enabled
+        Set<Integer> culprits = nogoods == null ? null : new HashSet<>();
+        boolean explained = true;
         // Iterate through all possible slots for the section
-        for (List<String> slot : slots) {
+        for (int slotIndex = 0; slotIndex < slots.size(); slotIndex++) {
+            List<String> slot = slots.get(slotIndex);
+            // Skip slots outside the class's presolved domain
+            if (presolve != null && !presolve.allows(classIndex, slotIndex)) {
+                continue;
+            }
+            // Skip slots ruled out by a learned nogood
+            if (nogoods != null) {
+                long[] nogood = nogoods.blocking(this.data, classIndex, slotIndex);
+                if (nogood != null) {
+                    for (long literal : nogood) {
+                        culprits.add((int) (literal >>> 32));
+                    }
+                    continue;
+                }
+            }
             // Create a deep copy of the data for the new child
             List<List<String>> newChild = new ArrayList<>(this.data.size());
             for (List<String> list : this.data) {
@@ -99,11 +360,203 @@ public class OrTree {
             }
             // Assign slot to the class/lab
             newChild.set(classIndex, new ArrayList<>(slot)); // Ensuring a deep copy of the slot
-            // Add new child if it satisfies constraints
-            if (Scheduler.getConstr().constrStar(newChild)) {
-                this.addChild(newChild);
+            // Put interchangeable sections back in section order
+            List<List<String>> assigned = Scheduler.getConstr().canonical(newChild, classIndex);
+            // Add new child if it satisfies constraints and the remaining classes can still fit
+            boolean feasible = Scheduler.getConstr().constrStar(assigned);
+            // In block mode the lecture's labs are assigned with it, in slots compatible with its slot
+            if (feasible && blocks != null && blocks.isBlock(classIndex)) {
+                assigned = new ArrayList<>(assigned);
+                if (!blocks.complete(assigned, classIndex, null)) {
+                    explained = false;
+                    continue;
+                }
+                assigned = Scheduler.getConstr().canonical(assigned);
+            }
+            if (feasible && propagator != null && !propagator.propagate(assigned)) {
+                // A capacity dead end has no single culprit
+                explained = false;
+                continue;
+            }
+            if (feasible) {
+                // The class was unassigned, so its key is simply added to the hash
+                OrTree child = this.addChild(assigned, assigned == newChild
+                    ? this.hash ^ Scheduler.getZobrist().key(classIndex, slotIndex)
+                    : Scheduler.getZobrist().hash(assigned));
+                child.parent = this;
+                child.assignedIndex = classIndex;
+            } else if (nogoods != null && explained) {
+                explained = assigned == newChild && this.learn(nogoods, newChild, classIndex, slotIndex, culprits);
+            }
+        }
+        this.conflict = null;
+        if (this.children.isEmpty() && explained && culprits != null) {
+            this.recordConflict(classIndex, culprits);
+        }
+    }
+
+    /**
+     * Records that no slot is left for a class under the current assignments of the culprits,
+     * as the node's conflict set and as a learned nogood.
+     * @param classIndex - The index of the class without a slot.
+     * @param culprits - The classes whose assignments ruled out the slots.
+     */
+    private void recordConflict(int classIndex, Set<Integer> culprits) {
+        culprits.remove(classIndex);
+        this.conflict = culprits;
+        long[] literals = new long[culprits.size()];
+        int i = 0;
+        for (int culprit : culprits) {
+            literals[i++] = NogoodStore.literal(culprit,
+                Scheduler.getConstr().slotIndex(culprit, this.data.get(culprit)));
+        }
+        Scheduler.getNogoods().add(literals);
+    }
+
+    /**
+     * Returns the sampling weight of each slot of a class under the softPenalty value ordering.
+     * A slot's weight falls exponentially with its marginal soft penalty, from 1 for the cheapest slot
+     * to e^-greediness for the most expensive one.
+     * @param classIndex - The index of the class to assign.
+     * @return The weight of each course or lab slot, or null if every slot is equally likely.
+     */
+    private double[] slotWeights(int classIndex) {
+        if (Scheduler.getValueOrdering() != ValueOrdering.SOFT_PENALTY || Scheduler.getGreediness() <= 0) {
+            return null;
+        }
+        BatchEvaluator batch = Scheduler.getEval().getBatchEvaluator();
+        if (batch == null) {
+            return null;
+        }
+        int[] penalties = batch.marginalPenalties(this.data, classIndex);
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int penalty : penalties) {
+            min = Math.min(min, penalty);
+            max = Math.max(max, penalty);
+        }
+        if (min >= max) {
+            return null;
+        }
+        double[] weights = new double[penalties.length];
+        for (int s = 0; s < penalties.length; s++) {
+            weights[s] = Math.exp(-Scheduler.getGreediness() * (penalties[s] - min) / (max - min));
+        }
+        return weights;
+    }
+
+    /**
+     * Picks one of the node's children, following the value ordering.
+     * @param classIndex - The index of the class assigned in the children.
+     * @param rand - A random number generator.
+     * @return The child.
+     */
+    private OrTree pickChild(int classIndex, Random rand) {
+        double[] weights = this.slotWeights(classIndex);
+        if (weights == null) {
+            return this.children.get(rand.nextInt(this.children.size()));
+        }
+        double[] childWeights = new double[this.children.size()];
+        double total = 0;
+        int i = 0;
+        for (OrTree child : this.children) {
+            childWeights[i] = weights[Scheduler.getConstr().slotIndex(classIndex, child.data.get(classIndex))];
+            total += childWeights[i++];
+        }
+        double target = rand.nextDouble() * total;
+        for (i = 0; i < childWeights.length - 1; i++) {
+            target -= childWeights[i];
+            if (target < 0) {
+                break;
+            }
+        }
+        return this.children.get(i);
+    }
+
+    /**
+     * Learns the nogood behind a rejected child and adds its culprits to the conflict set.
+     * @param nogoods - The nogood store.
+     * @param child - The rejected child.
+     * @param classIndex - The index of the class assigned in the child.
+     * @param slotIndex - The index of the slot assigned to the class.
+     * @param culprits - The conflict set of the class, extended with the culprits.
+     * @return true if the failure could be explained.
+     */
+    private boolean learn(NogoodStore nogoods, List<List<String>> child, int classIndex, int slotIndex,
+            Set<Integer> culprits) {
+        int[] explanation = Scheduler.getConstr().explainConflict(child, classIndex);
+        if (explanation == null) {
+            return false;
+        }
+        long[] literals = new long[explanation.length + 1];
+        literals[0] = NogoodStore.literal(classIndex, slotIndex);
+        for (int i = 0; i < explanation.length; i++) {
+            int culprit = explanation[i];
+            literals[i + 1] = NogoodStore.literal(culprit,
+                Scheduler.getConstr().slotIndex(culprit, child.get(culprit)));
+            culprits.add(culprit);
+        }
+        nogoods.add(literals);
+        return true;
+    }
+
+    /**
+     * Finds the node to continue with after this node's class was left without a slot.
+     * Walks up to the node that branched on the deepest culprit of the conflict and picks
+     * one of its remaining children that does not violate a learned nogood. When that culprit
+     * has no slots left, its own conflict (the culprits gathered so far) is used to jump further up.
+     * @param orTrees - The leaves of the search.
+     * @param rand - A random number generator.
+     * @return The node to continue with, or null if no backjump target was found.
+     */
+    private OrTree backjump(List<OrTree> orTrees, Random rand) {
+        if (this.conflict == null || this.conflict.isEmpty()) {
+            return null;
+        }
+        NogoodStore nogoods = Scheduler.getNogoods();
+        Set<Integer> conflictSet = new HashSet<>(this.conflict);
+        for (OrTree node = this; node.parent != null; node = node.parent) {
+            // Skip ancestors that assigned classes outside the conflict
+            if (!conflictSet.contains(node.assignedIndex)) {
+                continue;
+            }
+            // Remember why the culprit's current slot failed, for when all its slots have failed
+            OrTree level = node.parent;
+            if (level.conflict == null) {
+                level.conflict = new HashSet<>();
+            }
+            level.conflict.addAll(conflictSet);
+            level.conflict.remove(node.assignedIndex);
+            // Try the siblings of the node, i.e. the other slots of the culprit
+            List<OrTree> candidates = new ArrayList<>();
+            for (OrTree sibling : level.children) {
+                if (sibling != node && sibling.solvable != Solvability.NO && orTrees.contains(sibling)
+                    && !nogoods.violates(sibling.data)) {
+                    candidates.add(sibling);
+                }
+            }
+            // Slots of the culprit that have not been tried yet are reached through the node itself
+            if (level.successors != null && !level.successors.exhausted() && orTrees.contains(level)) {
+                candidates.add(level);
+            }
+            if (!candidates.isEmpty()) {
+                // Return to each culprit once, so a hard region cannot trap the search
+                if (level.backjumped) {
+                    return null;
+                }
+                level.backjumped = true;
+                if (Scheduler.isPrintData()) {
+                    System.out.println("Backjumping to culprit class index: " + node.assignedIndex);
+                }
+                return candidates.get(rand.nextInt(candidates.size()));
+            }
+            // Every slot of the culprit failed: continue with the culprits gathered for it
+            conflictSet = new HashSet<>(level.conflict);
+            if (conflictSet.isEmpty()) {
+                return null;
             }
         }
+        return null;
     }
 
     // Helper functions for scoring
@@ -118,14 +571,18 @@ public class OrTree {
      * Returns the sum of the number of unassigned slots for each course/lab.
      */
     private int sum(List<List<String>> pr) {
-        return pr.stream().mapToInt(this::help).sum();
+        int sum = 0;
+        for (int i = 0; i < pr.size(); i++) {
+            sum += this.help(pr.get(i));
+        }
+        return sum;
     }
 
     /*
      * Returns the score of a given node.
      */
     private int score(List<List<String>> pr) {
-        if (this.solvable(pr)) {
+        if (this.complete(pr)) {
             return 0;
         } else if (this.unsolvable(pr)) {
             // Pr fails hard constraints
@@ -160,6 +617,304 @@ public class OrTree {
         }
     }
 
+    /**
+     * Compares two nodes by priority, breaking ties randomly.
+     * @param a - The first node.
+     * @param b - The second node.
+     * @return a negative value if a should be expanded before b.
+     */
+    private static int compareByPriority(OrTree a, OrTree b) {
+        int result = Long.compare(a.priority, b.priority);
+        return result != 0 ? result : Integer.compare(a.tieBreak, b.tieBreak);
+    }
+
+    /**
+     * Creates a fresh root node at the starting point of this node's search. The nodes generated so far
+     * are forgotten, as the children of the root would otherwise all be skipped as duplicates.
+     * @return The new root node, sharing the search context of this node.
+     */
+    private OrTree restartRoot() {
+        this.context.clearGenerated();
+        List<List<String>> origin = this.context.getOrigin();
+        OrTree root = new OrTree(origin, Scheduler.getZobrist().hash(origin), this.context);
+        root.sequence = this.context.nextSequence();
+        return root;
+    }
+
+    /**
+     * Evicts leaves from an overfull frontier according to the configured eviction policy.
+     * @param leaves - The leaves of the frontier.
+     * @param byScore - Orders the leaves from most to least promising.
+     */
+    private static void evict(List<OrTree> leaves, Comparator<OrTree> byScore) {
+        int keep = (int) (OrTree.MAX_OR_TREE_SIZE * OrTree.EVICTION_KEEP_RATIO);
+        if (leaves.size() <= keep) {
+            return;
+        }
+        if (Scheduler.getFrontierEviction() == FrontierEviction.OLDEST) {
+            // Newest leaves first
+            leaves.sort(Comparator.comparingLong((OrTree leaf) -> leaf.sequence).reversed());
+        } else {
+            leaves.sort(byScore);
+        }
+        if (Scheduler.isPrintData()) {
+            System.out.println("Evicting " + (leaves.size() - keep) + " leaves from the frontier");
+        }
+        leaves.subList(keep, leaves.size()).clear();
+    }
+
+    /**
+     * Perform an or-tree-based search using the search mode from the config file.
+     * @param arrList - An ArrayList of indices of the most tightly bound elements,
+     *      e.g. highest number of constraints.
+     * @param rand - A random number generator
+     * @return sol - An list which is a pr-solved instance.
+     */
+    public List<List<String>> search(ArrayList<Integer> arrList, Random rand) {
+        if (Scheduler.getSearchMode() == SearchMode.BEST_FIRST) {
+            return this.searchSolutionBestFirst(arrList, rand);
+        } else if (Scheduler.getSearchMode() == SearchMode.BEAM) {
+            List<List<List<String>>> solutions = this.searchBeam(arrList, Scheduler.getBeamWidth(), rand);
+            return solutions.isEmpty() ? null : solutions.get(0);
+        }
+        return this.searchSolution(arrList, 0, new ArrayList<>(), rand);
+    }
+
+    /**
+     * Perform an or-tree-based search that only has to assign the given classes, e.g. one component of
+     * a decomposed problem. The other classes keep their assignment from this node's data.
+     * @param scope - The indices of the classes to assign, in the order they are expanded.
+     * @param rand - A random number generator
+     * @return sol - An list in which every class of the scope is assigned, or null if none was found.
+     */
+    public List<List<String>> searchScope(ArrayList<Integer> scope, Random rand) {
+        this.context.setScope(scope);
+        return this.search(scope, rand);
+    }
+
+    /**
+     * Limits the number of steps of this node's search, after which it gives up and returns null.
+     * @param stepBudget - The number of steps, e.g. leaves visited by the random search.
+     */
+    public void setStepBudget(long stepBudget) {
+        this.context.setStepBudget(stepBudget);
+    }
+
+    /**
+     * Perform a best-first or-tree-based search to find a solution.
+     * Leaves are kept in a priority queue ordered by the number of unassigned classes
+     * plus, if softEstimateWeight is set, the weighted soft penalty of the assigned part.
+     * Ties are broken randomly.
+     * @param arrList - An ArrayList of indices of the most tightly bound elements,
+     *      e.g. highest number of constraints.
+     * @param rand - A random number generator
+     * @return sol - An list which is a pr-solved instance.
+     */
+    public List<List<String>> searchSolutionBestFirst(ArrayList<Integer> arrList, Random rand) {
+        try {
+            if (this.unsolvable(this.data)) {
+                this.solvable = Solvability.NO;
+                return null;
+            }
+            PriorityQueue<OrTree> frontier = new PriorityQueue<>(OrTree::compareByPriority);
+            this.prioritize(rand);
+            frontier.add(this);
+            while (!frontier.isEmpty()) {
+                if (frontier.size() > OrTree.MAX_OR_TREE_SIZE) {
+                    if (Scheduler.isPrintData()) {
+                        System.out.println("Too many nodes in the best-first frontier");
+                    }
+                    FrontierEviction eviction = Scheduler.getFrontierEviction();
+                    if (eviction == FrontierEviction.CLEAR) {
+                        frontier.clear();
+                        OrTree root = this.restartRoot();
+                        root.prioritize(rand);
+                        frontier.add(root);
+                    } else {
+                        // The leaves keep their priorities; the queue already holds them best first
+                        List<OrTree> leaves = new ArrayList<>();
+                        if (eviction == FrontierEviction.WORST) {
+                            int keep = (int) (OrTree.MAX_OR_TREE_SIZE * OrTree.EVICTION_KEEP_RATIO);
+                            if (Scheduler.isPrintData()) {
+                                System.out.println("Evicting " + (frontier.size() - keep)
+                                    + " leaves from the frontier");
+                            }
+                            while (leaves.size() < keep) {
+                                leaves.add(frontier.poll());
+                            }
+                        } else {
+                            leaves.addAll(frontier);
+                            OrTree.evict(leaves, Comparator.comparingLong(leaf -> leaf.priority));
+                        }
+                        frontier.clear();
+                        frontier.addAll(leaves);
+                    }
+                }
+                if (this.context.countStep()) {
+                    return null;
+                }
+                OrTree node = frontier.poll();
+                // Determine index of element of pr that will be expanded by altern.
+                int selectedIndex = -1;
+                for (int index : arrList) {
+                    if (node.data.get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+                        selectedIndex = index;
+                        break;
+                    }
+                }
+                if (selectedIndex == -1) {
+                    // Every class of the search is assigned; return the node once it is complete
+                    if (this.complete(node.data)) {
+                        node.solvable = Solvability.YES;
+                        return node.data;
+                    }
+                    continue;
+                }
+                // Restart from the starting point once the node limit of the run is reached
+                if (this.context.countExpansion()) {
+                    this.context.restart();
+                    frontier.clear();
+                    OrTree root = this.restartRoot();
+                    root.prioritize(rand);
+                    frontier.add(root);
+                    continue;
+                }
+                // Generate successor nodes for current course/lab:
+                node.children.clear();
+                node.altern(selectedIndex);
+                for (OrTree child : node.children) {
+                    if (this.context.firstVisit(child.hash)) {
+                        child.prioritize(rand);
+                        frontier.add(child);
+                    }
+                }
+                node.children.clear();
+            }
+            // The frontier is exhausted, there is no solution.
+            return null;
+        } catch (OutOfMemoryError e) {
+            System.out.println("Out of memory error in OrTree.searchSolutionBestFirst");
+            System.out.println("Unable to proceed with scheduling as no valid solution can be formed.");
+            return null;
+        } catch (Exception e) {
+            System.out.println("Unknown error in OrTree.searchSolutionBestFirst");
+            System.out.println(e);
+            return null;
+        }
+    }
+
+    /**
+     * Perform a beam search to find up to beamWidth solutions.
+     * The classes are assigned in the order of arrList. At each depth every member of the beam
+     * is expanded, the children are scored in parallel and only the beamWidth children with the
+     * lowest soft penalty estimate are kept, so memory stays bounded by the beam width.
+     * @param arrList - An ArrayList of indices of the most tightly bound elements,
+     *      e.g. highest number of constraints.
+     * @param beamWidth - The number of partial schedules kept at each depth.
+     * @param rand - A random number generator used for tie-breaking.
+     * @return The complete schedules of the final beam, best first; empty if the beam died out.
+     */
+    public List<List<List<String>>> searchBeam(ArrayList<Integer> arrList, int beamWidth, Random rand) {
+        List<List<List<String>>> solutions = new ArrayList<>();
+        try {
+            // Rank the complete schedules by their full Eval value
+            for (OrTree node : this.beam(arrList, beamWidth, rand)) {
+                if (this.complete(node.data)) {
+                    node.solvable = Solvability.YES;
+                    solutions.add(node.data);
+                }
+            }
+            solutions.sort(Comparator.comparingInt(sol -> Scheduler.getEval().eval(sol)));
+            return solutions;
+        } catch (OutOfMemoryError e) {
+            System.out.println("Out of memory error in OrTree.searchBeam");
+            System.out.println("Unable to proceed with scheduling as no valid solution can be formed.");
+            return solutions;
+        } catch (Exception e) {
+            System.out.println("Unknown error in OrTree.searchBeam");
+            System.out.println(e);
+            return solutions;
+        }
+    }
+
+    /**
+     * Runs the beam of searchBeam down to the last class of arrList.
+     * @param arrList - The indices of the classes, in the order they are assigned.
+     * @param beamWidth - The number of partial schedules kept at each depth.
+     * @param rand - A random number generator used for tie-breaking.
+     * @return The nodes of the final beam; empty if the beam died out or the run was stopped.
+     */
+    List<OrTree> beam(ArrayList<Integer> arrList, int beamWidth, Random rand) {
+        if (this.unsolvable(this.data)) {
+            this.solvable = Solvability.NO;
+            return new ArrayList<>();
+        }
+        List<OrTree> beam = new ArrayList<>();
+        beam.add(this);
+        for (int selectedIndex : arrList) {
+            // Avoid over-writing values designed by partial assignments:
+            if (!this.data.get(selectedIndex).equals(Scheduler.UNASSIGNED_SLOT)) {
+                continue;
+            }
+            // Give up once the run is stopped, as the beam only holds partial schedules
+            if (Scheduler.isStopped()) {
+                return new ArrayList<>();
+            }
+            // Expand every member of the beam, as altern updates the search context and the nogoods
+            List<OrTree> candidates = new ArrayList<>();
+            for (OrTree node : beam) {
+                // In block mode a member may already hold the lab, placed with its lecture
+                if (!node.data.get(selectedIndex).equals(Scheduler.UNASSIGNED_SLOT)) {
+                    candidates.add(node);
+                    continue;
+                }
+                node.children.clear();
+                node.altern(selectedIndex);
+                candidates.addAll(node.children);
+                node.children.clear();
+            }
+            // Score the children in parallel, which only reads the shared state
+            candidates.parallelStream().forEach(child -> child.priority = Scheduler.getEval().estimate(child.data));
+            if (candidates.isEmpty()) {
+                if (Scheduler.isPrintData()) {
+                    System.out.println("Beam died out at class index: " + selectedIndex);
+                }
+                return candidates;
+            }
+            // Keep the best distinct children, ties broken randomly
+            for (OrTree candidate : candidates) {
+                candidate.tieBreak = rand.nextInt();
+            }
+            candidates.sort(OrTree::compareByPriority);
+            Set<ScheduleKey> seen = new HashSet<>();
+            beam = new ArrayList<>(Math.min(beamWidth, candidates.size()));
+            for (OrTree candidate : candidates) {
+                if (beam.size() >= beamWidth) {
+                    break;
+                }
+                if (seen.add(new ScheduleKey(candidate.data, candidate.hash))) {
+                    beam.add(candidate);
+                }
+            }
+        }
+        return beam;
+    }
+
+    /**
+     * Sets the best-first priority of the node from its score and soft penalty estimate.
+     * @param rand - A random number generator used for tie-breaking.
+     */
+    private void prioritize(Random rand) {
+        this.score = this.sum(this.data);
+        // One unassigned class counts as much as 100 penalty points at a weight of 1
+        this.priority = 100L * this.score;
+        int weight = Scheduler.getSoftEstimateWeight();
+        if (weight > 0) {
+            this.priority += (long) weight * Scheduler.getEval().estimate(this.data);
+        }
+        this.tieBreak = rand.nextInt();
+    }
+
     /**
      * Perform an or-tree-based search to find a solution.
      * @param arrList - An ArrayList of indices of the most tightly bound elements,
@@ -172,6 +927,12 @@ public class OrTree {
     public List<List<String>> searchSolution(ArrayList<Integer> arrList, int index, List<OrTree> orTrees,
             Random rand) {
         try {
+            if (this.context.countStep()) {
+                if (Scheduler.isPrintData()) {
+                    System.out.println("Step budget of the or-tree search used up");
+                }
+                return null;
+            }
             if (Scheduler.isPrintData()) {
                 System.out.println("Searching for solution with orTrees... LEAF HEAP SIZE: " + orTrees.size());
             }
@@ -179,9 +940,15 @@ public class OrTree {
                 if (Scheduler.isPrintData()) {
                     System.out.println("Too many nodes in orTrees");
                 }
-                orTrees.clear();
-                OrTree tree = new OrTree(Scheduler.getInitialPR());
-                return tree.searchSolution(arrList, 0, orTrees, rand);
+                if (Scheduler.getFrontierEviction() == FrontierEviction.CLEAR) {
+                    orTrees.clear();
+                    return this.restartRoot().searchSolution(arrList, 0, orTrees, rand);
+                }
+                // Keep the most promising leaves and carry on with the current node
+                for (OrTree leaf : orTrees) {
+                    leaf.score = leaf.sum(leaf.data);
+                }
+                OrTree.evict(orTrees, Comparator.comparingInt(leaf -> leaf.score));
             }
             // Return the data list once it is complete:
             if (this.solvable == Solvability.YES) {
@@ -190,8 +957,16 @@ public class OrTree {
                 // If it is unsolvable, return null
                 return null;
             }
-            // Determine the score of the current node:
-            this.score = this.score(this.data);
+            // Continue a lazily expanded node with its next child
+            if (this.successors != null) {
+                return this.expandLazily(arrList, this.successors.position, this.successors.classIndex, orTrees,
+                    rand);
+            }
+            // Determine the score of the current node, ruling out nodes that match a learned nogood:
+            NogoodStore nogoods = Scheduler.getNogoods();
+            this.score = nogoods != null && nogoods.violates(this.data)
+                ? Integer.MAX_VALUE
+                : this.score(this.data);
             // Return a solution when one is found:
             if (this.score == 0) {
                 this.solvable = Solvability.YES;
@@ -211,11 +986,24 @@ public class OrTree {
                 // Determine index of element of pr that will be expanded by altern.
                 int selectedIndex = arrList.get(index % arrList.size());
                 // Avoid over-writing values designed by partial assignments:
-                if (!this.data.get(selectedIndex).equals(Scheduler.UNASSIGNED_SLOT)) {
+                // (the node is not complete, so an unassigned class is always found)
+                while (!this.data.get(selectedIndex).equals(Scheduler.UNASSIGNED_SLOT)) {
                     if (Scheduler.isPrintData()) {
                         System.out.println("Skipping over " + this.data.get(selectedIndex));
                     }
-                    return this.searchSolution(arrList, index + 1, orTrees, rand);
+                    index++;
+                    selectedIndex = arrList.get(index % arrList.size());
+                }
+                // Restart from the starting point once the node limit of the run is reached
+                if (this.context.countExpansion()) {
+                    this.context.restart();
+                    orTrees.clear();
+                    return this.restartRoot().searchSolution(arrList, 0, orTrees, rand);
+                }
+                if (Scheduler.getLazySuccessors()) {
+                    this.children.clear();
+                    this.successors = new Successors(selectedIndex, index, true, rand);
+                    return this.expandLazily(arrList, index, selectedIndex, orTrees, rand);
                 }
                 // Clear the children list:
                 this.children.clear();
@@ -224,20 +1012,26 @@ public class OrTree {
                 // Remove the current node from orTrees, as it has been expanded:
                 orTrees.remove(this);
                 // Add the successor nodes to orTrees:
-                orTrees.addAll(this.children.stream().filter(c -> !orTrees.contains(c)
-                    && !c.equals(this)).collect(Collectors.toList()));
+                orTrees.addAll(this.children.stream().filter(c -> this.context.firstVisit(c.hash))
+                    .collect(Collectors.toList()));
                 // If there are children, continue searching:
                 if (this.children.size() > 0) {
                     // Choose a random successor node to expand:
-                    // they all have the same score, so it doesn't matter which one we pick
+                    // they all have the same score, so only the value ordering tells them apart
                     if (Scheduler.isPrintData()) {
                         System.out.println("Choosing a random successor node to expand from the children");
                     }
-                    int randIndex = rand.nextInt(this.children.size());
-                    OrTree child = this.children.get(randIndex);
+                    OrTree child = this.pickChild(selectedIndex, rand);
                     // Recursively expand successor nodes until completion:
                     return child.searchSolution(arrList, index + 1, orTrees, rand);
                 } else if (!orTrees.isEmpty()) {
+                    // Jump back to the deepest assignment that caused the dead end, if it is known
+                    if (Scheduler.getNogoods() != null) {
+                        OrTree target = this.backjump(orTrees, rand);
+                        if (target != null) {
+                            return target.searchSolution(arrList, 0, orTrees, rand);
+                        }
+                    }
                     // Randomly select a node from orTrees to expand with the lowest score
                     if (Scheduler.isPrintData()) {
                         System.out.println("No children. We try to find a solution from the orTrees. ");
@@ -273,6 +1067,48 @@ public class OrTree {
         }
     }
 
+    /**
+     * Continues the search with the next lazily generated child of this node. The node stays in
+     * orTrees until all of its slots have been tried, so the search can come back for its siblings.
+     * @param arrList - An ArrayList of indices of the most tightly bound elements.
+     * @param index - The position of the expanded class in arrList.
+     * @param selectedIndex - The index of the expanded class.
+     * @param orTrees - A list of leaf nodes.
+     * @param rand - A random number generator.
+     * @return sol - An list which is a pr-solved instance.
+     */
+    private List<List<String>> expandLazily(ArrayList<Integer> arrList, int index, int selectedIndex,
+            List<OrTree> orTrees, Random rand) {
+        OrTree child = this.successors.next();
+        if (this.successors.exhausted()) {
+            orTrees.remove(this);
+        } else if (!orTrees.contains(this)) {
+            orTrees.add(this);
+        }
+        if (child != null) {
+            orTrees.add(child);
+            // Recursively expand successor nodes until completion:
+            return child.searchSolution(arrList, index + 1, orTrees, rand);
+        }
+        orTrees.remove(this);
+        if (orTrees.isEmpty()) {
+            // There are no children and no leaves left, there is no solution.
+            return null;
+        }
+        // Jump back to the deepest assignment that caused the dead end, if it is known
+        if (Scheduler.getNogoods() != null) {
+            OrTree target = this.backjump(orTrees, rand);
+            if (target != null) {
+                return target.searchSolution(arrList, 0, orTrees, rand);
+            }
+        }
+        if (Scheduler.isPrintData()) {
+            System.out.println("No children for class index " + selectedIndex + ". We try another leaf.");
+        }
+        OrTree selectedNode = orTrees.get(rand.nextInt(orTrees.size()));
+        return selectedNode.searchSolution(arrList, 0, orTrees, rand);
+    }
+
     /**
      * Perform an or-tree-based search to find a solution.
      * @param child - An list which is a class assignment.
@@ -359,6 +1195,7 @@ public class OrTree {
                 if (Scheduler.isPrintData()) {
                     System.out.println("Parent 1 is viable");
                 }
+                this.inheritBlock(child, index, par1);
                 return this.searchSolutionWParents(child, index + 1, par1, par2, orTrees, rand);
             }
             // this.score either 2, 3 or MAX_VALUE
@@ -370,6 +1207,7 @@ public class OrTree {
                     if (Scheduler.isPrintData()) {
                         System.out.println("Parent 2 is viable");
                     }
+                    this.inheritBlock(child, index, par2);
                     return this.searchSolutionWParents(child, index + 1, par1, par2, orTrees, rand);
                 }
                 if (Scheduler.isPrintData()) {
@@ -382,6 +1220,7 @@ public class OrTree {
                 } else {
                     child.set(index, par2.get(index));
                 }
+                this.inheritBlock(child, index, chooseParent1 ? par1 : par2);
                 return this.searchSolutionWParents(child, index + 1, par1, par2, orTrees, rand);
             } else {
                 // If neither parent is viable, randomly select a node from orTrees to expand with the lowest score
@@ -389,6 +1228,21 @@ public class OrTree {
                     System.out.println("Neither parent is viable. We try to find a solution from the orTrees");
                 }
                 this.solvable = Solvability.NO;
+                if (Scheduler.getLazySuccessors()) {
+                    // The first feasible slot in sampling order is a random child, as weighted by the value ordering
+                    this.children.clear();
+                    this.successors = new Successors(index, index, false, rand);
+                    OrTree randChild = this.successors.next();
+                    orTrees.remove(this);
+                    if (randChild != null) {
+                        orTrees.add(randChild);
+                        return randChild.searchSolutionWParents(randChild.data, index + 1, par1, par2, orTrees, rand);
+                    }
+                    if (Scheduler.isPrintData()) {
+                        System.out.println("No children. We find new parents from the orTrees");
+                    }
+                    return null;
+                }
                 // Clear the children list:
                 this.children.clear();
                 // Generate successor nodes for current course/lab:
@@ -396,13 +1250,12 @@ public class OrTree {
                 // Remove the current node from orTrees, as it has been expanded:
                 orTrees.remove(this);
                 // Add the successor nodes to orTrees:
-                orTrees.addAll(this.children.stream().filter(c -> !orTrees.contains(c)
-                    && !c.equals(this)).collect(Collectors.toList()));
+                orTrees.addAll(this.children.stream().filter(c -> this.context.firstVisit(c.hash))
+                    .collect(Collectors.toList()));
                 // If there are children, continue searching:
                 if (this.children.size() > 0) {
                     // Choose a random successor node to expand:
-                    int randIndex = rand.nextInt(this.children.size());
-                    OrTree randChild = this.children.get(randIndex);
+                    OrTree randChild = this.pickChild(index, rand);
                     // Recursively expand successor nodes until completion:
                     return randChild.searchSolutionWParents(randChild.data, index + 1, par1, par2, orTrees, rand);
                 } else {
@@ -423,6 +1276,20 @@ public class OrTree {
         }
     }
 
+    /**
+     * In block mode, lets a lecture inherited from a parent bring the parent's slots for its labs,
+     * as long as the child still satisfies the hard constraints.
+     * @param child - The child, with the lecture assigned.
+     * @param index - The index of the lecture.
+     * @param parent - The parent the lecture was inherited from.
+     */
+    private void inheritBlock(List<List<String>> child, int index, List<List<String>> parent) {
+        Blocks blocks = Scheduler.getBlocks();
+        if (blocks != null && blocks.isBlock(index)) {
+            blocks.inherit(child, index, parent);
+        }
+    }
+
     /**
      * Determines if a given list represents a complete assignment solution.
      * @param data A list representing a course/lab section assignment.
@@ -430,9 +1297,31 @@ public class OrTree {
      */
     private boolean solvable(List<List<String>> data) {
         // Check if all slots are assigned and the list satisfies hard constraints
-        boolean allSlotsAssigned = data.stream()
-                                       .noneMatch(slot -> slot.equals(Scheduler.UNASSIGNED_SLOT));
-        return allSlotsAssigned && Scheduler.getConstr().constr(data);
+        for (int i = 0; i < data.size(); i++) {
+            if (data.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                return false;
+            }
+        }
+        return Scheduler.getConstr().constr(data);
+    }
+
+    /**
+     * Determines if a given list completes the search: a complete solution, or, if the search is
+     * restricted to a scope, an assignment of every class in the scope satisfying the hard constraints.
+     * @param data A list representing a course/lab section assignment.
+     * @return True if the search is done with the list, false otherwise.
+     */
+    private boolean complete(List<List<String>> data) {
+        List<Integer> scope = this.context.getScope();
+        if (scope == null) {
+            return this.solvable(data);
+        }
+        for (int index : scope) {
+            if (data.get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+                return false;
+            }
+        }
+        return Scheduler.getConstr().constrStar(data);
     }
 
     /**
@@ -0,0 +1,78 @@
+import java.util.List;
+
+/**
+ * Minimal-perturbation penalty: the weighted Hamming distance of a schedule to a reference schedule,
+ * e.g. the published timetable an edited input is re-solved for. Every class the reference places in
+ * a slot of the current input costs its weight if the schedule puts it elsewhere; classes the
+ * reference does not place (new sections, dropped slots) and unassigned classes cost nothing.
+ * Like the Zobrist keys, the distance is a sum over the assignments, so a move of one class
+ * updates it in constant time (see {@link #cost(int, int)}).
+ */
+public class Perturbation {
+    // Slot index of each class in the reference schedule, -1 if the reference does not place it
+    private final int[] reference;
+    // Penalty of each class for leaving its reference slot
+    private final int[] weight;
+    private final HardConstraint constr;
+
+    /**
+     * Constructor for the penalty of the current problem instance.
+     * @param schedule - The reference schedule.
+     * @param constr - The hard constraint evaluator used to look up slot indices.
+     * @param penMoveCourse - The penalty of a course that leaves its reference slot.
+     * @param penMoveLab - The penalty of a lab that leaves its reference slot.
+     */
+    public Perturbation(WarmStart schedule, HardConstraint constr, int penMoveCourse, int penMoveLab) {
+        this.constr = constr;
+        int numCourses = Scheduler.getCourses().size();
+        int numClasses = numCourses + Scheduler.getLabs().size();
+        this.reference = new int[numClasses];
+        this.weight = new int[numClasses];
+        for (int i = 0; i < numClasses; i++) {
+            List<String> slot = schedule.slotOf(i);
+            this.reference[i] = slot.equals(Scheduler.UNASSIGNED_SLOT) ? -1 : constr.slotIndex(i, slot);
+            this.weight[i] = i < numCourses ? penMoveCourse : penMoveLab;
+        }
+    }
+
+    /**
+     * Returns the slot of a class in the reference schedule.
+     * @param classIndex - The index of the class in the PR list.
+     * @return The index of the slot in the course or lab slots, or -1 if the reference does not place the class.
+     */
+    public int getReferenceSlot(int classIndex) {
+        return this.reference[classIndex];
+    }
+
+    /**
+     * Returns the penalty of an assignment.
+     * Moving a class from one slot to another changes the distance by the difference of the two costs.
+     * @param classIndex - The index of the class in the PR list.
+     * @param slotIndex - The index of the slot in the course or lab slots, or -1 if unassigned.
+     * @return The weight of the class if it is assigned outside its reference slot, 0 otherwise.
+     */
+    public int cost(int classIndex, int slotIndex) {
+        int referenceSlot = this.reference[classIndex];
+        return referenceSlot < 0 || slotIndex < 0 || slotIndex == referenceSlot ? 0 : this.weight[classIndex];
+    }
+
+    /**
+     * Returns a summary of the moves of a schedule, e.g. "12 of 180 classes moved".
+     * @param pr - The schedule.
+     * @return The summary.
+     */
+    public String getSummary(List<List<String>> pr) {
+        int placed = 0;
+        int moved = 0;
+        for (int i = 0; i < pr.size(); i++) {
+            if (this.reference[i] >= 0) {
+                placed++;
+                if (!pr.get(i).equals(Scheduler.UNASSIGNED_SLOT)
+                    && this.constr.slotIndex(i, pr.get(i)) != this.reference[i]) {
+                    moved++;
+                }
+            }
+        }
+        return moved + " of " + placed + " classes moved";
+    }
+}
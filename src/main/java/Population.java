@@ -0,0 +1,54 @@
+import java.util.List;
+
+/**
+ * Storage for the solution candidates of a generation together with their Eval values and
+ * Zobrist hashes.
+ */
+public interface Population {
+    /**
+     * Returns the number of solution candidates.
+     * @return size
+     */
+    int size();
+
+    /**
+     * Returns a solution candidate.
+     * @param index - the index of the candidate
+     * @return the schedule
+     */
+    List<List<String>> get(int index);
+
+    /**
+     * Returns the Eval value of a solution candidate.
+     * @param index - the index of the candidate
+     * @return the Eval value
+     */
+    int getFitness(int index);
+
+    /**
+     * Returns the Zobrist hash of a solution candidate.
+     * @param index - the index of the candidate
+     * @return the hash
+     */
+    long getHash(int index);
+
+    /**
+     * Adds a solution candidate.
+     * @param schedule - the schedule
+     * @param fitness - its Eval value
+     * @param hash - its Zobrist hash
+     */
+    void add(List<List<String>> schedule, int fitness, long hash);
+
+    /**
+     * Removes the marked solution candidates in one pass, keeping the order of the others.
+     * @param removed - whether each candidate is removed
+     */
+    void retain(boolean[] removed);
+
+    /**
+     * Returns a read-only list view of the solution candidates.
+     * @return the schedules
+     */
+    List<List<List<String>>> asList();
+}
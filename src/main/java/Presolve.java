@@ -0,0 +1,409 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Presolve pass run once after parsing. It applies the department's special rules to the input
+ * (CPSC 313/413 and the TU 11:00 lecture slot), reduces every class to the slots its unary
+ * constraints allow (partial assignments, unwanted slots and evening sections) and runs quick
+ * necessary conditions on the result, so an infeasible input is reported with its reason
+ * instead of being searched.
+ */
+public class Presolve {
+    // The special quiz labs of CPSC 313 and 413, held at TU 18:00
+    private static final Map<String, String> SPECIAL_LABS = Map.of("313", "813", "413", "913");
+
+    // The slots each class may take, indexed by class and by course or lab slot
+    private boolean[][] domains;
+    private int removed;
+    private int total;
+
+    /**
+     * Runs the presolve pass on the parsed input held by the scheduler.
+     * @throws IllegalStateException if the input has no solution, with the reason as its message.
+     */
+    public void run() {
+        this.checkFor313And413();
+        this.checkForTU11();
+        this.computeDomains();
+        this.checkCapacity(true);
+        this.checkCapacity(false);
+        this.checkLevel500(true);
+        this.checkLevel500(false);
+    }
+
+    /**
+     * Returns whether the unary constraints allow a slot for a class.
+     * @param classIndex - The index of the class in the PR list.
+     * @param slotIndex - The index of the slot in the course slots (for courses) or lab slots (for labs).
+     * @return true if the slot is in the domain of the class.
+     */
+    public boolean allows(int classIndex, int slotIndex) {
+        return this.domains[classIndex][slotIndex];
+    }
+
+    /**
+     * Returns a summary of the domain reduction, e.g. "1200 of 5400 class/slot pairs removed".
+     * @return The summary.
+     */
+    public String getSummary() {
+        return this.removed + " of " + this.total + " class/slot pairs removed";
+    }
+
+    /**
+     * Checks if special courses CPSC313 and 413 present in list.
+     * Adds their quiz lab at TU 18:00 and blocks out the overlapping slots.
+     */
+    private void checkFor313And413() {
+        if (Scheduler.isPrintData()) {
+            System.out.println("Checking for CPSC313 and 413...");
+        }
+        // Check for TU18 only once
+        boolean tu18Checked = false;
+        for (String course : new String[] { "313", "413" }) {
+            // Get the lab course number
+            final String labCourse = Presolve.SPECIAL_LABS.get(course);
+            List<List<String>> sections = Scheduler.getCourses().stream()
+                    .filter(subCourse -> subCourse.get(0).equals("CPSC") && subCourse.get(1).equals(course))
+                    .collect(Collectors.toList());
+            List<List<String>> labSections = Scheduler.getLabs().stream()
+                    .filter(subLab -> subLab.get(0).equals("CPSC") && subLab.get(1).equals(course))
+                    .collect(Collectors.toList());
+            // Only continue if the course CPSC313 / CPSC413 is present in the input file
+            if (sections.isEmpty() && labSections.isEmpty()) {
+                continue;
+            }
+            if (!tu18Checked) {
+                this.checkForTU18();
+                tu18Checked = true;
+            }
+            // The quiz lab may only be partially assigned to TU 18:00
+            // e.g. [[CPSC, 813, TUT, 01], [TU], [18:00]]
+            boolean assignedToOtherSlotsThanTU18 = Scheduler.getPartialAssignments().stream()
+                .anyMatch(assign -> assign.get(0).get(0).equals("CPSC") && assign.get(0).get(1).equals(labCourse)
+                    && !(assign.get(1).get(0).equals("TU") && assign.get(2).get(0).equals("18:00")));
+            if (assignedToOtherSlotsThanTU18) {
+                throw new IllegalStateException("CPSC " + course + " is included "
+                    + "but CPSC " + labCourse + " is partially assigned to a slot that is not TU 18:00.");
+            }
+            boolean unwantedTU18 = Scheduler.getUnwanted().stream()
+                .anyMatch(unwanted -> unwanted.get(0).get(0).equals("CPSC")
+                    && unwanted.get(0).get(1).equals(labCourse)
+                    && unwanted.get(1).get(0).equals("TU") && unwanted.get(2).get(0).equals("18:00"));
+            if (unwantedTU18) {
+                throw new IllegalStateException("CPSC " + course + " is included "
+                    + "but CPSC " + labCourse + " has unwanted slot at TU 18:00.");
+            }
+            // Add the quiz lab with its partial assignment
+            // e.g. [CPSC, 813, TUT, 01]
+            List<String> newLab = Arrays.asList("CPSC", labCourse, "TUT", "01");
+            Scheduler.getLabs().add(newLab);
+            Scheduler.getPartialAssignments().add(
+                new ArrayList<>(Arrays.asList(newLab, List.of("TU"), List.of("18:00"))));
+            // No lecture or lab of the course may overlap with the quiz
+            // e.g. [[CPSC, 313, LEC, 01], [TU], [17:00]]
+            sections.forEach(s -> {
+                this.addUnwanted(s, "TU", "17:00");
+                this.addUnwanted(s, "TU", "18:30");
+            });
+            labSections.forEach(s -> this.addUnwanted(s, "TU", "18:00"));
+        }
+    }
+
+    /**
+     * Checks for the presence of 18:00 slot for TU.
+     */
+    private void checkForTU18() {
+        if (Scheduler.isPrintData()) {
+            System.out.println("Checking for TU 18:00 slot...");
+        }
+        boolean exist = Scheduler.getLabSlots().stream()
+                .anyMatch(slots -> slots.get(0).equals("TU") && slots.get(1).equals("18:00"));
+        if (!exist) {
+            throw new IllegalStateException(
+                "CPSC 313/413 is included, but there are no lab slots allocated at TU 18:00.");
+        }
+    }
+
+    /**
+     * Adds unwanted slots to the unwanted data structure.
+     * @param section - The section to be added.
+     * @param day - The day to be added.
+     * @param time - The time to be added.
+     */
+    private void addUnwanted(List<String> section, String day, String time) {
+        if (Scheduler.isPrintData()) {
+            System.out.println("Adding unwanted slot...");
+        }
+        Scheduler.getUnwanted().add(new ArrayList<>(Arrays.asList(section, List.of(day), List.of(time))));
+    }
+
+    /**
+     * Removes the TU 11:00 course slot, as no lectures should be scheduled then.
+     */
+    private void checkForTU11() {
+        if (Scheduler.isPrintData()) {
+            System.out.println("Checking for TU 11:00 slot...");
+        }
+        // Remove the first occurrence of the slot, there should only be one.
+        // e.g. [TU, 11:00, 2, 1]
+        Iterator<List<String>> iterator = Scheduler.getCourseSlots().iterator();
+        while (iterator.hasNext()) {
+            List<String> slot = iterator.next();
+            if (slot.get(0).equals("TU") && slot.get(1).equals("11:00")) {
+                iterator.remove();
+                break;
+            }
+        }
+    }
+
+    /**
+     * Reduces every class to the slots allowed by its partial assignment, its unwanted slots
+     * and, for evening sections, the evening slots.
+     */
+    private void computeDomains() {
+        List<List<String>> courses = Scheduler.getCourses();
+        List<List<String>> labs = Scheduler.getLabs();
+        int numCourses = courses.size();
+        int numClasses = numCourses + labs.size();
+        this.domains = new boolean[numClasses][];
+        // The partially assigned slot of each class, e.g. [MO, 8:00]
+        List<List<String>> partial = new ArrayList<>(numClasses);
+        for (int i = 0; i < numClasses; i++) {
+            List<List<String>> slots = i < numCourses ? Scheduler.getCourseSlots() : Scheduler.getLabSlots();
+            this.domains[i] = new boolean[slots.size()];
+            Arrays.fill(this.domains[i], true);
+            this.total += slots.size();
+            partial.add(null);
+        }
+        for (List<List<String>> assignment : Scheduler.getPartialAssignments()) {
+            List<String> name = assignment.get(0);
+            List<String> dayTime = List.of(assignment.get(1).get(0), assignment.get(2).get(0));
+            int index = Presolve.classIndex(name);
+            if (index < 0) {
+                throw new IllegalStateException("The course/lab " + Presolve.format(name)
+                    + " is partially assigned but not recognized.");
+            }
+            if (partial.get(index) != null && !partial.get(index).equals(dayTime)) {
+                throw new IllegalStateException(Presolve.format(name) + " is partially assigned to both "
+                    + Presolve.format(partial.get(index)) + " and " + Presolve.format(dayTime) + ".");
+            }
+            int slotIndex = Presolve.slotIndex(index < numCourses, dayTime);
+            if (slotIndex < 0) {
+                throw new IllegalStateException(Presolve.format(name) + " is partially assigned to "
+                    + Presolve.format(dayTime) + ", which is not a " + (index < numCourses ? "course" : "lab")
+                    + " slot.");
+            }
+            partial.set(index, dayTime);
+            Arrays.fill(this.domains[index], false);
+            this.domains[index][slotIndex] = true;
+        }
+        for (List<List<String>> unwanted : Scheduler.getUnwanted()) {
+            int index = Presolve.classIndex(unwanted.get(0));
+            int slotIndex = Presolve.slotIndex(index < numCourses,
+                List.of(unwanted.get(1).get(0), unwanted.get(2).get(0)));
+            if (index >= 0 && slotIndex >= 0 && this.domains[index][slotIndex]) {
+                this.domains[index][slotIndex] = false;
+                if (partial.get(index) != null) {
+                    throw new IllegalStateException(Presolve.format(unwanted.get(0)) + " is partially assigned to "
+                        + Presolve.format(partial.get(index)) + ", which is unwanted for it.");
+                }
+            }
+        }
+        for (int i = 0; i < numClasses; i++) {
+            List<String> name = i < numCourses ? courses.get(i) : labs.get(i - numCourses);
+            if (Presolve.isEvening(name)) {
+                List<List<String>> slots = i < numCourses ? Scheduler.getCourseSlots() : Scheduler.getLabSlots();
+                for (int s = 0; s < slots.size(); s++) {
+                    if (this.domains[i][s] && !Presolve.isEveningSlot(slots.get(s))) {
+                        this.domains[i][s] = false;
+                        if (partial.get(i) != null) {
+                            throw new IllegalStateException(Presolve.format(name)
+                                + " is an evening section but is partially assigned to "
+                                + Presolve.format(partial.get(i)) + ".");
+                        }
+                    }
+                }
+            }
+            int size = 0;
+            for (boolean allowed : this.domains[i]) {
+                size += allowed ? 1 : 0;
+            }
+            if (size == 0) {
+                throw new IllegalStateException(Presolve.format(name) + " has no allowed slot: every "
+                    + (i < numCourses ? "course" : "lab") + " slot is unwanted"
+                    + (Presolve.isEvening(name) ? " or not in the evening." : "."));
+            }
+            this.removed += this.domains[i].length - size;
+        }
+    }
+
+    /**
+     * Checks that the slots can hold all courses (or labs): in total, in the evening and for the
+     * classes partially assigned to each slot.
+     * @param forCourses - true to check the courses and course slots, false for the labs.
+     */
+    private void checkCapacity(boolean forCourses) {
+        String kind = forCourses ? "course" : "lab";
+        List<List<String>> slots = forCourses ? Scheduler.getCourseSlots() : Scheduler.getLabSlots();
+        List<List<String>> classes = forCourses ? Scheduler.getCourses() : Scheduler.getLabs();
+        int offset = forCourses ? 0 : Scheduler.getCourses().size();
+        int capacity = 0;
+        int eveningCapacity = 0;
+        int[] fixed = new int[slots.size()];
+        for (int s = 0; s < slots.size(); s++) {
+            capacity += Presolve.max(slots.get(s));
+            eveningCapacity += Presolve.isEveningSlot(slots.get(s)) ? Presolve.max(slots.get(s)) : 0;
+        }
+        int evening = 0;
+        for (int i = 0; i < classes.size(); i++) {
+            evening += Presolve.isEvening(classes.get(i)) ? 1 : 0;
+            int only = this.onlySlot(offset + i);
+            if (only >= 0 && ++fixed[only] > Presolve.max(slots.get(only))) {
+                throw new IllegalStateException("The " + kind + " slot " + Presolve.format(slots.get(only))
+                    + " holds at most " + Presolve.max(slots.get(only)) + " " + kind + "s, but more are "
+                    + "partially assigned to it.");
+            }
+        }
+        if (classes.size() > capacity) {
+            throw new IllegalStateException("There are " + classes.size() + " " + kind + "s, but the " + kind
+                + " slots only hold " + capacity + ".");
+        }
+        if (evening > eveningCapacity) {
+            throw new IllegalStateException("There are " + evening + " evening " + kind + " sections, but the "
+                + "evening " + kind + " slots only hold " + eveningCapacity + ".");
+        }
+    }
+
+    /**
+     * Checks that there are enough distinct slots for the 500-level courses (or labs), which
+     * must all be in different slots.
+     * @param forCourses - true to check the courses, false for the labs.
+     */
+    private void checkLevel500(boolean forCourses) {
+        String kind = forCourses ? "course" : "lab";
+        List<List<String>> slots = forCourses ? Scheduler.getCourseSlots() : Scheduler.getLabSlots();
+        List<List<String>> classes = forCourses ? Scheduler.getCourses() : Scheduler.getLabs();
+        int offset = forCourses ? 0 : Scheduler.getCourses().size();
+        boolean[] usable = new boolean[slots.size()];
+        List<List<String>> fixedBy = new ArrayList<>(slots.size());
+        for (int s = 0; s < slots.size(); s++) {
+            fixedBy.add(null);
+        }
+        int count = 0;
+        for (int i = 0; i < classes.size(); i++) {
+            if (!classes.get(i).get(1).startsWith("5")) {
+                continue;
+            }
+            count++;
+            for (int s = 0; s < slots.size(); s++) {
+                usable[s] |= this.domains[offset + i][s] && Presolve.max(slots.get(s)) > 0;
+            }
+            int only = this.onlySlot(offset + i);
+            if (only >= 0) {
+                if (fixedBy.get(only) != null) {
+                    throw new IllegalStateException("The 500-level " + kind + "s " + Presolve.format(fixedBy.get(only))
+                        + " and " + Presolve.format(classes.get(i)) + " are both partially assigned to "
+                        + Presolve.format(slots.get(only)) + ".");
+                }
+                fixedBy.set(only, classes.get(i));
+            }
+        }
+        int distinct = 0;
+        for (boolean slot : usable) {
+            distinct += slot ? 1 : 0;
+        }
+        if (count > distinct) {
+            throw new IllegalStateException("There are " + count + " 500-level " + kind + "s, which must be in "
+                + "different slots, but only " + distinct + " " + kind + " slots are open to them.");
+        }
+    }
+
+    /**
+     * Returns the only slot in a class's domain.
+     * @param classIndex - The index of the class in the PR list.
+     * @return The slot index, or -1 if the domain has more than one slot.
+     */
+    private int onlySlot(int classIndex) {
+        int only = -1;
+        for (int s = 0; s < this.domains[classIndex].length; s++) {
+            if (this.domains[classIndex][s]) {
+                if (only >= 0) {
+                    return -1;
+                }
+                only = s;
+            }
+        }
+        return only;
+    }
+
+    /**
+     * Returns the PR index of a course or lab identifier.
+     * @param name - The class identifier, e.g. [CPSC, 433, LEC, 01, TUT, 01].
+     * @return The index in the PR list, or -1 if the class is unknown.
+     */
+    private static int classIndex(List<String> name) {
+        if (name.contains("TUT") || name.contains("LAB")) {
+            int labIndex = Scheduler.getLabs().indexOf(name);
+            return labIndex < 0 ? -1 : Scheduler.getCourses().size() + labIndex;
+        }
+        return Scheduler.getCourses().indexOf(name);
+    }
+
+    /**
+     * Returns the index of a day and time in the course or lab slots.
+     * @param forCourses - true to look in the course slots, false for the lab slots.
+     * @param dayTime - The day and time, e.g. [MO, 8:00].
+     * @return The slot index, or -1 if there is no such slot.
+     */
+    private static int slotIndex(boolean forCourses, List<String> dayTime) {
+        List<List<String>> slots = forCourses ? Scheduler.getCourseSlots() : Scheduler.getLabSlots();
+        for (int s = 0; s < slots.size(); s++) {
+            if (slots.get(s).get(0).equals(dayTime.get(0)) && slots.get(s).get(1).equals(dayTime.get(1))) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Determines if a class is an evening section, e.g. [CPSC, 433, LEC, 95].
+     * @param name - The class identifier.
+     * @return true if the section number starts with 9.
+     */
+    private static boolean isEvening(List<String> name) {
+        return name.size() > 3 && name.get(3).startsWith("9");
+    }
+
+    /**
+     * Determines if a slot starts at 18:00 or later.
+     * @param slot - The slot, e.g. [TU, 18:00, 2, 1].
+     * @return true if the slot is in the evening.
+     */
+    private static boolean isEveningSlot(List<String> slot) {
+        String time = slot.get(1);
+        return Integer.parseInt(time.substring(0, time.indexOf(':'))) >= 18;
+    }
+
+    /**
+     * Returns the maximum number of classes in a slot.
+     * @param slot - The slot, e.g. [MO, 8:00, 3, 2].
+     * @return The coursemax or labmax of the slot.
+     */
+    private static int max(List<String> slot) {
+        return Integer.parseInt(slot.get(2));
+    }
+
+    /**
+     * Formats a class identifier or a slot for a message, e.g. "CPSC 433 LEC 01" or "MO 8:00".
+     * @param name - The class identifier or slot.
+     * @return The words joined by spaces; only day and time for a slot.
+     */
+    private static String format(List<String> name) {
+        boolean isSlot = name.size() > 1 && name.get(1).contains(":");
+        return String.join(" ", isSlot ? name.subList(0, 2) : name);
+    }
+}
@@ -0,0 +1,200 @@
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Global constraint propagation for the or-tree search.
+ * The slot capacities (coursemax/labmax) form a global cardinality constraint and the 500-level
+ * rule an all-different constraint over the unassigned classes. Both are checked as bipartite
+ * matchings between the unassigned classes and the slots left in their presolved domains:
+ * a partial assignment is a dead end as soon as some unassigned classes cannot all be given
+ * a slot with room left, which the pairwise checks only notice once those classes are reached.
+ */
+public class Propagator {
+    private final HardConstraint constr;
+    private final Presolve presolve;
+    private final int numCourses;
+    private final int numClasses;
+    private final int numCourseSlots;
+    private final int numLabSlots;
+    // The capacity of each course slot, then each lab slot
+    private final int[] capacity;
+    private final boolean[] level500;
+    private final ThreadLocal<Scratch> scratch;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Buffers reused by the matchings of one thread.
+     */
+    private final class Scratch {
+        // Remaining room of each slot, and the classes matched to it
+        private final int[] room = new int[Propagator.this.capacity.length];
+        private final int[][] matched = new int[Propagator.this.capacity.length][];
+        private final int[] matchedCount = new int[Propagator.this.capacity.length];
+        // The slots visited by the current augmenting path are marked with its stamp
+        private final int[] visited = new int[Propagator.this.capacity.length];
+        private int stamp = 0;
+        // The classes taking part in the current matching
+        private final int[] members = new int[Propagator.this.numClasses];
+        // The slots already used by an assigned 500-level class
+        private final boolean[] used500 = new boolean[Propagator.this.capacity.length];
+
+        private Scratch() {
+            for (int s = 0; s < this.matched.length; s++) {
+                this.matched[s] = new int[Math.max(1, Propagator.this.capacity[s])];
+            }
+        }
+    }
+
+    /**
+     * Constructor for the propagator.
+     * @param constr - The hard constraints, to look up slots and slot capacities.
+     * @param presolve - The presolve pass with the domain of each class.
+     */
+    public Propagator(HardConstraint constr, Presolve presolve) {
+        this.constr = constr;
+        this.presolve = presolve;
+        Classes[] classesArr = constr.getClassesArr();
+        Slots[] slotsArr = constr.getSlotsArr();
+        this.numCourses = Scheduler.getCourses().size();
+        this.numClasses = classesArr.length;
+        this.numCourseSlots = Scheduler.getCourseSlots().size();
+        this.numLabSlots = Scheduler.getLabSlots().size();
+        this.capacity = new int[slotsArr.length];
+        for (int s = 0; s < slotsArr.length; s++) {
+            this.capacity[s] = slotsArr[s].getMax();
+        }
+        this.level500 = new boolean[this.numClasses];
+        for (int i = 0; i < this.numClasses; i++) {
+            this.level500[i] = classesArr[i].getName().get(1).startsWith("5");
+        }
+        this.scratch = ThreadLocal.withInitial(Scratch::new);
+    }
+
+    /**
+     * Checks whether the unassigned classes of a partial assignment can still be given slots
+     * within the capacities, with the 500-level classes in slots of their own.
+     * @param pr - The partial assignment, satisfying constrStar.
+     * @return false if the partial assignment cannot be completed.
+     */
+    public boolean propagate(List<List<String>> pr) {
+        this.calls.increment();
+        Scratch buffers = this.scratch.get();
+        boolean feasible = this.propagate(pr, buffers, 0, this.numCourses, 0, this.numCourseSlots)
+            && this.propagate(pr, buffers, this.numCourses, this.numClasses, this.numCourseSlots, this.numLabSlots);
+        if (!feasible) {
+            this.failures.increment();
+        }
+        return feasible;
+    }
+
+    /**
+     * Runs the cardinality and all-different matchings for the courses or the labs.
+     * @param pr - The partial assignment.
+     * @param buffers - The scratch buffers of the calling thread.
+     * @param from - The index of the first class of the kind.
+     * @param to - The index after the last class of the kind.
+     * @param offset - The index of the first slot of the kind in the capacity array.
+     * @param numSlots - The number of slots of the kind.
+     * @return false if the classes of the kind cannot be completed.
+     */
+    private boolean propagate(List<List<String>> pr, Scratch buffers, int from, int to, int offset, int numSlots) {
+        // Room left in each slot after the assigned classes, and the slots 500-level classes already use
+        for (int s = offset; s < offset + numSlots; s++) {
+            buffers.room[s] = this.capacity[s];
+            buffers.used500[s] = false;
+        }
+        int unassigned = 0;
+        int unassigned500 = 0;
+        for (int i = from; i < to; i++) {
+            int slotIndex = this.constr.slotIndex(i, pr.get(i));
+            if (slotIndex < 0) {
+                buffers.members[unassigned++] = i;
+                unassigned500 += this.level500[i] ? 1 : 0;
+            } else {
+                buffers.room[offset + slotIndex]--;
+                buffers.used500[offset + slotIndex] |= this.level500[i];
+            }
+        }
+        // Global cardinality: every unassigned class needs a unit of room in its domain
+        if (!this.match(buffers, unassigned, offset, numSlots, false)) {
+            return false;
+        }
+        if (unassigned500 == 0) {
+            return true;
+        }
+        // All-different: the unassigned 500-level classes need distinct free slots
+        int count = 0;
+        for (int k = 0; k < unassigned; k++) {
+            if (this.level500[buffers.members[k]]) {
+                buffers.members[count++] = buffers.members[k];
+            }
+        }
+        return this.match(buffers, count, offset, numSlots, true);
+    }
+
+    /**
+     * Matches the member classes to slots with room, augmenting along alternating paths.
+     * @param buffers - The scratch buffers, with the members and the room of each slot.
+     * @param count - The number of member classes.
+     * @param offset - The index of the first slot of the kind in the capacity array.
+     * @param numSlots - The number of slots of the kind.
+     * @param distinct - true to give each class a slot of its own not used by a 500-level class.
+     * @return true if every member class is matched.
+     */
+    private boolean match(Scratch buffers, int count, int offset, int numSlots, boolean distinct) {
+        for (int s = offset; s < offset + numSlots; s++) {
+            // A 500-level class needs a slot that no other 500-level class uses
+            buffers.room[s] = distinct
+                ? (buffers.used500[s] || buffers.room[s] <= 0 ? 0 : 1)
+                : Math.max(0, buffers.room[s]);
+            buffers.matchedCount[s] = 0;
+        }
+        for (int k = 0; k < count; k++) {
+            buffers.stamp++;
+            if (!this.augment(buffers, buffers.members[k], offset, numSlots)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds an augmenting path from a class to a slot with room left.
+     * @param buffers - The scratch buffers.
+     * @param classIndex - The class to match.
+     * @param offset - The index of the first slot of the kind in the capacity array.
+     * @param numSlots - The number of slots of the kind.
+     * @return true if the class was matched.
+     */
+    private boolean augment(Scratch buffers, int classIndex, int offset, int numSlots) {
+        for (int s = 0; s < numSlots; s++) {
+            int slot = offset + s;
+            if (!this.presolve.allows(classIndex, s) || buffers.visited[slot] == buffers.stamp) {
+                continue;
+            }
+            buffers.visited[slot] = buffers.stamp;
+            if (buffers.matchedCount[slot] < buffers.room[slot]) {
+                buffers.matched[slot][buffers.matchedCount[slot]++] = classIndex;
+                return true;
+            }
+            // The slot is full: try to move one of its classes elsewhere
+            for (int m = 0; m < buffers.matchedCount[slot]; m++) {
+                int other = buffers.matched[slot][m];
+                if (this.augment(buffers, other, offset, numSlots)) {
+                    buffers.matched[slot][m] = classIndex;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a summary of the propagation, e.g. "1200 partial assignments checked, 35 dead ends found".
+     * @return The summary.
+     */
+    public String getStatistics() {
+        return this.calls.sum() + " partial assignments checked, " + this.failures.sum() + " dead ends found";
+    }
+}
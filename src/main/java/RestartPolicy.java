@@ -0,0 +1,67 @@
+/**
+ * Decides after how many node expansions an or-tree search restarts from its starting point.
+ * Restarting with growing node limits lets a randomized search escape a bad region of the
+ * tree without giving up on it forever.
+ */
+public class RestartPolicy {
+    /**
+     * The sequence of node limits between restarts.
+     */
+    public enum Strategy {
+        NONE, // never restart
+        LUBY, // restartBase times the Luby sequence 1, 1, 2, 1, 1, 2, 4, ...
+        GEOMETRIC // restartBase times restartFactor to the power of the number of restarts
+    }
+
+    private final Strategy strategy;
+    private final long base;
+    private final double factor;
+
+    /**
+     * Constructor for the restart policy.
+     * @param strategy - The sequence of node limits.
+     * @param base - The number of node expansions of the first run.
+     * @param factor - The growth factor of the geometric sequence.
+     */
+    public RestartPolicy(Strategy strategy, long base, double factor) {
+        this.strategy = strategy;
+        this.base = Math.max(1, base);
+        this.factor = Math.max(1.0, factor);
+    }
+
+    /**
+     * Returns the number of node expansions allowed in the given run.
+     * @param run - The number of restarts so far, starting at 0.
+     * @return The node limit of the run.
+     */
+    public long limit(int run) {
+        switch (this.strategy) {
+        case LUBY:
+            return this.base * RestartPolicy.luby(run + 1);
+        case GEOMETRIC:
+            double limit = this.base * Math.pow(this.factor, run);
+            return limit >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) limit;
+        default:
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Returns the i-th element (1-based) of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ...
+     * @param i - The position in the sequence, starting at 1.
+     * @return The i-th element of the sequence.
+     */
+    public static long luby(int i) {
+        // Find the subsequence 1 .. 2^(k-1) that contains position i
+        int k = 1;
+        while ((1L << k) - 1 < i) {
+            k++;
+        }
+        // i ends a subsequence of length 2^k - 1
+        if ((1L << k) - 1 == i) {
+            return 1L << (k - 1);
+        }
+        // Otherwise it repeats an earlier part of the sequence
+        return RestartPolicy.luby(i - (int) ((1L << (k - 1)) - 1));
+    }
+}
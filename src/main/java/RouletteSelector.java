@@ -1,14 +1,24 @@
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * Selects a solution candidate from the generation using the roulette wheel selection method.
+ * A candidate's share of the wheel is how far its Eval value is below the worst one in the
+ * generation, plus one, so better candidates are more likely parents.
+ * The wheel is stored as an alias table (Vose's method), so it is built in linear time once
+ * per generation and every draw takes constant time without allocating.
  */
-public class RouletteSelector {
+public class RouletteSelector implements Selector {
+    // Number of draws hitting the ignored fact before falling back to a linear scan
+    private static final int MAX_REJECTIONS = 32;
+
     private List<List<List<String>>> generation;
-    private float[] cumulativeProbabilities;
+    private double[] weights;
+    private double totalWeight;
+    // Alias table: column i is kept with probability probability[i], otherwise alias[i] is chosen
+    private double[] probability;
+    private int[] alias;
     private Random rand;
     private int lastChoice = -1;
 
@@ -18,27 +28,73 @@ public class RouletteSelector {
      * @param rand - the random number generator
      */
     public RouletteSelector(List<List<List<String>>> generation, Random rand) {
+        this(generation, generation.stream().mapToInt(Scheduler.getEval()::eval).toArray(), rand);
+    }
+
+    /**
+     * Constructor for the roulette selector using already computed eval values.
+     * @param generation - the generation
+     * @param fitness - the eval value of each solution candidate, in generation order
+     * @param rand - the random number generator
+     */
+    public RouletteSelector(List<List<List<String>>> generation, int[] fitness, Random rand) {
         this.rand = rand;
         this.generation = generation;
         if (this.generation.size() == 0) {
             throw new IllegalArgumentException("Generation "
                 + "must contain at least one solution candidate.");
         }
-        // Calculate the total evaluation value
-        double totalEval = this.generation.stream()
-                            .mapToDouble(Scheduler.getEval()::eval)
-                            .sum();
-        // Avoid division by zero
-        if (totalEval == 0) {
-            totalEval = 1;
+        int n = this.generation.size();
+        int maxPenalty = Arrays.stream(fitness, 0, n).max().getAsInt();
+        this.weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            // A lower Eval value is better, so the worst candidate keeps a weight of 1
+            this.weights[i] = (double) maxPenalty - fitness[i] + 1;
+            this.totalWeight += this.weights[i];
         }
-        this.cumulativeProbabilities = new float[this.generation.size()];
-        float cumulative = 0;
-        SoftConstraint eval = Scheduler.getEval();
-        // Calculate the cumulative probabilities
-        for (int i = 0; i < this.generation.size(); i++) {
-            float evalValue = eval.eval(this.generation.get(i));
-            this.cumulativeProbabilities[i] = (float) ((cumulative += evalValue) / totalEval);
+        this.buildAliasTable();
+    }
+
+    /**
+     * Builds the alias table from the weights.
+     */
+    private void buildAliasTable() {
+        int n = this.weights.length;
+        this.probability = new double[n];
+        this.alias = new int[n];
+        double[] scaled = new double[n];
+        // Work lists of columns below and above the average weight
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = this.weights[i] * n / this.totalWeight;
+            if (scaled[i] < 1) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+        // Fill each small column up with a part of a large one
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            this.probability[less] = scaled[less];
+            this.alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // The remaining columns are full, up to rounding errors
+        while (largeSize > 0) {
+            this.probability[large[--largeSize]] = 1;
+        }
+        while (smallSize > 0) {
+            this.probability[small[--smallSize]] = 1;
         }
     }
 
@@ -66,25 +122,50 @@ public class RouletteSelector {
      * @return index of the selected solution candidate
      */
     public int select(int ignoreFactIndex) {
-        // Generate a random float between 0 and 1
-        float randFloat = rand.nextFloat();
-        // Collect all the indices that match the condition
-        // (i.e. the cumulative probability is greater than the random float)
-        // and are not the index of the fact to ignore
-        // into a list
-        List<Integer> validIndices = IntStream.range(0, this.cumulativeProbabilities.length)
-            .filter(i -> i != ignoreFactIndex)
-            .filter(i -> this.cumulativeProbabilities[i] >= randFloat)
-            .boxed()
-            .collect(Collectors.toList());
-        // If there are no valid indices, set the last choice to -1
-        if (validIndices.isEmpty()) {
+        int n = this.weights.length;
+        if (ignoreFactIndex < 0 || ignoreFactIndex >= n) {
+            this.lastChoice = this.draw();
+            return this.lastChoice;
+        }
+        double remaining = this.totalWeight - this.weights[ignoreFactIndex];
+        if (n == 1) {
             // This will cause the crossover method to return
             this.lastChoice = -1;
-            return this.lastChoice;
+        } else if (remaining <= 0) {
+            // Only the ignored fact has any weight: choose uniformly among the others
+            int choice = this.rand.nextInt(n - 1);
+            this.lastChoice = choice >= ignoreFactIndex ? choice + 1 : choice;
+        } else {
+            // Redraw when the ignored fact is hit, and scan the wheel if it keeps being hit
+            this.lastChoice = -1;
+            for (int attempt = 0; attempt < RouletteSelector.MAX_REJECTIONS; attempt++) {
+                int choice = this.draw();
+                if (choice != ignoreFactIndex) {
+                    this.lastChoice = choice;
+                    return this.lastChoice;
+                }
+            }
+            double target = this.rand.nextDouble() * remaining;
+            for (int i = 0; i < n; i++) {
+                if (i == ignoreFactIndex || this.weights[i] == 0) {
+                    continue;
+                }
+                this.lastChoice = i;
+                target -= this.weights[i];
+                if (target < 0) {
+                    break;
+                }
+            }
         }
-        // Randomly select one of the valid indices
-        this.lastChoice = validIndices.get(rand.nextInt(validIndices.size()));
         return this.lastChoice;
     }
+
+    /**
+     * Draws an index from the alias table.
+     * @return the drawn index
+     */
+    private int draw() {
+        int column = this.rand.nextInt(this.probability.length);
+        return this.rand.nextDouble() < this.probability[column] ? column : this.alias[column];
+    }
 }
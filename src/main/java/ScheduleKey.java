@@ -0,0 +1,73 @@
+import java.util.List;
+
+/**
+ * A schedule together with its Zobrist hash, for use in hash-based collections.
+ * Hashing takes constant time and two keys are only compared in full when their hashes are equal.
+ */
+public final class ScheduleKey {
+    private final List<List<String>> schedule;
+    private final long hash;
+
+    /**
+     * Constructor for a key with an already computed hash.
+     * @param schedule - The schedule.
+     * @param hash - The Zobrist hash of the schedule.
+     */
+    public ScheduleKey(List<List<String>> schedule, long hash) {
+        this.schedule = schedule;
+        this.hash = hash;
+    }
+
+    /**
+     * Creates the key of a schedule, computing its hash.
+     * @param schedule - The schedule.
+     * @return The key.
+     */
+    public static ScheduleKey of(List<List<String>> schedule) {
+        return new ScheduleKey(schedule, Scheduler.getZobrist().hash(schedule));
+    }
+
+    /**
+     * Creates the key of a schedule in the canonical order of its interchangeable sections,
+     * so that permutations of the same schedule get equal keys.
+     * @param schedule - The schedule.
+     * @return The key of the canonical schedule.
+     */
+    public static ScheduleKey canonical(List<List<String>> schedule) {
+        return ScheduleKey.of(Scheduler.getConstr().canonical(schedule));
+    }
+
+    /**
+     * Returns the schedule.
+     * @return schedule
+     */
+    public List<List<String>> getSchedule() {
+        return this.schedule;
+    }
+
+    /**
+     * Returns the Zobrist hash of the schedule.
+     * @return hash
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ScheduleKey)) {
+            return false;
+        }
+        ScheduleKey key = (ScheduleKey) other;
+        // Only compare the schedules on a hash collision
+        return this.hash == key.hash && this.schedule.equals(key.schedule);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.hash);
+    }
+}
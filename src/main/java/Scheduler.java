@@ -1,4 +1,5 @@
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -6,7 +7,6 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -15,22 +15,50 @@ import java.util.TreeMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * Scheduler
  */
 public class Scheduler {
     public static final List<String> UNASSIGNED_SLOT = Arrays.asList("$");
-    public static final long START_TIME = System.currentTimeMillis();
     private static final long MAX_DURATION = 60000 * 6 * 24; // 24 hours
 
-    private static int initialPop = 10;
-    private static int maxPop = 10;
-    private static int numRemove = 1;
-    private static int maxGenerations = 10;
-    private static int stableThreshold = 1;
-    private static int maxStableGenerations = 500;
+    // Options of the config file, set to their defaults by resetOptions()
+    private static int initialPop;
+    private static int maxPop;
+    private static int numRemove;
+    private static int maxGenerations;
+    private static int stableThreshold;
+    private static int maxStableGenerations;
+    private static Generation.SelectionMethod selectionMethod;
+    private static int tournamentSize;
+    private static int eliteCount;
+    private static boolean diversity;
+    private static int evalCacheSize;
+    private static boolean adaptiveCheckOrder;
+    private static boolean offHeapPopulation;
+    private static OrTree.SearchMode searchMode;
+    private static GreedyConstructor.SeedMode seedMode;
+    private static int softEstimateWeight;
+    private static int beamWidth;
+    private static RestartPolicy.Strategy restartStrategy;
+    private static int restartBase;
+    private static double restartFactor;
+    private static OrTree.FrontierEviction frontierEviction;
+    private static boolean nogoodLearning;
+    private static boolean lazySuccessors;
+    private static boolean decomposition;
+    private static boolean symmetryBreaking;
+    private static boolean propagation;
+    private static boolean blockMode;
+    private static OrTree.ValueOrdering valueOrdering;
+    private static double greediness;
+    private static int lnsIterations;
+    private static int lnsDestroySize;
+    private static String warmStart;
+    private static String previousInput;
+    private static String previousOutput;
+    private static String referenceSchedule;
 
     // Global data structures to be filled by the parser:
     private static ArrayList<List<String>> courses;
@@ -52,10 +80,116 @@ public class Scheduler {
     private static Parser parser;
     private static Generation solutionGenerator;
     private static HardConstraint constr;
+    private static NogoodStore nogoods;
+    private static Zobrist zobrist;
+    private static EvalCache evalCache;
     private static SoftConstraint eval;
+    private static Presolve presolve;
+    private static Propagator propagator;
+    private static Blocks blocks;
+    private static WarmStart previousSchedule;
+    private static IncrementalResolve incrementalResolve;
+    private static WarmStart reference;
 
-    private static boolean printData = true;
-    private static boolean printPR = true;
+    private static boolean printData;
+    private static boolean printPR;
+
+    // Time the current run started
+    private static long startTime = System.currentTimeMillis();
+    // Time at which the current run stops searching and returns the best schedule found so far
+    private static volatile long deadline = Long.MAX_VALUE;
+    // Set from another thread to stop the current run early, e.g. when a job of the service is cancelled
+    private static volatile boolean stopRequested;
+    // Whether the final assignment of the current run is written to "<name>output.txt"
+    private static boolean writeOutput = true;
+
+    static {
+        Scheduler.resetOptions();
+    }
+
+    /**
+     * Restores the default options and clears the data of a previous run,
+     * so that a run only uses the options of its own config file.
+     */
+    private static void resetOptions() {
+        Scheduler.initialPop = 10;
+        Scheduler.maxPop = 10;
+        Scheduler.numRemove = 1;
+        Scheduler.maxGenerations = 10;
+        Scheduler.stableThreshold = 1;
+        Scheduler.maxStableGenerations = 500;
+        Scheduler.selectionMethod = Generation.SelectionMethod.ROULETTE;
+        Scheduler.tournamentSize = 3;
+        Scheduler.eliteCount = 0;
+        Scheduler.diversity = false;
+        Scheduler.evalCacheSize = 65536;
+        Scheduler.adaptiveCheckOrder = true;
+        Scheduler.offHeapPopulation = false;
+        Scheduler.searchMode = OrTree.SearchMode.RANDOM;
+        Scheduler.seedMode = GreedyConstructor.SeedMode.OR_TREE;
+        Scheduler.softEstimateWeight = 0;
+        Scheduler.beamWidth = 10;
+        Scheduler.restartStrategy = RestartPolicy.Strategy.NONE;
+        Scheduler.restartBase = 1000;
+        Scheduler.restartFactor = 1.5;
+        Scheduler.frontierEviction = OrTree.FrontierEviction.WORST;
+        Scheduler.nogoodLearning = false;
+        Scheduler.lazySuccessors = true;
+        Scheduler.decomposition = false;
+        Scheduler.symmetryBreaking = false;
+        Scheduler.propagation = false;
+        Scheduler.blockMode = false;
+        Scheduler.valueOrdering = OrTree.ValueOrdering.RANDOM;
+        Scheduler.greediness = 3.0;
+        Scheduler.lnsIterations = 0;
+        Scheduler.lnsDestroySize = 5;
+        Scheduler.warmStart = "";
+        Scheduler.previousInput = "";
+        Scheduler.previousOutput = "";
+        Scheduler.referenceSchedule = "";
+        Scheduler.printData = true;
+        Scheduler.printPR = true;
+        // Clear the data of the previous run
+        Scheduler.initialPR = null;
+        Scheduler.orTrees = null;
+        Scheduler.parser = null;
+        Scheduler.solutionGenerator = null;
+        Scheduler.constr = null;
+        Scheduler.nogoods = null;
+        Scheduler.zobrist = null;
+        Scheduler.evalCache = null;
+        Scheduler.eval = null;
+        Scheduler.presolve = null;
+        Scheduler.propagator = null;
+        Scheduler.blocks = null;
+        Scheduler.previousSchedule = null;
+        Scheduler.incrementalResolve = null;
+        Scheduler.reference = null;
+    }
+
+    /**
+     * Prints the runtime counters of the eval cache and the hard constraint checks, and the moves
+     * of the solution from the reference schedule, if printPr or printData is enabled.
+     * @param solution - The final solution.
+     */
+    private static void printStatistics(List<List<String>> solution) {
+        if (!Scheduler.printData && !Scheduler.printPR) {
+            return;
+        }
+        if (Scheduler.evalCache != null) {
+            System.out.println("Eval cache: " + Scheduler.evalCache.getHitRate() + "\n");
+        }
+        if (Scheduler.constr != null) {
+            System.out.println("Constraint checks:\n" + Scheduler.constr.getCheckStatistics());
+        }
+        if (Scheduler.propagator != null) {
+            System.out.println("Propagation: " + Scheduler.propagator.getStatistics() + "\n");
+        }
+        Perturbation perturbation = Scheduler.eval.getPerturbation();
+        if (perturbation != null) {
+            System.out.println("Minimal perturbation: " + perturbation.getSummary(solution) + "\n");
+        }
+    }
 
     /**
      * Tracks the time elapsed since the start of the program.
@@ -63,14 +197,15 @@ public class Scheduler {
      * This is to prevent the program from running indefinitely.
      */
     private static void trackTime() {
-        if (System.currentTimeMillis() - Scheduler.START_TIME > Scheduler.MAX_DURATION) {
+        if (System.currentTimeMillis() - Scheduler.startTime > Scheduler.MAX_DURATION) {
             System.out.println("Time limit exceeded. Exiting...");
             // Print the final solution
             List<List<String>> solution = Scheduler.returnOptimalSolution();
             if (solution == null) {
                 System.out.println("No solution found.");
             } else {
-                System.out.println("Run Time: " + (System.currentTimeMillis() - Scheduler.START_TIME) + "ms\n");
+                System.out.println("Run Time: " + (System.currentTimeMillis() - Scheduler.startTime) + "ms\n");
+                Scheduler.printStatistics(solution);
                 System.out.println("Final Solution:\n" + solution + "\n");
                 Scheduler.printFinalAssignment(solution);
             }
@@ -78,6 +213,55 @@ public class Scheduler {
         }
     }
 
+    /**
+     * Parses an input file into the global data structures and applies the special rules of the presolve.
+     * @param fileName - The input file.
+     * @throws IllegalStateException if the input cannot have a solution, with the reason as its message.
+     * @throws Exception if the input file cannot be parsed.
+     */
+    static void loadInput(String fileName) throws Exception {
+        // Initialize the parser
+        Scheduler.parser = new Parser(fileName);
+        Scheduler.parser.parse();
+
+        // Initialize global data structures
+        Scheduler.courseSlots = Scheduler.parser.getCourseSlots();
+        Scheduler.labSlots = Scheduler.parser.getLabSlots();
+        Scheduler.courses = Scheduler.parser.getCourses();
+        Scheduler.labs = Scheduler.parser.getLabs();
+        Scheduler.notCompatible = Scheduler.parser.getNotCompatible();
+        Scheduler.unwanted = Scheduler.parser.getUnwanted();
+        Scheduler.preferences = Scheduler.parser.getPreferences();
+        Scheduler.pairs = Scheduler.parser.getPairs();
+        Scheduler.partialAssignments = Scheduler.parser.getPartAssign();
+
+        // Apply the special rules
+        Scheduler.presolve = new Presolve();
+        Scheduler.presolve.run();
+
+        Scheduler.slots = new ArrayList<>(courseSlots);
+        Scheduler.slots.addAll(labSlots);
+        Scheduler.classes = new ArrayList<>(courses);
+        Scheduler.classes.addAll(labs);
+    }
+
+    /**
+     * Returns whether the current run should stop searching, because its time limit is reached
+     * or a stop was requested. The searches then end early and the best solution so far is kept.
+     * @return true if the run should stop.
+     */
+    public static boolean isStopped() {
+        return Scheduler.stopRequested || System.currentTimeMillis() > Scheduler.deadline;
+    }
+
+    /**
+     * Requests the current run to stop early, or clears the request before a new run.
+     * @param stopRequested - true to stop the current run.
+     */
+    public static void setStopRequested(boolean stopRequested) {
+        Scheduler.stopRequested = stopRequested;
+    }
+
     private static void writeOutputToFile(String output) {
         try (PrintWriter out = new PrintWriter(parser.getName() + "output.txt")) {
             out.println(output);
@@ -94,8 +278,9 @@ public class Scheduler {
      * CPSC 313 TUT 01: TU, 18:00
      * CPSC 413 LEC 01: MO, 8:00
      * @param solution - The solution to be printed.
+     * @return The printed assignment, or null if it could not be printed.
      */
-    private static void printFinalAssignment(List<List<String>> solution) {
+    private static String printFinalAssignment(List<List<String>> solution) {
         if (Scheduler.printData) {
             System.out.println("Printing final Assignment...");
         }
@@ -132,11 +317,15 @@ public class Scheduler {
             slotAssignments.forEach((key, time) -> {
                 output.append(String.format("%-35s: %s\n", key, time));
             });
-            Scheduler.writeOutputToFile(output.toString());
+            if (Scheduler.writeOutput) {
+                Scheduler.writeOutputToFile(output.toString());
+            }
             System.out.println(output.toString());
+            return output.toString();
         } catch (Exception e) {
             System.out.println("Error: Unable to print final assignment.");
             System.out.println(e.getMessage());
+            return null;
         }
     }
 
@@ -150,16 +339,59 @@ public class Scheduler {
             System.out.println("Building solutions for set based search...");
         }
         try {
-            // Initialize the PR instance with empty slots
-            Scheduler.initialPR = new ArrayList<>(Collections.nCopies(Scheduler.classes.size(),
-                Scheduler.UNASSIGNED_SLOT));
-            // Build PR instance with partial assignments if available
-            if (!Scheduler.partialAssignments.isEmpty()) {
-                Scheduler.buildPRwPartialAssignments();
+            // Initialize the PR instance with the partial assignments, if they can form a solution
+            if (!Scheduler.buildInitialPR()) {
+                return;
             }
             Random rand = new Random();
-            Set<List<List<String>>> uniqueSolutions = new HashSet<>();
-            for (int i = 0; i < Scheduler.initialPop; i++) {
+            Set<ScheduleKey> uniqueSolutions = new HashSet<>();
+            int seeded = 0;
+            // Split the classes into independently solvable groups if there is more than one
+            Decomposition decomposed = null;
+            if (Scheduler.decomposition) {
+                decomposed = new Decomposition(Scheduler.initialPR);
+                if (Scheduler.printData || Scheduler.printPR) {
+                    System.out.println("Decomposition: " + decomposed.getSummary());
+                }
+                if (decomposed.getNumTasks() < 2) {
+                    decomposed = null;
+                }
+            }
+            // A previous schedule and perturbed variants of it replace building candidates from scratch
+            if (Scheduler.previousSchedule != null) {
+                for (List<List<String>> seed : Scheduler.previousSchedule.seeds(Scheduler.initialPR,
+                        Scheduler.initialPop, rand)) {
+                    if (seeded < Scheduler.initialPop
+                        && uniqueSolutions.add(ScheduleKey.canonical(seed))) {
+                        seeded++;
+                    }
+                }
+                if (Scheduler.printData || Scheduler.printPR) {
+                    System.out.println("Warm start from " + Scheduler.previousSchedule.getFileName() + ": "
+                        + Scheduler.previousSchedule.getSummary());
+                }
+            }
+            // The greedy constructor builds most candidates without any search
+            GreedyConstructor greedy = Scheduler.seedMode == GreedyConstructor.SeedMode.GREEDY
+                ? new GreedyConstructor(Scheduler.initialPR)
+                : null;
+            // A single beam search yields a whole set of good initial candidates
+            if (Scheduler.searchMode == OrTree.SearchMode.BEAM && seeded < Scheduler.initialPop) {
+                ArrayList<Integer> mostTightlyBound = Scheduler.cloneMostTightlyBoundIndices();
+                if (mostTightlyBound != null) {
+                    OrTree orTree = new OrTree(Scheduler.initialPR);
+                    int width = Math.max(Scheduler.beamWidth, Scheduler.initialPop);
+                    for (List<List<String>> solution : orTree.searchBeam(mostTightlyBound, width, rand)) {
+                        if (seeded < Scheduler.initialPop && uniqueSolutions.add(ScheduleKey.canonical(solution))) {
+                            seeded++;
+                        }
+                    }
+                    if (Scheduler.printData || Scheduler.printPR) {
+                        System.out.println("Beam search found " + seeded + " candidates");
+                    }
+                }
+            }
+            for (int i = seeded; i < Scheduler.initialPop && !Scheduler.isStopped(); i++) {
                 if (Scheduler.printData || Scheduler.printPR) {
                     System.out.println("Candidate #" + (i + 1));
                 }
@@ -172,8 +404,20 @@ public class Scheduler {
                     return;
                 }
                 // Search for a solution for the current schedule.
-                List<List<String>> potentialSolution =
-                    orTree.searchSolution(mostTightlyBound, 0, new ArrayList<>(), rand);
+                // The first greedy candidate is noise-free, the others are randomized
+                List<List<String>> potentialSolution = greedy != null
+                    ? greedy.construct(i == seeded ? null : rand)
+                    : null;
+                // Solve the independent groups of classes separately
+                if (potentialSolution == null && decomposed != null) {
+                    potentialSolution = decomposed.solve(Scheduler.initialPR, rand);
+                }
+                if (potentialSolution == null) {
+                    // The beam has already been searched, so top up with the random or-tree search
+                    potentialSolution = Scheduler.searchMode == OrTree.SearchMode.BEAM
+                        ? orTree.searchSolution(mostTightlyBound, 0, new ArrayList<>(), rand)
+                        : orTree.search(mostTightlyBound, rand);
+                }
                 if (potentialSolution == null) {
                     if (Scheduler.printData || Scheduler.printPR) {
                         System.out.println("No solution found at loop " + (i + 1));
@@ -185,7 +429,7 @@ public class Scheduler {
                     }
                 }
                 // Check if the candidate is unique before adding
-                if (uniqueSolutions.add(potentialSolution)) {
+                if (uniqueSolutions.add(ScheduleKey.canonical(potentialSolution))) {
                     if (Scheduler.printData) {
                         System.out.println("Potential solution " + (i + 1) + "\tEval score: "
                             + Scheduler.eval.eval(potentialSolution));
@@ -199,6 +443,12 @@ public class Scheduler {
                 // trackTime(); no longer required
             }
             if (Scheduler.printData) {
+                if (greedy != null) {
+                    System.out.println("Greedy constructor: " + greedy.getSummary());
+                }
+                if (Scheduler.nogoods != null) {
+                    System.out.println("Nogoods learned: " + Scheduler.nogoods.size());
+                }
                 System.out.println();
             }
             // Check if there are any unique solutions
@@ -209,8 +459,7 @@ public class Scheduler {
             // Add the unique solutions to the solution generator
             // This is to avoid adding duplicates to the solution generator
             // Solution generator is used for the set-based search.
-            List<List<List<String>>> deduplicatedSolutionGenerator = new ArrayList<>(uniqueSolutions);
-            deduplicatedSolutionGenerator.forEach(Scheduler.solutionGenerator::add);
+            Scheduler.solutionGenerator.addAll(new ArrayList<>(uniqueSolutions));
         } catch (StackOverflowError e) {
             System.out.println("Error: Stack overflow.");
             System.out.println("Unable to proceed with scheduling as no valid solution can be formed.");
@@ -220,6 +469,36 @@ public class Scheduler {
         }
     }
 
+    /**
+     * Builds the single solution of an edited input from the previous schedule.
+     * Only the classes the edit affects and their neighbours are assigned again,
+     * so the set-based search is skipped and the large neighbourhood search re-optimizes the result.
+     */
+    private static void resolveIncrementally() {
+        if (Scheduler.printData) {
+            System.out.println("Re-solving from the previous schedule...");
+        }
+        try {
+            // Initialize the PR instance with the partial assignments, if they can form a solution
+            if (!Scheduler.buildInitialPR()) {
+                return;
+            }
+            List<List<String>> solution = Scheduler.incrementalResolve.resolve(Scheduler.initialPR, new Random());
+            if (Scheduler.printData || Scheduler.printPR) {
+                System.out.println("Incremental re-solve: " + Scheduler.incrementalResolve.getSummary());
+            }
+            if (solution != null) {
+                Scheduler.solutionGenerator.add(solution);
+            }
+        } catch (StackOverflowError e) {
+            System.out.println("Error: Stack overflow.");
+            System.out.println("Unable to proceed with scheduling as no valid solution can be formed.");
+            System.out.println("Please add more memory to the JVM using the -Xss flag.");
+        } catch (Exception e) {
+            System.out.println("Error: Unable to re-solve from the previous schedule.");
+        }
+    }
+
     /**
      * Clones the array of most tightly bound indices into an ArrayList.
      * "Most tightly bound" refers to the courses with the highest number of constraints.
@@ -272,174 +551,43 @@ public class Scheduler {
     }
 
     /**
-     * Checks for the presence of 18:00 slot for TU.
-     * Exits if not present.
+     * Reads the reference schedule of the minimal-perturbation soft constraint. A file that was
+     * already read as the previous schedule of the re-solve or as the warm start is reused.
+     * @param fileName - The schedule file, or an empty string if there is none.
+     * @return The reference schedule, or null if there is none.
+     * @throws IOException if the file cannot be read.
      */
-    private static void checkForTU18() {
-        if (Scheduler.printData) {
-            System.out.println("Checking for TU 18:00 slot...");
-        }
-        try {
-            // Check if there is a TU 18:00 slot
-            boolean exist = Scheduler.labSlots.stream()
-                    .anyMatch(slots -> slots.get(0).equals("TU")
-                    && slots.get(1).equals("18:00"));
-            // Exit if there is no TU 18:00 slot
-            if (!exist) {
-                System.out.println("CPSC 313/413 is included, but there are no lab slots allocated at TU 18:00.");
-                System.out.println("No solution found.");
-                System.exit(0);
-            }
-        } catch (Exception e) {
-            System.out.println("Error: Unable to check for TU 18:00 slot.");
+    private static WarmStart readReference(String fileName) throws IOException {
+        if (fileName.isEmpty()) {
+            return null;
         }
-    }
-
-    /**
-     * Checks if special courses CPSC313 and 413 present in list.
-     * Add slots to unwanted data structure to block out time.
-     */
-    private static void checkFor313And413() {
-        if (Scheduler.printData) {
-            System.out.println("Checking for CPSC313 and 413...");
+        if (Scheduler.incrementalResolve != null && fileName.equals(Scheduler.previousOutput)) {
+            return Scheduler.incrementalResolve.getPreviousSchedule();
         }
-        try {
-            // Check for TU18 only once
-            boolean tu18Checked = false;
-            // Create a mapping for courses to their lab numbers
-            Map<String, String> courseToLab = Map.of(
-                    "313", "813",
-                    "413", "913");
-            // Iterate through the courses only once
-            String[] specialCourses = new String[] { "313", "413" };
-            for (String course : specialCourses) {
-                // Get the lab course number
-                final String labCourse = courseToLab.get(course);
-                // Filter the CPSC courses directly into the section list
-                List<List<String>> sections = Scheduler.courses.stream()
-                        .filter(subCourse -> subCourse.get(0).equals("CPSC") && subCourse.get(1).equals(course))
-                        .collect(Collectors.toList());
-                List<List<String>> labSections = Scheduler.labs.stream()
-                        .filter(subLab -> subLab.get(0).equals("CPSC") && subLab.get(1).equals(course))
-                        .collect(Collectors.toList());
-                // Only continue if sections are not empty
-                // This means that the course CPSC313 / CPSC413 is present in the input file
-                if (!sections.isEmpty() || !labSections.isEmpty()) {
-                    // Check for TU18 only once
-                    if (!tu18Checked) {
-                        // Check for TU 18:00 slot
-                        Scheduler.checkForTU18();
-                        tu18Checked = true;
-                    }
-                    List<ArrayList<List<String>>> assignments = Scheduler.partialAssignments.stream()
-                        .filter(assign -> (
-                            assign.get(0).get(0).equals("CPSC")
-                                && assign.get(0).get(1).equals(labCourse)))
-                        .collect(Collectors.toList());
-                    // Check if any partial assignments to other slot than TU 18:00, exit if exists
-                    boolean assignedToOtherSlotsThanTU18 = assignments.stream()
-                        .anyMatch(assign -> !(assign.get(1).get(0).equals("TU")
-                        && assign.get(2).get(0).equals("18:00")));
-                    if (assignedToOtherSlotsThanTU18) {
-                        System.out.println("CPSC " + course + " is included "
-                            + "but CPSC " + labCourse + " is partially assigned to a slot that is not TU 18:00.");
-                        System.out.println("No solution found.");
-                        System.exit(0);
-                    }
-                    // Check for 813 and 913 in unwanted slots in TU 18:00 slot
-                    // e.g. [[CPSC, 813, TUT, 01], [TU], [18:00]]
-                    // e.g. [[CPSC, 913, TUT, 01], [TU], [18:00]]
-                    List<ArrayList<List<String>>> unwantedSlots = Scheduler.unwanted.stream()
-                        .filter(unwanted -> (
-                            unwanted.get(0).get(0).equals("CPSC")
-                                && unwanted.get(0).get(1).equals(labCourse)))
-                        .collect(Collectors.toList());
-                    // Check if unwanted slots to TU 18:00 slot, exit otherwise
-                    boolean unwantedTU18 = unwantedSlots.stream()
-                            .anyMatch(unwanted -> (unwanted.get(1).get(0).equals("TU")
-                            && unwanted.get(2).get(0).equals("18:00")));
-                    if (unwantedTU18) {
-                        System.out.println("CPSC " + course + " is included "
-                            + "but CPSC " + labCourse + " has unwanted slot at TU 18:00.");
-                        System.out.println("No solution found.");
-                        System.exit(0);
-                    }
-                    // Prepare partial assignment and labs
-                    // e.g. [CPSC, 813, TUT, 01]
-                    List<String> newLab = Arrays.asList("CPSC", labCourse, "TUT", "01");
-                    Scheduler.labs.add(newLab);
-                    // Add partial assignment for CPSC313 / CPSC413
-                    // e.g. [[CPSC, 813, TUT, 01], [TU], [18:00]]
-                    Scheduler.partialAssignments.add(
-                        new ArrayList<>(Arrays.asList(newLab, List.of("TU"), List.of("18:00"))));
-                    // Add unwanted slots for each section
-                    // e.g. [[CPSC, 313, LEC, 01], [TU], [17:00]]
-                    sections.forEach(s -> {
-                        addUnwanted(s, "TU", "17:00");
-                        addUnwanted(s, "TU", "18:30");
-                    });
-                    // Add unwanted slots for each lab section
-                    // e.g. [[CPSC, 313, LEC, 01, TUT, 01], [TU], [17:00]]
-                    labSections.forEach(s -> {
-                        addUnwanted(s, "TU", "18:00");
-                    });
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("Error: Unable to check for CPSC313 and 413.");
+        if (Scheduler.previousSchedule != null && fileName.equals(Scheduler.warmStart)) {
+            return Scheduler.previousSchedule;
         }
+        return new WarmStart(fileName);
     }
 
     /**
-     * Adds unwanted slots to the unwanted data structure.
-     * @param section - The section to be added.
-     * @param day - The day to be added.
-     * @param time - The time to be added.
+     * Builds the starting point of the search: every class unassigned but the partially assigned ones.
+     * Both the search from scratch and the re-solve start from it, and neither continues if it fails.
+     * @return true if the partial assignments were applied,
+     *         false if no valid solution can be formed.
      */
-    private static void addUnwanted(List<String> section, String day, String time) {
-        if (Scheduler.printData) {
-            System.out.println("Adding unwanted slot...");
-        }
-        try {
-            // Add unwanted slots for each section
-            // e.g. [[CPSC, 313, LEC, 01], [TU], [17:00]]
-            Scheduler.unwanted.add(new ArrayList<>(Arrays.asList(section, List.of(day), List.of(time))));
-        } catch (Exception e) {
-            System.out.println("Error: Unable to add unwanted slot.");
-        }
-    }
-
-    /**
-     * Checks for presence of 11:00 TU slot for courses.
-     * Remove if present as no lectures should be scheduled.
-     */
-    public static void checkForTU11() {
-        if (Scheduler.printData) {
-            System.out.println("Checking for TU 11:00 slot...");
-        }
-        try {
-            // Remove TU 11:00 slot
-            // No lectures should be scheduled
-            // e.g. [TU, 11:00, 2, 1]
-            // Remove the first occurrence of the slot, there should only be one.
-            Iterator<List<String>> iterator = Scheduler.courseSlots.iterator();
-            while (iterator.hasNext()) {
-                List<String> slot = iterator.next();
-                if (slot.get(0).equals("TU") && slot.get(1).equals("11:00")) {
-                    iterator.remove();
-                    break;
-                }
-            }
-        } catch (Exception e) {
-            System.out.println("Error: Unable to remove TU 11:00 slot.");
-            System.out.println(e.getMessage());
-        }
+    private static boolean buildInitialPR() {
+        Scheduler.initialPR = new ArrayList<>(Collections.nCopies(Scheduler.classes.size(),
+            Scheduler.UNASSIGNED_SLOT));
+        return Scheduler.partialAssignments.isEmpty() || Scheduler.buildPRwPartialAssignments();
     }
 
     /**
      * Builds the PR instance based on the partial assignments.
+     * @return true if every partial assignment names a known class and slot,
+     *         false if no valid solution can be formed.
      */
-    private static void buildPRwPartialAssignments() {
+    private static boolean buildPRwPartialAssignments() {
         if (Scheduler.printData) {
             System.out.println("Building PR with partial assignments...");
         }
@@ -477,7 +625,7 @@ public class Scheduler {
                     List<String> previouslyAssignedSlot = assignedSlotsMap.get(classIdentifier);
                     if (!previouslyAssignedSlot.equals(dayTime)) {
                         System.out.println("Error: Multiple different slots partially-assigned to " + classIdentifier);
-                        System.exit(0);
+                        return false;
                     }
                 } else {
                     // Store this slot assignment for the classIdentifier
@@ -492,7 +640,7 @@ public class Scheduler {
                     if (prIndex < Scheduler.courses.size()) {
                         System.out.println("Error: The course/lab " + classIdentifier + " is not recognized.");
                         System.out.println("No valid solution can be formed.");
-                        System.exit(0);
+                        return false;
                     }
                 }
                 if (isLab) {
@@ -501,7 +649,7 @@ public class Scheduler {
                         System.out.println("Error: The specified lab time slot for "
                             + classIdentifier + " does not exist.");
                         System.out.println("Unable to proceed with scheduling as no valid solution can be formed.");
-                        System.exit(0);
+                        return false;
                     }
                 } else {
                     // Check if the course slot exists
@@ -509,7 +657,7 @@ public class Scheduler {
                         System.out.println("Error: The specified course time slot for "
                             + classIdentifier + " does not exist.");
                         System.out.println("Unable to proceed with scheduling as no valid solution can be formed.");
-                        System.exit(0);
+                        return false;
                     }
                 }
                 // Get the slot index
@@ -519,10 +667,11 @@ public class Scheduler {
                 // Reset isLab
                 isLab = false;
             }
+            return true;
         } catch (Exception e) {
             System.out.println("Error: The specified time slot for " + " does not exist.");
             System.out.println("Unable to proceed with scheduling as no valid solution can be formed.");
-            System.exit(0);
+            return false;
         }
     }
 
@@ -534,6 +683,30 @@ public class Scheduler {
         return Scheduler.parser;
     }
 
+    /**
+     * Returns the presolve pass with the slot domains of the classes.
+     * @return The presolve instance, or null before the input is presolved.
+     */
+    public static Presolve getPresolve() {
+        return Scheduler.presolve;
+    }
+
+    /**
+     * Returns the global constraint propagator used by the or-tree search.
+     * @return The propagator, or null if propagation is disabled.
+     */
+    public static Propagator getPropagator() {
+        return Scheduler.propagator;
+    }
+
+    /**
+     * Returns the lecture/lab blocks used in block mode.
+     * @return The blocks, or null if block mode is disabled.
+     */
+    public static Blocks getBlocks() {
+        return Scheduler.blocks;
+    }
+
     /**
      * Returns the solution generator instance.
      * @return The solution generator instance.
@@ -638,6 +811,152 @@ public class Scheduler {
         return Scheduler.constr;
     }
 
+    /**
+     * Returns the Zobrist keys used to hash schedules.
+     * @return The Zobrist keys.
+     */
+    public static Zobrist getZobrist() {
+        return Scheduler.zobrist;
+    }
+
+    /**
+     * Returns the eval cache shared by all searches.
+     * @return The eval cache, or null if it is disabled.
+     */
+    public static EvalCache getEvalCache() {
+        return Scheduler.evalCache;
+    }
+
+    /**
+     * Returns the store of nogoods learned by the or-tree search.
+     * @return The nogood store, or null if nogood learning is disabled.
+     */
+    public static NogoodStore getNogoods() {
+        return Scheduler.nogoods;
+    }
+
+    /**
+     * Sets whether the or-tree search learns nogoods and backjumps on dead ends.
+     * @param nogoodLearning - Whether to learn nogoods.
+     */
+    public static void setNogoodLearning(boolean nogoodLearning) {
+        Scheduler.nogoodLearning = nogoodLearning;
+    }
+
+    /**
+     * Returns whether the random or-tree search generates the children of a node one at a time.
+     * @return true if children are generated lazily.
+     */
+    public static boolean getLazySuccessors() {
+        return Scheduler.lazySuccessors;
+    }
+
+    /**
+     * Sets whether the random or-tree search generates the children of a node one at a time.
+     * @param lazySuccessors - true to generate children lazily, false to generate all children at once.
+     */
+    public static void setLazySuccessors(boolean lazySuccessors) {
+        Scheduler.lazySuccessors = lazySuccessors;
+    }
+
+    /**
+     * Returns whether independent groups of classes are solved separately and in parallel.
+     * @return true if the problem is decomposed.
+     */
+    public static boolean getDecomposition() {
+        return Scheduler.decomposition;
+    }
+
+    /**
+     * Sets whether independent groups of classes are solved separately and in parallel.
+     * @param decomposition - true to decompose the problem.
+     */
+    public static void setDecomposition(boolean decomposition) {
+        Scheduler.decomposition = decomposition;
+    }
+
+    /**
+     * Returns whether interchangeable sections are kept in section order to break symmetries.
+     * @return true if symmetry breaking is enabled.
+     */
+    public static boolean getSymmetryBreaking() {
+        return Scheduler.symmetryBreaking;
+    }
+
+    /**
+     * Sets whether interchangeable sections are kept in section order to break symmetries.
+     * @param symmetryBreaking - true to break symmetries between interchangeable sections.
+     */
+    public static void setSymmetryBreaking(boolean symmetryBreaking) {
+        Scheduler.symmetryBreaking = symmetryBreaking;
+    }
+
+    /**
+     * Returns whether the or-tree search checks the slot capacities and the 500-level rule
+     * as global constraints over the unassigned classes.
+     * @return true if global propagation is enabled.
+     */
+    public static boolean getPropagation() {
+        return Scheduler.propagation;
+    }
+
+    /**
+     * Sets whether the or-tree search checks the slot capacities and the 500-level rule
+     * as global constraints over the unassigned classes.
+     * @param propagation - true to enable global propagation.
+     */
+    public static void setPropagation(boolean propagation) {
+        Scheduler.propagation = propagation;
+    }
+
+    /**
+     * Returns whether a lecture and its own labs are assigned and moved as one block.
+     * @return true if block mode is enabled.
+     */
+    public static boolean getBlockMode() {
+        return Scheduler.blockMode;
+    }
+
+    /**
+     * Sets whether a lecture and its own labs are assigned and moved as one block.
+     * @param blockMode - true to enable block mode.
+     */
+    public static void setBlockMode(boolean blockMode) {
+        Scheduler.blockMode = blockMode;
+    }
+
+    /**
+     * Returns how the or-tree search picks the slot of an expanded class.
+     * @return The value ordering.
+     */
+    public static OrTree.ValueOrdering getValueOrdering() {
+        return Scheduler.valueOrdering;
+    }
+
+    /**
+     * Sets how the or-tree search picks the slot of an expanded class.
+     * @param valueOrdering - The value ordering.
+     */
+    public static void setValueOrdering(OrTree.ValueOrdering valueOrdering) {
+        Scheduler.valueOrdering = valueOrdering;
+    }
+
+    /**
+     * Returns how strongly the softPenalty value ordering favours cheap slots.
+     * @return The greediness, 0 for a uniform choice.
+     */
+    public static double getGreediness() {
+        return Scheduler.greediness;
+    }
+
+    /**
+     * Sets how strongly the softPenalty value ordering favours cheap slots.
+     * @param greediness - The greediness, 0 for a uniform choice.
+     */
+    public static void setGreediness(double greediness) {
+        Scheduler.greediness = greediness;
+    }
+
     /**
      * Returns the soft constraint evaluator instance.
      * @return The soft constraint evaluator instance.
@@ -791,51 +1110,439 @@ public class Scheduler {
     }
 
     /**
-     * Performs checks for the presence of special courses and slots.
+     * Returns the strategy used by the or-tree search to pick the next leaf.
+     * @return The or-tree search mode.
+     */
+    public static OrTree.SearchMode getSearchMode() {
+        return Scheduler.searchMode;
+    }
+
+    /**
+     * Sets the strategy used by the or-tree search to pick the next leaf.
+     * @param searchMode - The or-tree search mode.
+     */
+    public static void setSearchMode(OrTree.SearchMode searchMode) {
+        Scheduler.searchMode = searchMode;
+    }
+
+    /**
+     * Returns how the candidates of the initial population are built.
+     * @return The seed mode.
+     */
+    public static GreedyConstructor.SeedMode getSeedMode() {
+        return Scheduler.seedMode;
+    }
+
+    /**
+     * Sets how the candidates of the initial population are built.
+     * @param seedMode - The seed mode.
+     */
+    public static void setSeedMode(GreedyConstructor.SeedMode seedMode) {
+        Scheduler.seedMode = seedMode;
+    }
+
+    /**
+     * Returns the weight of the soft penalty estimate in the best-first priority.
+     * @return The weight of the soft penalty estimate.
+     */
+    public static int getSoftEstimateWeight() {
+        return Scheduler.softEstimateWeight;
+    }
+
+    /**
+     * Sets the weight of the soft penalty estimate in the best-first priority.
+     * @param softEstimateWeight - The weight of the soft penalty estimate.
+     */
+    public static void setSoftEstimateWeight(int softEstimateWeight) {
+        Scheduler.softEstimateWeight = softEstimateWeight;
+    }
+
+    /**
+     * Returns the number of partial schedules kept at each depth of the beam search.
+     * @return The beam width.
+     */
+    public static int getBeamWidth() {
+        return Scheduler.beamWidth;
+    }
+
+    /**
+     * Sets the number of partial schedules kept at each depth of the beam search.
+     * @param beamWidth - The beam width.
+     */
+    public static void setBeamWidth(int beamWidth) {
+        Scheduler.beamWidth = beamWidth;
+    }
+
+    /**
+     * Returns the restart strategy of the or-tree search.
+     * @return The restart strategy.
+     */
+    public static RestartPolicy.Strategy getRestartStrategy() {
+        return Scheduler.restartStrategy;
+    }
+
+    /**
+     * Sets the restart strategy of the or-tree search.
+     * @param restartStrategy - The restart strategy.
+     */
+    public static void setRestartStrategy(RestartPolicy.Strategy restartStrategy) {
+        Scheduler.restartStrategy = restartStrategy;
+    }
+
+    /**
+     * Returns the number of node expansions before the first restart.
+     * @return The number of node expansions before the first restart.
+     */
+    public static int getRestartBase() {
+        return Scheduler.restartBase;
+    }
+
+    /**
+     * Sets the number of node expansions before the first restart.
+     * @param restartBase - The number of node expansions before the first restart.
+     */
+    public static void setRestartBase(int restartBase) {
+        Scheduler.restartBase = restartBase;
+    }
+
+    /**
+     * Returns the growth factor of the geometric restart strategy.
+     * @return The growth factor of the geometric restart strategy.
+     */
+    public static double getRestartFactor() {
+        return Scheduler.restartFactor;
+    }
+
+    /**
+     * Sets the growth factor of the geometric restart strategy.
+     * @param restartFactor - The growth factor of the geometric restart strategy.
+     */
+    public static void setRestartFactor(double restartFactor) {
+        Scheduler.restartFactor = restartFactor;
+    }
+
+    /**
+     * Returns what happens to the or-tree frontier once it is full.
+     * @return The frontier eviction policy.
+     */
+    public static OrTree.FrontierEviction getFrontierEviction() {
+        return Scheduler.frontierEviction;
+    }
+
+    /**
+     * Sets what happens to the or-tree frontier once it is full.
+     * @param frontierEviction - The frontier eviction policy.
+     */
+    public static void setFrontierEviction(OrTree.FrontierEviction frontierEviction) {
+        Scheduler.frontierEviction = frontierEviction;
+    }
+
+    /**
+     * Returns the number of large neighbourhood search iterations.
+     * @return The number of large neighbourhood search iterations.
+     */
+    public static int getLnsIterations() {
+        return Scheduler.lnsIterations;
+    }
+
+    /**
+     * Sets the number of large neighbourhood search iterations.
+     * @param lnsIterations - The number of large neighbourhood search iterations.
+     */
+    public static void setLnsIterations(int lnsIterations) {
+        Scheduler.lnsIterations = lnsIterations;
+    }
+
+    /**
+     * Returns the number of classes unassigned per large neighbourhood search iteration.
+     * @return The number of classes unassigned per large neighbourhood search iteration.
+     */
+    public static int getLnsDestroySize() {
+        return Scheduler.lnsDestroySize;
+    }
+
+    /**
+     * Sets the number of classes unassigned per large neighbourhood search iteration.
+     * @param lnsDestroySize - The number of classes unassigned per large neighbourhood search iteration.
+     */
+    public static void setLnsDestroySize(int lnsDestroySize) {
+        Scheduler.lnsDestroySize = lnsDestroySize;
+    }
+
+    /**
+     * Returns the schedule file the initial population is seeded from.
+     * @return The file name, or an empty string to build the initial population from scratch.
+     */
+    public static String getWarmStart() {
+        return Scheduler.warmStart;
+    }
+
+    /**
+     * Sets the schedule file the initial population is seeded from, e.g. the output of a previous run.
+     * @param warmStart - The file name, or an empty string to build the initial population from scratch.
+     */
+    public static void setWarmStart(String warmStart) {
+        Scheduler.warmStart = warmStart;
+    }
+
+    /**
+     * Returns the input file the previous schedule was made for.
+     * @return The file name, or an empty string if the input is solved from scratch.
+     */
+    public static String getPreviousInput() {
+        return Scheduler.previousInput;
+    }
+
+    /**
+     * Sets the input file the previous schedule was made for.
+     * Together with the previous output it re-solves only the classes the edits to the input affect.
+     * @param previousInput - The file name, or an empty string to solve the input from scratch.
      */
-    private static void performChecks() {
-        // Check for special courses and slots
-        Scheduler.checkFor313And413();
-        Scheduler.checkForTU11();
+    public static void setPreviousInput(String previousInput) {
+        Scheduler.previousInput = previousInput;
     }
 
     /**
-     * Main method. Runs the scheduler.
+     * Returns the output file of the run on the previous input.
+     * @return The file name, or an empty string if the input is solved from scratch.
+     */
+    public static String getPreviousOutput() {
+        return Scheduler.previousOutput;
+    }
+
+    /**
+     * Sets the output file of the run on the previous input.
+     * @param previousOutput - The file name, or an empty string to solve the input from scratch.
+     */
+    public static void setPreviousOutput(String previousOutput) {
+        Scheduler.previousOutput = previousOutput;
+    }
+
+    /**
+     * Returns the schedule file the minimal-perturbation soft constraint measures moves against.
+     * @return The file name, or an empty string to use the previous output or the warm start file.
+     */
+    public static String getReferenceSchedule() {
+        return Scheduler.referenceSchedule;
+    }
+
+    /**
+     * Sets the schedule file the minimal-perturbation soft constraint measures moves against,
+     * e.g. the published timetable.
+     * @param referenceSchedule - The file name, or an empty string to use the previous output
+     *                          or the warm start file.
+     */
+    public static void setReferenceSchedule(String referenceSchedule) {
+        Scheduler.referenceSchedule = referenceSchedule;
+    }
+
+    /**
+     * Returns the reference schedule of the minimal-perturbation soft constraint.
+     * @return The reference schedule, or null if there is none.
+     */
+    public static WarmStart getReference() {
+        return Scheduler.reference;
+    }
+
+    /**
+     * Returns the method used to select the parents of a crossover.
+     * @return The selection method.
+     */
+    public static Generation.SelectionMethod getSelectionMethod() {
+        return Scheduler.selectionMethod;
+    }
+
+    /**
+     * Sets the method used to select the parents of a crossover.
+     * @param selectionMethod - The selection method.
+     */
+    public static void setSelectionMethod(Generation.SelectionMethod selectionMethod) {
+        Scheduler.selectionMethod = selectionMethod;
+    }
+
+    /**
+     * Returns the number of candidates drawn per tournament selection.
+     * @return The tournament size.
+     */
+    public static int getTournamentSize() {
+        return Scheduler.tournamentSize;
+    }
+
+    /**
+     * Sets the number of candidates drawn per tournament selection.
+     * @param tournamentSize - The tournament size.
+     */
+    public static void setTournamentSize(int tournamentSize) {
+        Scheduler.tournamentSize = tournamentSize;
+    }
+
+    /**
+     * Returns the number of best solutions that are never removed by the reduce operation.
+     * @return The number of elites.
+     */
+    public static int getEliteCount() {
+        return Scheduler.eliteCount;
+    }
+
+    /**
+     * Sets the number of best solutions that are never removed by the reduce operation.
+     * @param eliteCount - The number of elites.
+     */
+    public static void setEliteCount(int eliteCount) {
+        Scheduler.eliteCount = eliteCount;
+    }
+
+    /**
+     * Returns whether the reduce operation removes duplicate solutions first.
+     * @return true if duplicates are removed first.
+     */
+    public static boolean isDiversity() {
+        return Scheduler.diversity;
+    }
+
+    /**
+     * Sets whether the reduce operation removes duplicate solutions first.
+     * @param diversity - true to remove duplicates first.
+     */
+    public static void setDiversity(boolean diversity) {
+        Scheduler.diversity = diversity;
+    }
+
+    /**
+     * Returns the maximum number of Eval values kept in the eval cache.
+     * @return The eval cache size.
+     */
+    public static int getEvalCacheSize() {
+        return Scheduler.evalCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of Eval values kept in the eval cache.
+     * @param evalCacheSize - The eval cache size, 0 disables the cache.
+     */
+    public static void setEvalCacheSize(int evalCacheSize) {
+        Scheduler.evalCacheSize = evalCacheSize;
+    }
+
+    /**
+     * Returns whether the hard constraint checks are reordered by their measured cost and rejection rate.
+     * @return true if the check order adapts.
+     */
+    public static boolean getAdaptiveCheckOrder() {
+        return Scheduler.adaptiveCheckOrder;
+    }
+
+    /**
+     * Sets whether the hard constraint checks are reordered by their measured cost and rejection rate.
+     * @param adaptiveCheckOrder - true to reorder the checks, false to keep the fixed order.
+     */
+    public static void setAdaptiveCheckOrder(boolean adaptiveCheckOrder) {
+        Scheduler.adaptiveCheckOrder = adaptiveCheckOrder;
+    }
+
+    /**
+     * Returns whether the population of the set-based search is stored off the Java heap.
+     * @return true if the population is stored off-heap.
+     */
+    public static boolean isOffHeapPopulation() {
+        return Scheduler.offHeapPopulation;
+    }
+
+    /**
+     * Sets whether the population of the set-based search is stored off the Java heap.
+     * @param offHeapPopulation - true to store the population off-heap.
+     */
+    public static void setOffHeapPopulation(boolean offHeapPopulation) {
+        Scheduler.offHeapPopulation = offHeapPopulation;
+    }
+
+    /**
+     * Improves the best solution of the last generation with a large neighbourhood search.
+     * The improved solution is added to the generation so it is picked as the final solution.
+     * @param iterations - The number of iterations.
+     */
+    private static void runLargeNeighbourhoodSearch(int iterations) {
+        if (Scheduler.printData) {
+            System.out.println("Running large neighbourhood search...");
+        }
+        try {
+            List<List<String>> incumbent = Scheduler.returnOptimalSolution();
+            LargeNeighbourhoodSearch lns = new LargeNeighbourhoodSearch(Scheduler.lnsDestroySize, new Random());
+            List<List<String>> improved = lns.improve(incumbent, iterations);
+            if (improved != null && improved != incumbent) {
+                Scheduler.solutionGenerator.add(improved);
+            }
+        } catch (Exception e) {
+            System.out.println("Error: Unable to run large neighbourhood search.");
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Main method. Runs the scheduler on a config and an input file,
+     * or starts the scheduling service with "--server [port]".
      * @param args - Command line arguments.
      */
     public static void main(String[] args) {
-        String configFileName;
-        String fileName;
+        if (args.length > 0 && args[0].equals("--server")) {
+            try {
+                SchedulerServer.start(args.length > 1 ? Integer.parseInt(args[1]) : SchedulerServer.DEFAULT_PORT);
+            } catch (IOException | NumberFormatException e) {
+                System.out.println("Error: Unable to start the server.");
+                System.out.println(e.getMessage());
+            }
+            return;
+        }
         // Scheduling the trackTime() task to run every minute to save thread space
         ScheduledExecutorService timerScheduler = Executors.newScheduledThreadPool(1);
         timerScheduler.scheduleAtFixedRate(Scheduler::trackTime, 0, 1, TimeUnit.MINUTES);
+        Scheduler.run(args.length > 0 ? args[0] : null, args.length > 1 ? args[1] : null);
+        timerScheduler.shutdownNow();
+    }
+
+    /**
+     * Runs the scheduler on a config and an input file and prints the final assignment,
+     * which is also written to {@code <name>output.txt}. Every run starts from the default options.
+     * @param configFileName - The config file.
+     * @param fileName - The input file.
+     * @return The final assignment as written to the output file, or null if no solution was found.
+     */
+    public static String run(String configFileName, String fileName) {
+        return Scheduler.run(configFileName, fileName, true, Long.MAX_VALUE);
+    }
+
+    /**
+     * Runs the scheduler on a config and an input file and prints the final assignment.
+     * Every run starts from the default options.
+     * @param configFileName - The config file.
+     * @param fileName - The input file.
+     * @param writeOutput - Whether the final assignment is also written to {@code <name>output.txt}.
+     * @param timeLimit - Milliseconds after which the search stops and the best solution so far is kept.
+     * @return The final assignment, or null if no solution was found.
+     */
+    public static String run(String configFileName, String fileName, boolean writeOutput, long timeLimit) {
+        Scheduler.resetOptions();
+        Scheduler.startTime = System.currentTimeMillis();
+        Scheduler.deadline = timeLimit > Long.MAX_VALUE - Scheduler.startTime
+            ? Long.MAX_VALUE : Scheduler.startTime + timeLimit;
+        Scheduler.writeOutput = writeOutput;
         try {
             System.out.println("Starting scheduler...");
-            configFileName = args[0];
-            fileName = args[1];
-
-            // Initialize the parser
-            Scheduler.parser = new Parser(fileName);
-            Scheduler.parser.parse();
-
-            // Initialize global data structures
-            Scheduler.courseSlots = Scheduler.parser.getCourseSlots();
-            Scheduler.labSlots = Scheduler.parser.getLabSlots();
-            Scheduler.courses = Scheduler.parser.getCourses();
-            Scheduler.labs = Scheduler.parser.getLabs();
-            Scheduler.notCompatible = Scheduler.parser.getNotCompatible();
-            Scheduler.unwanted = Scheduler.parser.getUnwanted();
-            Scheduler.preferences = Scheduler.parser.getPreferences();
-            Scheduler.pairs = Scheduler.parser.getPairs();
-            Scheduler.partialAssignments = Scheduler.parser.getPartAssign();
-
-            // Check for special courses and slots
-            performChecks();
-
-            Scheduler.slots = new ArrayList<>(courseSlots);
-            Scheduler.slots.addAll(labSlots);
-            Scheduler.classes = new ArrayList<>(courses);
-            Scheduler.classes.addAll(labs);
+            if (configFileName == null || fileName == null) {
+                throw new IllegalArgumentException("Missing arguments.");
+            }
+
+            // Read the input, and stop early if it cannot have a solution
+            try {
+                Scheduler.loadInput(fileName);
+            } catch (IllegalStateException e) {
+                System.out.println("Infeasible input: " + e.getMessage());
+                System.out.println("No solution found.");
+                return null;
+            }
+            if (Scheduler.printData) {
+                System.out.println("Presolve: " + Scheduler.presolve.getSummary());
+            }
 
             // Initialize the soft constraints evaluator
             Scheduler.eval = new SoftConstraint(configFileName);
@@ -843,25 +1550,89 @@ public class Scheduler {
             System.out.println("Failed at Parser");
             System.out.println(e.getMessage());
             System.out.println("Error occurred. Arguments: java Scheduler [configFile] [inputFile]");
-            System.exit(0);
+            return null;
         }
         try {
             // Initialize hard constraints evaluator
             Scheduler.constr = new HardConstraint();
+            // Initialize the global constraints checked by the or-tree search.
+            // A re-solve always propagates, so a repair that needs more classes freed fails fast
+            boolean resolve = !Scheduler.previousInput.isEmpty() && !Scheduler.previousOutput.isEmpty();
+            if (Scheduler.propagation || resolve) {
+                Scheduler.propagator = new Propagator(Scheduler.constr, Scheduler.presolve);
+            }
+            // Initialize the lecture/lab blocks assigned as one decision
+            if (Scheduler.blockMode) {
+                // A block places several labs at once, so its completion is always checked against the capacities
+                Propagator blockPropagator = Scheduler.propagator != null
+                    ? Scheduler.propagator : new Propagator(Scheduler.constr, Scheduler.presolve);
+                Scheduler.blocks = new Blocks(Scheduler.constr, Scheduler.presolve, blockPropagator);
+                if (Scheduler.printData) {
+                    System.out.println("Block mode: " + Scheduler.blocks.getNumBlocks() + " lectures with labs");
+                }
+            }
+            // Initialize the store of nogoods learned by the or-tree search
+            if (Scheduler.nogoodLearning) {
+                Scheduler.nogoods = new NogoodStore(Scheduler.constr);
+            }
+            // Read the schedule to start from, if any
+            if (!Scheduler.warmStart.isEmpty()) {
+                try {
+                    Scheduler.previousSchedule = new WarmStart(Scheduler.warmStart);
+                } catch (IOException e) {
+                    System.out.println("Error: Unable to read the warm start file " + Scheduler.warmStart + ".");
+                }
+            }
+            // Compare the input with the previous one to re-solve only what the edits affect
+            if (resolve) {
+                try {
+                    Scheduler.incrementalResolve = new IncrementalResolve(Scheduler.previousInput,
+                        Scheduler.previousOutput, fileName);
+                } catch (Exception e) {
+                    System.out.println("Error: Unable to read the previous input " + Scheduler.previousInput
+                        + " or output " + Scheduler.previousOutput + ".");
+                }
+            }
+            // Read the schedule that moves are measured against, by default the previous one
+            String referenceFile = !Scheduler.referenceSchedule.isEmpty() ? Scheduler.referenceSchedule
+                : !Scheduler.previousOutput.isEmpty() ? Scheduler.previousOutput
+                : Scheduler.warmStart;
+            try {
+                Scheduler.reference = Scheduler.readReference(referenceFile);
+            } catch (IOException e) {
+                System.out.println("Error: Unable to read the reference schedule " + referenceFile + ".");
+            }
+            // Sections the reference puts in different slots are not interchangeable
+            Scheduler.constr.separateByReference(Scheduler.reference);
+            if (Scheduler.symmetryBreaking && Scheduler.printData) {
+                System.out.println("Symmetry breaking: " + Scheduler.constr.getNumSymmetryGroups()
+                    + " groups of interchangeable sections");
+            }
+            // Initialize the keys used to hash schedules
+            Scheduler.zobrist = new Zobrist(Scheduler.constr);
+            // Initialize the eval cache shared by all searches
+            if (Scheduler.evalCacheSize > 0) {
+                Scheduler.evalCache = new EvalCache(Scheduler.evalCacheSize);
+            }
             // Initialize the solution generator
             Scheduler.solutionGenerator = new Generation();
         } catch (Exception e) {
             System.out.println("Failed at Constraints");
             System.out.println(e.getMessage());
-            System.exit(0);
+            return null;
         }
         try {
             // Initialize the first generation of candidate solutions:
             // If partial assignments are present, they are accounted for in the PR instance.
-            Scheduler.buildSolutionsForSetBased();
+            // An edited input starts from the previous schedule instead
+            if (Scheduler.incrementalResolve != null) {
+                Scheduler.resolveIncrementally();
+            } else {
+                Scheduler.buildSolutionsForSetBased();
+            }
             if (Scheduler.solutionGenerator.getGeneration().isEmpty()) {
                 System.out.println("No solution found.");
-                System.exit(0);
+                return null;
             }
             boolean hasMultipleSolutions = Scheduler.solutionGenerator.getGeneration().size() > 1;
             // Check if there is only one solution
@@ -879,7 +1650,7 @@ public class Scheduler {
                 int stableCounter = 0;
                 boolean isStable = false;
                 // Run set based search for the specified number of generations:
-                for (int i = 0; i < Scheduler.maxGenerations && !isStable; i++) {
+                for (int i = 0; i < Scheduler.maxGenerations && !isStable && !Scheduler.isStopped(); i++) {
                     if (Scheduler.printData || Scheduler.printPR) {
                         System.out.println("Generation #" + (i + 1));
                     }
@@ -917,30 +1688,41 @@ public class Scheduler {
                     }
                 }
                 // Check if the algorithm has stabilized
-                if (!isStable && Scheduler.printData) {
+                if (!isStable && Scheduler.printData && !Scheduler.isStopped()) {
                     System.out.println("Max generations reached without stability.");
                 }
             }
+            // Improve the best solution with a large neighbourhood search if enabled,
+            // and always re-optimize a re-solved schedule for a short budget
+            int iterations = Scheduler.lnsIterations > 0 || Scheduler.incrementalResolve == null
+                ? Scheduler.lnsIterations
+                : IncrementalResolve.LNS_ITERATIONS;
+            if (iterations > 0) {
+                Scheduler.runLargeNeighbourhoodSearch(iterations);
+            }
             // Print the final solution
             List<List<String>> solution = Scheduler.returnOptimalSolution();
             if (Scheduler.printData) {
                 Scheduler.solutionGenerator.print();
             }
             // Check if there is a solution
-            // If there is no solution, the program will exit.
+            // If there is no solution, the run ends here.
             // Otherwise, the final solution will be printed.
             if (solution == null) {
                 System.out.println("No solution found.");
-            } else {
-                System.out.println("Run Time: " + (System.currentTimeMillis() - Scheduler.START_TIME) + "ms\n");
-                System.out.println("Final Solution:\n" + solution + "\n");
-                Scheduler.printFinalAssignment(solution);
+                return null;
             }
-            System.exit(0);
+            if (Scheduler.isStopped()) {
+                System.out.println("Search stopped early, keeping the best solution found so far.");
+            }
+            System.out.println("Run Time: " + (System.currentTimeMillis() - Scheduler.startTime) + "ms\n");
+            Scheduler.printStatistics(solution);
+            System.out.println("Final Solution:\n" + solution + "\n");
+            return Scheduler.printFinalAssignment(solution);
         } catch (Exception e) {
             System.out.println("Failed at Generation");
             System.out.println(e.getMessage());
-            System.exit(0);
+            return null;
         }
     }
 }
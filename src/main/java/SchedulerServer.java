@@ -0,0 +1,548 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Scheduling service for front-ends that schedule repeatedly, e.g. to re-solve a department after an edit.
+ * It listens on localhost only and runs one job at a time on a single worker thread, so the JVM and its
+ * compiled code stay warm between jobs; further jobs wait in a bounded queue and are refused once it is full.
+ *
+ * POST /jobs[?previous=ID][&timeLimit=S] - Queues a job. The body is the config file followed by the input
+ *                            file, which starts at its "Name:" line. With previous, the input is re-solved from
+ *                            the input and schedule of that job (see previousInput). The search stops after
+ *                            timeLimit seconds (10 minutes by default) and keeps the best solution found so far.
+ *                            Answers 202 with the job ID.
+ * GET /jobs/ID             - The state of the job: QUEUED, RUNNING, DONE, FAILED or CANCELLED.
+ * DELETE /jobs/ID          - Cancels the job: a queued job never runs, a running one stops searching.
+ * GET /jobs/ID/progress    - The console output of the job, streamed until the job ends.
+ * GET /jobs/ID/result      - The final assignment, as in {@code <name>output.txt}, once the job is done.
+ *                            No output file is written in the working directory of the service.
+ */
+public class SchedulerServer {
+    public static final int DEFAULT_PORT = 8433;
+    // Jobs waiting for the worker before new jobs are refused
+    private static final int QUEUE_CAPACITY = 16;
+    // Jobs kept for their results and as the previous schedule of re-solves
+    private static final int MAX_JOBS = 64;
+    // Console output kept per job
+    private static final int MAX_PROGRESS = 1 << 20;
+    // Seconds a job searches for unless the request sets its timeLimit
+    private static final long DEFAULT_TIME_LIMIT = 600;
+    // Stack size of the worker, as the or-tree search recurses once per class (like -Xss1g)
+    private static final long STACK_SIZE = 1L << 30;
+
+    /**
+     * The states of a job.
+     */
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED, CANCELLED
+    }
+
+    // The job run by the current thread, which its console output goes to; the decomposition workers inherit it
+    private static final InheritableThreadLocal<Job> CURRENT_JOB = new InheritableThreadLocal<>();
+
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final ThreadPoolExecutor worker;
+    // The console the service's output went to before it started
+    private PrintStream console;
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    // The most recent jobs by ID, the oldest are forgotten first
+    private final Map<Integer, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Job> eldest) {
+            return this.size() > SchedulerServer.MAX_JOBS;
+        }
+    };
+
+    /**
+     * A queued or finished scheduling job.
+     */
+    private static final class Job {
+        private final int id;
+        private final String config;
+        private final String input;
+        // The input and final assignment of the job this one re-solves, or null
+        private final String previousInput;
+        private final String previousOutput;
+        // Milliseconds after which the search stops
+        private final long timeLimit;
+        private final StringBuilder progress = new StringBuilder();
+        // Console output up to the end of its last line, which is not decoded yet
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private State state = State.QUEUED;
+        private boolean cancelRequested;
+        private String result;
+
+        /**
+         * Constructor for a job.
+         * @param id - The job ID.
+         * @param config - The contents of the config file.
+         * @param input - The contents of the input file.
+         * @param previous - The job to re-solve from, or null to solve from scratch.
+         * @param timeLimit - Milliseconds after which the search stops.
+         */
+        private Job(int id, String config, String input, Job previous, long timeLimit) {
+            this.id = id;
+            this.config = config;
+            this.input = input;
+            this.previousInput = previous == null ? null : previous.input;
+            this.previousOutput = previous == null ? null : previous.getResult();
+            this.timeLimit = timeLimit;
+        }
+
+        private synchronized State getState() {
+            return this.state;
+        }
+
+        private synchronized String getResult() {
+            return this.result;
+        }
+
+        /**
+         * Starts the job on the worker, unless it was cancelled while queued.
+         * @return true if the job should run.
+         */
+        private synchronized boolean start() {
+            if (this.state != State.QUEUED) {
+                return false;
+            }
+            // Only one job runs at a time, so a stop requested for an earlier job no longer applies
+            Scheduler.setStopRequested(false);
+            this.state = State.RUNNING;
+            return true;
+        }
+
+        /**
+         * Cancels the job: a queued job is dropped, a running job is asked to stop searching.
+         * @return true if the job had not ended yet.
+         */
+        private synchronized boolean cancel() {
+            if (this.state == State.QUEUED) {
+                this.state = State.CANCELLED;
+                this.notifyAll();
+                return true;
+            }
+            if (this.state == State.RUNNING) {
+                this.cancelRequested = true;
+                Scheduler.setStopRequested(true);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Ends the job and wakes up the clients streaming its progress.
+         * @param result - The final assignment, or null if no solution was found.
+         */
+        private synchronized void finish(String result) {
+            if (this.pending.size() > 0) {
+                this.append(this.pending.toString(StandardCharsets.UTF_8));
+                this.pending.reset();
+            }
+            this.result = this.cancelRequested ? null : result;
+            this.state = this.cancelRequested ? State.CANCELLED : result == null ? State.FAILED : State.DONE;
+            this.notifyAll();
+        }
+
+        /**
+         * Adds UTF-8 console output of the job. Only complete lines are decoded, as a character
+         * may be split across writes; a line feed byte never occurs inside a multi-byte character.
+         * @param b - The bytes.
+         * @param off - The offset of the output.
+         * @param len - The length of the output.
+         */
+        private synchronized void write(byte[] b, int off, int len) {
+            this.pending.write(b, off, len);
+            byte[] bytes = this.pending.toByteArray();
+            int end = bytes.length;
+            while (end > 0 && bytes[end - 1] != '\n') {
+                end--;
+            }
+            if (end > 0) {
+                this.append(new String(bytes, 0, end, StandardCharsets.UTF_8));
+                this.pending.reset();
+                this.pending.write(bytes, end, bytes.length - end);
+            }
+        }
+
+        /**
+         * Adds console output of the job, up to MAX_PROGRESS characters.
+         * @param text - The output.
+         */
+        private synchronized void append(String text) {
+            if (this.progress.length() < SchedulerServer.MAX_PROGRESS) {
+                this.progress.append(text, 0, Math.min(text.length(), SchedulerServer.MAX_PROGRESS
+                    - this.progress.length()));
+                if (this.progress.length() == SchedulerServer.MAX_PROGRESS) {
+                    this.progress.append("\n... further output omitted\n");
+                }
+                this.notifyAll();
+            }
+        }
+
+        /**
+         * Waits for console output past a position.
+         * @param from - The number of characters read so far.
+         * @return The new output, or null once the job has ended and everything has been read.
+         * @throws InterruptedException if the thread is interrupted while waiting.
+         */
+        private synchronized String awaitProgress(int from) throws InterruptedException {
+            while (this.progress.length() <= from && (this.state == State.QUEUED || this.state == State.RUNNING)) {
+                this.wait();
+            }
+            return this.progress.length() > from ? this.progress.substring(from) : null;
+        }
+    }
+
+    /**
+     * Console output of the service. Output of a thread running a job is collected as the job's progress,
+     * the output of every other thread goes to the console.
+     */
+    private static final class ProgressStream extends OutputStream {
+        private final PrintStream console;
+
+        private ProgressStream(PrintStream console) {
+            this.console = console;
+        }
+
+        @Override
+        public void write(int b) {
+            this.write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            Job job = SchedulerServer.CURRENT_JOB.get();
+            // A pooled thread may still refer to a job that has ended
+            if (job != null && job.getState() == State.RUNNING) {
+                job.write(b, off, len);
+            } else {
+                this.console.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() {
+            this.console.flush();
+        }
+    }
+
+    /**
+     * Constructor for the service, listening on localhost.
+     * @param port - The port.
+     * @throws IOException if the port cannot be bound.
+     */
+    private SchedulerServer(int port) throws IOException {
+        this.worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(SchedulerServer.QUEUE_CAPACITY),
+            runnable -> new Thread(null, runnable, "scheduler-job", SchedulerServer.STACK_SIZE));
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/jobs", this::handle);
+        // Progress streams hold their thread until the job ends, so every request gets a thread
+        this.requests = Executors.newCachedThreadPool();
+        this.server.setExecutor(this.requests);
+    }
+
+    /**
+     * Starts the service. It runs until the JVM is stopped.
+     * @param port - The port to listen on, or 0 for any free port.
+     * @return The running service.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static SchedulerServer start(int port) throws IOException {
+        SchedulerServer service = new SchedulerServer(port);
+        service.console = System.out;
+        System.setOut(new PrintStream(new ProgressStream(System.out), true, StandardCharsets.UTF_8));
+        service.server.start();
+        System.out.println("Scheduler service listening on http://localhost:" + service.getPort() + "/jobs");
+        return service;
+    }
+
+    /**
+     * Returns the port the service listens on.
+     * @return The port.
+     */
+    int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the service: the running job is asked to stop, queued jobs never run and the console
+     * output goes to the console again once the worker has ended.
+     * @throws InterruptedException if the thread is interrupted while waiting for the worker.
+     */
+    void stop() throws InterruptedException {
+        synchronized (this.jobs) {
+            this.jobs.values().forEach(Job::cancel);
+        }
+        this.server.stop(0);
+        this.worker.shutdown();
+        this.requests.shutdown();
+        this.worker.awaitTermination(1, TimeUnit.MINUTES);
+        // A later run of the scheduler in this JVM must not stop right away
+        Scheduler.setStopRequested(false);
+        System.setOut(this.console);
+    }
+
+    /**
+     * Routes a request to /jobs.
+     * @param exchange - The request.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            // The path splits into "", "jobs", the job ID and the resource
+            if (path.length == 2 && method.equals("POST")) {
+                this.submit(exchange);
+                return;
+            }
+            if (path.length < 2 || path.length > 4 || !path[1].equals("jobs")) {
+                SchedulerServer.respond(exchange, 404, "Unknown request.");
+                return;
+            }
+            boolean cancel = path.length == 3 && method.equals("DELETE");
+            if (path.length == 2 || !method.equals("GET") && !cancel) {
+                SchedulerServer.respond(exchange, 405, "Method not allowed.");
+                return;
+            }
+            Job job;
+            try {
+                job = this.job(Integer.parseInt(path[2]));
+            } catch (NumberFormatException e) {
+                job = null;
+            }
+            if (job == null) {
+                SchedulerServer.respond(exchange, 404, "Unknown job.");
+            } else if (cancel) {
+                if (job.cancel()) {
+                    SchedulerServer.respond(exchange, 202, "Cancelling.");
+                } else {
+                    SchedulerServer.respond(exchange, 409, "The job has already ended.");
+                }
+            } else if (path.length == 3) {
+                SchedulerServer.respond(exchange, 200, job.getState().toString());
+            } else if (path[3].equals("progress")) {
+                SchedulerServer.streamProgress(exchange, job);
+            } else if (path[3].equals("result")) {
+                SchedulerServer.sendResult(exchange, job);
+            } else {
+                SchedulerServer.respond(exchange, 404, "Unknown request.");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Queues the job of a POST request.
+     * @param exchange - The request.
+     * @throws IOException if the request cannot be read or the response cannot be sent.
+     */
+    private void submit(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        int inputStart = body.startsWith("Name:") ? 0 : body.indexOf("\nName:") + 1;
+        if (inputStart == 0 && !body.startsWith("Name:")) {
+            SchedulerServer.respond(exchange, 400, "The body needs the config file followed by the input file.");
+            return;
+        }
+        Job previous = null;
+        String query = exchange.getRequestURI().getQuery();
+        String previousId = SchedulerServer.parameter(query, "previous");
+        if (previousId != null) {
+            try {
+                previous = this.job(Integer.parseInt(previousId));
+            } catch (NumberFormatException e) {
+                previous = null;
+            }
+            if (previous == null || previous.getResult() == null) {
+                SchedulerServer.respond(exchange, 409, "The previous job has no schedule.");
+                return;
+            }
+        }
+        long timeLimit;
+        try {
+            String seconds = SchedulerServer.parameter(query, "timeLimit");
+            timeLimit = seconds == null ? SchedulerServer.DEFAULT_TIME_LIMIT : Long.parseLong(seconds);
+        } catch (NumberFormatException e) {
+            timeLimit = -1;
+        }
+        if (timeLimit <= 0) {
+            SchedulerServer.respond(exchange, 400, "The time limit must be a positive number of seconds.");
+            return;
+        }
+        Job job = new Job(this.nextId.getAndIncrement(), body.substring(0, inputStart), body.substring(inputStart),
+            previous, TimeUnit.SECONDS.toMillis(timeLimit));
+        synchronized (this.jobs) {
+            this.jobs.put(job.id, job);
+        }
+        try {
+            this.worker.execute(() -> this.run(job));
+        } catch (RejectedExecutionException e) {
+            synchronized (this.jobs) {
+                this.jobs.remove(job.id);
+            }
+            SchedulerServer.respond(exchange, 503, "The queue is full, try again later.");
+            return;
+        }
+        exchange.getResponseHeaders().set("Location", "/jobs/" + job.id);
+        SchedulerServer.respond(exchange, 202, String.valueOf(job.id));
+    }
+
+    /**
+     * Returns a parameter of a query string.
+     * @param query - The query, or null if the request has none.
+     * @param name - The name of the parameter.
+     * @return The value of the parameter, or null if it is not given.
+     */
+    private static String parameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs a job on the worker thread, with the console output going to the job's progress.
+     * The config and input are written to a temporary directory that is removed afterwards.
+     * @param job - The job.
+     */
+    private void run(Job job) {
+        if (!job.start()) {
+            return;
+        }
+        SchedulerServer.CURRENT_JOB.set(job);
+        Path directory = null;
+        String result = null;
+        try {
+            directory = Files.createTempDirectory("scheduler-job");
+            String config = job.config;
+            if (job.previousInput != null) {
+                Path previousInput = Files.writeString(directory.resolve("previousInput.txt"), job.previousInput);
+                Path previousOutput = Files.writeString(directory.resolve("previousOutput.txt"), job.previousOutput);
+                // Later lines of the config take precedence
+                config += "\npreviousInput=" + previousInput + "\npreviousOutput=" + previousOutput + "\n";
+            }
+            Path configFile = Files.writeString(directory.resolve("config.txt"), config);
+            Path inputFile = Files.writeString(directory.resolve("input.txt"), job.input);
+            result = Scheduler.run(configFile.toString(), inputFile.toString(), false, job.timeLimit);
+        } catch (IOException | RuntimeException | StackOverflowError e) {
+            System.out.println("Error: " + e);
+        } finally {
+            SchedulerServer.delete(directory);
+            job.finish(result);
+            SchedulerServer.CURRENT_JOB.remove();
+        }
+    }
+
+    /**
+     * Returns a job by its ID.
+     * @param id - The job ID.
+     * @return The job, or null if it is unknown or forgotten.
+     */
+    private Job job(int id) {
+        synchronized (this.jobs) {
+            return this.jobs.get(id);
+        }
+    }
+
+    /**
+     * Streams the console output of a job until it ends.
+     * @param exchange - The request.
+     * @param job - The job.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void streamProgress(HttpExchange exchange, Job job) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        // A response length of 0 sends the output in chunks as it arrives
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        int read = 0;
+        try {
+            String text;
+            while ((text = job.awaitProgress(read)) != null) {
+                read += text.length();
+                out.write(text.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends the final assignment of a job, or its state if it has not ended yet.
+     * @param exchange - The request.
+     * @param job - The job.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void sendResult(HttpExchange exchange, Job job) throws IOException {
+        State state = job.getState();
+        if (state == State.DONE) {
+            SchedulerServer.respond(exchange, 200, job.getResult());
+        } else if (state == State.FAILED) {
+            SchedulerServer.respond(exchange, 422, "No solution found.");
+        } else if (state == State.CANCELLED) {
+            SchedulerServer.respond(exchange, 410, "The job was cancelled.");
+        } else {
+            SchedulerServer.respond(exchange, 202, state.toString());
+        }
+    }
+
+    /**
+     * Sends a plain text response.
+     * @param exchange - The request.
+     * @param status - The HTTP status code.
+     * @param text - The response body.
+     * @throws IOException if the response cannot be sent.
+     */
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = (text.endsWith("\n") ? text : text + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Removes the temporary directory of a job.
+     * @param directory - The directory, or null if it was not created.
+     */
+    private static void delete(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            directory.toFile().deleteOnExit();
+        }
+    }
+}
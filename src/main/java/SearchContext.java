@@ -0,0 +1,139 @@
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * State shared by all nodes of one or-tree search.
+ * Keeps the partial assignment the search started from and the node counters
+ * used to decide when the search restarts, and the nodes generated so far for duplicate detection.
+ */
+public class SearchContext {
+    // Upper bound on the number of generated nodes remembered for duplicate detection
+    private static final int MAX_GENERATED = 100000;
+
+    // The partial assignment the search started from
+    private final List<List<String>> origin;
+    // Decides after how many expansions the search restarts
+    private final RestartPolicy restartPolicy;
+    // The number of restarts so far
+    private int run = 0;
+    // The number of expansions since the last restart
+    private long expansions = 0;
+    // The number of expansions allowed before the next restart
+    private long limit;
+    // Creation counter used to order nodes by age
+    private long sequence = 0;
+    // The number of search steps taken, and the number after which the search gives up
+    private long steps = 0;
+    private long stepBudget = Long.MAX_VALUE;
+    // The classes the search has to assign, or null if it has to complete the whole schedule
+    private List<Integer> scope;
+    // The Zobrist hashes of the nodes generated in the current run; only hashes are kept so the
+    // memory stays small next to the frontier, at the risk of a 64-bit collision skipping a node
+    private final Set<Long> generated = new HashSet<>();
+
+    /**
+     * Constructor for a search starting from the given partial assignment.
+     * @param origin - The partial assignment the search starts from.
+     */
+    public SearchContext(List<List<String>> origin) {
+        this.origin = origin;
+        this.restartPolicy = new RestartPolicy(Scheduler.getRestartStrategy(),
+            Scheduler.getRestartBase(), Scheduler.getRestartFactor());
+        this.limit = this.restartPolicy.limit(this.run);
+    }
+
+    /**
+     * Returns the partial assignment the search started from.
+     * @return origin
+     */
+    public List<List<String>> getOrigin() {
+        return this.origin;
+    }
+
+    /**
+     * Returns the classes the search has to assign.
+     * @return The indices of the classes, or null if the whole schedule has to be completed.
+     */
+    public List<Integer> getScope() {
+        return this.scope;
+    }
+
+    /**
+     * Restricts the search to assigning the given classes; the other classes may stay unassigned.
+     * @param scope - The indices of the classes.
+     */
+    public void setScope(List<Integer> scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Limits the number of search steps, across restarts.
+     * @param stepBudget - The number of steps after which the search gives up.
+     */
+    public void setStepBudget(long stepBudget) {
+        this.stepBudget = stepBudget;
+    }
+
+    /**
+     * Counts a search step.
+     * @return true if the step budget is used up or the run is stopped, and the search should give up.
+     */
+    public boolean countStep() {
+        return ++this.steps > this.stepBudget || Scheduler.isStopped();
+    }
+
+    /**
+     * Counts a node expansion.
+     * @return true if the node limit of the current run is reached and the search should restart.
+     */
+    public boolean countExpansion() {
+        this.expansions++;
+        return this.expansions >= this.limit;
+    }
+
+    /**
+     * Starts the next run with the next node limit of the restart policy.
+     */
+    public void restart() {
+        this.run++;
+        this.expansions = 0;
+        this.limit = this.restartPolicy.limit(this.run);
+        this.clearGenerated();
+        if (Scheduler.isPrintData()) {
+            System.out.println("Restarting or-tree search, run " + this.run + " with node limit " + this.limit);
+        }
+    }
+
+    /**
+     * Forgets the generated nodes, e.g. when the search starts over from its starting point.
+     */
+    public void clearGenerated() {
+        this.generated.clear();
+    }
+
+    /**
+     * Records a generated node and tells whether a node with the same hash was generated before.
+     * @param hash - The Zobrist hash of the node's data.
+     * @return true if no node with this hash was generated in the current run.
+     */
+    public boolean firstVisit(long hash) {
+        if (this.generated.contains(hash)) {
+            return false;
+        }
+        // Forget the generated nodes rather than grow without bound
+        if (this.generated.size() >= SearchContext.MAX_GENERATED) {
+            this.generated.clear();
+        }
+        this.generated.add(hash);
+        return true;
+    }
+
+    /**
+     * Returns a new creation number for a node.
+     * @return The next sequence number.
+     */
+    public long nextSequence() {
+        return this.sequence++;
+    }
+}
@@ -0,0 +1,19 @@
+import java.util.List;
+
+/**
+ * Selects parents for crossover from a generation.
+ */
+public interface Selector {
+    /**
+     * Select a solution candidate from the generation.
+     * @param ignoreFactIndex - the index of the fact to ignore, or -1 to consider every fact
+     * @return index of the selected solution candidate, or -1 if none can be selected
+     */
+    int select(int ignoreFactIndex);
+
+    /**
+     * Get the last choice.
+     * @return last choice, or null if the last selection failed
+     */
+    List<List<String>> getSelection();
+}
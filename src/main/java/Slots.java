@@ -4,10 +4,6 @@ import java.util.List;
  * Data structure for Slots
  */
 public class Slots {
-    // A list of lists representing the course and lab slots.
-    private static final List<List<String>> courseSlots = Scheduler.getCourseSlots();
-    private static final List<List<String>> labSlots = Scheduler.getLabSlots();
-
     // A list representing the slot's name and details.
     private final List<String> name;
 
@@ -25,8 +21,8 @@ public class Slots {
     public Slots(String type, int index) {
         // Retrieve the appropriate list of slots based on the type.
         List<List<String>> slots = type.equals("course")
-            ? Slots.courseSlots
-            : Slots.labSlots;
+            ? Scheduler.getCourseSlots()
+            : Scheduler.getLabSlots();
         // Get the name details from the slots list.
         // e.g. [MO, 8:00, 4, 2]
         try {
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -27,6 +28,11 @@ public class SoftConstraint {
     private int wPair;
     private int wSecDiff;
 
+    // Minimal-perturbation soft constraint: penalty of a class that leaves its slot in the reference schedule
+    private int wPerturb;
+    private int penMoveCourse = 1;
+    private int penMoveLab = 1;
+
     // Data from the config file
     private final List<List<String>> courses;
     private final List<List<String>> labs;
@@ -39,6 +45,10 @@ public class SoftConstraint {
     private final int numCourseSlots;
     private final int numLabSlots;
 
+    // Compiled soft constraints, created once the hard constraints are available
+    private volatile BatchEvaluator batchEvaluator;
+    private Perturbation perturbation;
+
     // For testing purposes, set to true to print the data from the config file
     private final boolean printData = false;
 
@@ -88,6 +98,18 @@ public class SoftConstraint {
                         case "penSection":
                             this.penSection = Integer.parseInt(val);
                             break;
+                        case "wPerturb":
+                            this.wPerturb = Integer.parseInt(val);
+                            break;
+                        case "penMoveCourse":
+                            this.penMoveCourse = Integer.parseInt(val);
+                            break;
+                        case "penMoveLab":
+                            this.penMoveLab = Integer.parseInt(val);
+                            break;
+                        case "referenceSchedule":
+                            Scheduler.setReferenceSchedule(val);
+                            break;
                         case "printPr":
                             Scheduler.setPrintPR(Boolean.parseBoolean(val));
                             break;
@@ -106,12 +128,96 @@ public class SoftConstraint {
                         case "numRemove":
                             Scheduler.setNumRemove(Integer.parseInt(val));
                             break;
+                        case "selection":
+                            Scheduler.setSelectionMethod(parseOption(Generation.SelectionMethod.class, val));
+                            break;
+                        case "tournamentSize":
+                            Scheduler.setTournamentSize(Integer.parseInt(val));
+                            break;
+                        case "eliteCount":
+                            Scheduler.setEliteCount(Integer.parseInt(val));
+                            break;
+                        case "diversity":
+                            Scheduler.setDiversity(Boolean.parseBoolean(val));
+                            break;
                         case "stableThreshold":
                             Scheduler.setStableThreshold(Integer.parseInt(val));
                             break;
                         case "maxStableGeneration":
                             Scheduler.setMaxStableGenerations(Integer.parseInt(val));
                             break;
+                        case "searchMode":
+                            Scheduler.setSearchMode(parseOption(OrTree.SearchMode.class, val));
+                            break;
+                        case "warmStart":
+                            Scheduler.setWarmStart(val);
+                            break;
+                        case "previousInput":
+                            Scheduler.setPreviousInput(val);
+                            break;
+                        case "previousOutput":
+                            Scheduler.setPreviousOutput(val);
+                            break;
+                        case "seedMode":
+                            Scheduler.setSeedMode(parseOption(GreedyConstructor.SeedMode.class, val));
+                            break;
+                        case "softEstimateWeight":
+                            Scheduler.setSoftEstimateWeight(Integer.parseInt(val));
+                            break;
+                        case "beamWidth":
+                            Scheduler.setBeamWidth(Integer.parseInt(val));
+                            break;
+                        case "restartStrategy":
+                            Scheduler.setRestartStrategy(parseOption(RestartPolicy.Strategy.class, val));
+                            break;
+                        case "restartBase":
+                            Scheduler.setRestartBase(Integer.parseInt(val));
+                            break;
+                        case "restartFactor":
+                            Scheduler.setRestartFactor(Double.parseDouble(val));
+                            break;
+                        case "frontierEviction":
+                            Scheduler.setFrontierEviction(parseOption(OrTree.FrontierEviction.class, val));
+                            break;
+                        case "evalCacheSize":
+                            Scheduler.setEvalCacheSize(Integer.parseInt(val));
+                            break;
+                        case "adaptiveCheckOrder":
+                            Scheduler.setAdaptiveCheckOrder(Boolean.parseBoolean(val));
+                            break;
+                        case "offHeapPopulation":
+                            Scheduler.setOffHeapPopulation(Boolean.parseBoolean(val));
+                            break;
+                        case "nogoodLearning":
+                            Scheduler.setNogoodLearning(Boolean.parseBoolean(val));
+                            break;
+                        case "lazySuccessors":
+                            Scheduler.setLazySuccessors(Boolean.parseBoolean(val));
+                            break;
+                        case "decomposition":
+                            Scheduler.setDecomposition(Boolean.parseBoolean(val));
+                            break;
+                        case "symmetryBreaking":
+                            Scheduler.setSymmetryBreaking(Boolean.parseBoolean(val));
+                            break;
+                        case "propagation":
+                            Scheduler.setPropagation(Boolean.parseBoolean(val));
+                            break;
+                        case "blockMode":
+                            Scheduler.setBlockMode(Boolean.parseBoolean(val));
+                            break;
+                        case "valueOrdering":
+                            Scheduler.setValueOrdering(parseOption(OrTree.ValueOrdering.class, val));
+                            break;
+                        case "greediness":
+                            Scheduler.setGreediness(Double.parseDouble(val));
+                            break;
+                        case "lnsIterations":
+                            Scheduler.setLnsIterations(Integer.parseInt(val));
+                            break;
+                        case "lnsDestroySize":
+                            Scheduler.setLnsDestroySize(Integer.parseInt(val));
+                            break;
                         default:
                             System.out.println("Unknown parameter.");
                             break;
@@ -143,6 +249,24 @@ public class SoftConstraint {
         }
     }
 
+    /**
+     * Parses an option of the config file into one of the constants of the given enum.
+     * The value is matched ignoring case and underscores, e.g. "bestFirst" for BEST_FIRST.
+     *
+     * @param type  The enum class of the option.
+     * @param value The value from the config file.
+     * @return The matching enum constant.
+     */
+    private static <E extends Enum<E>> E parseOption(Class<E> type, String value) {
+        String normalized = value.replace("_", "").toUpperCase(Locale.ROOT);
+        for (E option : type.getEnumConstants()) {
+            if (option.name().replace("_", "").equals(normalized)) {
+                return option;
+            }
+        }
+        throw new IllegalArgumentException("Invalid value " + value + " for " + type.getSimpleName());
+    }
+
     /**
      * Prints the data from the config file for testing purposes.
      */
@@ -155,6 +279,9 @@ public class SoftConstraint {
         System.out.println("penLabMin: " + this.penLabMin);
         System.out.println("penNotPaired: " + this.penNotPaired);
         System.out.println("penSection: " + this.penSection);
+        System.out.println("wPerturb: " + this.wPerturb);
+        System.out.println("penMoveCourse: " + this.penMoveCourse);
+        System.out.println("penMoveLab: " + this.penMoveLab);
     }
 
     // Interested in only the day and time of the slot.
@@ -332,6 +459,10 @@ public class SoftConstraint {
             // Retrieve the slot index assigned to the class. If it's invalid, return 0.
             try {
                 List<String> assignedSlot = assignments.get(classIndex);
+                // Unassigned classes of a partial schedule have no penalty yet.
+                if (assignedSlot.equals(Scheduler.UNASSIGNED_SLOT)) {
+                    return 0;
+                }
                 // If the assigned slot doesn't match the preferred slot, apply the penalty.
                 if (!assignedSlot.subList(0, 2).equals(preferredSlot)) {
                     if (this.printData) {
@@ -580,27 +711,152 @@ public class SoftConstraint {
     }
 
     /**
-     * Evaluates a given schedule.
+     * Estimates the soft penalty of a partial schedule.
+     * Only the preference, pair and section penalties of the classes assigned so far are counted;
+     * the minimum-fill penalty is left out, as it can only be judged once the schedule is complete.
+     *
+     * @param pr partial schedule
+     * @return estimated Eval value of the assigned part
+     */
+    public int estimate(List<List<String>> pr) {
+        // Return max value if the schedule is null.
+        if (pr == null) {
+            return Integer.MAX_VALUE;
+        }
+        // Use the compiled soft constraints once they are available
+        BatchEvaluator batch = this.getBatchEvaluator();
+        return batch != null ? batch.estimate(pr) : this.estimateReference(pr);
+    }
+
+    /**
+     * Estimates the soft penalty of a partial schedule constraint by constraint, without the batch evaluator.
+     * This is the definition the batch evaluator is checked against; with printData enabled it also
+     * prints the penalty of every violated constraint.
+     *
+     * @param pr partial schedule
+     * @return estimated Eval value of the assigned part
+     */
+    int estimateReference(List<List<String>> pr) {
+        try {
+            List<List<String>> courses = pr.subList(0, this.numCourses);
+            List<List<String>> labs = pr.subList(this.numCourses, pr.size());
+            long total = (long) this.wPref * evalPref(courses, labs)
+                + (long) this.wPair * evalPair(courses, labs)
+                + (long) this.wSecDiff * evalSecDiff(courses);
+            return (int) Math.min(total, Integer.MAX_VALUE);
+        } catch (Exception e) {
+            System.out.println("Error occured at method estimate in SoftConstraint.java");
+            System.out.println(e.getMessage());
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Evaluates a given schedule, using the shared eval cache if it is enabled.
      *
      * @param pr schedule
      * @return Eval value
      */
     public int eval(List<List<String>> pr) {
+        if (pr == null || Scheduler.getEvalCache() == null) {
+            return this.evaluate(pr);
+        }
+        return this.eval(pr, Scheduler.getZobrist().hash(pr));
+    }
+
+    /**
+     * Evaluates a given schedule whose Zobrist hash is known, using the shared eval cache if it is enabled.
+     *
+     * @param pr schedule
+     * @param hash Zobrist hash of the schedule
+     * @return Eval value
+     */
+    public int eval(List<List<String>> pr, long hash) {
+        EvalCache cache = Scheduler.getEvalCache();
+        if (pr == null || cache == null) {
+            return this.evaluate(pr);
+        }
+        int check = pr.hashCode();
+        Integer cached = cache.get(hash, check);
+        if (cached != null) {
+            return cached;
+        }
+        int value = this.evaluate(pr);
+        cache.put(hash, check, value);
+        return value;
+    }
+
+    /**
+     * Returns the evaluator that scores encoded schedules in batches.
+     *
+     * @return the batch evaluator, or null if the problem instance is not fully loaded yet
+     */
+    public BatchEvaluator getBatchEvaluator() {
+        if (this.batchEvaluator == null && Scheduler.getConstr() != null) {
+            synchronized (this) {
+                if (this.batchEvaluator == null) {
+                    WarmStart reference = Scheduler.getReference();
+                    if (this.wPerturb != 0 && reference != null) {
+                        this.perturbation = new Perturbation(reference, Scheduler.getConstr(),
+                            this.penMoveCourse, this.penMoveLab);
+                    }
+                    this.batchEvaluator = new BatchEvaluator(
+                        new int[] {this.wMinFilled, this.wPref, this.wPair, this.wSecDiff, this.wPerturb},
+                        new int[] {this.penCourseMin, this.penLabMin, this.penNotPaired, this.penSection},
+                        this.perturbation);
+                }
+            }
+        }
+        return this.batchEvaluator;
+    }
+
+    /**
+     * Returns the distance to the reference schedule counted by the minimal-perturbation soft constraint.
+     *
+     * @return the distance, or null if wPerturb is 0, there is no reference schedule
+     *         or the problem instance is not fully loaded yet
+     */
+    public Perturbation getPerturbation() {
+        this.getBatchEvaluator();
+        return this.perturbation;
+    }
+
+    /**
+     * Evaluates a given schedule.
+     *
+     * @param pr schedule
+     * @return Eval value
+     */
+    private int evaluate(List<List<String>> pr) {
         // Return max value if the schedule is null.
         if (pr == null) {
             return Integer.MAX_VALUE;
         }
+        // Use the compiled soft constraints once they are available
+        BatchEvaluator batch = this.getBatchEvaluator();
+        return batch != null ? batch.eval(pr) : this.evaluateReference(pr);
+    }
+
+    /**
+     * Evaluates a given schedule constraint by constraint, without the batch evaluator.
+     * This is the definition the batch evaluator is checked against; with printData enabled it also
+     * prints the penalty of every violated constraint. The minimal-perturbation penalty is not included.
+     *
+     * @param pr schedule
+     * @return Eval value
+     */
+    int evaluateReference(List<List<String>> pr) {
         try {
             // Create sublists for courses and labs from the schedule list 'pr'
             List<List<String>> courses = new ArrayList<>(pr.subList(0, Scheduler.getCourses().size()));
             List<List<String>> labs = new ArrayList<>(pr.subList(Scheduler.getCourses().size(), pr.size()));
             // Calculate the weighted evaluation values for each soft constraint
-            int minVal = this.wMinFilled * evalMinFilled(courses, labs);
-            int prefVal = this.wPref * evalPref(courses, labs);
-            int pairVal = this.wPair * evalPair(courses, labs);
-            int secDiffVal = this.wSecDiff * evalSecDiff(courses);
-            // Sum and return the weighted evaluation values
-            return minVal + prefVal + pairVal + secDiffVal;
+            long minVal = (long) this.wMinFilled * evalMinFilled(courses, labs);
+            long prefVal = (long) this.wPref * evalPref(courses, labs);
+            long pairVal = (long) this.wPair * evalPair(courses, labs);
+            long secDiffVal = (long) this.wSecDiff * evalSecDiff(courses);
+            // Sum and return the weighted evaluation values, which an unparsable preference can push past int
+            return (int) Math.min(minVal + prefVal + pairVal + secDiffVal, Integer.MAX_VALUE);
         } catch (Exception e) {
             System.out.println("Error occured at method eval in SoftConstraint.java");
             System.out.println(e.getMessage());
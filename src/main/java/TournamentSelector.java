@@ -0,0 +1,67 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Selects a solution candidate from the generation using tournament selection:
+ * a number of candidates are drawn uniformly at random and the one with the lowest Eval value wins.
+ */
+public class TournamentSelector implements Selector {
+    private List<List<List<String>>> generation;
+    private int[] fitness;
+    private int tournamentSize;
+    private Random rand;
+    private int lastChoice = -1;
+
+    /**
+     * Constructor for the tournament selector.
+     * @param generation - the generation
+     * @param fitness - the eval value of each solution candidate, in generation order
+     * @param tournamentSize - the number of candidates drawn per selection
+     * @param rand - the random number generator
+     */
+    public TournamentSelector(List<List<List<String>>> generation, int[] fitness, int tournamentSize, Random rand) {
+        if (generation.size() == 0) {
+            throw new IllegalArgumentException("Generation "
+                + "must contain at least one solution candidate.");
+        }
+        this.generation = generation;
+        this.fitness = fitness;
+        this.tournamentSize = Math.max(1, tournamentSize);
+        this.rand = rand;
+    }
+
+    /**
+     * Get the last choice.
+     * @return last choice
+     */
+    public List<List<String>> getSelection() {
+        return this.lastChoice == -1 ? null : this.generation.get(this.lastChoice);
+    }
+
+    /**
+     * Select a solution candidate from the generation.
+     * @param ignoreFactIndex - the index of the fact to ignore
+     * @return index of the selected solution candidate
+     */
+    public int select(int ignoreFactIndex) {
+        int n = this.fitness.length;
+        boolean ignore = ignoreFactIndex >= 0 && ignoreFactIndex < n;
+        int candidates = ignore ? n - 1 : n;
+        this.lastChoice = -1;
+        if (candidates == 0) {
+            // This will cause the crossover method to return
+            return this.lastChoice;
+        }
+        for (int i = 0; i < this.tournamentSize; i++) {
+            // Draw among the other candidates by skipping over the ignored index
+            int choice = this.rand.nextInt(candidates);
+            if (ignore && choice >= ignoreFactIndex) {
+                choice++;
+            }
+            if (this.lastChoice == -1 || this.fitness[choice] < this.fitness[this.lastChoice]) {
+                this.lastChoice = choice;
+            }
+        }
+        return this.lastChoice;
+    }
+}
@@ -0,0 +1,234 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A schedule from a previous run, read back from its output file (or a past term's schedule in
+ * the same format) to start the search from instead of from scratch.
+ * Each line names a class and its slot, e.g. "CPSC 433 LEC 01 TUT 01 : TU, 10:00"; the Eval-value
+ * line and anything else without a slot is skipped. Classes the current input does not have, slots
+ * it does not offer and assignments that break a hard constraint are dropped, and the classes left
+ * unassigned are completed by the or-tree search.
+ */
+public class WarmStart {
+    // Number of attempts to complete the schedule, each freeing more classes, and the search steps per class
+    private static final int COMPLETE_ATTEMPTS = 4;
+    private static final int STEPS_PER_CLASS = 50;
+
+    private final String fileName;
+    // The day and time of each class of the file, e.g. [CPSC, 433, LEC, 01] -> [MO, 8:00]
+    private final Map<List<String>, List<String>> assignments = new LinkedHashMap<>();
+    private int kept;
+    private int dropped;
+    private int variants;
+
+    /**
+     * Constructor that reads a schedule file.
+     * @param fileName - The name of the file, e.g. a previous {@code <name>output.txt}.
+     * @throws IOException if the file cannot be read.
+     */
+    public WarmStart(String fileName) throws IOException {
+        this.fileName = fileName;
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int colon = line.indexOf(':');
+                int comma = line.lastIndexOf(',');
+                if (colon < 0 || comma < colon) {
+                    continue;
+                }
+                List<String> classIdentifier = Arrays.asList(line.substring(0, colon).trim().split("\\s+"));
+                String day = line.substring(colon + 1, comma).trim();
+                String time = WarmStart.normalizeTime(line.substring(comma + 1).trim());
+                this.assignments.put(classIdentifier, Arrays.asList(day, time));
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the schedule file.
+     * @return The file name.
+     */
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    /**
+     * Returns the number of classes in the schedule file.
+     * @return The number of classes.
+     */
+    public int size() {
+        return this.assignments.size();
+    }
+
+    /**
+     * Returns the day and time the schedule file gives a class.
+     * @param classIdentifier - The class identifier, e.g. [CPSC, 433, LEC, 01].
+     * @return The day and time, e.g. [MO, 8:00], or null if the file does not list the class.
+     */
+    public List<String> getDayTime(List<String> classIdentifier) {
+        return this.assignments.get(classIdentifier);
+    }
+
+    /**
+     * Returns a summary of the warm start, e.g. "180 classes kept, 3 re-assigned, 4 variants".
+     * @return The summary.
+     */
+    public String getSummary() {
+        return this.kept + " classes kept, " + this.dropped + " re-assigned, " + this.variants + " variants";
+    }
+
+    /**
+     * Builds the initial candidates: the schedule of the file, completed where needed,
+     * and perturbed variants of it.
+     * @param initialPR - The starting point of the search, with the partial assignments.
+     * @param count - The number of candidates wanted.
+     * @param rand - A random number generator.
+     * @return The candidates, each satisfying the hard constraints; empty if the schedule could not be completed.
+     */
+    public List<List<List<String>>> seeds(List<List<String>> initialPR, int count, Random rand) {
+        List<List<List<String>>> seeds = new ArrayList<>();
+        List<List<String>> schedule = WarmStart.complete(this.load(initialPR), initialPR, rand);
+        if (schedule == null) {
+            return seeds;
+        }
+        seeds.add(schedule);
+        LargeNeighbourhoodSearch lns = new LargeNeighbourhoodSearch(Scheduler.getLnsDestroySize(), rand);
+        for (int attempt = 0; seeds.size() < count && attempt < 2 * count; attempt++) {
+            List<List<String>> variant = lns.perturb(schedule);
+            if (variant != null) {
+                seeds.add(variant);
+                this.variants++;
+            }
+        }
+        return seeds;
+    }
+
+    /**
+     * Maps the schedule of the file onto the current input. The classes are taken in most-tightly-bound
+     * order and a class keeps its slot only if the schedule still satisfies the hard constraints with it.
+     * @param initialPR - The starting point of the search; its partial assignments take precedence.
+     * @return The partial assignment with the classes that could be kept.
+     */
+    public List<List<String>> load(List<List<String>> initialPR) {
+        HardConstraint constr = Scheduler.getConstr();
+        List<List<String>> mapped = new ArrayList<>(initialPR);
+        for (int i = 0; i < mapped.size(); i++) {
+            if (initialPR.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                mapped.set(i, this.slotOf(i));
+            }
+        }
+        // Interchangeable sections of the file may be in any order
+        mapped = constr.canonical(mapped);
+        List<List<String>> pr = new ArrayList<>(initialPR);
+        this.kept = 0;
+        this.dropped = 0;
+        for (int index : constr.getMostTightlyBoundIndices()) {
+            if (!initialPR.get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+                continue;
+            }
+            pr.set(index, mapped.get(index));
+            if (mapped.get(index).equals(Scheduler.UNASSIGNED_SLOT) || !constr.constrStar(pr)) {
+                pr.set(index, Scheduler.UNASSIGNED_SLOT);
+                this.dropped++;
+            } else {
+                this.kept++;
+            }
+        }
+        return pr;
+    }
+
+    /**
+     * Completes a partial assignment with the or-tree search. If the classes left unassigned cannot be
+     * completed within the step budget, a growing number of random classes is freed to make room,
+     * and as a last resort the whole schedule is searched again from the starting point.
+     * @param pr - The partial assignment.
+     * @param initialPR - The starting point of the search; classes assigned there are never moved.
+     * @param rand - A random number generator.
+     * @return A complete schedule satisfying the hard constraints, or null if none was found.
+     */
+    public static List<List<String>> complete(List<List<String>> pr, List<List<String>> initialPR, Random rand) {
+        HardConstraint constr = Scheduler.getConstr();
+        List<Integer> movable = new ArrayList<>();
+        Set<Integer> free = new HashSet<>();
+        for (int i = 0; i < pr.size(); i++) {
+            if (initialPR.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                movable.add(i);
+                if (pr.get(i).equals(Scheduler.UNASSIGNED_SLOT)) {
+                    free.add(i);
+                }
+            }
+        }
+        if (free.isEmpty()) {
+            return constr.constr(pr) ? pr : null;
+        }
+        for (int attempt = 0; attempt < WarmStart.COMPLETE_ATTEMPTS; attempt++) {
+            List<List<String>> partial = new ArrayList<>(pr);
+            ArrayList<Integer> order = new ArrayList<>(free.size());
+            for (int index : constr.getMostTightlyBoundIndices()) {
+                if (free.contains(index)) {
+                    partial.set(index, Scheduler.UNASSIGNED_SLOT);
+                    order.add(index);
+                }
+            }
+            OrTree tree = new OrTree(partial);
+            tree.setStepBudget((long) WarmStart.STEPS_PER_CLASS * order.size());
+            List<List<String>> completed = tree.search(order, rand);
+            if (completed != null) {
+                return completed;
+            }
+            // Free as many random classes again as are free now
+            int target = Math.min(movable.size(), 2 * free.size());
+            while (free.size() < target) {
+                free.add(movable.get(rand.nextInt(movable.size())));
+            }
+        }
+        if (Scheduler.isPrintData()) {
+            System.out.println("Unable to complete the previous schedule, searching from scratch");
+        }
+        ArrayList<Integer> order = new ArrayList<>();
+        for (int index : constr.getMostTightlyBoundIndices()) {
+            order.add(index);
+        }
+        return new OrTree(initialPR).search(order, rand);
+    }
+
+    /**
+     * Returns the slot of the current input that the file gives a class.
+     * @param classIndex - The index of the class in the PR list.
+     * @return The slot, or the unassigned slot if the file does not list the class or the input has no such slot.
+     */
+    public List<String> slotOf(int classIndex) {
+        List<String> dayTime = this.assignments.get(Scheduler.getClasses().get(classIndex));
+        if (dayTime == null) {
+            return Scheduler.UNASSIGNED_SLOT;
+        }
+        List<List<String>> slots = classIndex < Scheduler.getCourses().size()
+            ? Scheduler.getCourseSlots()
+            : Scheduler.getLabSlots();
+        for (List<String> slot : slots) {
+            if (slot.get(0).equals(dayTime.get(0)) && WarmStart.normalizeTime(slot.get(1)).equals(dayTime.get(1))) {
+                return slot;
+            }
+        }
+        return Scheduler.UNASSIGNED_SLOT;
+    }
+
+    /**
+     * Brings a time into the form of the input file, e.g. "08:00" to "8:00".
+     * @param time - The time.
+     * @return The time without a leading zero.
+     */
+    static String normalizeTime(String time) {
+        String trimmed = time.trim();
+        return trimmed.length() > 4 && trimmed.startsWith("0") ? trimmed.substring(1) : trimmed;
+    }
+}
@@ -0,0 +1,69 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hashing of schedules and partial schedules.
+ * Every (class, slot) assignment has a random 64-bit key and the hash of a schedule is the XOR of
+ * the keys of its assignments, so assigning or unassigning a class updates a hash in constant time.
+ * Unassigned classes do not contribute to the hash. Equal hashes only indicate equal schedules:
+ * a full comparison is still needed to rule out collisions (see {@link ScheduleKey}).
+ */
+public class Zobrist {
+    // Fixed seed, so hashes are reproducible between runs
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final long[][] keys;
+    private final HardConstraint constr;
+
+    /**
+     * Constructor for the Zobrist keys of the current problem instance.
+     * @param constr - The hard constraint evaluator used to look up slot indices.
+     */
+    public Zobrist(HardConstraint constr) {
+        this.constr = constr;
+        int numCourses = Scheduler.getCourses().size();
+        int numClasses = numCourses + Scheduler.getLabs().size();
+        SplittableRandom rand = new SplittableRandom(Zobrist.SEED);
+        this.keys = new long[numClasses][];
+        for (int i = 0; i < numClasses; i++) {
+            int numSlots = i < numCourses ? Scheduler.getCourseSlots().size() : Scheduler.getLabSlots().size();
+            this.keys[i] = new long[numSlots];
+            for (int j = 0; j < numSlots; j++) {
+                this.keys[i][j] = rand.nextLong();
+            }
+        }
+    }
+
+    /**
+     * Returns the key of an assignment.
+     * @param classIndex - The index of the class in the PR list.
+     * @param slotIndex - The index of the slot in the course or lab slots, or -1 if unassigned.
+     * @return The key, 0 if the class is unassigned.
+     */
+    public long key(int classIndex, int slotIndex) {
+        return slotIndex < 0 ? 0 : this.keys[classIndex][slotIndex];
+    }
+
+    /**
+     * Returns the key of an assignment.
+     * @param classIndex - The index of the class in the PR list.
+     * @param slot - The assigned slot, e.g. [MO, 8:00, 3, 2].
+     * @return The key, 0 if the class is unassigned.
+     */
+    public long key(int classIndex, List<String> slot) {
+        return this.key(classIndex, this.constr.slotIndex(classIndex, slot));
+    }
+
+    /**
+     * Computes the hash of a schedule from scratch.
+     * @param pr - The schedule or partial schedule.
+     * @return The hash.
+     */
+    public long hash(List<List<String>> pr) {
+        long hash = 0;
+        for (int i = 0; i < pr.size(); i++) {
+            hash ^= this.key(i, pr.get(i));
+        }
+        return hash;
+    }
+}
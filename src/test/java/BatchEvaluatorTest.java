@@ -0,0 +1,86 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BatchEvaluatorTest {
+
+    private SoftConstraint load(String configFileName, String fileName) {
+        assertNotNull(Scheduler.run(configFileName, fileName, false, 60000));
+        return Scheduler.getEval();
+    }
+
+    private List<List<String>> randomSchedule(Random rand, int unassignedPercent) {
+        int numCourses = Scheduler.getCourses().size();
+        List<List<String>> pr = new ArrayList<>();
+        for (int i = 0; i < Scheduler.getClasses().size(); i++) {
+            List<List<String>> slots = i < numCourses ? Scheduler.getCourseSlots() : Scheduler.getLabSlots();
+            pr.add(rand.nextInt(100) < unassignedPercent
+                ? Scheduler.UNASSIGNED_SLOT : slots.get(rand.nextInt(slots.size())));
+        }
+        return pr;
+    }
+
+    private void assertMatchesReference(SoftConstraint eval, long seed) {
+        BatchEvaluator batch = eval.getBatchEvaluator();
+        Random rand = new Random(seed);
+        List<List<List<String>>> population = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            List<List<String>> pr = this.randomSchedule(rand, 0);
+            assertEquals(eval.evaluateReference(pr), batch.eval(pr));
+            population.add(pr);
+            List<List<String>> partial = this.randomSchedule(rand, 40);
+            assertEquals(eval.estimateReference(partial), batch.estimate(partial));
+        }
+        // The encoded population gives the same values as the schedules one by one
+        int[] expected = population.stream().mapToInt(batch::eval).toArray();
+        assertArrayEquals(expected, batch.eval(batch.encode(population), population.size()));
+    }
+
+    @Test
+    public void testEvalMatchesReferenceOnRandomSchedules() {
+        this.assertMatchesReference(this.load("src/test/resources/config.txt", "deptinst1.txt"), 1);
+    }
+
+    @Test
+    public void testEvalMatchesReferenceWithOtherWeights() {
+        this.assertMatchesReference(this.load("src/test/resources/weights.txt", "deptinst1.txt"), 2);
+        this.assertMatchesReference(this.load("src/test/resources/weights.txt", "shortExample.txt"), 3);
+    }
+
+    @Test
+    public void testMarginalPenaltiesAreEvalDifferences() {
+        this.load("src/test/resources/weights.txt", "deptinst1.txt");
+        BatchEvaluator batch = Scheduler.getEval().getBatchEvaluator();
+        int numCourses = Scheduler.getCourses().size();
+        Random rand = new Random(4);
+        for (int i = 0; i < 200; i++) {
+            List<List<String>> pr = this.randomSchedule(rand, 50);
+            int classIndex = rand.nextInt(pr.size());
+            pr.set(classIndex, Scheduler.UNASSIGNED_SLOT);
+            int before = batch.eval(pr);
+            int[] penalties = batch.marginalPenalties(pr, classIndex);
+            List<List<String>> slots = classIndex < numCourses ? Scheduler.getCourseSlots() : Scheduler.getLabSlots();
+            assertEquals(slots.size(), penalties.length);
+            for (int s = 0; s < slots.size(); s++) {
+                pr.set(classIndex, slots.get(s));
+                assertEquals(batch.eval(pr) - before, penalties[s]);
+            }
+        }
+    }
+
+    @Test
+    public void testUnparsablePreferenceSaturates() {
+        // The preference penalty is Integer.MAX_VALUE, which must not wrap around when the others are added
+        SoftConstraint eval = this.load("src/test/resources/weights.txt", "src/test/resources/badPreference.txt");
+        List<List<String>> pr = Scheduler.getSolutionGenerator().getGeneration().get(0);
+        assertEquals(Integer.MAX_VALUE, eval.getBatchEvaluator().eval(pr));
+        assertEquals(Integer.MAX_VALUE, eval.evaluateReference(pr));
+        assertEquals(Integer.MAX_VALUE, eval.getBatchEvaluator().estimate(pr));
+    }
+}
@@ -0,0 +1,107 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlocksTest {
+
+    // Based on "src/test/resources/blocks.txt":
+    // Courses: 0 CPSC 231 LEC 01, 1 CPSC 331 LEC 01
+    // Course slots: 0 MO 8:00, 1 TU 9:30
+    // Labs: 2 CPSC 231 LEC 01 TUT 01, 3 CPSC 231 LEC 01 TUT 02, 4 CPSC 231 TUT 01 (open to every section)
+    // Lab slots: 0 MO 8:00, 1 TU 10:00, 2 FR 10:00, each with room for one lab
+
+    private HardConstraint constr;
+    private Blocks blocks;
+
+    @Before
+    public void setUp() throws Exception {
+        Scheduler.loadInput("src/test/resources/blocks.txt");
+        this.constr = new HardConstraint();
+        this.blocks = new Blocks(this.constr, Scheduler.getPresolve(),
+            new Propagator(this.constr, Scheduler.getPresolve()));
+    }
+
+    private List<List<String>> schedule(int courseIndex, int courseSlot, int... labAndSlot) {
+        List<List<String>> pr = new ArrayList<>(Collections.nCopies(Scheduler.getClasses().size(),
+            Scheduler.UNASSIGNED_SLOT));
+        pr.set(courseIndex, Scheduler.getCourseSlots().get(courseSlot));
+        for (int i = 0; i < labAndSlot.length; i += 2) {
+            pr.set(labAndSlot[i], Scheduler.getLabSlots().get(labAndSlot[i + 1]));
+        }
+        return pr;
+    }
+
+    private void assertBlockCompleted(List<List<String>> pr) {
+        assertTrue(this.constr.constrStar(pr));
+        for (int lab : this.blocks.getLabs(0)) {
+            assertNotEquals(Scheduler.UNASSIGNED_SLOT, pr.get(lab));
+            assertTrue(this.constr.lectureLabCompatible(pr.get(0), pr.get(lab)));
+        }
+    }
+
+    @Test
+    public void testBlocksHoldTheLabsOfTheSection() {
+        assertEquals(1, this.blocks.getNumBlocks());
+        assertTrue(this.blocks.isBlock(0));
+        assertFalse(this.blocks.isBlock(1));
+        assertFalse(this.blocks.isBlock(2));
+        // The lab open to every section of CPSC 231 stays a variable of its own
+        assertArrayEquals(new int[] {2, 3}, this.blocks.getLabs(0));
+    }
+
+    @Test
+    public void testCompleteAssignsLabsOutsideTheLecture() {
+        for (int courseSlot = 0; courseSlot < 2; courseSlot++) {
+            List<List<String>> pr = this.schedule(0, courseSlot);
+            assertTrue(this.blocks.complete(pr, 0, null));
+            this.assertBlockCompleted(pr);
+            // One lab per lab slot
+            assertNotEquals(pr.get(2), pr.get(3));
+        }
+    }
+
+    @Test
+    public void testCompleteWithRandomTieBreaks() {
+        Random rand = new Random(3);
+        for (int run = 0; run < 10; run++) {
+            List<List<String>> pr = this.schedule(0, 1);
+            assertTrue(this.blocks.complete(pr, 0, rand));
+            this.assertBlockCompleted(pr);
+        }
+    }
+
+    @Test
+    public void testCompleteLeavesScheduleUnchangedWithoutRoom() {
+        // The course-wide lab takes FR 10:00, and the lecture at MO 8:00 only leaves TU 10:00 for two labs
+        List<List<String>> pr = this.schedule(0, 0, 4, 2);
+        List<List<String>> before = new ArrayList<>(pr);
+        assertFalse(this.blocks.complete(pr, 0, null));
+        assertEquals(before, pr);
+        // Neither a lecture without labs nor an unassigned lecture is completed
+        assertFalse(this.blocks.complete(this.schedule(1, 0), 1, null));
+        List<List<String>> unassigned = this.schedule(1, 0);
+        assertFalse(this.blocks.complete(unassigned, 0, null));
+    }
+
+    @Test
+    public void testInheritCopiesTheLabsOfTheParent() {
+        List<List<String>> parent = this.schedule(0, 1, 2, 0, 3, 2);
+        List<List<String>> pr = this.schedule(0, 1);
+        assertTrue(this.blocks.inherit(pr, 0, parent));
+        assertEquals(parent, pr);
+        // With the lecture at MO 8:00, the lab at MO 8:00 overlaps it and nothing is copied
+        List<List<String>> overlapping = this.schedule(0, 0);
+        assertFalse(this.blocks.inherit(overlapping, 0, parent));
+        assertEquals(this.schedule(0, 0), overlapping);
+    }
+}
@@ -0,0 +1,63 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DecompositionTest {
+
+    private void assertSolution(List<List<String>> solution) {
+        assertTrue(Scheduler.getConstr().constr(solution));
+        List<List<String>> initialPR = Scheduler.getInitialPR();
+        for (int index = 0; index < initialPR.size(); index++) {
+            if (!initialPR.get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+                assertEquals(initialPR.get(index), solution.get(index));
+            }
+        }
+    }
+
+    @Test
+    public void testFindsIndependentComponents() {
+        // The eight sections of CPSC 231 and the eight sections of CPSC 331
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/components.txt",
+            false, 60000));
+        Decomposition decomposition = new Decomposition(Scheduler.getInitialPR());
+        assertEquals(2, decomposition.getNumTasks());
+        assertEquals("2 components in 2 tasks, largest component 8 classes", decomposition.getSummary());
+    }
+
+    @Test
+    public void testPacksSmallComponentsIntoOneTask() {
+        // CPSC 231 with its lab, CPSC 331 and CPSC 449
+        assertNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/pigeonhole.txt",
+            false, 60000));
+        Decomposition decomposition = new Decomposition(Scheduler.getInitialPR());
+        assertEquals(1, decomposition.getNumTasks());
+        assertEquals("3 components in 1 tasks, largest component 2 classes", decomposition.getSummary());
+        // The single task has no solution either
+        assertNull(decomposition.solve(Scheduler.getInitialPR(), new Random(1)));
+    }
+
+    @Test
+    public void testSolveRepairsOverfullSlots() {
+        // CPSC 231 can only be at MO 8:00, which fills up once the CPSC 331 task puts a section there too
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/components.txt",
+            false, 60000));
+        Decomposition decomposition = new Decomposition(Scheduler.getInitialPR());
+        for (int seed = 0; seed < 5; seed++) {
+            this.assertSolution(decomposition.solve(Scheduler.getInitialPR(), new Random(seed)));
+        }
+    }
+
+    @Test
+    public void testSolveCompletesDepartmentInstance() {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "deptinst1.txt", false, 60000));
+        Decomposition decomposition = new Decomposition(Scheduler.getInitialPR());
+        assertTrue(decomposition.getNumTasks() > 1);
+        this.assertSolution(decomposition.solve(Scheduler.getInitialPR(), new Random(2)));
+    }
+}
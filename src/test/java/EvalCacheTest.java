@@ -0,0 +1,95 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class EvalCacheTest {
+
+    // Hashes that are small multiples of 16 all fall into the first of the 16 stripes
+    private static final long A = 16;
+    private static final long B = 32;
+    private static final long C = 48;
+    private static final long D = 64;
+
+    @Test
+    public void testGetReturnsStoredValue() {
+        EvalCache cache = new EvalCache(64);
+        assertNull(cache.get(A, 1));
+        cache.put(A, 1, 10);
+        assertEquals(Integer.valueOf(10), cache.get(A, 1));
+        cache.put(A, 1, 11);
+        assertEquals(Integer.valueOf(11), cache.get(A, 1));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testSecondHashGuardsAgainstCollisions() {
+        EvalCache cache = new EvalCache(64);
+        cache.put(A, 1, 10);
+        assertNull(cache.get(A, 2));
+    }
+
+    @Test
+    public void testClockEvictsEntriesThatWereNotUsed() {
+        // Two entries per stripe
+        EvalCache cache = new EvalCache(32);
+        cache.put(A, 1, 1);
+        cache.put(B, 2, 2);
+        // A gets a second chance, B is evicted
+        cache.get(A, 1);
+        cache.put(C, 3, 3);
+        assertEquals(Integer.valueOf(1), cache.get(A, 1));
+        assertNull(cache.get(B, 2));
+        assertEquals(Integer.valueOf(3), cache.get(C, 3));
+        // The hand cleared A's bit on its way, and C was used last
+        cache.put(D, 4, 4);
+        assertNull(cache.get(A, 1));
+        assertEquals(Integer.valueOf(3), cache.get(C, 3));
+        assertEquals(Integer.valueOf(4), cache.get(D, 4));
+    }
+
+    @Test
+    public void testComputedValuesCountAsMisses() {
+        EvalCache cache = new EvalCache(64);
+        cache.putComputed(A, 1, 10);
+        cache.putComputed(B, 2, 20);
+        assertEquals(Integer.valueOf(10), cache.get(A, 1));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals("1/3 lookups hit (33.3%)", cache.getHitRate());
+    }
+
+    @Test
+    public void testConcurrentUseKeepsValuesConsistent() throws InterruptedException {
+        EvalCache cache = new EvalCache(1024);
+        AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    long hash = (i * 31L + offset) % 4096;
+                    Integer cached = cache.get(hash, (int) hash);
+                    if (cached == null) {
+                        cache.put(hash, (int) hash, (int) (hash * 7));
+                    } else if (cached != hash * 7) {
+                        wrong.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+        assertEquals(8 * 20000, cache.getHits() + cache.getMisses());
+    }
+}
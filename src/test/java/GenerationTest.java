@@ -0,0 +1,74 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GenerationTest {
+
+    private Population population(int[] fitness) {
+        Population population = new HeapPopulation();
+        for (int i = 0; i < fitness.length; i++) {
+            List<List<String>> schedule = Collections.singletonList(Collections.singletonList(String.valueOf(i)));
+            population.add(schedule, fitness[i], i);
+        }
+        return population;
+    }
+
+    private void assertWorstFirst(Population population, int[] indices, int k) {
+        int[] selected = indices.clone();
+        Generation.selectWorst(population, selected, k);
+        // The same individuals, reordered
+        int[] sortedIndices = indices.clone();
+        Arrays.sort(sortedIndices);
+        int[] sortedSelected = selected.clone();
+        Arrays.sort(sortedSelected);
+        assertArrayEquals(sortedIndices, sortedSelected);
+        // The first k eval values are the k highest of a full sort
+        int[] expected = Arrays.stream(indices).map(population::getFitness).sorted().toArray();
+        int[] worst = Arrays.copyOfRange(expected, expected.length - k, expected.length);
+        int[] actual = Arrays.stream(selected, 0, k).map(population::getFitness).sorted().toArray();
+        assertArrayEquals(worst, actual);
+        for (int i = k; i < selected.length; i++) {
+            assertTrue(population.getFitness(selected[i]) <= worst[0]);
+        }
+    }
+
+    @Test
+    public void testSelectWorstMatchesFullSort() {
+        Random rand = new Random(1);
+        for (int round = 0; round < 500; round++) {
+            int size = 1 + rand.nextInt(60);
+            // A small range of eval values gives many ties
+            int range = 1 + rand.nextInt(round % 2 == 0 ? 5 : 1000);
+            int[] fitness = new int[size];
+            for (int i = 0; i < size; i++) {
+                fitness[i] = rand.nextInt(range);
+            }
+            int[] indices = new int[size];
+            Arrays.setAll(indices, i -> i);
+            this.assertWorstFirst(this.population(fitness), indices, 1 + rand.nextInt(size));
+        }
+    }
+
+    @Test
+    public void testSelectWorstOfSomeIndividuals() {
+        Population population = this.population(new int[] {9, 1, 8, 2, 7, 3, 6, 4});
+        // Individual 0 is the worst overall, but not among the candidates
+        this.assertWorstFirst(population, new int[] {1, 2, 3, 5, 6, 7}, 2);
+    }
+
+    @Test
+    public void testSelectWorstOfSortedAndEqualIndividuals() {
+        this.assertWorstFirst(this.population(new int[] {1, 2, 3, 4, 5, 6, 7, 8}),
+            new int[] {0, 1, 2, 3, 4, 5, 6, 7}, 3);
+        this.assertWorstFirst(this.population(new int[] {8, 7, 6, 5, 4, 3, 2, 1}),
+            new int[] {0, 1, 2, 3, 4, 5, 6, 7}, 3);
+        this.assertWorstFirst(this.population(new int[] {5, 5, 5, 5, 5}),
+            new int[] {0, 1, 2, 3, 4}, 2);
+    }
+}
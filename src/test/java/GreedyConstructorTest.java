@@ -0,0 +1,65 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class GreedyConstructorTest {
+
+    private void assertSolution(List<List<String>> solution) {
+        assertNotNull(solution);
+        assertTrue(Scheduler.getConstr().constr(solution));
+        List<List<String>> initialPR = Scheduler.getInitialPR();
+        for (int index = 0; index < initialPR.size(); index++) {
+            if (!initialPR.get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+                assertEquals(initialPR.get(index), solution.get(index));
+            }
+        }
+    }
+
+    @Test
+    public void testConstructsCompleteSchedules() {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "deptinst1.txt", false, 60000));
+        GreedyConstructor greedy = new GreedyConstructor(Scheduler.getInitialPR());
+        Random rand = new Random(5);
+        int built = 0;
+        for (int i = 0; i < 10; i++) {
+            List<List<String>> schedule = greedy.construct(rand);
+            if (schedule != null) {
+                this.assertSolution(schedule);
+                built++;
+            }
+        }
+        assertTrue(built > 0);
+        assertEquals(built + " schedules built, " + (10 - built) + " stuck", greedy.getSummary());
+    }
+
+    @Test
+    public void testNoiseFreeScheduleIsDeterministic() {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "deptinst1.txt", false, 60000));
+        List<List<String>> first = new GreedyConstructor(Scheduler.getInitialPR()).construct(null);
+        this.assertSolution(first);
+        assertEquals(first, new GreedyConstructor(Scheduler.getInitialPR()).construct(null));
+    }
+
+    @Test
+    public void testGetsStuckWithoutSolution() {
+        // Three courses for two places, which the presolve does not see
+        assertNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/pigeonhole.txt", false, 60000));
+        GreedyConstructor greedy = new GreedyConstructor(Scheduler.getInitialPR());
+        assertNull(greedy.construct(new Random(1)));
+        assertNull(greedy.construct(null));
+        assertEquals("0 schedules built, 2 stuck", greedy.getSummary());
+    }
+
+    @Test
+    public void testGreedySeedMode() {
+        assertNotNull(Scheduler.run("src/test/resources/greedyConfig.txt", "deptinst1.txt", false, 60000));
+        assertEquals(GreedyConstructor.SeedMode.GREEDY, Scheduler.getSeedMode());
+        this.assertSolution(Scheduler.getSolutionGenerator().getGeneration().get(0));
+    }
+}
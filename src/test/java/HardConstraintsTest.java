@@ -8,6 +8,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 
 
@@ -16,6 +17,8 @@ public class HardConstraintsTest {
 	// ALL OF THESE TESTS ARE BASED ON "shortExample.txt"
 	// MAY REQUIRE ALTERING of privated methods for tests to run.
 	
+    private HardConstraint constr;
+
     @Before
     public void testParser() { // will parse the "shortExample.txt" file
         // Provide the path to your test file
@@ -23,33 +26,12 @@ public class HardConstraintsTest {
         String fileName = "shortExample.txt";
     	// for my mac laptop:
     	//String fileName = "/Users/mibrahimkhan/Documents/GitHub/CPSC-433-Bin/src/main/java/shortExample.txt";
-        // Create a new instance of the Parser
-        Parser parser = new Parser(fileName);
-        Scheduler.parser = parser;
         try {
-            // Parse the file
-            parser.parse();
+            // Parse the file and apply the special rules
+            Scheduler.loadInput(fileName);
             // Test various aspects of the parsed data
-            assertEquals("ShortExample", parser.getName());
-            // Add more assertions for other data structures as needed
-            Scheduler.courseSlots = Scheduler.parser.getCourseSlots();
-            Scheduler.labSlots = Scheduler.parser.getLabSlots();
-            Scheduler.courses = Scheduler.parser.getCourses();
-            Scheduler.labs = Scheduler.parser.getLabs();
-            Scheduler.notCompatible = Scheduler.parser.getNotCompatible();
-            Scheduler.unwanted = Scheduler.parser.getUnwanted();
-            Scheduler.preferences = Scheduler.parser.getPreferences();
-            Scheduler.pairs = Scheduler.parser.getPairs();
-            Scheduler.partialAssignments = Scheduler.parser.getPartAssign();
-
-            Scheduler.slots = new ArrayList<>(Scheduler.courseSlots);
-            Scheduler.slots.addAll(Scheduler.labSlots);
-            Scheduler.classes = new ArrayList<>(Scheduler.courses);            		
-            Scheduler.classes.addAll(Scheduler.labs);
-            
-            Scheduler.constr = new HardConstraint();
-            
-            
+            assertEquals("ShortExample", Scheduler.getParser().getName());
+            this.constr = new HardConstraint();
         } catch (Exception e) {
             fail("Exception thrown during parsing: " + e.getMessage());
         }
@@ -73,7 +55,7 @@ public class HardConstraintsTest {
 				    Arrays.asList("MO", "10:00", "2", "1")
 				);
 		
-		assertFalse(Scheduler.getConstr().checkMax(coursesList, labsList)); // should return false as the slots have been exceeded
+		assertFalse(this.constr.checkMax(coursesList, labsList)); // should return false as the slots have been exceeded
 	}
     
     @Test
@@ -90,7 +72,7 @@ public class HardConstraintsTest {
    				    Arrays.asList("MO", "10:00", "2", "1")
    				);
    		
-   		assertTrue(Scheduler.getConstr().checkMax(coursesList, labsList)); // should return TRUE as no slots have been exceeded
+   		assertTrue(this.constr.checkMax(coursesList, labsList)); // should return TRUE as no slots have been exceeded
    	}
     
     
@@ -110,7 +92,7 @@ public class HardConstraintsTest {
 				   Arrays.asList("MO", "8:00", "4", "2")
 				);
 		 
-		 assertFalse(Scheduler.getConstr().checkMax(coursesList, labsList)); // should return false as the labmax has been exceeded
+		 assertFalse(this.constr.checkMax(coursesList, labsList)); // should return false as the labmax has been exceeded
 	}
     
     @Test
@@ -126,7 +108,7 @@ public class HardConstraintsTest {
 				    Arrays.asList("MO", "8:00", "4", "2")
 				);
 		 
-		 assertTrue(Scheduler.getConstr().checkMax(coursesList, labsList)); // should return TRUE as the labmax for monday at 08:00 am has NOT been exceeded
+		 assertTrue(this.constr.checkMax(coursesList, labsList)); // should return TRUE as the labmax for monday at 08:00 am has NOT been exceeded
 	}
     
 
@@ -150,7 +132,7 @@ public class HardConstraintsTest {
 				);
 		 
 		 // note here that the CPSC LEC 01 course and lab have been assigned same time, so should return false
-    	assertFalse(Scheduler.getConstr().checkCourseLabAssignmentUnequal(coursesList, labsList));
+    	assertFalse(this.constr.checkCourseLabAssignmentUnequal(coursesList, labsList));
 	}
 	
     
@@ -174,7 +156,7 @@ public class HardConstraintsTest {
 				);
 		 
 		 // note here that NO lab and course have been assigned the same time together, so should return TRUE with no conflicts
-    	assertTrue(Scheduler.getConstr().checkCourseLabAssignmentUnequal(coursesList, labsList));
+    	assertTrue(this.constr.checkCourseLabAssignmentUnequal(coursesList, labsList));
 	}
 	
 	
@@ -223,7 +205,7 @@ public class HardConstraintsTest {
 				);
 		
 		 // should return false as cpsc 433 lec 01 and cpsc 567 lec 01 have been assigned same slot
-		assertFalse(Scheduler.getConstr().checkNotCompatible(coursesList, labsList));
+		assertFalse(this.constr.checkNotCompatible(coursesList, labsList));
 	}
 	
 	
@@ -257,7 +239,7 @@ public class HardConstraintsTest {
 				);
 		
 		 // should return TRUE as NO uncompatible courses/labs have been assigned same slot
-		assertTrue(Scheduler.getConstr().checkNotCompatible(coursesList, labsList));
+		assertTrue(this.constr.checkNotCompatible(coursesList, labsList));
 	}
 	
 
@@ -294,7 +276,7 @@ public class HardConstraintsTest {
 					Arrays.asList("MO", "08:00", "2", "2") // cpsc 433 lec 01 tut 01
 						);
 				 
-		 assertFalse(Scheduler.getConstr().checkUnwanted(coursesList, labsList)); // should return false as we have a unwanted assignment	
+		 assertFalse(this.constr.checkUnwanted(coursesList, labsList)); // should return false as we have a unwanted assignment	
 	}
 	
 	
@@ -318,7 +300,7 @@ public class HardConstraintsTest {
 					Arrays.asList("MO", "08:00", "2", "2") // cpsc 433 lec 01 tut 01
 						);
 				 
-		 assertTrue(Scheduler.getConstr().checkUnwanted(coursesList, labsList)); // should return TRUE as we have NO UNWANTED ASSIGNMENTS.
+		 assertTrue(this.constr.checkUnwanted(coursesList, labsList)); // should return TRUE as we have NO UNWANTED ASSIGNMENTS.
 }
 
 	// REFER TO TIFFANY BRANCH FOR TEST ON THIS.
@@ -347,7 +329,7 @@ public void doPartialAssignmentPassCheck() { //if partial assignment in input, t
 			);
 		
 		
-		 assertTrue(Scheduler.getConstr().checkPartialAssignment(coursesList, labsList));
+		 assertTrue(this.constr.checkPartialAssignment(coursesList, labsList));
 	}
 	
 	@Test
@@ -376,7 +358,7 @@ public void doPartialAssignmentPassCheck() { //if partial assignment in input, t
 			);
 		
 		
-		 assertFalse(Scheduler.getConstr().checkPartialAssignment(coursesList, labsList));
+		 assertFalse(this.constr.checkPartialAssignment(coursesList, labsList));
 	}
 	
 	
@@ -411,16 +393,19 @@ public void doPartialAssignmentPassCheck() { //if partial assignment in input, t
 	}
 	
 	@Test
+	@Ignore("Not yet implemented")
 	public void test500Level() { // All courses (course sections) on the 500-level have to be scheduled into different time slots.
 		fail("Not yet implemented");
 	}
 	
 	@Test
+	@Ignore("Not yet implemented")
 	public void testTuesdayNoCourses() { // No courses can be scheduled at tuesdays 11:00-12:30.
 		fail("Not yet implemented");
 	}
 	
 	@Test
+	@Ignore("Not yet implemented")
 	public void testSpecialCourses() { // There are two special "courses" CPSC 813 and CPSC 913 that have to be scheduled tuesdays/thursdays 18:00-19:00 and CPSC 813 is not allowed to overlap with any labs/tutorials of CPSC 313 or with any course section of CPSC 313 (and transitively with any other courses that are not allowed to overlap with CPSC 313) and CPSC 913 is not allowed to overlap with any labs/tutorials of CPSC 413 or with any course section of CPSC 413 (and transitively with any other courses that are not allowed to overlap with CPSC 413).
 		fail("Not yet implemented");
 	}
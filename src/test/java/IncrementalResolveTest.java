@@ -0,0 +1,59 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IncrementalResolveTest {
+
+    // Based on "src/test/resources/symmetry.txt" and its schedule "src/test/resources/symmetryReference.txt":
+    // Courses: 0 CPSC 231 LEC 01 at MO 9:00, 1 CPSC 231 LEC 02 at MO 8:00, 2 CPSC 331 LEC 01 at TU 9:30
+    // Labs: 3 CPSC 231 TUT 01 at FR 10:00
+    // "src/test/resources/symmetryEdited.txt" makes TU 9:30 unwanted for CPSC 331 LEC 01
+
+    private static final String PREVIOUS_INPUT = "src/test/resources/symmetry.txt";
+    private static final String PREVIOUS_OUTPUT = "src/test/resources/symmetryReference.txt";
+
+    @Test
+    public void testUnchangedInputKeepsPreviousSchedule() throws Exception {
+        String previous = IncrementalResolveTest.PREVIOUS_INPUT;
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", previous, false, 60000));
+        IncrementalResolve resolve = new IncrementalResolve(previous, IncrementalResolveTest.PREVIOUS_OUTPUT, previous);
+        List<List<String>> solution = resolve.resolve(Scheduler.getInitialPR(), new Random(1));
+        assertEquals("0 classes changed, 0 re-assigned", resolve.getSummary());
+        for (int i = 0; i < solution.size(); i++) {
+            assertEquals(resolve.getPreviousSchedule().slotOf(i), solution.get(i));
+        }
+    }
+
+    @Test
+    public void testReassignsOnlyChangedClasses() throws Exception {
+        String current = "src/test/resources/symmetryEdited.txt";
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", current, false, 60000));
+        IncrementalResolve resolve = new IncrementalResolve(IncrementalResolveTest.PREVIOUS_INPUT,
+            IncrementalResolveTest.PREVIOUS_OUTPUT, current);
+        List<List<String>> solution = resolve.resolve(Scheduler.getInitialPR(), new Random(2));
+        assertTrue(Scheduler.getConstr().constr(solution));
+        assertEquals("1 classes changed, 1 re-assigned", resolve.getSummary());
+        // CPSC 331 LEC 01 moves away from TU 9:30, every other class stays
+        assertNotEquals(Scheduler.getCourseSlots().get(2), solution.get(2));
+        assertEquals(Scheduler.getCourseSlots().get(1), solution.get(0));
+        assertEquals(Scheduler.getCourseSlots().get(0), solution.get(1));
+        assertEquals(Scheduler.getLabSlots().get(1), solution.get(3));
+    }
+
+    @Test
+    public void testRunReSolvesFromPreviousOutput() {
+        String output = Scheduler.run("src/test/resources/resolveConfig.txt", "src/test/resources/symmetryEdited.txt",
+            false, 60000);
+        assertNotNull(output);
+        assertFalse(output.contains("CPSC 331 LEC 01                    : TU, 09:30"));
+        // The previous schedule is the reference the moves are measured against
+        assertEquals(IncrementalResolveTest.PREVIOUS_OUTPUT, Scheduler.getReference().getFileName());
+    }
+}
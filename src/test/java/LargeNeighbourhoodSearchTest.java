@@ -0,0 +1,89 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LargeNeighbourhoodSearchTest {
+
+    // Based on "deptinst1.txt", solved with the short run of "src/test/resources/config.txt"
+
+    private HardConstraint constr;
+    private SoftConstraint eval;
+    private List<List<String>> incumbent;
+
+    @Before
+    public void setUp() {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "deptinst1.txt", false, 60000));
+        this.constr = Scheduler.getConstr();
+        this.eval = Scheduler.getEval();
+        this.incumbent = Collections.min(Scheduler.getSolutionGenerator().getGeneration(),
+            Comparator.comparingInt(this.eval::eval));
+    }
+
+    @Test
+    public void testImproveStaysFeasibleAndNeverWorsens() {
+        LargeNeighbourhoodSearch lns = new LargeNeighbourhoodSearch(5, new Random(1));
+        List<List<String>> improved = lns.improve(this.incumbent, 100);
+        assertTrue(this.constr.constr(improved));
+        assertTrue(this.eval.eval(improved) <= this.eval.eval(this.incumbent));
+    }
+
+    @Test
+    public void testRepairOnlyMovesTheDestroyedClasses() {
+        LargeNeighbourhoodSearch lns = new LargeNeighbourhoodSearch(5, new Random(2));
+        Random rand = new Random(3);
+        for (int i = 0; i < 20; i++) {
+            Set<Integer> indices = new HashSet<>();
+            while (indices.size() < 5) {
+                int index = rand.nextInt(this.incumbent.size());
+                if (Scheduler.getInitialPR().get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+                    indices.add(index);
+                }
+            }
+            List<List<String>> repaired = lns.repair(this.incumbent, indices);
+            // The incumbent itself completes the destroyed schedule, so a repair always exists
+            assertTrue(this.constr.constr(repaired));
+            for (int index = 0; index < this.incumbent.size(); index++) {
+                if (!indices.contains(index)) {
+                    assertEquals(this.incumbent.get(index), repaired.get(index));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPerturbKeepsPartialAssignments() {
+        LargeNeighbourhoodSearch lns = new LargeNeighbourhoodSearch(10, new Random(4));
+        List<List<String>> initialPR = Scheduler.getInitialPR();
+        List<List<String>> schedule = this.incumbent;
+        for (int i = 0; i < 20; i++) {
+            List<List<String>> perturbed = lns.perturb(schedule);
+            if (perturbed == null) {
+                continue;
+            }
+            assertTrue(this.constr.constr(perturbed));
+            for (int index = 0; index < initialPR.size(); index++) {
+                if (!initialPR.get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+                    assertEquals(initialPR.get(index), perturbed.get(index));
+                }
+            }
+            schedule = perturbed;
+        }
+    }
+
+    @Test
+    public void testRepairWithoutDestroyedClassesFails() {
+        LargeNeighbourhoodSearch lns = new LargeNeighbourhoodSearch(5, new Random(5));
+        assertNull(lns.repair(this.incumbent, new HashSet<>()));
+    }
+}
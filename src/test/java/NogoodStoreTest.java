@@ -0,0 +1,114 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NogoodStoreTest {
+
+    // Based on "shortExample.txt":
+    // Courses: 0 CPSC 433 LEC 01, 1 CPSC 433 LEC 02, 2 SENG 311 LEC 01, 3 CPSC 567 LEC 01
+    // Course slots: 0 MO 8:00, 1 MO 9:00, 2 TU 9:30
+    // CPSC 567 LEC 01 is not compatible with CPSC 433 LEC 01 and LEC 02, CPSC 433 LEC 01 is unwanted at MO 8:00
+
+    private HardConstraint constr;
+    private NogoodStore nogoods;
+
+    @Before
+    public void setUp() throws Exception {
+        Scheduler.loadInput("shortExample.txt");
+        this.constr = new HardConstraint();
+        this.nogoods = new NogoodStore(this.constr);
+    }
+
+    private List<List<String>> schedule(Object... indexAndSlot) {
+        List<List<String>> pr = new ArrayList<>(Collections.nCopies(Scheduler.getClasses().size(),
+            Scheduler.UNASSIGNED_SLOT));
+        for (int i = 0; i < indexAndSlot.length; i += 2) {
+            pr.set((Integer) indexAndSlot[i], Scheduler.getCourseSlots().get((Integer) indexAndSlot[i + 1]));
+        }
+        return pr;
+    }
+
+    @Test
+    public void testLiteralPacksClassAndSlot() {
+        long literal = NogoodStore.literal(3, 5);
+        assertEquals(3, (int) (literal >>> 32));
+        assertEquals(5, (int) literal);
+        assertTrue(NogoodStore.literal(3, 5) < NogoodStore.literal(4, 0));
+    }
+
+    @Test
+    public void testAddIgnoresDuplicatesInAnyOrder() {
+        long[] nogood = {NogoodStore.literal(0, 1), NogoodStore.literal(3, 1)};
+        assertTrue(this.nogoods.add(nogood));
+        assertFalse(this.nogoods.add(new long[] {nogood[1], nogood[0]}));
+        assertFalse(this.nogoods.add(new long[0]));
+        assertEquals(1, this.nogoods.size());
+    }
+
+    @Test
+    public void testAddSkipsLargeNogoods() {
+        long[] nogood = new long[7];
+        for (int i = 0; i < nogood.length; i++) {
+            nogood[i] = NogoodStore.literal(i, 0);
+        }
+        assertFalse(this.nogoods.add(nogood));
+        assertEquals(0, this.nogoods.size());
+    }
+
+    @Test
+    public void testBlockingOnlyWhenTheOtherLiteralsHold() {
+        long[] nogood = {NogoodStore.literal(0, 1), NogoodStore.literal(3, 1)};
+        this.nogoods.add(nogood);
+        // CPSC 567 LEC 01 is at MO 9:00, so CPSC 433 LEC 01 may not go there
+        assertNotNull(this.nogoods.blocking(this.schedule(3, 1), 0, 1));
+        // Another slot, or CPSC 567 LEC 01 elsewhere, is not ruled out
+        assertNull(this.nogoods.blocking(this.schedule(3, 1), 0, 2));
+        assertNull(this.nogoods.blocking(this.schedule(3, 2), 0, 1));
+        assertNull(this.nogoods.blocking(this.schedule(), 0, 1));
+    }
+
+    @Test
+    public void testViolates() {
+        this.nogoods.add(new long[] {NogoodStore.literal(0, 1), NogoodStore.literal(3, 1)});
+        assertTrue(this.nogoods.violates(this.schedule(0, 1, 3, 1)));
+        assertFalse(this.nogoods.violates(this.schedule(0, 1)));
+        assertFalse(this.nogoods.violates(this.schedule(0, 1, 3, 2)));
+    }
+
+    @Test
+    public void testExplainNotCompatibleConflict() {
+        // CPSC 433 LEC 01 and CPSC 567 LEC 01 are not compatible, so both at MO 9:00 fails because of 567
+        List<List<String>> pr = this.schedule(0, 1, 3, 1);
+        assertFalse(this.constr.constrStar(pr));
+        assertArrayEquals(new int[] {3}, this.constr.explainConflict(pr, 0));
+    }
+
+    @Test
+    public void testExplainUnaryConflict() {
+        // CPSC 433 LEC 01 is unwanted at MO 8:00 whatever else is assigned
+        assertArrayEquals(new int[0], this.constr.explainConflict(this.schedule(0, 0), 0));
+    }
+
+    @Test
+    public void testExplainIgnoresConflictsOfOtherClasses() {
+        // CPSC 433 LEC 02 and CPSC 567 LEC 01 clash at TU 9:30, which CPSC 433 LEC 01 at MO 9:00 does not cause
+        List<List<String>> pr = this.schedule(0, 1, 1, 2, 3, 2);
+        assertFalse(this.constr.constrStar(pr));
+        assertNull(this.constr.explainConflict(pr, 0));
+    }
+
+    @Test
+    public void testExplainUnassignedClass() {
+        assertNull(this.constr.explainConflict(this.schedule(3, 1), 0));
+    }
+}
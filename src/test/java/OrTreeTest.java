@@ -0,0 +1,155 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OrTreeTest {
+
+    // Based on "deptinst1.txt", with the options of "src/test/resources/config.txt"
+
+    private HardConstraint constr;
+    private List<List<String>> initialPR;
+
+    @Before
+    public void setUp() {
+        this.load("deptinst1.txt");
+    }
+
+    private void load(String fileName) {
+        this.load("src/test/resources/config.txt", fileName);
+    }
+
+    private void load(String configFileName, String fileName) {
+        assertNotNull(Scheduler.run(configFileName, fileName, false, 60000));
+        this.constr = Scheduler.getConstr();
+        this.initialPR = Scheduler.getInitialPR();
+    }
+
+    private ArrayList<Integer> order() {
+        ArrayList<Integer> order = new ArrayList<>();
+        for (int index : this.constr.getMostTightlyBoundIndices()) {
+            order.add(index);
+        }
+        return order;
+    }
+
+    private void assertSolution(List<List<String>> solution) {
+        assertTrue(this.constr.constr(solution));
+        for (int index = 0; index < this.initialPR.size(); index++) {
+            if (!this.initialPR.get(index).equals(Scheduler.UNASSIGNED_SLOT)) {
+                assertEquals(this.initialPR.get(index), solution.get(index));
+            }
+        }
+    }
+
+    @Test
+    public void testBestFirstFindsCompleteSchedule() {
+        Scheduler.setSearchMode(OrTree.SearchMode.BEST_FIRST);
+        this.assertSolution(new OrTree(this.initialPR).search(this.order(), new Random(1)));
+    }
+
+    @Test
+    public void testBestFirstWithSoftEstimateFindsCompleteSchedule() {
+        // The soft penalties of deptinst1.txt outweigh the unassigned classes, so use the short example
+        this.load("shortExample.txt");
+        Scheduler.setSearchMode(OrTree.SearchMode.BEST_FIRST);
+        Scheduler.setSoftEstimateWeight(1);
+        this.assertSolution(new OrTree(this.initialPR).search(this.order(), new Random(2)));
+    }
+
+    @Test
+    public void testBestFirstFromViolatingScheduleFails() {
+        // A lecture and its own lab at the same time, MO 8:00
+        Scheduler.setSearchMode(OrTree.SearchMode.BEST_FIRST);
+        int courseIndex = this.constr.classIndex(List.of("CPSC", "231", "LEC", "01"));
+        int labIndex = this.constr.classIndex(List.of("CPSC", "231", "LEC", "01", "TUT", "01"));
+        List<List<String>> pr = new ArrayList<>(this.initialPR);
+        pr.set(courseIndex, Scheduler.getCourseSlots().get(0));
+        pr.set(labIndex, Scheduler.getLabSlots().get(0));
+        assertFalse(this.constr.constrStar(pr));
+        assertNull(new OrTree(pr).search(this.order(), new Random(3)));
+    }
+
+    @Test
+    public void testSearchWithRestartsFindsCompleteSchedule() {
+        Scheduler.setRestartStrategy(RestartPolicy.Strategy.LUBY);
+        Scheduler.setRestartBase(50);
+        this.assertSolution(new OrTree(this.initialPR).search(this.order(), new Random(6)));
+    }
+
+    @Test
+    public void testBestFirstWithRestartsFindsCompleteSchedule() {
+        Scheduler.setSearchMode(OrTree.SearchMode.BEST_FIRST);
+        Scheduler.setRestartStrategy(RestartPolicy.Strategy.GEOMETRIC);
+        Scheduler.setRestartBase(50);
+        Scheduler.setRestartFactor(2.0);
+        this.assertSolution(new OrTree(this.initialPR).search(this.order(), new Random(7)));
+    }
+
+    @Test
+    public void testLazyAndEagerSearchFindCompleteSchedules() {
+        assertTrue(Scheduler.getLazySuccessors());
+        this.assertSolution(new OrTree(this.initialPR).search(this.order(), new Random(8)));
+        Scheduler.setLazySuccessors(false);
+        this.assertSolution(new OrTree(this.initialPR).search(this.order(), new Random(8)));
+    }
+
+    @Test
+    public void testLazyAndEagerSearchExhaustTheTree() {
+        // Three courses for two places, which only the search finds out
+        assertNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/pigeonhole.txt", false, 60000));
+        this.constr = Scheduler.getConstr();
+        this.initialPR = Scheduler.getInitialPR();
+        assertNull(new OrTree(this.initialPR).search(this.order(), new Random(9)));
+        Scheduler.setLazySuccessors(false);
+        assertNull(new OrTree(this.initialPR).search(this.order(), new Random(9)));
+    }
+
+    @Test
+    public void testSoftPenaltyOrderingFindsCompleteSchedules() {
+        Scheduler.setValueOrdering(OrTree.ValueOrdering.SOFT_PENALTY);
+        this.assertSolution(new OrTree(this.initialPR).search(this.order(), new Random(10)));
+        Scheduler.setLazySuccessors(false);
+        this.assertSolution(new OrTree(this.initialPR).search(this.order(), new Random(11)));
+    }
+
+    @Test
+    public void testBeamReturnsFeasibleSchedulesBestFirst() {
+        // A narrow beam dies out on deptinst1.txt, so use the short example
+        this.load("shortExample.txt");
+        List<List<List<String>>> solutions = new OrTree(this.initialPR).searchBeam(this.order(), 5, new Random(4));
+        assertFalse(solutions.isEmpty());
+        assertTrue(solutions.size() <= 5);
+        SoftConstraint eval = Scheduler.getEval();
+        for (int i = 0; i < solutions.size(); i++) {
+            this.assertSolution(solutions.get(i));
+            if (i > 0) {
+                assertTrue(eval.eval(solutions.get(i - 1)) <= eval.eval(solutions.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testBeamInBlockModeKeepsTheHashOfEachNode() {
+        // The labs are placed with their lectures, so the beam reaches them already assigned
+        this.load("src/test/resources/blockConfig.txt", "shortExample.txt");
+        List<OrTree> beam = new OrTree(this.initialPR).beam(this.order(), 50, new Random(5));
+        assertFalse(beam.isEmpty());
+        Set<ScheduleKey> distinct = new HashSet<>();
+        for (OrTree node : beam) {
+            this.assertSolution(node.getData());
+            assertEquals(Scheduler.getZobrist().hash(node.getData()), node.getHash());
+            assertTrue(distinct.add(ScheduleKey.of(node.getData())));
+        }
+    }
+}
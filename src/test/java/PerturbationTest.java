@@ -0,0 +1,83 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PerturbationTest {
+
+    // Based on "src/test/resources/symmetry.txt":
+    // Courses: 0 CPSC 231 LEC 01, 1 CPSC 231 LEC 02, 2 CPSC 331 LEC 01
+    // Course slots: 0 MO 8:00, 1 MO 9:00, 2 TU 9:30
+    // Labs: 3 CPSC 231 TUT 01
+    // Lab slots: 0 TU 10:00, 1 FR 10:00
+    // "src/test/resources/warmStart.txt" puts LEC 01 at TU 9:30, LEC 02 at MO 8:00 and TUT 01 at TU 10:00,
+    // and CPSC 331 LEC 01 at WE 9:00, which is not a slot
+
+    private Perturbation load() throws Exception {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/symmetry.txt", false, 60000));
+        return new Perturbation(new WarmStart("src/test/resources/warmStart.txt"), Scheduler.getConstr(), 3, 5);
+    }
+
+    private List<List<String>> schedule(int... slots) {
+        List<List<String>> pr = new ArrayList<>(Collections.nCopies(slots.length, Scheduler.UNASSIGNED_SLOT));
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] >= 0) {
+                pr.set(i, (i < 3 ? Scheduler.getCourseSlots() : Scheduler.getLabSlots()).get(slots[i]));
+            }
+        }
+        return pr;
+    }
+
+    @Test
+    public void testReferenceSlots() throws Exception {
+        Perturbation perturbation = this.load();
+        assertEquals(2, perturbation.getReferenceSlot(0));
+        assertEquals(0, perturbation.getReferenceSlot(1));
+        assertEquals(-1, perturbation.getReferenceSlot(2));
+        assertEquals(0, perturbation.getReferenceSlot(3));
+    }
+
+    @Test
+    public void testCostOfLeavingTheReferenceSlot() throws Exception {
+        Perturbation perturbation = this.load();
+        assertEquals(0, perturbation.cost(0, 2));
+        assertEquals(3, perturbation.cost(0, 0));
+        assertEquals(5, perturbation.cost(3, 1));
+        // Unassigned classes and classes the reference does not place cost nothing
+        assertEquals(0, perturbation.cost(0, -1));
+        assertEquals(0, perturbation.cost(2, 0));
+    }
+
+    @Test
+    public void testSummaryCountsMovedClasses() throws Exception {
+        Perturbation perturbation = this.load();
+        assertEquals("0 of 3 classes moved", perturbation.getSummary(this.schedule(2, 0, 1, 0)));
+        assertEquals("2 of 3 classes moved", perturbation.getSummary(this.schedule(0, 0, 2, 1)));
+        assertEquals("1 of 3 classes moved", perturbation.getSummary(this.schedule(-1, 1, -1, 0)));
+    }
+
+    @Test
+    public void testEvalAddsWeightedMoves() {
+        // wPerturb=10 and a penalty of 1 per move, measured against "src/test/resources/symmetryReference.txt"
+        assertNotNull(Scheduler.run("src/test/resources/symmetryConfig.txt", "src/test/resources/symmetry.txt",
+            false, 60000));
+        assertNotNull(Scheduler.getEval().getPerturbation());
+        SoftConstraint eval = Scheduler.getEval();
+        int atReference = eval.eval(this.schedule(1, 0, 2, 1));
+        // Swapping the sections of CPSC 231 moves two classes, moving CPSC 331 LEC 01 to MO 9:00 one
+        assertEquals(atReference + 20, eval.eval(this.schedule(0, 1, 2, 1)));
+        assertEquals(atReference + 10, eval.eval(this.schedule(1, 0, 1, 1)));
+    }
+
+    @Test
+    public void testNoPerturbationWithoutWeight() {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/symmetry.txt", false, 60000));
+        assertNull(Scheduler.getReference());
+        assertNull(Scheduler.getEval().getPerturbation());
+    }
+}
@@ -0,0 +1,94 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PopulationTest {
+
+    // Based on "deptinst1.txt"
+
+    @Before
+    public void setUp() {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "deptinst1.txt", false, 60000));
+    }
+
+    private List<List<String>> randomSchedule(Random rand) {
+        int numCourses = Scheduler.getCourses().size();
+        List<List<String>> pr = new ArrayList<>();
+        for (int i = 0; i < Scheduler.getClasses().size(); i++) {
+            List<List<String>> slots = i < numCourses ? Scheduler.getCourseSlots() : Scheduler.getLabSlots();
+            pr.add(rand.nextInt(10) == 0 ? Scheduler.UNASSIGNED_SLOT : slots.get(rand.nextInt(slots.size())));
+        }
+        return pr;
+    }
+
+    private void assertSamePopulation(Population expected, Population actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+            assertEquals(expected.getFitness(i), actual.getFitness(i));
+            assertEquals(expected.getHash(i), actual.getHash(i));
+        }
+        assertEquals(expected.asList(), actual.asList());
+    }
+
+    @Test
+    public void testOffHeapRoundTripWithRetain() {
+        Random rand = new Random(1);
+        Population heap = new HeapPopulation();
+        // A capacity of one record makes the buffer grow several times
+        Population offHeap = new OffHeapPopulation(1);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 10; i++) {
+                List<List<String>> schedule = this.randomSchedule(rand);
+                int fitness = rand.nextInt(100000);
+                long hash = rand.nextLong();
+                heap.add(schedule, fitness, hash);
+                offHeap.add(schedule, fitness, hash);
+            }
+            this.assertSamePopulation(heap, offHeap);
+            boolean[] removed = new boolean[heap.size()];
+            for (int i = 0; i < removed.length; i++) {
+                removed[i] = rand.nextInt(3) == 0;
+            }
+            heap.retain(removed);
+            offHeap.retain(removed);
+            this.assertSamePopulation(heap, offHeap);
+        }
+    }
+
+    @Test
+    public void testOffHeapRetainNothingAndEverything() {
+        Population offHeap = new OffHeapPopulation(4);
+        List<List<String>> schedule = this.randomSchedule(new Random(2));
+        offHeap.add(schedule, 5, 6);
+        offHeap.add(schedule, 7, 8);
+        offHeap.retain(new boolean[2]);
+        assertEquals(2, offHeap.size());
+        boolean[] removed = new boolean[2];
+        Arrays.fill(removed, true);
+        offHeap.retain(removed);
+        assertEquals(0, offHeap.size());
+        assertEquals(0, offHeap.asList().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOffHeapRejectsUnknownSlots() {
+        List<List<String>> schedule = this.randomSchedule(new Random(3));
+        schedule.set(0, Arrays.asList("SU", "8:00"));
+        new OffHeapPopulation(4).add(schedule, 0, 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOffHeapChecksIndices() {
+        Population offHeap = new OffHeapPopulation(4);
+        offHeap.add(this.randomSchedule(new Random(4)), 0, 0);
+        offHeap.getFitness(1);
+    }
+}
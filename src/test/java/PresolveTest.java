@@ -0,0 +1,87 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class PresolveTest {
+
+    // Based on "src/test/resources/departmental.txt" after the presolve:
+    // Courses: 0 CPSC 313 LEC 01, 1 CPSC 433 LEC 90, 2 CPSC 567 LEC 01, 3 CPSC 599 LEC 01
+    // Course slots: 0 MO 8:00, 1 MO 18:00, 2 TU 17:00 (TU 11:00 is removed)
+    // Labs: 4 CPSC 313 LEC 01 TUT 01, 5 CPSC 813 TUT 01 (added)
+    // Lab slots: 0 MO 8:00, 1 TU 18:00, 2 FR 10:00
+
+    private static String infeasibility(String fileName) throws Exception {
+        try {
+            Scheduler.loadInput(fileName);
+        } catch (IllegalStateException e) {
+            return e.getMessage();
+        }
+        fail("The presolve did not detect that " + fileName + " has no solution");
+        return null;
+    }
+
+    @Test
+    public void testRemovesTuesday11() throws Exception {
+        Scheduler.loadInput("src/test/resources/departmental.txt");
+        List<List<String>> courseSlots = Scheduler.getCourseSlots();
+        assertEquals(3, courseSlots.size());
+        for (List<String> slot : courseSlots) {
+            assertFalse(slot.get(0).equals("TU") && slot.get(1).equals("11:00"));
+        }
+    }
+
+    @Test
+    public void testAddsQuizLabOf313() throws Exception {
+        Scheduler.loadInput("src/test/resources/departmental.txt");
+        List<String> quiz = Arrays.asList("CPSC", "813", "TUT", "01");
+        assertEquals(6, Scheduler.getClasses().size());
+        assertEquals(quiz, Scheduler.getLabs().get(1));
+        assertTrue(Scheduler.getPartialAssignments().contains(
+            new ArrayList<>(Arrays.asList(quiz, List.of("TU"), List.of("18:00")))));
+        // The lecture and the lab of CPSC 313 must not overlap with the quiz
+        List<ArrayList<List<String>>> unwanted = Scheduler.getUnwanted();
+        assertTrue(unwanted.contains(new ArrayList<>(Arrays.asList(Scheduler.getCourses().get(0),
+            List.of("TU"), List.of("17:00")))));
+        assertTrue(unwanted.contains(new ArrayList<>(Arrays.asList(Scheduler.getLabs().get(0),
+            List.of("TU"), List.of("18:00")))));
+    }
+
+    @Test
+    public void testReducesDomains() throws Exception {
+        Scheduler.loadInput("src/test/resources/departmental.txt");
+        Presolve presolve = Scheduler.getPresolve();
+        // CPSC 313 LEC 01 is unwanted at TU 17:00
+        assertTrue(presolve.allows(0, 0));
+        assertFalse(presolve.allows(0, 2));
+        // The evening section CPSC 433 LEC 90 only fits MO 18:00
+        assertFalse(presolve.allows(1, 0));
+        assertTrue(presolve.allows(1, 1));
+        assertFalse(presolve.allows(1, 2));
+        // The quiz lab is partially assigned to TU 18:00, which is unwanted for the tutorial of CPSC 313
+        assertFalse(presolve.allows(5, 0));
+        assertTrue(presolve.allows(5, 1));
+        assertFalse(presolve.allows(4, 1));
+        assertEquals("6 of 18 class/slot pairs removed", presolve.getSummary());
+    }
+
+    @Test
+    public void testDetectsTooFewSlots() throws Exception {
+        // Three course slots with room for one course each
+        assertEquals("There are 4 courses, but the course slots only hold 3.",
+            PresolveTest.infeasibility("src/test/resources/overfull.txt"));
+    }
+
+    @Test
+    public void testDetects500LevelCoursesInTheSameSlot() throws Exception {
+        // MO 8:00 holds both, but 500-level courses must be in different slots
+        assertEquals("The 500-level courses CPSC 567 LEC 01 and CPSC 599 LEC 01 are both partially assigned to "
+            + "MO 8:00.", PresolveTest.infeasibility("src/test/resources/level500.txt"));
+    }
+}
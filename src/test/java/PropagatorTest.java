@@ -0,0 +1,67 @@
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PropagatorTest {
+
+    // Based on "src/test/resources/capacity.txt":
+    // Courses: 0 CPSC 231 LEC 01, 1 CPSC 449 LEC 01, 2 CPSC 567 LEC 01, 3 CPSC 599 LEC 01
+    // Course slots: 0 MO 8:00 (coursemax 1), 1 MO 9:00 (coursemax 3), 2 TU 9:30 (coursemax 3)
+    // CPSC 449 LEC 01 can only be at MO 8:00, CPSC 599 LEC 01 only at MO 9:00
+
+    private HardConstraint constr;
+    private Propagator propagator;
+
+    @Before
+    public void setUp() throws Exception {
+        Scheduler.loadInput("src/test/resources/capacity.txt");
+        this.constr = new HardConstraint();
+        this.propagator = new Propagator(this.constr, Scheduler.getPresolve());
+    }
+
+    private List<List<String>> schedule(Object... indexAndSlot) {
+        List<List<String>> pr = new ArrayList<>(Collections.nCopies(Scheduler.getClasses().size(),
+            Scheduler.UNASSIGNED_SLOT));
+        for (int i = 0; i < indexAndSlot.length; i += 2) {
+            pr.set((Integer) indexAndSlot[i], Scheduler.getCourseSlots().get((Integer) indexAndSlot[i + 1]));
+        }
+        return pr;
+    }
+
+    @Test
+    public void testEmptyScheduleIsFeasible() {
+        assertTrue(this.propagator.propagate(this.schedule()));
+    }
+
+    @Test
+    public void testFullSlotLeavesClassWithoutRoom() {
+        // CPSC 231 LEC 01 takes the only place at MO 8:00, which CPSC 449 LEC 01 needs
+        List<List<String>> pr = this.schedule(0, 0);
+        assertTrue(this.constr.constrStar(pr));
+        assertFalse(this.propagator.propagate(pr));
+        assertTrue(this.propagator.propagate(this.schedule(0, 1)));
+    }
+
+    @Test
+    public void testLevel500SectionsNeedDistinctSlots() {
+        // With CPSC 567 LEC 01 at MO 9:00, CPSC 599 LEC 01 has no slot left, although MO 9:00 has room
+        List<List<String>> pr = this.schedule(2, 1);
+        assertTrue(this.constr.constrStar(pr));
+        assertFalse(this.propagator.propagate(pr));
+        assertTrue(this.propagator.propagate(this.schedule(2, 2)));
+    }
+
+    @Test
+    public void testCompleteScheduleIsFeasible() {
+        List<List<String>> pr = this.schedule(0, 2, 1, 0, 2, 2, 3, 1);
+        pr.set(4, Scheduler.getLabSlots().get(0));
+        assertTrue(this.constr.constr(pr));
+        assertTrue(this.propagator.propagate(pr));
+    }
+}
@@ -0,0 +1,88 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RestartPolicyTest {
+
+    @After
+    public void tearDown() {
+        Scheduler.setRestartStrategy(RestartPolicy.Strategy.NONE);
+        Scheduler.setRestartBase(1000);
+        Scheduler.setRestartFactor(1.5);
+    }
+
+    @Test
+    public void testLubySequence() {
+        long[] expected = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], RestartPolicy.luby(i + 1));
+        }
+    }
+
+    @Test
+    public void testLubyLimits() {
+        RestartPolicy policy = new RestartPolicy(RestartPolicy.Strategy.LUBY, 100, 1.5);
+        assertEquals(100, policy.limit(0));
+        assertEquals(100, policy.limit(1));
+        assertEquals(200, policy.limit(2));
+        assertEquals(400, policy.limit(6));
+    }
+
+    @Test
+    public void testGeometricLimits() {
+        RestartPolicy policy = new RestartPolicy(RestartPolicy.Strategy.GEOMETRIC, 10, 2.0);
+        assertEquals(10, policy.limit(0));
+        assertEquals(20, policy.limit(1));
+        assertEquals(80, policy.limit(3));
+        // The limit saturates instead of overflowing
+        assertEquals(Long.MAX_VALUE, policy.limit(100));
+    }
+
+    @Test
+    public void testNoRestarts() {
+        RestartPolicy policy = new RestartPolicy(RestartPolicy.Strategy.NONE, 10, 2.0);
+        assertEquals(Long.MAX_VALUE, policy.limit(0));
+        assertEquals(Long.MAX_VALUE, policy.limit(5));
+    }
+
+    @Test
+    public void testInvalidBaseAndFactorAreClamped() {
+        RestartPolicy policy = new RestartPolicy(RestartPolicy.Strategy.GEOMETRIC, 0, 0.5);
+        assertEquals(1, policy.limit(0));
+        assertEquals(1, policy.limit(10));
+    }
+
+    @Test
+    public void testSearchContextRestartsAtTheLimit() {
+        Scheduler.setRestartStrategy(RestartPolicy.Strategy.LUBY);
+        Scheduler.setRestartBase(2);
+        List<List<String>> origin = new ArrayList<>();
+        SearchContext context = new SearchContext(origin);
+        assertFalse(context.countExpansion());
+        assertTrue(context.countExpansion());
+        // The second run of the Luby sequence has the same limit, the third twice the limit
+        context.restart();
+        assertFalse(context.countExpansion());
+        assertTrue(context.countExpansion());
+        context.restart();
+        for (int i = 0; i < 3; i++) {
+            assertFalse(context.countExpansion());
+        }
+        assertTrue(context.countExpansion());
+    }
+
+    @Test
+    public void testRestartForgetsTheGeneratedNodes() {
+        SearchContext context = new SearchContext(new ArrayList<>());
+        assertTrue(context.firstVisit(42));
+        assertFalse(context.firstVisit(42));
+        context.restart();
+        assertTrue(context.firstVisit(42));
+    }
+}
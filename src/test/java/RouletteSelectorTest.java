@@ -0,0 +1,88 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RouletteSelectorTest {
+
+    private static final int DRAWS = 200000;
+
+    private List<List<List<String>>> generation(int size) {
+        List<List<List<String>>> generation = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            generation.add(Collections.singletonList(Collections.singletonList(String.valueOf(i))));
+        }
+        return generation;
+    }
+
+    private double[] frequencies(Selector selector, int size, int ignoreFactIndex) {
+        double[] frequencies = new double[size];
+        for (int i = 0; i < DRAWS; i++) {
+            frequencies[selector.select(ignoreFactIndex)] += 1.0 / DRAWS;
+        }
+        return frequencies;
+    }
+
+    @Test
+    public void testDrawsFollowTheWheel() {
+        // Weights are the distance to the worst Eval value plus one: 11, 6, 1, 1 out of 19
+        RouletteSelector selector = new RouletteSelector(this.generation(4), new int[] {0, 5, 10, 10},
+            new Random(1));
+        double[] frequencies = this.frequencies(selector, 4, -1);
+        assertEquals(11.0 / 19, frequencies[0], 0.01);
+        assertEquals(6.0 / 19, frequencies[1], 0.01);
+        assertEquals(1.0 / 19, frequencies[2], 0.01);
+        assertEquals(1.0 / 19, frequencies[3], 0.01);
+    }
+
+    @Test
+    public void testIgnoredFactIsNeverDrawn() {
+        RouletteSelector selector = new RouletteSelector(this.generation(4), new int[] {0, 5, 10, 10},
+            new Random(2));
+        double[] frequencies = this.frequencies(selector, 4, 0);
+        assertEquals(0.0, frequencies[0], 0.0);
+        assertEquals(6.0 / 8, frequencies[1], 0.01);
+        assertEquals(1.0 / 8, frequencies[2], 0.01);
+        assertEquals(1.0 / 8, frequencies[3], 0.01);
+    }
+
+    @Test
+    public void testEqualCandidatesAreEquallyLikely() {
+        RouletteSelector selector = new RouletteSelector(this.generation(5), new int[] {7, 7, 7, 7, 7},
+            new Random(3));
+        double[] frequencies = this.frequencies(selector, 5, 2);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i == 2 ? 0.0 : 0.25, frequencies[i], 0.01);
+        }
+    }
+
+    @Test
+    public void testSelectionIsTheDrawnCandidate() {
+        List<List<List<String>>> generation = this.generation(3);
+        RouletteSelector selector = new RouletteSelector(generation, new int[] {1, 2, 3}, new Random(4));
+        assertNull(selector.getSelection());
+        int choice = selector.select(-1);
+        assertSame(generation.get(choice), selector.getSelection());
+        assertNotEquals(1, selector.select(1));
+    }
+
+    @Test
+    public void testSingleCandidateCannotBePairedWithItself() {
+        RouletteSelector selector = new RouletteSelector(this.generation(1), new int[] {3}, new Random(5));
+        assertEquals(0, selector.select(-1));
+        assertEquals(-1, selector.select(0));
+        assertNull(selector.getSelection());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyGenerationIsRejected() {
+        new RouletteSelector(this.generation(0), new int[0], new Random(6));
+    }
+}
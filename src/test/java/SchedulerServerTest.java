@@ -0,0 +1,112 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchedulerServerTest {
+
+    private SchedulerServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        this.server = SchedulerServer.start(0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.server.stop();
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest.BodyPublisher publisher = body == null
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofString(body);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + this.server.getPort() + path))
+            .method(method, publisher)
+            .build();
+        // A new client for every request, as the service may close a connection after an error response
+        return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String body(String config, String input) throws Exception {
+        return Files.readString(Path.of(config)) + Files.readString(Path.of(input));
+    }
+
+    private String submit(String query, String input) throws Exception {
+        HttpResponse<String> response = this.send("POST", "/jobs" + query,
+            SchedulerServerTest.body("src/test/resources/config.txt", input));
+        assertEquals(202, response.statusCode());
+        return response.body().trim();
+    }
+
+    private String awaitEnd(String id) throws Exception {
+        // The progress is streamed until the job ends
+        this.send("GET", "/jobs/" + id + "/progress", null);
+        return this.send("GET", "/jobs/" + id, null).body().trim();
+    }
+
+    @Test
+    public void testRunsJob() throws Exception {
+        String id = this.submit("", "src/test/resources/symmetry.txt");
+        assertEquals("DONE", this.awaitEnd(id));
+        HttpResponse<String> result = this.send("GET", "/jobs/" + id + "/result", null);
+        assertEquals(200, result.statusCode());
+        assertTrue(result.body().startsWith("Eval-value: "));
+        assertTrue(result.body().contains("CPSC 231 TUT 01"));
+        assertFalse(Files.exists(Path.of("Symmetryoutput.txt")));
+    }
+
+    @Test
+    public void testReSolvesFromPreviousJob() throws Exception {
+        String previous = this.submit("", "src/test/resources/symmetry.txt");
+        assertEquals("DONE", this.awaitEnd(previous));
+        String id = this.submit("?previous=" + previous + "&timeLimit=30", "src/test/resources/symmetryEdited.txt");
+        assertEquals("DONE", this.awaitEnd(id));
+        String result = this.send("GET", "/jobs/" + id + "/result", null).body();
+        assertFalse(result.contains("CPSC 331 LEC 01                    : TU, 09:30"));
+    }
+
+    @Test
+    public void testReportsJobWithoutSolution() throws Exception {
+        String id = this.submit("", "src/test/resources/pigeonhole.txt");
+        assertEquals("FAILED", this.awaitEnd(id));
+        assertEquals(422, this.send("GET", "/jobs/" + id + "/result", null).statusCode());
+        // An ended job cannot be cancelled, nor re-solved without a schedule
+        assertEquals(409, this.send("DELETE", "/jobs/" + id, null).statusCode());
+        assertEquals(409, this.send("POST", "/jobs?previous=" + id,
+            SchedulerServerTest.body("src/test/resources/config.txt", "src/test/resources/symmetry.txt")).statusCode());
+    }
+
+    @Test
+    public void testCancelsJobs() throws Exception {
+        String running = this.submit("", "deptinst1.txt");
+        String queued = this.submit("", "deptinst1.txt");
+        assertEquals(202, this.send("DELETE", "/jobs/" + queued, null).statusCode());
+        assertEquals(202, this.send("DELETE", "/jobs/" + running, null).statusCode());
+        assertEquals("CANCELLED", this.awaitEnd(queued));
+        assertEquals("CANCELLED", this.awaitEnd(running));
+        assertEquals(410, this.send("GET", "/jobs/" + running + "/result", null).statusCode());
+    }
+
+    @Test
+    public void testRejectsInvalidRequests() throws Exception {
+        String config = Files.readString(Path.of("src/test/resources/config.txt"));
+        assertEquals(400, this.send("POST", "/jobs", config).statusCode());
+        String body = SchedulerServerTest.body("src/test/resources/config.txt", "src/test/resources/symmetry.txt");
+        assertEquals(400, this.send("POST", "/jobs?timeLimit=0", body).statusCode());
+        assertEquals(409, this.send("POST", "/jobs?previous=99", body).statusCode());
+        assertEquals(404, this.send("GET", "/jobs/99", null).statusCode());
+        assertEquals(404, this.send("GET", "/schedules", null).statusCode());
+        assertEquals(405, this.send("PUT", "/jobs/1", "").statusCode());
+    }
+}
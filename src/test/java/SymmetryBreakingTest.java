@@ -0,0 +1,132 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SymmetryBreakingTest {
+
+    // Based on "src/test/resources/symmetry.txt":
+    // Courses: 0 CPSC 231 LEC 01, 1 CPSC 231 LEC 02, 2 CPSC 331 LEC 01
+    // Course slots: 0 MO 8:00, 1 MO 9:00, 2 TU 9:30
+    // Labs: 3 CPSC 231 TUT 01, open to both sections, so the two sections of CPSC 231 are interchangeable
+
+    private HardConstraint constr;
+
+    @Before
+    public void setUp() throws Exception {
+        Scheduler.setSymmetryBreaking(true);
+        Scheduler.loadInput("src/test/resources/symmetry.txt");
+        this.constr = new HardConstraint();
+    }
+
+    @After
+    public void tearDown() {
+        Scheduler.setSymmetryBreaking(false);
+    }
+
+    private List<List<String>> schedule(Object... indexAndSlot) {
+        List<List<String>> pr = new ArrayList<>(Collections.nCopies(Scheduler.getClasses().size(),
+            Scheduler.UNASSIGNED_SLOT));
+        for (int i = 0; i < indexAndSlot.length; i += 2) {
+            pr.set((Integer) indexAndSlot[i], Scheduler.getCourseSlots().get((Integer) indexAndSlot[i + 1]));
+        }
+        return pr;
+    }
+
+    @Test
+    public void testFindsInterchangeableSections() {
+        assertEquals(1, this.constr.getNumSymmetryGroups());
+    }
+
+    @Test
+    public void testNoGroupsWithoutSymmetryBreaking() {
+        Scheduler.setSymmetryBreaking(false);
+        HardConstraint plain = new HardConstraint();
+        assertEquals(0, plain.getNumSymmetryGroups());
+        List<List<String>> swapped = this.schedule(0, 1, 1, 0);
+        assertSame(swapped, plain.canonical(swapped));
+        assertTrue(plain.constrStar(swapped));
+    }
+
+    @Test
+    public void testCanonicalSortsSectionsIntoSlotOrder() {
+        List<List<String>> swapped = this.schedule(0, 1, 1, 0, 2, 2);
+        List<List<String>> canonical = this.constr.canonical(swapped);
+        assertEquals(this.schedule(0, 0, 1, 1, 2, 2), canonical);
+        // The schedule passed in is left as it is
+        assertNotSame(swapped, canonical);
+        assertEquals(this.schedule(0, 1, 1, 0, 2, 2), swapped);
+    }
+
+    @Test
+    public void testCanonicalKeepsCanonicalSchedule() {
+        List<List<String>> ordered = this.schedule(0, 0, 1, 1);
+        assertSame(ordered, this.constr.canonical(ordered));
+        // Sections in the same slot are in order as well
+        List<List<String>> shared = this.schedule(0, 2, 1, 2);
+        assertSame(shared, this.constr.canonical(shared));
+    }
+
+    @Test
+    public void testEquivalentSchedulesShareCanonicalForm() {
+        assertEquals(this.constr.canonical(this.schedule(0, 2, 1, 0)),
+            this.constr.canonical(this.schedule(0, 0, 1, 2)));
+    }
+
+    @Test
+    public void testCanonicalOfOneAssignedClass() {
+        List<List<String>> swapped = this.schedule(0, 1, 1, 0);
+        assertEquals(this.schedule(0, 0, 1, 1), this.constr.canonical(swapped, 1));
+        // A class outside every group leaves the schedule as it is
+        assertSame(swapped, this.constr.canonical(swapped, 2));
+        // Unassigned sections are left out of the order
+        List<List<String>> partial = this.schedule(1, 0);
+        assertSame(partial, this.constr.canonical(partial, 1));
+    }
+
+    @Test
+    public void testConstraintsKeepOnlyCanonicalSchedules() {
+        assertFalse(this.constr.constrStar(this.schedule(0, 1, 1, 0)));
+        assertTrue(this.constr.constrStar(this.schedule(0, 0, 1, 1)));
+    }
+
+    @Test
+    public void testReferenceSplitsSectionsInDifferentSlots() throws Exception {
+        // The reference puts LEC 01 at MO 9:00 and LEC 02 at MO 8:00, against section order
+        this.constr.separateByReference(new WarmStart("src/test/resources/symmetryReference.txt"));
+        assertEquals(0, this.constr.getNumSymmetryGroups());
+        List<List<String>> reference = this.schedule(0, 1, 1, 0, 2, 2);
+        assertSame(reference, this.constr.canonical(reference));
+        assertSame(reference, this.constr.canonical(reference, 1));
+        assertTrue(this.constr.constrStar(reference));
+    }
+
+    @Test
+    public void testReferenceKeepsSectionsInTheSameSlot() throws Exception {
+        // Both sections are at TU 9:30 in this reference, so they stay interchangeable
+        this.constr.separateByReference(new WarmStart("src/test/resources/symmetryShared.txt"));
+        assertEquals(1, this.constr.getNumSymmetryGroups());
+        assertFalse(this.constr.constrStar(this.schedule(0, 1, 1, 0)));
+        this.constr.separateByReference(null);
+        assertEquals(1, this.constr.getNumSymmetryGroups());
+    }
+
+    @Test
+    public void testWarmStartKeepsTheReferenceSchedule() {
+        // Moves from the reference cost 10 each, and the reference itself has no other penalty
+        String solution = Scheduler.run("src/test/resources/symmetryConfig.txt", "src/test/resources/symmetry.txt",
+            false, 60000);
+        assertTrue(solution.startsWith("Eval-value: 0"));
+        assertTrue(solution.contains("CPSC 231 LEC 01                    : MO, 09:00"));
+        assertTrue(solution.contains("CPSC 231 LEC 02                    : MO, 08:00"));
+    }
+}
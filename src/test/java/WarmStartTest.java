@@ -0,0 +1,85 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class WarmStartTest {
+
+    // Based on "src/test/resources/symmetry.txt":
+    // Courses: 0 CPSC 231 LEC 01, 1 CPSC 231 LEC 02, 2 CPSC 331 LEC 01
+    // Labs: 3 CPSC 231 TUT 01
+    // "src/test/resources/warmStart.txt" puts CPSC 231 TUT 01 at TU 10:00, which overlaps its lecture
+    // CPSC 231 LEC 01 at TU 9:30, CPSC 331 LEC 01 at WE 9:00, which is not a slot, and has a class
+    // that is not in the input
+
+    @Test
+    public void testReadsScheduleFile() throws Exception {
+        WarmStart warmStart = new WarmStart("src/test/resources/warmStart.txt");
+        assertEquals(5, warmStart.size());
+        // Times are read without the leading zero of the output file
+        assertEquals(Arrays.asList("TU", "9:30"), warmStart.getDayTime(Arrays.asList("CPSC", "231", "LEC", "01")));
+        assertEquals(Arrays.asList("TU", "10:00"), warmStart.getDayTime(Arrays.asList("CPSC", "231", "TUT", "01")));
+    }
+
+    @Test
+    public void testMapsScheduleOntoInput() throws Exception {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/symmetry.txt", false, 60000));
+        WarmStart warmStart = new WarmStart("src/test/resources/warmStart.txt");
+        assertEquals(Scheduler.getCourseSlots().get(2), warmStart.slotOf(0));
+        assertEquals(Scheduler.getCourseSlots().get(0), warmStart.slotOf(1));
+        assertEquals(Scheduler.getLabSlots().get(0), warmStart.slotOf(3));
+        assertEquals(Scheduler.UNASSIGNED_SLOT, warmStart.slotOf(2));
+    }
+
+    @Test
+    public void testDropsAssignmentsThatBreakConstraints() throws Exception {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/symmetry.txt", false, 60000));
+        WarmStart warmStart = new WarmStart("src/test/resources/warmStart.txt");
+        List<List<String>> loaded = warmStart.load(Scheduler.getInitialPR());
+        assertTrue(Scheduler.getConstr().constrStar(loaded));
+        assertEquals(Scheduler.getCourseSlots().get(0), loaded.get(1));
+        assertEquals(Scheduler.UNASSIGNED_SLOT, loaded.get(2));
+        // Only one of the overlapping lecture and lab is kept
+        assertTrue(loaded.get(0).equals(Scheduler.UNASSIGNED_SLOT) != loaded.get(3).equals(Scheduler.UNASSIGNED_SLOT));
+        assertEquals("2 classes kept, 2 re-assigned, 0 variants", warmStart.getSummary());
+    }
+
+    @Test
+    public void testSeedsAreCompleteSchedules() throws Exception {
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "src/test/resources/symmetry.txt", false, 60000));
+        WarmStart warmStart = new WarmStart("src/test/resources/warmStart.txt");
+        List<List<List<String>>> seeds = warmStart.seeds(Scheduler.getInitialPR(), 3, new Random(4));
+        assertTrue(!seeds.isEmpty() && seeds.size() <= 3);
+        for (List<List<String>> seed : seeds) {
+            assertTrue(Scheduler.getConstr().constr(seed));
+        }
+        // The first seed keeps what could be kept of the file
+        assertEquals(Scheduler.getCourseSlots().get(0), seeds.get(0).get(1));
+    }
+
+    @Test
+    public void testOutputIsReadBackUnchanged() throws Exception {
+        String output = Scheduler.run("src/test/resources/config.txt", "deptinst1.txt", false, 60000);
+        assertNotNull(output);
+        Path file = Files.createTempFile("deptinst1", "output.txt");
+        WarmStart warmStart;
+        try {
+            Files.write(file, output.getBytes());
+            warmStart = new WarmStart(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+        List<List<String>> loaded = warmStart.load(Scheduler.getInitialPR());
+        assertTrue(Scheduler.getConstr().constr(loaded));
+        assertEquals(Scheduler.getClasses().size(), warmStart.size());
+        List<List<List<String>>> seeds = warmStart.seeds(Scheduler.getInitialPR(), 1, new Random(6));
+        assertEquals(List.of(loaded), seeds);
+    }
+}
@@ -0,0 +1,107 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZobristTest {
+
+    // Based on "deptinst1.txt"
+
+    private HardConstraint constr;
+    private Zobrist zobrist;
+    private int numCourses;
+
+    @Before
+    public void setUp() throws Exception {
+        Scheduler.loadInput("deptinst1.txt");
+        this.constr = new HardConstraint();
+        this.zobrist = new Zobrist(this.constr);
+        this.numCourses = Scheduler.getCourses().size();
+    }
+
+    private List<List<String>> slots(int classIndex) {
+        return classIndex < this.numCourses ? Scheduler.getCourseSlots() : Scheduler.getLabSlots();
+    }
+
+    private List<List<String>> randomSchedule(Random rand) {
+        List<List<String>> pr = new ArrayList<>();
+        for (int i = 0; i < Scheduler.getClasses().size(); i++) {
+            List<List<String>> slots = this.slots(i);
+            pr.add(rand.nextInt(4) == 0 ? Scheduler.UNASSIGNED_SLOT : slots.get(rand.nextInt(slots.size())));
+        }
+        return pr;
+    }
+
+    @Test
+    public void testEmptyScheduleHashesToZero() {
+        List<List<String>> pr = new ArrayList<>(Collections.nCopies(Scheduler.getClasses().size(),
+            Scheduler.UNASSIGNED_SLOT));
+        assertEquals(0, this.zobrist.hash(pr));
+        assertEquals(0, this.zobrist.key(0, Scheduler.UNASSIGNED_SLOT));
+        assertEquals(0, this.zobrist.key(0, -1));
+    }
+
+    @Test
+    public void testKeyOfSlotMatchesKeyOfSlotIndex() {
+        int lab = this.numCourses;
+        assertEquals(this.zobrist.key(0, 2), this.zobrist.key(0, Scheduler.getCourseSlots().get(2)));
+        assertEquals(this.zobrist.key(lab, 3), this.zobrist.key(lab, Scheduler.getLabSlots().get(3)));
+    }
+
+    @Test
+    public void testIncrementalHashEqualsFullHash() {
+        Random rand = new Random(1);
+        List<List<String>> pr = this.randomSchedule(rand);
+        long hash = this.zobrist.hash(pr);
+        for (int step = 0; step < 1000; step++) {
+            // Move, assign or unassign a random class and update the hash with the two keys
+            int classIndex = rand.nextInt(pr.size());
+            List<List<String>> slots = this.slots(classIndex);
+            List<String> slot = rand.nextInt(5) == 0
+                ? Scheduler.UNASSIGNED_SLOT : slots.get(rand.nextInt(slots.size()));
+            hash ^= this.zobrist.key(classIndex, pr.get(classIndex)) ^ this.zobrist.key(classIndex, slot);
+            pr.set(classIndex, slot);
+            assertEquals(this.zobrist.hash(pr), hash);
+        }
+    }
+
+    @Test
+    public void testHashDependsOnWhichClassHasWhichSlot() {
+        List<List<String>> pr = new ArrayList<>(Collections.nCopies(Scheduler.getClasses().size(),
+            Scheduler.UNASSIGNED_SLOT));
+        pr.set(0, Scheduler.getCourseSlots().get(0));
+        pr.set(1, Scheduler.getCourseSlots().get(1));
+        long hash = this.zobrist.hash(pr);
+        pr.set(0, Scheduler.getCourseSlots().get(1));
+        pr.set(1, Scheduler.getCourseSlots().get(0));
+        assertNotEquals(hash, this.zobrist.hash(pr));
+    }
+
+    @Test
+    public void testKeysAreTheSameForEveryRun() {
+        assertEquals(this.zobrist.key(5, 1), new Zobrist(this.constr).key(5, 1));
+    }
+
+    @Test
+    public void testSearchNodesKeepTheirHash() {
+        // The or-tree children update their parent's hash with the key of the assigned class
+        assertNotNull(Scheduler.run("src/test/resources/config.txt", "shortExample.txt", false, 60000));
+        ArrayList<Integer> order = new ArrayList<>();
+        for (int index : Scheduler.getConstr().getMostTightlyBoundIndices()) {
+            order.add(index);
+        }
+        List<OrTree> beam = new OrTree(Scheduler.getInitialPR()).beam(order, 50, new Random(2));
+        assertFalse(beam.isEmpty());
+        for (OrTree node : beam) {
+            assertEquals(Scheduler.getZobrist().hash(node.getData()), node.getHash());
+        }
+    }
+}